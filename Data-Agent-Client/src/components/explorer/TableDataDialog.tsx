@@ -1,5 +1,5 @@
 import { useState, useEffect } from 'react';
-import { Loader2, ChevronLeft, ChevronRight } from 'lucide-react';
+import { Loader2, ChevronLeft, ChevronRight, Download, ChevronsRight } from 'lucide-react';
 import { useTranslation } from 'react-i18next';
 import { cn } from '../../lib/utils';
 import {
@@ -25,6 +25,37 @@ export interface TableDataDialogProps {
   highlightColumn?: string;
 }
 
+/** Large value sent as a handle; the bytes are fetched separately from the table LOB endpoint */
+interface LobHandle {
+  kind: 'BLOB' | 'CLOB';
+  size: number;
+  contentType: string;
+  preview?: string | null;
+  locator?: string | null;
+}
+
+const isLobHandle = (value: unknown): value is LobHandle =>
+  typeof value === 'object' && value !== null && 'kind' in value && 'size' in value && 'contentType' in value;
+
+const formatSize = (bytes: number): string => {
+  if (bytes >= 1024 * 1024) return `${(bytes / (1024 * 1024)).toFixed(2)} MB`;
+  if (bytes >= 1024) return `${(bytes / 1024).toFixed(2)} KB`;
+  return `${bytes} B`;
+};
+
+/** Bytes of a CLOB fetched when its preview is expanded in the grid */
+const LOB_LOAD_BYTES = 64 * 1024;
+
+/** Whether the preview holds less than the whole value; size is in UTF-8 bytes */
+const isTruncatedPreview = (handle: LobHandle): boolean =>
+  handle.preview != null && new TextEncoder().encode(handle.preview).length < handle.size;
+
+/** Text of a CLOB read in place of its preview */
+interface LoadedLob {
+  text: string;
+  complete: boolean;
+}
+
 export function TableDataDialog({
   open,
   onOpenChange,
@@ -42,20 +73,30 @@ export function TableDataDialog({
   const [loading, setLoading] = useState(false);
   const [error, setError] = useState<string | null>(null);
   const [currentPage, setCurrentPage] = useState(1);
+  // Cursor to request each page with, for tables paged by key
+  const [pageCursors, setPageCursors] = useState<Record<number, string>>({});
+  // Expanded CLOBs of the current page, by row:column
+  const [loadedLobs, setLoadedLobs] = useState<Record<string, LoadedLob>>({});
+  const [lobBusy, setLobBusy] = useState<string | null>(null);
+  const [lobError, setLobError] = useState<string | null>(null);
   const pageSize = 100;
 
   useEffect(() => {
     if (open) {
       setCurrentPage(1);
+      setPageCursors({});
       loadData(1);
     } else {
       setData(null);
       setError(null);
       setCurrentPage(1);
+      setPageCursors({});
+      setLoadedLobs({});
+      setLobError(null);
     }
   }, [open]);
 
-  const loadData = async (page: number) => {
+  const loadData = async (page: number, cursor?: string) => {
     setLoading(true);
     setError(null);
     try {
@@ -67,7 +108,8 @@ export function TableDataDialog({
           catalog,
           schema,
           page,
-          pageSize
+          pageSize,
+          cursor
         );
       } else {
         result = await tableDataService.getViewData(
@@ -80,7 +122,13 @@ export function TableDataDialog({
         );
       }
       setData(result);
+      setLoadedLobs({});
+      setLobError(null);
       setCurrentPage(page);
+      const nextCursor = result.nextCursor;
+      if (nextCursor) {
+        setPageCursors((cursors) => ({ ...cursors, [page + 1]: nextCursor }));
+      }
     } catch (err: unknown) {
       console.error('Failed to load table data:', err);
       setError((err as Error).message || t('explorer.load_table_data_failed'));
@@ -91,20 +139,86 @@ export function TableDataDialog({
 
   const handlePrevPage = () => {
     if (currentPage > 1) {
-      loadData(currentPage - 1);
+      loadData(currentPage - 1, pageCursors[currentPage - 1]);
     }
   };
 
   const handleNextPage = () => {
-    if (data && currentPage < data.totalPages) {
-      loadData(currentPage + 1);
+    if (data && (currentPage < data.totalPages || data.nextCursor)) {
+      loadData(currentPage + 1, pageCursors[currentPage + 1]);
+    }
+  };
+
+  const loadLob = async (key: string, column: string, handle: LobHandle) => {
+    if (!handle.locator) return;
+    setLobBusy(key);
+    setLobError(null);
+    try {
+      const { blob, totalSize } = await tableDataService.getLob(
+        String(connectionId),
+        objectName,
+        column,
+        handle.locator,
+        handle.kind,
+        catalog,
+        schema,
+        { start: 0, end: Math.min(LOB_LOAD_BYTES, handle.size) - 1 }
+      );
+      const bytes = new Uint8Array(await blob.arrayBuffer());
+      const complete = bytes.length >= totalSize;
+      // A character cut at the end of the range decodes as a replacement character
+      let text = new TextDecoder().decode(bytes);
+      if (!complete) text = text.replace(/\uFFFD+$/, '');
+      setLoadedLobs((loaded) => ({ ...loaded, [key]: { text, complete } }));
+    } catch (err: unknown) {
+      console.error('Failed to load large value:', err);
+      setLobError((err as Error).message || t('explorer.load_lob_failed'));
+    } finally {
+      setLobBusy(null);
+    }
+  };
+
+  const downloadLob = async (key: string, column: string, handle: LobHandle) => {
+    if (!handle.locator) return;
+    setLobBusy(key);
+    setLobError(null);
+    try {
+      const { blob } = await tableDataService.getLob(
+        String(connectionId),
+        objectName,
+        column,
+        handle.locator,
+        handle.kind,
+        catalog,
+        schema
+      );
+      const url = URL.createObjectURL(blob);
+      const link = document.createElement('a');
+      link.href = url;
+      link.download = `${objectName}-${column}${handle.kind === 'CLOB' ? '.txt' : ''}`;
+      link.click();
+      URL.revokeObjectURL(url);
+    } catch (err: unknown) {
+      console.error('Failed to download large value:', err);
+      setLobError((err as Error).message || t('explorer.load_lob_failed'));
+    } finally {
+      setLobBusy(null);
     }
   };
 
-  const formatCellValue = (value: unknown): string => {
+  const formatCellValue = (value: unknown, loaded?: LoadedLob): string => {
     if (value === null || value === undefined) {
       return 'NULL';
     }
+    if (isLobHandle(value)) {
+      if (loaded) {
+        return loaded.complete ? loaded.text : `${loaded.text}… [${formatSize(value.size)}]`;
+      }
+      if (value.preview == null) {
+        return `[${value.kind} ${formatSize(value.size)} ${value.contentType}]`;
+      }
+      return isTruncatedPreview(value) ? `${value.preview}… [${formatSize(value.size)}]` : value.preview;
+    }
     if (typeof value === 'object') {
       return JSON.stringify(value);
     }
@@ -139,6 +253,7 @@ export function TableDataDialog({
               {/* Pagination info */}
               <div className="flex items-center justify-between text-xs theme-text-secondary">
                 <span>
+                  {data.totalCountExact === false && '~'}
                   {t('explorer.total_records', { count: data.totalCount })}
                   {data.totalPages > 0 && ` (${data.totalPages} ${t('explorer.pages')})`}
                 </span>
@@ -150,6 +265,12 @@ export function TableDataDialog({
                 </span>
               </div>
 
+              {lobError && (
+                <div className="p-2 bg-destructive/10 text-destructive rounded-md text-xs">
+                  {lobError}
+                </div>
+              )}
+
               {/* Data table */}
               <div className="flex-1 overflow-auto border theme-border rounded-md">
                 <table className="w-full text-xs border-collapse">
@@ -174,18 +295,56 @@ export function TableDataDialog({
                         key={rowIndex}
                         className="hover:bg-accent/50"
                       >
-                        {data.headers.map((col, colIndex) => (
-                          <td
-                            key={col}
-                            className={cn(
-                              "border theme-border px-2 py-1 max-w-xs truncate",
-                              highlightColumn === col && "bg-yellow-100 dark:bg-yellow-900/30"
-                            )}
-                            title={formatCellValue(row[colIndex])}
-                          >
-                            {formatCellValue(row[colIndex])}
-                          </td>
-                        ))}
+                        {data.headers.map((col, colIndex) => {
+                          const value = row[colIndex];
+                          const key = `${rowIndex}:${colIndex}`;
+                          const loaded = loadedLobs[key];
+                          const text = formatCellValue(value, loaded);
+                          // Only table rows have a locator to read the value by
+                          const lob = objectType === 'table' && isLobHandle(value) && value.locator ? value : null;
+                          return (
+                            <td
+                              key={col}
+                              className={cn(
+                                "border theme-border px-2 py-1 max-w-xs truncate",
+                                highlightColumn === col && "bg-yellow-100 dark:bg-yellow-900/30"
+                              )}
+                              title={text}
+                            >
+                              {lob ? (
+                                <span className="flex items-center gap-1">
+                                  <span className="truncate">{text}</span>
+                                  {lobBusy === key ? (
+                                    <Loader2 className="w-3 h-3 shrink-0 animate-spin theme-text-secondary" />
+                                  ) : (
+                                    <>
+                                      {lob.kind === 'CLOB' && isTruncatedPreview(lob) && !loaded && (
+                                        <button
+                                          type="button"
+                                          className="shrink-0 theme-text-secondary hover:text-foreground"
+                                          title={t('explorer.load_lob')}
+                                          onClick={() => loadLob(key, col, lob)}
+                                        >
+                                          <ChevronsRight className="w-3 h-3" />
+                                        </button>
+                                      )}
+                                      <button
+                                        type="button"
+                                        className="shrink-0 theme-text-secondary hover:text-foreground"
+                                        title={t('explorer.download_lob')}
+                                        onClick={() => downloadLob(key, col, lob)}
+                                      >
+                                        <Download className="w-3 h-3" />
+                                      </button>
+                                    </>
+                                  )}
+                                </span>
+                              ) : (
+                                text
+                              )}
+                            </td>
+                          );
+                        })}
                       </tr>
                     ))}
                     {data.rows.length === 0 && (
@@ -203,7 +362,7 @@ export function TableDataDialog({
               </div>
 
               {/* Pagination controls */}
-              {data.totalPages > 1 && (
+              {(data.totalPages > 1 || currentPage > 1 || data.nextCursor) && (
                 <div className="flex items-center justify-center gap-2 pt-2">
                   <Button
                     variant="outline"
@@ -221,7 +380,7 @@ export function TableDataDialog({
                     variant="outline"
                     size="sm"
                     onClick={handleNextPage}
-                    disabled={currentPage >= data.totalPages}
+                    disabled={currentPage >= data.totalPages && !data.nextCursor}
                   >
                     {t('explorer.next')}
                     <ChevronRight className="w-4 h-4" />
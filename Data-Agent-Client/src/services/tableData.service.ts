@@ -5,9 +5,20 @@ export interface TableDataResponse {
   headers: string[];
   rows: unknown[][];
   totalCount: number;
+  /** False when totalCount is an estimate */
+  totalCountExact?: boolean;
   currentPage: number;
   pageSize: number;
   totalPages: number;
+  /** Cursor of the next page when the table is paged by key */
+  nextCursor?: string | null;
+}
+
+/** Bytes of a large value as sent by the table LOB endpoint */
+export interface LobContent {
+  blob: Blob;
+  /** Size of the whole value in bytes, which a range may cover only part of */
+  totalSize: number;
 }
 
 export const tableDataService = {
@@ -17,7 +28,8 @@ export const tableDataService = {
     catalog?: string,
     schema?: string,
     currentPage: number = 1,
-    pageSize: number = 100
+    pageSize: number = 100,
+    cursor?: string
   ): Promise<TableDataResponse> => {
     const params: Record<string, string | number> = {
       connectionId,
@@ -27,6 +39,7 @@ export const tableDataService = {
     };
     if (catalog != null && catalog !== '') params.catalog = catalog;
     if (schema != null && schema !== '') params.schema = schema;
+    if (cursor) params.cursor = cursor;
 
     const response = await http.get<TableDataResponse>(ApiPaths.TABLE_DATA, { params });
     return response.data;
@@ -52,4 +65,45 @@ export const tableDataService = {
     const response = await http.get<TableDataResponse>(ApiPaths.VIEW_DATA, { params });
     return response.data;
   },
+
+  /**
+   * Bytes of a BLOB/CLOB cell shown as a handle, addressed by the handle's locator.
+   * Without a range the whole value is sent; end is inclusive.
+   */
+  getLob: async (
+    connectionId: string,
+    tableName: string,
+    column: string,
+    locator: string,
+    kind: 'BLOB' | 'CLOB',
+    catalog?: string,
+    schema?: string,
+    range?: { start: number; end: number }
+  ): Promise<LobContent> => {
+    const params: Record<string, string> = {
+      connectionId,
+      tableName,
+      column,
+      locator,
+      kind
+    };
+    if (catalog != null && catalog !== '') params.catalog = catalog;
+    if (schema != null && schema !== '') params.schema = schema;
+    const headers: Record<string, string> = {};
+    if (range) headers.Range = `bytes=${range.start}-${range.end}`;
+
+    // Whole values can take longer than the default timeout to stream
+    const response = await http.get<Blob>(ApiPaths.TABLE_LOB, {
+      params,
+      headers,
+      responseType: 'blob',
+      timeout: range ? undefined : 0
+    });
+    const contentRange = response.headers['content-range'] as string | undefined;
+    const total = contentRange?.split('/')[1];
+    return {
+      blob: response.data,
+      totalSize: total != null && total !== '*' ? Number(total) : response.data.size
+    };
+  },
 };
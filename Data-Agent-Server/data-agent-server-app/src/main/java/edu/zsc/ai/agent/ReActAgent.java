@@ -5,10 +5,15 @@ import dev.langchain4j.service.MemoryId;
 import dev.langchain4j.service.SystemMessage;
 import dev.langchain4j.service.TokenStream;
 import dev.langchain4j.service.UserMessage;
+import dev.langchain4j.service.V;
 
 
 public interface ReActAgent {
 
+    /**
+     * @param schemaContext digest of the session's schema, or a note that there is none; filled into the system prompt
+     */
     @SystemMessage(fromResource = "prompt/system.md")
-    TokenStream chat(@MemoryId String memoryId, @UserMessage String message, InvocationParameters parameters);
+    TokenStream chat(@MemoryId String memoryId, @UserMessage String message, @V("schemaContext") String schemaContext,
+                     InvocationParameters parameters);
 }
@@ -0,0 +1,18 @@
+package edu.zsc.ai.common.constant;
+
+/**
+ * Text filled into the agent's system prompt.
+ * Used by ChatServiceImpl for the schema context.
+ */
+public final class PromptConstants {
+
+    private PromptConstants() {}
+
+    /** Schema context when the session has no connection or database selected. */
+    public static final String NO_SCHEMA_CONTEXT =
+            "No database is selected in this session. Use getMyConnections and listDatabases to find one.";
+
+    /** Schema context when the digest is turned off or could not be built. */
+    public static final String SCHEMA_CONTEXT_UNAVAILABLE =
+            "No schema digest is available. Use getTableNames and getTableDdl to explore the schema.";
+}
@@ -24,4 +24,6 @@ public class ResponseMessageKey {
     public static final String CONNECTION_ACCESS_DENIED_MESSAGE = "error.connection.access.denied";
     public static final String CONNECTION_NOT_FOUND_MESSAGE = "error.db.connection.not.found";
     public static final String CONNECTION_NAME_EXISTS_MESSAGE = "error.db.connection.name.exists";
+    public static final String CONNECTION_POOL_EXHAUSTED_MESSAGE = "error.db.connection.pool.exhausted";
+    public static final String CONNECTION_POOL_CLOSED_MESSAGE = "error.db.connection.pool.closed";
 }
@@ -20,6 +20,9 @@ public final class ToolMessageConstants {
     /** Returned when getTableNames returns no tables. */
     public static final String EMPTY_NO_TABLES = "EMPTY: No tables found.";
 
+    /** Returned when findRelevantTables finds no table close enough to the question. */
+    public static final String EMPTY_NO_RELEVANT_TABLES = "EMPTY: No relevant tables found.";
+
     /** Returned when getViewNames returns no views. */
     public static final String EMPTY_NO_VIEWS = "EMPTY: No views found.";
 
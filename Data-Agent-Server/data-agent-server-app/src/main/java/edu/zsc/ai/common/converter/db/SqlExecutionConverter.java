@@ -23,6 +23,8 @@ public class SqlExecutionConverter {
                 .headers(r.getHeaders())
                 .rows(r.getRows())
                 .affectedRows(r.getAffectedRows())
+                .truncated(r.isTruncated())
+                .estimatedTotalRows(r.getEstimatedTotalRows())
                 .build();
     }
 }
@@ -0,0 +1,50 @@
+package edu.zsc.ai.common.enums.db;
+
+import java.util.Arrays;
+import java.util.Optional;
+
+/**
+ * Output format of a data export
+ */
+public enum ExportFormatEnum {
+
+    /**
+     * RFC 4180 CSV with a header line
+     */
+    CSV("csv", "text/csv"),
+
+    /**
+     * One JSON object per line, keyed by column name
+     */
+    NDJSON("ndjson", "application/x-ndjson"),
+
+    /**
+     * A single JSON array of row objects
+     */
+    JSON("json", "application/json");
+
+    private final String extension;
+    private final String contentType;
+
+    ExportFormatEnum(String extension, String contentType) {
+        this.extension = extension;
+        this.contentType = contentType;
+    }
+
+    public String getExtension() {
+        return extension;
+    }
+
+    public String getContentType() {
+        return contentType;
+    }
+
+    /**
+     * Format by name or file extension, case-insensitive
+     */
+    public static Optional<ExportFormatEnum> fromValue(String value) {
+        return Arrays.stream(values())
+                .filter(format -> format.name().equalsIgnoreCase(value) || format.extension.equalsIgnoreCase(value))
+                .findFirst();
+    }
+}
@@ -0,0 +1,36 @@
+package edu.zsc.ai.common.enums.db;
+
+/**
+ * Lifecycle of an asynchronous SQL job
+ */
+public enum SqlJobStatusEnum {
+
+    /**
+     * Waiting for an executor thread or a free slot on its database
+     */
+    QUEUED,
+
+    /**
+     * Statement is executing
+     */
+    RUNNING,
+
+    /**
+     * Finished and the statement succeeded
+     */
+    SUCCEEDED,
+
+    /**
+     * Finished and the statement failed
+     */
+    FAILED,
+
+    /**
+     * Cancelled before or while running
+     */
+    CANCELLED;
+
+    public boolean isFinished() {
+        return this != QUEUED && this != RUNNING;
+    }
+}
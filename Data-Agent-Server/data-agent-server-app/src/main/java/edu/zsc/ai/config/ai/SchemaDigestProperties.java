@@ -0,0 +1,35 @@
+package edu.zsc.ai.config.ai;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * Compact schema digest put into the agent's system prompt when the session has a connection.
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "agent.schema-digest")
+public class SchemaDigestProperties {
+
+    // Off: the agent explores the schema through its tools only
+    private boolean enabled = true;
+
+    // Rough size limit of the digest; tables beyond it are shown with their keys only, then by name only
+    private int maxTokens = 2000;
+
+    // Table comments longer than this are cut
+    private int maxCommentChars = 60;
+
+    // Tables described in one describeTables call; the rest are named as skipped
+    private int maxDescribeTables = 30;
+
+    // Threads fetching tables for describeTables when the plugin has no schema snapshots
+    private int describeThreads = 4;
+
+    // How long a chat turn waits for its schema digest; a slower one is left out of that turn and cached for the next
+    private long promptWaitMillis = 1500;
+
+    // Threads building schema digests for chat turns
+    private int promptThreads = 4;
+}
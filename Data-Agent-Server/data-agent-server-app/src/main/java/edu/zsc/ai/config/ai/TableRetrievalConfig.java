@@ -0,0 +1,64 @@
+package edu.zsc.ai.config.ai;
+
+import dev.langchain4j.data.segment.TextSegment;
+import dev.langchain4j.model.embedding.EmbeddingModel;
+import dev.langchain4j.store.embedding.EmbeddingStore;
+import dev.langchain4j.store.embedding.inmemory.InMemoryEmbeddingStore;
+import dev.langchain4j.store.embedding.pgvector.PgVectorEmbeddingStore;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.sql.DataSource;
+
+/**
+ * Embedding store of the table retrieval: pgvector in the application database, or memory when configured so
+ * or when the vector extension cannot be used there, or the embedding model's dimension differs from the
+ * configured one (the pgvector column is created with the configured one).
+ */
+@Configuration
+@Slf4j
+public class TableRetrievalConfig {
+
+    @Bean("schemaEmbeddingStore")
+    public EmbeddingStore<TextSegment> schemaEmbeddingStore(DataSource dataSource, TableRetrievalProperties properties,
+                                                            ObjectProvider<EmbeddingModel> embeddingModels) {
+        if (TableRetrievalProperties.STORE_PGVECTOR.equals(properties.getStore())
+                && dimensionMatches(embeddingModels.getIfUnique(), properties.getDimension())) {
+            try {
+                return PgVectorEmbeddingStore.datasourceBuilder()
+                        .datasource(dataSource)
+                        .table(properties.getTable())
+                        .dimension(properties.getDimension())
+                        .createTable(true)
+                        .build();
+            } catch (RuntimeException e) {
+                log.warn("pgvector store unavailable, keeping table embeddings in memory: {}", e.getMessage());
+            }
+        }
+        return new InMemoryEmbeddingStore<>();
+    }
+
+    /**
+     * Whether the model's vectors fit the configured dimension; true when there is no model or it cannot tell
+     */
+    private static boolean dimensionMatches(EmbeddingModel model, int dimension) {
+        if (model == null) {
+            return true;
+        }
+        int actual;
+        try {
+            actual = model.dimension();
+        } catch (RuntimeException e) {
+            log.warn("Could not read the embedding model's dimension, assuming {}: {}", dimension, e.getMessage());
+            return true;
+        }
+        if (actual != dimension) {
+            log.warn("Embedding model dimension {} differs from the configured {}, keeping table embeddings in memory",
+                    actual, dimension);
+            return false;
+        }
+        return true;
+    }
+}
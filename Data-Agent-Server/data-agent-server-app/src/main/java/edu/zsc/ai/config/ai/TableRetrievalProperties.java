@@ -0,0 +1,63 @@
+package edu.zsc.ai.config.ai;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * Retrieval of the tables relevant to a question from embeddings of table and column names and comments.
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "agent.table-retrieval")
+public class TableRetrievalProperties {
+
+    public static final String STORE_PGVECTOR = "pgvector";
+    public static final String STORE_MEMORY = "memory";
+
+    // Off, or without an embedding model: no findRelevantTables results and no retrieval step in the prompt
+    private boolean enabled = true;
+
+    // pgvector (in the application database, falling back to memory when unavailable) or memory
+    private String store = STORE_PGVECTOR;
+
+    // pgvector table holding the table embeddings
+    private String table = "schema_table_embedding";
+
+    // Dimension of the embedding model's vectors (text-embedding-v4 default); a model reporting another one keeps
+    // the embeddings in memory
+    private int dimension = 1024;
+
+    // Tables embedded per embedding model call
+    private int batchSize = 10;
+
+    // Matches scoring below this are not returned
+    private double minScore = 0.3;
+
+    // Tables returned by findRelevantTables when the agent does not say
+    private int maxResults = 10;
+
+    // Schemas with fewer tables than this get no retrieval step: the digest already shows them all
+    private int promptMinTables = 50;
+
+    // Tables retrieved for the question and shown first in the schema digest
+    private int promptTables = 8;
+
+    // How long findRelevantTables waits for a schema still being indexed
+    private long indexWaitMillis = 30000;
+
+    // A schema whose indexing failed is tried again after this long
+    private long retryAfterFailureMillis = 60000;
+
+    // Threads embedding schemas in the background
+    private int indexThreads = 2;
+
+    // Schemas waiting for an indexing thread; one arriving when it is full is indexed on a later request
+    private int indexQueue = 32;
+
+    // How long a chat turn waits for its question to be embedded and searched; a slower one gets no retrieved tables
+    private long promptWaitMillis = 800;
+
+    // Threads embedding chat questions and searching the store
+    private int searchThreads = 4;
+}
@@ -0,0 +1,20 @@
+package edu.zsc.ai.config.db;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * Deployment-wide limits on the result of agent-issued SQL. A tool call may ask for less, never more.
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "db.sql.agent-result")
+public class AgentSqlResultProperties {
+
+    // Rows returned to the agent per statement
+    private int maxRows = 200;
+
+    // Approximate serialized size of the returned rows
+    private long maxBytes = 262144;
+}
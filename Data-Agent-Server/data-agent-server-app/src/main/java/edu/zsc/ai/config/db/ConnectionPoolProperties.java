@@ -0,0 +1,32 @@
+package edu.zsc.ai.config.db;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * Limits of the pools that back user database connections.
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "db.connection.pool")
+public class ConnectionPoolProperties {
+
+    // Connections kept open per pool
+    private int minIdle = 1;
+
+    // Maximum physical connections per pool
+    private int maxSize = 8;
+
+    // How long a request waits for a free connection before failing
+    private long maxWaitMillis = 10000;
+
+    // Timeout for Connection.isValid when a connection is borrowed
+    private int validationTimeoutSeconds = 3;
+
+    // Skip validation on borrow when the connection was checked or returned within this window
+    private long validationIntervalMillis = 30000;
+
+    // Share one pool across all databases of a saved connection and switch catalog/schema per lease
+    private boolean catalogSwitching = true;
+}
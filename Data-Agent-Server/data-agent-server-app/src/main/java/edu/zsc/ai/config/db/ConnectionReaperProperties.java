@@ -0,0 +1,26 @@
+package edu.zsc.ai.config.db;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * Idle eviction and open-connection caps for user database connections.
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "db.connection.reaper")
+public class ConnectionReaperProperties {
+
+    // Close connections unused for longer than this
+    private long idleTimeoutMillis = 1800000;
+
+    // Interval between sweeps
+    private long sweepIntervalMillis = 60000;
+
+    // Maximum physical connections across all users
+    private int maxTotal = 200;
+
+    // Maximum physical connections per user
+    private int maxPerUser = 20;
+}
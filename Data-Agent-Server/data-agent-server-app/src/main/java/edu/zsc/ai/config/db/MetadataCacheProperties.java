@@ -0,0 +1,26 @@
+package edu.zsc.ai.config.db;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * Caching of schema metadata (table, column, index and routine listings, DDL) read from connected databases.
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "db.metadata-cache")
+public class MetadataCacheProperties {
+
+    // Entries older than this are read from the database again, covering changes made outside this server
+    private long expireAfterWriteMillis = 300000;
+
+    // Cached listings across all connections
+    private long maxEntries = 20000;
+
+    // A cached schema snapshot is checked against the database's fingerprints at most this often
+    private long snapshotCheckIntervalMillis = 30000;
+
+    // Schema snapshots not read for this long are dropped
+    private long snapshotExpireAfterAccessMillis = 1800000;
+}
@@ -0,0 +1,32 @@
+package edu.zsc.ai.config.db;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * Caching of table and view row counts shown when browsing data.
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "db.row-count")
+public class RowCountProperties {
+
+    // Exact counts older than this are recounted in the background on the next read
+    private long refreshAfterMillis = 60000;
+
+    // Counts not read for this long are dropped
+    private long expireAfterAccessMillis = 1800000;
+
+    // Counted objects kept in the cache
+    private long maxEntries = 10000;
+
+    // Tables estimated below this many rows are counted exactly before the page is returned
+    private long exactCountMaxRows = 100000;
+
+    // Threads looking up counts alongside the data query; the caller runs the lookup when all are busy
+    private int lookupThreads = 8;
+
+    // Threads running COUNT(*) in the background
+    private int refreshThreads = 2;
+}
@@ -0,0 +1,24 @@
+package edu.zsc.ai.config.db;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * Statement timeouts for SQL run on user connections. A saved connection can override the default
+ * with its {@code queryTimeoutSeconds} property; a request can override both.
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "db.sql.execution")
+public class SqlExecutionProperties {
+
+    // Statement timeout when neither the request nor the connection sets one, 0 for none
+    private int queryTimeoutSeconds = 300;
+
+    // Statement timeout for agent-issued SQL
+    private int agentQueryTimeoutSeconds = 60;
+
+    // Most statements accepted in one script
+    private int maxScriptStatements = 10000;
+}
@@ -0,0 +1,47 @@
+package edu.zsc.ai.config.db;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * Executor sizing, admission and result retention for asynchronous SQL jobs.
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "db.sql.job")
+public class SqlJobProperties {
+
+    // Jobs executing at the same time across all databases
+    private int maxConcurrent = 16;
+
+    // Jobs executing at the same time on one connection and database
+    private int maxConcurrentPerDatabase = 4;
+
+    // Jobs accepted beyond maxConcurrent before submissions are rejected
+    private int queueCapacity = 200;
+
+    // Rows kept from a job's result; larger results are truncated
+    private int maxResultRows = 1000000;
+
+    // Approximate bytes kept from a job's result, on heap and on disk
+    private long maxResultBytes = 1073741824;
+
+    // Approximate heap bytes of a job's rows before the rest is spilled to disk
+    private long memoryThresholdBytes = 8388608;
+
+    // Directory for spilled rows; empty uses a data-agent directory under java.io.tmpdir
+    private String spillDirectory = "";
+
+    // Rows returned per result page when the client does not ask for fewer
+    private int maxPageSize = 5000;
+
+    // Finished jobs and their results are dropped after this
+    private long resultTtlMillis = 900000;
+
+    // Interval between sweeps for expired jobs
+    private long sweepIntervalMillis = 60000;
+
+    // Longest a client may wait for a job to finish in one await call
+    private long maxAwaitMillis = 60000;
+}
@@ -0,0 +1,95 @@
+package edu.zsc.ai.controller.db;
+
+import cn.dev33.satoken.stp.StpUtil;
+import edu.zsc.ai.common.enums.db.ExportFormatEnum;
+import edu.zsc.ai.domain.model.dto.request.db.ExportQueryRequest;
+import edu.zsc.ai.domain.service.db.DataExportService;
+import edu.zsc.ai.util.exception.BusinessException;
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotNull;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.validation.annotation.Validated;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Downloads of whole tables, views and query results as CSV, NDJSON or a JSON array.
+ * Rows are written to the response as they are read, so exports of any size run in constant memory.
+ */
+@Slf4j
+@Validated
+@RestController
+@RequestMapping("/api/exports")
+@RequiredArgsConstructor
+public class DataExportController {
+
+    private final DataExportService dataExportService;
+
+    @GetMapping("/table")
+    public ResponseEntity<StreamingResponseBody> exportTable(
+            @RequestParam @NotNull(message = "connectionId is required") Long connectionId,
+            @RequestParam @NotBlank(message = "tableName is required") String tableName,
+            @RequestParam(required = false) String catalog,
+            @RequestParam(required = false) String schema,
+            @RequestParam(defaultValue = "csv") String format) {
+        log.info("Exporting table: connectionId={}, tableName={}, catalog={}, schema={}, format={}",
+                connectionId, tableName, catalog, schema, format);
+        long userId = StpUtil.getLoginIdAsLong();
+        ExportFormatEnum exportFormat = parseFormat(format);
+        return attachment(tableName, exportFormat,
+                dataExportService.exportTable(connectionId, catalog, schema, tableName, userId, exportFormat));
+    }
+
+    @GetMapping("/view")
+    public ResponseEntity<StreamingResponseBody> exportView(
+            @RequestParam @NotNull(message = "connectionId is required") Long connectionId,
+            @RequestParam @NotBlank(message = "viewName is required") String viewName,
+            @RequestParam(required = false) String catalog,
+            @RequestParam(required = false) String schema,
+            @RequestParam(defaultValue = "csv") String format) {
+        log.info("Exporting view: connectionId={}, viewName={}, catalog={}, schema={}, format={}",
+                connectionId, viewName, catalog, schema, format);
+        long userId = StpUtil.getLoginIdAsLong();
+        ExportFormatEnum exportFormat = parseFormat(format);
+        return attachment(viewName, exportFormat,
+                dataExportService.exportView(connectionId, catalog, schema, viewName, userId, exportFormat));
+    }
+
+    @PostMapping("/query")
+    public ResponseEntity<StreamingResponseBody> exportQuery(@RequestBody @Valid ExportQueryRequest request,
+                                                             @RequestParam(defaultValue = "csv") String format) {
+        log.info("Exporting query result: connectionId={}, database={}, format={}",
+                request.getConnectionId(), request.getDatabaseName(), format);
+        long userId = StpUtil.getLoginIdAsLong();
+        ExportFormatEnum exportFormat = parseFormat(format);
+        return attachment("query", exportFormat, dataExportService.exportQuery(request, userId, exportFormat));
+    }
+
+    private static ExportFormatEnum parseFormat(String format) {
+        return ExportFormatEnum.fromValue(format)
+                .orElseThrow(() -> BusinessException.badRequest("Unsupported export format: %s", format));
+    }
+
+    private static ResponseEntity<StreamingResponseBody> attachment(String name, ExportFormatEnum format, StreamingResponseBody body) {
+        ContentDisposition disposition = ContentDisposition.attachment()
+                .filename(name + "." + format.getExtension(), StandardCharsets.UTF_8)
+                .build();
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(format.getContentType() + ";charset=UTF-8"))
+                .header(HttpHeaders.CONTENT_DISPOSITION, disposition.toString())
+                .body(body);
+    }
+}
@@ -1,7 +1,10 @@
 package edu.zsc.ai.controller.db;
 
+import cn.dev33.satoken.stp.StpUtil;
 import edu.zsc.ai.domain.model.dto.response.base.ApiResponse;
 import edu.zsc.ai.domain.service.db.SchemaService;
+import edu.zsc.ai.domain.service.db.SchemaSnapshotService;
+import edu.zsc.ai.plugin.model.metadata.SchemaSnapshot;
 import jakarta.validation.constraints.NotNull;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -21,6 +24,7 @@ import java.util.List;
 public class SchemaController {
 
     private final SchemaService schemaService;
+    private final SchemaSnapshotService schemaSnapshotService;
 
     @GetMapping
     public ApiResponse<List<String>> listSchemas(
@@ -30,4 +34,15 @@ public class SchemaController {
         List<String> schemas = schemaService.listSchemas(connectionId, catalog);
         return ApiResponse.success(schemas);
     }
+
+    @GetMapping("/snapshot")
+    public ApiResponse<SchemaSnapshot> getSnapshot(
+            @RequestParam @NotNull(message = "connectionId is required") Long connectionId,
+            @RequestParam(required = false) String catalog,
+            @RequestParam(required = false) String schema) {
+        log.info("Getting schema snapshot: connectionId={}, catalog={}, schema={}", connectionId, catalog, schema);
+        long userId = StpUtil.getLoginIdAsLong();
+        SchemaSnapshot snapshot = schemaSnapshotService.getSnapshot(connectionId, catalog, schema, userId);
+        return ApiResponse.success(snapshot);
+    }
 }
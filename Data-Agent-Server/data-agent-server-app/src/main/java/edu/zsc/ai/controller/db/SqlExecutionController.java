@@ -0,0 +1,51 @@
+package edu.zsc.ai.controller.db;
+
+import cn.dev33.satoken.stp.StpUtil;
+import edu.zsc.ai.domain.model.dto.request.db.ExecuteSqlScriptRequest;
+import edu.zsc.ai.domain.model.dto.response.base.ApiResponse;
+import edu.zsc.ai.domain.model.dto.response.db.ExecuteSqlScriptResponse;
+import edu.zsc.ai.domain.service.db.SqlExecutionService;
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotBlank;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.validation.annotation.Validated;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+/**
+ * Control of running SQL executions of the current login user.
+ */
+@Slf4j
+@Validated
+@RestController
+@RequestMapping("/api/sql-executions")
+@RequiredArgsConstructor
+public class SqlExecutionController {
+
+    private final SqlExecutionService sqlExecutionService;
+
+    /**
+     * Execute a multi-statement script on one connection; optionally as a single transaction.
+     */
+    @PostMapping("/script")
+    public ApiResponse<ExecuteSqlScriptResponse> executeScript(@RequestBody @Valid ExecuteSqlScriptRequest request) {
+        log.info("Executing SQL script: connectionId={}, transactional={}",
+                request.getConnectionId(), request.isTransactional());
+        request.setUserId(StpUtil.getLoginIdAsLong());
+        return ApiResponse.success(sqlExecutionService.executeScript(request));
+    }
+
+    /**
+     * Cancel a running execution. Returns false when it already finished or is unknown.
+     */
+    @PostMapping("/{executionId}/cancel")
+    public ApiResponse<Boolean> cancel(@PathVariable @NotBlank String executionId) {
+        log.info("Cancelling SQL execution: executionId={}", executionId);
+        long userId = StpUtil.getLoginIdAsLong();
+        return ApiResponse.success(sqlExecutionService.cancelExecution(executionId, userId));
+    }
+}
@@ -0,0 +1,78 @@
+package edu.zsc.ai.controller.db;
+
+import cn.dev33.satoken.stp.StpUtil;
+import edu.zsc.ai.domain.model.dto.request.db.SubmitSqlJobRequest;
+import edu.zsc.ai.domain.model.dto.response.base.ApiResponse;
+import edu.zsc.ai.domain.model.dto.response.db.SqlJobResponse;
+import edu.zsc.ai.domain.service.db.SqlJobService;
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotBlank;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.validation.annotation.Validated;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Asynchronous SQL jobs of the current login user: submit, poll or await, read result pages, cancel.
+ */
+@Slf4j
+@Validated
+@RestController
+@RequestMapping("/api/sql-jobs")
+@RequiredArgsConstructor
+public class SqlJobController {
+
+    private final SqlJobService sqlJobService;
+
+    @PostMapping
+    public ApiResponse<SqlJobResponse> submit(@RequestBody @Valid SubmitSqlJobRequest request) {
+        log.info("Submitting SQL job: connectionId={}, database={}", request.getConnectionId(), request.getDatabaseName());
+        long userId = StpUtil.getLoginIdAsLong();
+        return ApiResponse.success(sqlJobService.submit(request, userId));
+    }
+
+    /**
+     * Job status; once finished, also the rows from offset, at most limit of them,
+     * optionally re-sorted by a column without running the query again.
+     */
+    @GetMapping("/{jobId}")
+    public ApiResponse<SqlJobResponse> get(@PathVariable @NotBlank String jobId,
+                                           @RequestParam(defaultValue = "0") int offset,
+                                           @RequestParam(defaultValue = "500") int limit,
+                                           @RequestParam(required = false) Integer sortColumn,
+                                           @RequestParam(defaultValue = "false") boolean descending) {
+        long userId = StpUtil.getLoginIdAsLong();
+        return ApiResponse.success(sqlJobService.getJob(jobId, userId, offset, limit, sortColumn, descending));
+    }
+
+    /**
+     * Like {@link #get}, but answers only once the job finished or timeoutMillis passed.
+     * The request thread is released while waiting.
+     */
+    @GetMapping("/{jobId}/await")
+    public CompletableFuture<ApiResponse<SqlJobResponse>> await(@PathVariable @NotBlank String jobId,
+                                                                @RequestParam(defaultValue = "30000") long timeoutMillis,
+                                                                @RequestParam(defaultValue = "0") int offset,
+                                                                @RequestParam(defaultValue = "500") int limit) {
+        long userId = StpUtil.getLoginIdAsLong();
+        return sqlJobService.awaitJob(jobId, userId, timeoutMillis, offset, limit).thenApply(ApiResponse::success);
+    }
+
+    /**
+     * Cancel a queued or running job. Returns false when it already finished.
+     */
+    @PostMapping("/{jobId}/cancel")
+    public ApiResponse<Boolean> cancel(@PathVariable @NotBlank String jobId) {
+        log.info("Cancelling SQL job: jobId={}", jobId);
+        long userId = StpUtil.getLoginIdAsLong();
+        return ApiResponse.success(sqlJobService.cancel(jobId, userId));
+    }
+}
@@ -5,19 +5,29 @@ import edu.zsc.ai.domain.model.dto.request.db.DeleteTableRequest;
 import edu.zsc.ai.domain.model.dto.response.base.ApiResponse;
 import edu.zsc.ai.domain.model.dto.response.db.TableDataResponse;
 import edu.zsc.ai.domain.service.db.TableService;
+import edu.zsc.ai.plugin.value.LobChunk;
+import edu.zsc.ai.plugin.value.LobHandle;
 import jakarta.validation.Valid;
 import jakarta.validation.constraints.NotNull;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 
 @Slf4j
 @Validated
@@ -26,6 +36,12 @@ import java.util.List;
 @RequiredArgsConstructor
 public class TableController {
 
+    /** A single byte range: bytes=start-end, bytes=start- or bytes=-suffixLength */
+    private static final Pattern SINGLE_BYTE_RANGE = Pattern.compile("bytes=(\\d{0,18})-(\\d{0,18})");
+
+    /** Bytes of a large value read from the database per query while it is streamed */
+    private static final int LOB_CHUNK_BYTES = 1024 * 1024;
+
     private final TableService tableService;
 
     @GetMapping
@@ -69,11 +85,91 @@ public class TableController {
             @RequestParam(required = false) String catalog,
             @RequestParam(required = false) String schema,
             @RequestParam(defaultValue = "1") Integer currentPage,
-            @RequestParam(defaultValue = "100") Integer pageSize) {
-        log.info("Getting table data: connectionId={}, tableName={}, catalog={}, schema={}, currentPage={}, pageSize={}",
-                connectionId, tableName, catalog, schema, currentPage, pageSize);
+            @RequestParam(defaultValue = "100") Integer pageSize,
+            @RequestParam(required = false) String cursor) {
+        log.info("Getting table data: connectionId={}, tableName={}, catalog={}, schema={}, currentPage={}, pageSize={}, cursor={}",
+                connectionId, tableName, catalog, schema, currentPage, pageSize, cursor != null);
         long userId = StpUtil.getLoginIdAsLong();
-        TableDataResponse response = tableService.getTableData(connectionId, catalog, schema, tableName, userId, currentPage, pageSize);
+        TableDataResponse response = tableService.getTableData(connectionId, catalog, schema, tableName, userId, currentPage, pageSize, cursor);
         return ApiResponse.success(response);
     }
+
+    /**
+     * Bytes of a BLOB/CLOB value shown as a handle in the table data, addressed by the handle's locator.
+     * Supports a single HTTP range; the value is read from the database in chunks while it is sent.
+     */
+    @GetMapping("/lob")
+    public ResponseEntity<StreamingResponseBody> getLob(
+            @RequestParam @NotNull(message = "connectionId is required") Long connectionId,
+            @RequestParam @NotNull(message = "tableName is required") String tableName,
+            @RequestParam @NotNull(message = "column is required") String column,
+            @RequestParam @NotNull(message = "locator is required") String locator,
+            @RequestParam(required = false) String catalog,
+            @RequestParam(required = false) String schema,
+            @RequestParam(defaultValue = "BLOB") LobHandle.Kind kind,
+            @RequestHeader(value = HttpHeaders.RANGE, required = false) String range) {
+        log.info("Getting large value: connectionId={}, tableName={}, column={}, range={}", connectionId, tableName, column, range);
+        long userId = StpUtil.getLoginIdAsLong();
+
+        // The first chunk also tells the size and, from its head, the content type
+        LobChunk first = tableService.readLob(connectionId, catalog, schema, tableName, column, kind, locator, 0, LOB_CHUNK_BYTES, userId);
+        long total = first.totalSize();
+        long start = 0;
+        long end = total - 1;
+        boolean partial = false;
+        Matcher matcher = range != null ? SINGLE_BYTE_RANGE.matcher(range.trim()) : null;
+        // Several ranges are not supported; the header is then ignored and the whole value sent
+        if (matcher != null && matcher.matches() && !(matcher.group(1).isEmpty() && matcher.group(2).isEmpty())) {
+            if (matcher.group(1).isEmpty()) {
+                start = Math.max(0, total - Long.parseLong(matcher.group(2)));
+            } else {
+                start = Long.parseLong(matcher.group(1));
+                if (!matcher.group(2).isEmpty()) {
+                    end = Math.min(end, Long.parseLong(matcher.group(2)));
+                }
+            }
+            if (start >= total || start > end) {
+                return ResponseEntity.status(HttpStatus.REQUESTED_RANGE_NOT_SATISFIABLE)
+                        .header(HttpHeaders.CONTENT_RANGE, "bytes */" + total)
+                        .build();
+            }
+            partial = true;
+        }
+
+        long from = start;
+        long to = end;
+        StreamingResponseBody body = out -> {
+            byte[] data = first.data();
+            long dataStart = 0;
+            long position = from;
+            while (position <= to) {
+                if (position >= dataStart + data.length) {
+                    int length = (int) Math.min(LOB_CHUNK_BYTES, to - position + 1);
+                    data = tableService.readLob(connectionId, catalog, schema, tableName, column, kind, locator,
+                            position, length, userId).data();
+                    dataStart = position;
+                    if (data.length == 0) {
+                        // The value got shorter since the first read
+                        break;
+                    }
+                }
+                int offset = (int) (position - dataStart);
+                int count = (int) Math.min(data.length - offset, to - position + 1);
+                out.write(data, offset, count);
+                position += count;
+            }
+        };
+
+        String contentType = kind == LobHandle.Kind.CLOB
+                ? MediaType.TEXT_PLAIN_VALUE + ";charset=UTF-8"
+                : LobHandle.sniffContentType(first.head() != null ? first.head() : new byte[0]);
+        ResponseEntity.BodyBuilder response = ResponseEntity.status(partial ? HttpStatus.PARTIAL_CONTENT : HttpStatus.OK)
+                .header(HttpHeaders.ACCEPT_RANGES, "bytes")
+                .contentType(MediaType.parseMediaType(contentType))
+                .contentLength(Math.max(0, to - from + 1));
+        if (partial) {
+            response.header(HttpHeaders.CONTENT_RANGE, "bytes " + from + "-" + to + "/" + total);
+        }
+        return response.body(body);
+    }
 }
@@ -21,4 +21,24 @@ public class ExecuteSqlRequest extends BaseRequest {
 
     @NotNull(message = "User id cannot be null")
     private Long userId;
+
+    /**
+     * Stop reading the result after this many rows; null for no limit
+     */
+    private Integer maxRows;
+
+    /**
+     * Stop reading the result once the rows take about this many bytes; null for no limit
+     */
+    private Long maxBytes;
+
+    /**
+     * Id to cancel the execution with; generated when not set
+     */
+    private String executionId;
+
+    /**
+     * Statement timeout in seconds; null uses the connection default
+     */
+    private Integer queryTimeoutSeconds;
 }
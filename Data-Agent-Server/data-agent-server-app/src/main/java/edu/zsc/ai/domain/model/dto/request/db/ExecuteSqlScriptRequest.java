@@ -0,0 +1,65 @@
+package edu.zsc.ai.domain.model.dto.request.db;
+
+import edu.zsc.ai.model.request.BaseRequest;
+import jakarta.validation.constraints.NotBlank;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.NoArgsConstructor;
+import lombok.experimental.SuperBuilder;
+
+@Data
+@SuperBuilder
+@NoArgsConstructor
+@AllArgsConstructor
+@EqualsAndHashCode(callSuper = true)
+public class ExecuteSqlScriptRequest extends BaseRequest {
+
+    /**
+     * One or more statements separated by the dialect's delimiter
+     */
+    @NotBlank(message = "Script cannot be null or empty")
+    private String script;
+
+    /**
+     * Set by the server from the login session
+     */
+    private Long userId;
+
+    /**
+     * Run all statements in one transaction, rolled back when any statement fails
+     */
+    private boolean transactional;
+
+    /**
+     * Per-statement row limit for queries in the script; null for no limit
+     */
+    private Integer maxRows;
+
+    /**
+     * Per-statement byte limit for queries in the script; null for no limit
+     */
+    private Long maxBytes;
+
+    /**
+     * Leave successful non-query statements and those not executed out of the results; they are only counted
+     * in the response's executedCount and affectedRows
+     */
+    private boolean summarizeDml;
+
+    /**
+     * Approximate serialized size of all results of the script together; results past it are left out and
+     * counted in the response's omittedResults. Null for no limit
+     */
+    private Long maxTotalBytes;
+
+    /**
+     * Id to cancel the script with; generated when not set
+     */
+    private String executionId;
+
+    /**
+     * Timeout per statement in seconds; null uses the connection default
+     */
+    private Integer queryTimeoutSeconds;
+}
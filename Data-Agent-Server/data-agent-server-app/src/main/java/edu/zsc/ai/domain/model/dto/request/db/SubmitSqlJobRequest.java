@@ -0,0 +1,30 @@
+package edu.zsc.ai.domain.model.dto.request.db;
+
+import edu.zsc.ai.model.request.BaseRequest;
+import jakarta.validation.constraints.NotBlank;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.NoArgsConstructor;
+import lombok.experimental.SuperBuilder;
+
+@Data
+@SuperBuilder
+@NoArgsConstructor
+@AllArgsConstructor
+@EqualsAndHashCode(callSuper = true)
+public class SubmitSqlJobRequest extends BaseRequest {
+
+    @NotBlank(message = "SQL cannot be null or empty")
+    private String sql;
+
+    /**
+     * Rows to keep from the result; null or larger values use the server limit
+     */
+    private Integer maxRows;
+
+    /**
+     * Statement timeout in seconds; null uses the connection default
+     */
+    private Integer queryTimeoutSeconds;
+}
@@ -16,6 +16,16 @@ import java.util.List;
 @AllArgsConstructor
 public class ExecuteSqlResponse {
 
+    /**
+     * Id the execution ran under
+     */
+    private String executionId;
+
+    /**
+     * 1-based position of the statement in its script; null for a single statement
+     */
+    private Integer statementIndex;
+
     private boolean success;
 
     private String errorMessage;
@@ -29,4 +39,14 @@ public class ExecuteSqlResponse {
     private List<List<Object>> rows;
 
     private int affectedRows;
+
+    /**
+     * Whether rows were cut off at the request's maxRows/maxBytes
+     */
+    private boolean truncated;
+
+    /**
+     * Estimated total row count of the query when truncated
+     */
+    private Long estimatedTotalRows;
 }
@@ -0,0 +1,65 @@
+package edu.zsc.ai.domain.model.dto.response.db;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Result of executing a multi-statement script.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ExecuteSqlScriptResponse {
+
+    private String executionId;
+
+    /**
+     * Whether every statement succeeded
+     */
+    private boolean success;
+
+    /**
+     * Error of the first failed statement
+     */
+    private String errorMessage;
+
+    private long executionTimeMs;
+
+    private int statementCount;
+
+    /**
+     * Whether the script ran in one transaction that was rolled back after a failure
+     */
+    private boolean rolledBack;
+
+    /**
+     * Statements that ran successfully
+     */
+    private int executedCount;
+
+    /**
+     * Rows changed by all statements together, as far as the driver reported them
+     */
+    private long affectedRows;
+
+    /**
+     * 1-based position of the first failed statement; null when none failed
+     */
+    private Integer failedStatement;
+
+    /**
+     * Results left out to stay within the request's maxTotalBytes
+     */
+    private int omittedResults;
+
+    /**
+     * One result per statement, in script order, each with its statementIndex; statements after a failure are
+     * reported as not executed. With summarizeDml only queries and the failed statement are listed.
+     */
+    private List<ExecuteSqlResponse> results;
+}
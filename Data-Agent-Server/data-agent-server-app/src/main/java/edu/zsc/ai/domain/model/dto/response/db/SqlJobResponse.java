@@ -0,0 +1,52 @@
+package edu.zsc.ai.domain.model.dto.response.db;
+
+import edu.zsc.ai.common.enums.db.SqlJobStatusEnum;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Status of an asynchronous SQL job, with one page of its result once finished.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class SqlJobResponse {
+
+    /**
+     * Job id; also the execution id for the SQL execution cancel endpoint
+     */
+    private String jobId;
+
+    private SqlJobStatusEnum status;
+
+    private LocalDateTime submittedAt;
+
+    private LocalDateTime startedAt;
+
+    private LocalDateTime finishedAt;
+
+    /**
+     * When the finished job and its result are dropped
+     */
+    private LocalDateTime expiresAt;
+
+    /**
+     * Statement result once finished; rows hold the requested page only
+     */
+    private ExecuteSqlResponse result;
+
+    /**
+     * Index of the first row in result.rows
+     */
+    private int offset;
+
+    /**
+     * Rows kept for the job, across all pages
+     */
+    private int totalRows;
+}
@@ -31,6 +31,11 @@ public class TableDataResponse {
      */
     private Long totalCount;
 
+    /**
+     * False when totalCount is the database's estimate because the exact count is still running
+     */
+    private Boolean totalCountExact;
+
     /**
      * Current page number
      */
@@ -45,4 +50,9 @@ public class TableDataResponse {
      * Total pages
      */
     private Long totalPages;
+
+    /**
+     * Opaque cursor of the next page when the table is paged by key, null on the last page or when paged by offset
+     */
+    private String nextCursor;
 }
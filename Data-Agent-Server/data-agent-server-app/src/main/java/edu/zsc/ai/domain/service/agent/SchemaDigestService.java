@@ -0,0 +1,26 @@
+package edu.zsc.ai.domain.service.agent;
+
+import java.util.List;
+
+public interface SchemaDigestService {
+
+    /**
+     * Terse text of a schema's tables, column types, keys and foreign key edges for the agent's system prompt,
+     * kept within the configured token budget. Built from the schema snapshot and cached until the snapshot
+     * changes.
+     */
+    String getDigest(Long connectionId, String catalog, String schema, Long userId);
+
+    /**
+     * Digest with the given tables (e.g. those retrieved for the user's question) ranked first, so they are shown
+     * in full before the budget runs out. The same tables give the same text, cached until the snapshot changes;
+     * without focus tables this is {@link #getDigest}.
+     */
+    String getDigest(Long connectionId, String catalog, String schema, List<String> focusTables, Long userId);
+
+    /**
+     * Columns, keys, indexes and foreign keys of several tables (or views) in one compact text, in the order asked.
+     * Names not found are listed at the end.
+     */
+    String describeTables(Long connectionId, String catalog, String schema, List<String> tableNames, Long userId);
+}
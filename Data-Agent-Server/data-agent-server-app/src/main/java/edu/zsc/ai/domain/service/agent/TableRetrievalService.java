@@ -0,0 +1,25 @@
+package edu.zsc.ai.domain.service.agent;
+
+import java.util.List;
+
+public interface TableRetrievalService {
+
+    /**
+     * Tables whose names, columns and comments are closest to the question, best first. Embeds the schema's
+     * tables on first use (and the changed ones after the schema changed), waiting a bounded time for that.
+     */
+    List<String> findRelevantTables(Long connectionId, String catalog, String schema, String question,
+                                    int maxResults, Long userId);
+
+    /**
+     * Retrieval step of a chat turn: the tables to put first in the schema digest for the question. Empty for
+     * small schemas, when retrieval is off, while the schema is first being indexed (which this starts), or when
+     * the question is not embedded and searched within the configured wait. Never throws.
+     */
+    List<String> relevantTablesForPrompt(Long connectionId, String catalog, String schema, String question, Long userId);
+
+    /**
+     * Forget the connection's indexed schemas and remove their embeddings, after it was changed or deleted.
+     */
+    void removeConnection(Long connectionId);
+}
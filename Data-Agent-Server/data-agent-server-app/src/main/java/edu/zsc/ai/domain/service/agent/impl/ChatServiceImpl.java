@@ -6,14 +6,21 @@ import dev.langchain4j.service.TokenStream;
 import edu.zsc.ai.agent.ReActAgent;
 import edu.zsc.ai.agent.ReActAgentProvider;
 import edu.zsc.ai.common.constant.ChatErrorConstants;
+import edu.zsc.ai.common.constant.PromptConstants;
 import edu.zsc.ai.common.enums.ai.ModelEnum;
+import edu.zsc.ai.config.ai.SchemaDigestProperties;
 import edu.zsc.ai.context.RequestContext;
 import edu.zsc.ai.domain.model.dto.response.agent.ChatResponseBlock;
 import edu.zsc.ai.domain.model.entity.ai.AiConversation;
 import edu.zsc.ai.domain.service.agent.ChatService;
+import edu.zsc.ai.domain.service.agent.SchemaDigestService;
+import edu.zsc.ai.domain.service.agent.TableRetrievalService;
 import edu.zsc.ai.domain.service.ai.AiConversationService;
 import edu.zsc.ai.domain.service.ai.AiMessageService;
+import edu.zsc.ai.domain.service.db.impl.SqlExecutionRegistry;
 import edu.zsc.ai.model.request.ChatRequest;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.lang3.StringUtils;
 import org.springframework.beans.factory.annotation.Qualifier;
@@ -24,8 +31,17 @@ import reactor.core.publisher.Flux;
 import reactor.core.publisher.Sinks;
 
 import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
 
 @Slf4j
 @Service
@@ -37,16 +53,49 @@ public class ChatServiceImpl implements ChatService {
     private final AiConversationService aiConversationService;
     private final AiMessageService aiMessageService;
     private final Map<String, String> mcpToolNameToServerMap;
+    private final SqlExecutionRegistry sqlExecutionRegistry;
+    private final SchemaDigestService schemaDigestService;
+    private final SchemaDigestProperties schemaDigestProperties;
+    private final TableRetrievalService tableRetrievalService;
+
+    private ThreadPoolExecutor schemaContextExecutor;
 
     public ChatServiceImpl(
             ReActAgentProvider reActAgentProvider,
             AiConversationService aiConversationService,
             AiMessageService aiMessageService,
-            @Qualifier("mcpToolNameToServerMap") Map<String, String> mcpToolNameToServerMap) {
+            @Qualifier("mcpToolNameToServerMap") Map<String, String> mcpToolNameToServerMap,
+            SqlExecutionRegistry sqlExecutionRegistry,
+            SchemaDigestService schemaDigestService,
+            SchemaDigestProperties schemaDigestProperties,
+            TableRetrievalService tableRetrievalService) {
         this.reActAgentProvider = reActAgentProvider;
         this.aiConversationService = aiConversationService;
         this.aiMessageService = aiMessageService;
         this.mcpToolNameToServerMap = mcpToolNameToServerMap;
+        this.sqlExecutionRegistry = sqlExecutionRegistry;
+        this.schemaDigestService = schemaDigestService;
+        this.schemaDigestProperties = schemaDigestProperties;
+        this.tableRetrievalService = tableRetrievalService;
+    }
+
+    @PostConstruct
+    void start() {
+        int threads = schemaDigestProperties.getPromptThreads();
+        AtomicInteger threadIds = new AtomicInteger();
+        // Short queue: when it is full the turn goes without a digest rather than waiting behind others
+        schemaContextExecutor = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(threads * 4), runnable -> {
+                    Thread thread = new Thread(runnable, "schema-context-" + threadIds.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+        schemaContextExecutor.allowCoreThreadTimeOut(true);
+    }
+
+    @PreDestroy
+    void stop() {
+        schemaContextExecutor.shutdownNow();
     }
 
     @Override
@@ -66,7 +115,7 @@ public class ChatServiceImpl implements ChatService {
         Sinks.Many<ChatResponseBlock> sink = Sinks.many().unicast().onBackpressureBuffer();
         String memoryId = RequestContext.getUserId() + ":" + request.getConversationId();
         InvocationParameters parameters = InvocationParameters.from(RequestContext.toMap());
-        TokenStream tokenStream = agent.chat(memoryId, request.getMessage(), parameters);
+        TokenStream tokenStream = agent.chat(memoryId, request.getMessage(), buildSchemaContext(request.getMessage()), parameters);
 
         // Stream token callbacks (inlined from streamTokenStreamToSink)
         Long conversationId = request.getConversationId();
@@ -178,7 +227,54 @@ public class ChatServiceImpl implements ChatService {
 
         tokenStream.start();
 
-        return sink.asFlux();
+        // Client went away (closed the chat or aborted the request): stop any SQL the agent is running for it
+        return sink.asFlux()
+                .doOnCancel(() -> sqlExecutionRegistry.cancelConversation(conversationId));
+    }
+
+    /**
+     * Digest of the session's schema for the system prompt, so the agent can write SQL without first listing
+     * tables and reading their DDL. In large schemas the tables retrieved for the message are shown first.
+     * The digest is built off the request thread and waited for briefly: a schema still being read is left out
+     * of this turn (the build goes on and is cached for the next one), as is a digest that cannot be built;
+     * the agent then uses its tools.
+     */
+    private String buildSchemaContext(String message) {
+        Long connectionId = RequestContext.getConnectionId();
+        String databaseName = RequestContext.getDatabaseName();
+        String schemaName = RequestContext.getSchemaName();
+        if (connectionId == null || (StringUtils.isBlank(databaseName) && StringUtils.isBlank(schemaName))) {
+            return PromptConstants.NO_SCHEMA_CONTEXT;
+        }
+        if (!schemaDigestProperties.isEnabled()) {
+            return PromptConstants.SCHEMA_CONTEXT_UNAVAILABLE;
+        }
+        Long userId = RequestContext.getUserId();
+        CompletableFuture<String> digest;
+        try {
+            digest = CompletableFuture.supplyAsync(() -> {
+                List<String> relevantTables = tableRetrievalService.relevantTablesForPrompt(
+                        connectionId, databaseName, schemaName, message, userId);
+                return schemaDigestService.getDigest(connectionId, databaseName, schemaName, relevantTables, userId);
+            }, schemaContextExecutor);
+        } catch (RejectedExecutionException e) {
+            log.warn("Schema digest skipped, too many being built: connectionId={}", connectionId);
+            return PromptConstants.SCHEMA_CONTEXT_UNAVAILABLE;
+        }
+        try {
+            return digest.get(schemaDigestProperties.getPromptWaitMillis(), TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            log.info("Schema digest not ready within {}ms, left out of this turn: connectionId={}, database={}, schema={}",
+                    schemaDigestProperties.getPromptWaitMillis(), connectionId, databaseName, schemaName);
+            return PromptConstants.SCHEMA_CONTEXT_UNAVAILABLE;
+        } catch (ExecutionException e) {
+            log.warn("Schema digest unavailable: connectionId={}, database={}, schema={}",
+                    connectionId, databaseName, schemaName, e.getCause());
+            return PromptConstants.SCHEMA_CONTEXT_UNAVAILABLE;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return PromptConstants.SCHEMA_CONTEXT_UNAVAILABLE;
+        }
     }
 
     /**
@@ -0,0 +1,499 @@
+package edu.zsc.ai.domain.service.agent.impl;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import edu.zsc.ai.config.ai.SchemaDigestProperties;
+import edu.zsc.ai.config.db.MetadataCacheProperties;
+import edu.zsc.ai.domain.service.agent.SchemaDigestService;
+import edu.zsc.ai.domain.service.db.ColumnService;
+import edu.zsc.ai.domain.service.db.IndexService;
+import edu.zsc.ai.domain.service.db.SchemaSnapshotService;
+import edu.zsc.ai.plugin.model.metadata.ColumnMetadata;
+import edu.zsc.ai.plugin.model.metadata.ForeignKeyMetadata;
+import edu.zsc.ai.plugin.model.metadata.FunctionMetadata;
+import edu.zsc.ai.plugin.model.metadata.IndexMetadata;
+import edu.zsc.ai.plugin.model.metadata.ProcedureMetadata;
+import edu.zsc.ai.plugin.model.metadata.SchemaSnapshot;
+import edu.zsc.ai.plugin.model.metadata.TableSnapshot;
+import edu.zsc.ai.util.exception.BusinessException;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang3.StringUtils;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Builds the schema digest from the cached schema snapshot. Tables are ranked by how often other tables reference
+ * them and then by size; in that order each is shown with all its columns while the budget allows, then with its
+ * key columns only, and the rest by name only.
+ *
+ * <p>Tables described on request are read from the same snapshot. For plugins without schema snapshots their
+ * columns and indexes are fetched per table, concurrently over pooled connections.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class SchemaDigestServiceImpl implements SchemaDigestService {
+
+    /**
+     * Rough characters per token of identifiers and type names
+     */
+    private static final int CHARS_PER_TOKEN = 4;
+
+    /**
+     * Room kept for the closing hint lines
+     */
+    private static final int FOOTER_CHARS = 120;
+
+    private static final Set<String> SIZED_TYPES = Set.of("char", "varchar", "binary", "varbinary");
+    private static final Set<String> SCALED_TYPES = Set.of("decimal", "numeric");
+
+    /**
+     * Most focused digests kept: one per schema and set of retrieved tables
+     */
+    private static final int MAX_FOCUSED_DIGESTS = 1000;
+
+    private record Key(Long connectionId, String catalog, String schema) {
+    }
+
+    private record FocusedKey(Key schema, Set<String> focus) {
+    }
+
+    /**
+     * @param snapshot the snapshot the text was built from; a different instance means the digest is outdated
+     */
+    private record Digest(SchemaSnapshot snapshot, String text) {
+    }
+
+    private final SchemaSnapshotService schemaSnapshotService;
+    private final ColumnService columnService;
+    private final IndexService indexService;
+    private final SchemaDigestProperties properties;
+    private final MetadataCacheProperties metadataCacheProperties;
+
+    private Cache<Key, Digest> digests;
+    private Cache<FocusedKey, Digest> focusedDigests;
+    private ThreadPoolExecutor describeExecutor;
+
+    @PostConstruct
+    void start() {
+        digests = Caffeine.newBuilder()
+                .expireAfterAccess(Duration.ofMillis(metadataCacheProperties.getSnapshotExpireAfterAccessMillis()))
+                .build();
+        focusedDigests = Caffeine.newBuilder()
+                .maximumSize(MAX_FOCUSED_DIGESTS)
+                .expireAfterAccess(Duration.ofMillis(metadataCacheProperties.getSnapshotExpireAfterAccessMillis()))
+                .build();
+        // No queue: when every thread is busy the caller fetches the table itself
+        AtomicInteger threadIds = new AtomicInteger();
+        describeExecutor = new ThreadPoolExecutor(0, properties.getDescribeThreads(), 60, TimeUnit.SECONDS,
+                new SynchronousQueue<>(), runnable -> {
+                    Thread thread = new Thread(runnable, "describe-tables-" + threadIds.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                }, new ThreadPoolExecutor.CallerRunsPolicy());
+    }
+
+    @PreDestroy
+    void stop() {
+        describeExecutor.shutdownNow();
+    }
+
+    @Override
+    public String getDigest(Long connectionId, String catalog, String schema, Long userId) {
+        SchemaSnapshot snapshot = schemaSnapshotService.getSnapshot(connectionId, catalog, schema, userId);
+        Key key = new Key(connectionId, catalog, schema);
+        Digest cached = digests.getIfPresent(key);
+        if (cached != null && cached.snapshot() == snapshot) {
+            return cached.text();
+        }
+        String text = format(snapshot, StringUtils.defaultIfBlank(schema, catalog), Set.of());
+        digests.put(key, new Digest(snapshot, text));
+        log.debug("Schema digest built: connectionId={}, catalog={}, schema={}, chars={}",
+                connectionId, catalog, schema, text.length());
+        return text;
+    }
+
+    @Override
+    public String getDigest(Long connectionId, String catalog, String schema, List<String> focusTables, Long userId) {
+        if (focusTables == null || focusTables.isEmpty()) {
+            return getDigest(connectionId, catalog, schema, userId);
+        }
+        SchemaSnapshot snapshot = schemaSnapshotService.getSnapshot(connectionId, catalog, schema, userId);
+        FocusedKey key = new FocusedKey(new Key(connectionId, catalog, schema), Set.copyOf(focusTables));
+        Digest cached = focusedDigests.getIfPresent(key);
+        if (cached != null && cached.snapshot() == snapshot) {
+            return cached.text();
+        }
+        String text = format(snapshot, StringUtils.defaultIfBlank(schema, catalog), key.focus());
+        focusedDigests.put(key, new Digest(snapshot, text));
+        return text;
+    }
+
+    @Override
+    public String describeTables(Long connectionId, String catalog, String schema, List<String> tableNames, Long userId) {
+        List<String> requested = new ArrayList<>(new LinkedHashSet<>(tableNames));
+        List<String> skipped = List.of();
+        if (requested.size() > properties.getMaxDescribeTables()) {
+            skipped = requested.subList(properties.getMaxDescribeTables(), requested.size());
+            requested = requested.subList(0, properties.getMaxDescribeTables());
+        }
+
+        List<TableSnapshot> tables = new ArrayList<>();
+        List<String> missing = new ArrayList<>();
+        Map<String, List<String>> referencedBy = new HashMap<>();
+        SchemaSnapshot snapshot = snapshotOrNull(connectionId, catalog, schema, userId);
+        if (snapshot != null) {
+            for (String name : requested) {
+                TableSnapshot table = snapshot.findTable(name);
+                if (table != null) {
+                    tables.add(table);
+                } else {
+                    missing.add(name);
+                }
+            }
+            Set<String> described = new LinkedHashSet<>();
+            tables.forEach(t -> described.add(t.name()));
+            for (TableSnapshot table : snapshot.getTables()) {
+                for (ForeignKeyMetadata foreignKey : table.foreignKeys()) {
+                    if (foreignKey.referencedCatalog() == null && described.contains(foreignKey.referencedTable())) {
+                        referencedBy.computeIfAbsent(foreignKey.referencedTable(), k -> new ArrayList<>())
+                                .add(table.name() + "(" + String.join(",", foreignKey.columns()) + ")");
+                    }
+                }
+            }
+        } else {
+            List<CompletableFuture<TableSnapshot>> fetches = requested.stream()
+                    .map(name -> CompletableFuture.supplyAsync(
+                            () -> fetchTable(connectionId, catalog, schema, name, userId), describeExecutor))
+                    .toList();
+            for (int i = 0; i < requested.size(); i++) {
+                TableSnapshot table = join(fetches.get(i));
+                if (table != null) {
+                    tables.add(table);
+                } else {
+                    missing.add(requested.get(i));
+                }
+            }
+        }
+
+        StringBuilder out = new StringBuilder();
+        out.append("Columns as: name type, PK = primary key, AI = auto increment, NULL = nullable, =v = default,"
+                + " >t.c = foreign key to t.c, -- comment. idx: indexes; refs: foreign keys pointing here.\n");
+        for (TableSnapshot table : tables) {
+            describeTable(out, table, referencedBy.getOrDefault(table.name(), List.of()));
+        }
+        if (!missing.isEmpty()) {
+            out.append("Not found: ").append(String.join(", ", missing)).append(" (use getTableNames)\n");
+        }
+        if (!skipped.isEmpty()) {
+            out.append("Not described, over the limit of ").append(properties.getMaxDescribeTables())
+                    .append(" tables per call: ").append(String.join(", ", skipped)).append('\n');
+        }
+        return out.toString();
+    }
+
+    /**
+     * Snapshot of the schema, or null when the plugin does not build snapshots
+     */
+    private SchemaSnapshot snapshotOrNull(Long connectionId, String catalog, String schema, Long userId) {
+        try {
+            return schemaSnapshotService.getSnapshot(connectionId, catalog, schema, userId);
+        } catch (BusinessException | UnsupportedOperationException e) {
+            log.debug("No schema snapshot, describing tables one by one: connectionId={}, reason={}",
+                    connectionId, e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Columns and indexes of one table, without comment, row estimate or foreign keys; null when it has no columns
+     */
+    private TableSnapshot fetchTable(Long connectionId, String catalog, String schema, String tableName, Long userId) {
+        List<ColumnMetadata> columns = columnService.listColumns(connectionId, catalog, schema, tableName, userId);
+        if (columns == null || columns.isEmpty()) {
+            return null;
+        }
+        List<IndexMetadata> indexes = indexService.getIndexes(connectionId, catalog, schema, tableName, userId);
+        return new TableSnapshot(tableName, false, null, null, columns, indexes != null ? indexes : List.of(), List.of());
+    }
+
+    private static <T> T join(CompletableFuture<T> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            throw e.getCause() instanceof RuntimeException cause ? cause : e;
+        }
+    }
+
+    private void describeTable(StringBuilder out, TableSnapshot table, List<String> referencedBy) {
+        Map<String, String> references = references(table);
+        out.append(table.name());
+        if (table.view()) {
+            out.append(" (view)");
+        }
+        if (table.rowEstimate() != null) {
+            out.append(" ~").append(formatRows(table.rowEstimate()));
+        }
+        if (StringUtils.isNotBlank(table.comment())) {
+            out.append(" \"").append(StringUtils.abbreviate(table.comment().strip(), properties.getMaxCommentChars()))
+                    .append('"');
+        }
+        out.append('\n');
+        for (ColumnMetadata column : table.columns()) {
+            out.append("  ").append(column.name()).append(' ').append(formatType(column));
+            if (column.isUnsigned()) {
+                out.append(" unsigned");
+            }
+            if (column.isPrimaryKeyPart()) {
+                out.append(" PK");
+            }
+            if (column.isAutoIncrement()) {
+                out.append(" AI");
+            }
+            if (column.nullable() && !column.isPrimaryKeyPart()) {
+                out.append(" NULL");
+            }
+            if (column.defaultValue() != null) {
+                out.append(" =").append(column.defaultValue());
+            }
+            String reference = references.get(column.name());
+            if (reference != null) {
+                out.append(" >").append(reference);
+            }
+            if (StringUtils.isNotBlank(column.remarks())) {
+                out.append(" -- ").append(StringUtils.abbreviate(column.remarks().strip(), properties.getMaxCommentChars()));
+            }
+            out.append('\n');
+        }
+        if (!table.indexes().isEmpty()) {
+            out.append("  idx: ");
+            for (int i = 0; i < table.indexes().size(); i++) {
+                IndexMetadata index = table.indexes().get(i);
+                out.append(i > 0 ? "; " : "").append(index.name());
+                out.append('(').append(String.join(",", index.columns().stream().map(StringUtils::defaultString).toList()))
+                        .append(')');
+                if (index.unique() && !index.isPrimaryKey()) {
+                    out.append(" UNIQUE");
+                }
+            }
+            out.append('\n');
+        }
+        if (!referencedBy.isEmpty()) {
+            out.append("  refs: ").append(String.join(", ", referencedBy)).append('\n');
+        }
+    }
+
+    /**
+     * @param focus tables ranked before all others
+     */
+    private String format(SchemaSnapshot snapshot, String name, Set<String> focus) {
+        List<TableSnapshot> views = snapshot.getTables().stream().filter(TableSnapshot::view).toList();
+        Map<String, Integer> referencedBy = new HashMap<>();
+        for (TableSnapshot table : snapshot.getTables()) {
+            for (ForeignKeyMetadata foreignKey : table.foreignKeys()) {
+                if (foreignKey.referencedCatalog() == null && !foreignKey.referencedTable().equals(table.name())) {
+                    referencedBy.merge(foreignKey.referencedTable(), 1, Integer::sum);
+                }
+            }
+        }
+        List<TableSnapshot> tables = snapshot.getTables().stream()
+                .filter(t -> !t.view())
+                .sorted(Comparator.<TableSnapshot, Boolean>comparing(t -> !focus.contains(t.name()))
+                        .thenComparingInt(t -> -referencedBy.getOrDefault(t.name(), 0))
+                        .thenComparing(t -> t.rowEstimate() != null ? -t.rowEstimate() : 0L))
+                .toList();
+
+        StringBuilder out = new StringBuilder();
+        out.append("Database ").append(name).append(": ").append(tables.size()).append(" tables, ")
+                .append(views.size()).append(" views, ").append(snapshot.getFunctions().size()).append(" functions, ")
+                .append(snapshot.getProcedures().size()).append(" procedures.\n");
+        if (tables.isEmpty() && views.isEmpty()) {
+            return out.toString();
+        }
+        out.append(focus.isEmpty() ? "Tables, most referenced first," : "Tables, those matching the question first,")
+                .append(" as: name ~rows \"comment\": column type, PK = primary key,"
+                + " >t.c = foreign key to t.c, +N = columns not listed.\n");
+
+        int budget = properties.getMaxTokens() * CHARS_PER_TOKEN - FOOTER_CHARS;
+        String[] full = new String[tables.size()];
+        String[] keys = new String[tables.size()];
+        int[] level = new int[tables.size()];
+        int namesLength = "Other tables: ".length();
+        for (int i = 0; i < tables.size(); i++) {
+            full[i] = tableLine(tables.get(i), false);
+            keys[i] = tableLine(tables.get(i), true);
+            namesLength += tables.get(i).name().length() + 2;
+        }
+
+        if (out.length() + namesLength > budget) {
+            // Not even every name fits: list as many as do
+            out.append("Tables: ");
+            int shown = 0;
+            while (shown < tables.size() && out.length() + tables.get(shown).name().length() + 2 <= budget) {
+                out.append(shown > 0 ? ", " : "").append(tables.get(shown).name());
+                shown++;
+            }
+            out.append('\n');
+            out.append("... and ").append(tables.size() - shown)
+                    .append(" more tables; use getTableNames to list them and getTableDdl for their columns.\n");
+            return out.toString();
+        }
+
+        int remaining = budget - out.length() - namesLength;
+        for (int i = 0; i < tables.size(); i++) {
+            int nameLength = tables.get(i).name().length() + 2;
+            if (full[i].length() + 1 - nameLength <= remaining) {
+                level[i] = 2;
+                remaining -= full[i].length() + 1 - nameLength;
+            } else if (keys[i] != null && keys[i].length() + 1 - nameLength <= remaining) {
+                level[i] = 1;
+                remaining -= keys[i].length() + 1 - nameLength;
+            }
+        }
+
+        StringBuilder others = new StringBuilder();
+        boolean partial = false;
+        for (int i = 0; i < tables.size(); i++) {
+            if (level[i] == 2) {
+                out.append(full[i]).append('\n');
+            } else if (level[i] == 1) {
+                out.append(keys[i]).append('\n');
+                partial = true;
+            } else {
+                others.append(others.isEmpty() ? "" : ", ").append(tables.get(i).name());
+                partial = true;
+            }
+        }
+        if (!others.isEmpty()) {
+            out.append("Other tables: ").append(others).append('\n');
+        }
+
+        remaining = budget - out.length();
+        remaining = appendNames(out, "Views", views.stream().map(TableSnapshot::name).toList(), remaining, "getViewNames");
+        remaining = appendNames(out, "Functions", snapshot.getFunctions().stream().map(FunctionMetadata::name).toList(),
+                remaining, "getFunctionNames");
+        appendNames(out, "Procedures", snapshot.getProcedures().stream().map(ProcedureMetadata::name).toList(),
+                remaining, "getProcedureNames");
+        if (partial) {
+            out.append("Use getTableDdl for the columns of tables not shown in full.\n");
+        }
+        return out.toString();
+    }
+
+    /**
+     * One table with all its columns, or with its primary and foreign key columns only; null for the keys-only
+     * form when the table has no key columns.
+     */
+    private String tableLine(TableSnapshot table, boolean keysOnly) {
+        Map<String, String> references = references(table);
+        StringBuilder line = new StringBuilder(table.name());
+        if (table.rowEstimate() != null) {
+            line.append(" ~").append(formatRows(table.rowEstimate()));
+        }
+        if (!keysOnly && StringUtils.isNotBlank(table.comment())) {
+            line.append(" \"").append(StringUtils.abbreviate(table.comment().strip(), properties.getMaxCommentChars()))
+                    .append('"');
+        }
+        line.append(':');
+        int listed = 0;
+        for (ColumnMetadata column : table.columns()) {
+            String reference = references.get(column.name());
+            if (keysOnly && !column.isPrimaryKeyPart() && reference == null) {
+                continue;
+            }
+            line.append(listed > 0 ? ", " : " ").append(column.name()).append(' ').append(formatType(column));
+            if (column.isPrimaryKeyPart()) {
+                line.append(" PK");
+            }
+            if (reference != null) {
+                line.append(" >").append(reference);
+            }
+            listed++;
+        }
+        if (keysOnly) {
+            if (listed == 0) {
+                return null;
+            }
+            line.append(", +").append(table.columns().size() - listed);
+        }
+        return line.toString();
+    }
+
+    /**
+     * Referenced table.column of each foreign key column
+     */
+    private static Map<String, String> references(TableSnapshot table) {
+        Map<String, String> references = new HashMap<>();
+        for (ForeignKeyMetadata foreignKey : table.foreignKeys()) {
+            String target = foreignKey.referencedCatalog() != null
+                    ? foreignKey.referencedCatalog() + "." + foreignKey.referencedTable()
+                    : foreignKey.referencedTable();
+            for (int i = 0; i < foreignKey.columns().size() && i < foreignKey.referencedColumns().size(); i++) {
+                references.putIfAbsent(foreignKey.columns().get(i), target + "." + foreignKey.referencedColumns().get(i));
+            }
+        }
+        return references;
+    }
+
+    /**
+     * Names on one line when they fit, otherwise just their count and the tool that lists them
+     *
+     * @return the budget left
+     */
+    private static int appendNames(StringBuilder out, String label, List<String> names, int remaining, String tool) {
+        if (names.isEmpty()) {
+            return remaining;
+        }
+        String line = label + ": " + String.join(", ", names) + "\n";
+        if (line.length() > remaining) {
+            line = label + ": " + names.size() + ", use " + tool + " to list them\n";
+        }
+        out.append(line);
+        return remaining - line.length();
+    }
+
+    private static String formatType(ColumnMetadata column) {
+        String type = StringUtils.defaultString(column.typeName()).toLowerCase(Locale.ROOT);
+        if (SIZED_TYPES.contains(type) && column.columnSize() > 0) {
+            return type + "(" + column.columnSize() + ")";
+        }
+        if (SCALED_TYPES.contains(type) && column.columnSize() > 0) {
+            return type + "(" + column.columnSize() + "," + column.decimalDigits() + ")";
+        }
+        return type;
+    }
+
+    /**
+     * Row estimate rounded so small data changes do not change the digest
+     */
+    private static String formatRows(long rows) {
+        if (rows >= 1_000_000_000L) {
+            return String.format(Locale.ROOT, "%.1fB", rows / 1e9);
+        }
+        if (rows >= 1_000_000L) {
+            return String.format(Locale.ROOT, "%.1fM", rows / 1e6);
+        }
+        if (rows >= 1_000L) {
+            return String.format(Locale.ROOT, "%.1fk", rows / 1e3);
+        }
+        return String.valueOf(rows < 10 ? rows : rows / 10 * 10);
+    }
+}
@@ -0,0 +1,373 @@
+package edu.zsc.ai.domain.service.agent.impl;
+
+import dev.langchain4j.data.document.Metadata;
+import dev.langchain4j.data.embedding.Embedding;
+import dev.langchain4j.data.segment.TextSegment;
+import dev.langchain4j.model.embedding.EmbeddingModel;
+import dev.langchain4j.store.embedding.EmbeddingMatch;
+import dev.langchain4j.store.embedding.EmbeddingSearchRequest;
+import dev.langchain4j.store.embedding.EmbeddingStore;
+import dev.langchain4j.store.embedding.filter.Filter;
+import edu.zsc.ai.common.constant.ResponseCode;
+import edu.zsc.ai.config.ai.TableRetrievalProperties;
+import edu.zsc.ai.domain.service.agent.TableRetrievalService;
+import edu.zsc.ai.domain.service.db.SchemaSnapshotService;
+import edu.zsc.ai.plugin.model.metadata.ColumnMetadata;
+import edu.zsc.ai.plugin.model.metadata.SchemaFingerprints;
+import edu.zsc.ai.plugin.model.metadata.SchemaSnapshot;
+import edu.zsc.ai.plugin.model.metadata.TableSnapshot;
+import edu.zsc.ai.util.exception.BusinessException;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang3.StringUtils;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static dev.langchain4j.store.embedding.filter.MetadataFilterBuilder.metadataKey;
+
+/**
+ * Embeds one text per table (its name, comment, and column names with their comments) into the schema embedding
+ * store, tagged with the connection, catalog, schema and table. Schemas are indexed in the background on first
+ * use; after the schema snapshot moves to a new generation only the tables whose version changed are embedded
+ * again. Entries left in a persistent store by an earlier run are replaced when the schema is first indexed, and
+ * those of a connection are dropped when it is changed or deleted.
+ */
+@Slf4j
+@Service
+public class TableRetrievalServiceImpl implements TableRetrievalService {
+
+    private static final String CONNECTION_ID = "connection_id";
+    private static final String CATALOG = "catalog_name";
+    private static final String SCHEMA = "schema_name";
+    private static final String TABLE = "table_name";
+
+    /**
+     * Longest column text of one table; embedding models cut their input anyway
+     */
+    private static final int MAX_SEGMENT_CHARS = 4000;
+
+    private record Key(Long connectionId, String catalog, String schema) {
+    }
+
+    /**
+     * @param tableVersions version of each embedded table in the snapshot it was embedded from
+     */
+    private record IndexState(long generation, Map<String, Long> tableVersions) {
+    }
+
+    private record Indexing(CompletableFuture<IndexState> future, long generation, long startedAtMillis) {
+    }
+
+    private final SchemaSnapshotService schemaSnapshotService;
+    private final ObjectProvider<EmbeddingModel> embeddingModels;
+    private final EmbeddingStore<TextSegment> embeddingStore;
+    private final TableRetrievalProperties properties;
+
+    private final Map<Key, IndexState> indexed = new ConcurrentHashMap<>();
+    private final Map<Key, Indexing> indexing = new ConcurrentHashMap<>();
+    private ThreadPoolExecutor indexExecutor;
+    private ThreadPoolExecutor searchExecutor;
+
+    public TableRetrievalServiceImpl(
+            SchemaSnapshotService schemaSnapshotService,
+            ObjectProvider<EmbeddingModel> embeddingModels,
+            @Qualifier("schemaEmbeddingStore") EmbeddingStore<TextSegment> embeddingStore,
+            TableRetrievalProperties properties) {
+        this.schemaSnapshotService = schemaSnapshotService;
+        this.embeddingModels = embeddingModels;
+        this.embeddingStore = embeddingStore;
+        this.properties = properties;
+    }
+
+    @PostConstruct
+    void start() {
+        int threads = properties.getIndexThreads();
+        AtomicInteger threadIds = new AtomicInteger();
+        // Bounded queue: a schema that finds it full is indexed on a later request
+        indexExecutor = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(properties.getIndexQueue()), runnable -> {
+                    Thread thread = new Thread(runnable, "table-embedding-" + threadIds.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+        indexExecutor.allowCoreThreadTimeOut(true);
+        int searchThreads = properties.getSearchThreads();
+        AtomicInteger searchThreadIds = new AtomicInteger();
+        // Short queue: when it is full the turn goes without retrieved tables rather than waiting behind others
+        searchExecutor = new ThreadPoolExecutor(searchThreads, searchThreads, 60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(searchThreads * 4), runnable -> {
+                    Thread thread = new Thread(runnable, "table-search-" + searchThreadIds.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+        searchExecutor.allowCoreThreadTimeOut(true);
+    }
+
+    @PreDestroy
+    void stop() {
+        indexExecutor.shutdownNow();
+        searchExecutor.shutdownNow();
+    }
+
+    @Override
+    public List<String> findRelevantTables(Long connectionId, String catalog, String schema, String question,
+                                           int maxResults, Long userId) {
+        EmbeddingModel model = embeddingModels.getIfUnique();
+        BusinessException.throwIf(!properties.isEnabled() || model == null, ResponseCode.SERVICE_UNAVAILABLE,
+                "Table retrieval is not available: no embedding model is configured");
+        if (StringUtils.isBlank(question)) {
+            throw BusinessException.badRequest("A question is required to find relevant tables");
+        }
+        Key key = new Key(connectionId, catalog, schema);
+        SchemaSnapshot snapshot = schemaSnapshotService.getSnapshot(connectionId, catalog, schema, userId);
+        CompletableFuture<IndexState> index;
+        try {
+            index = ensureIndexed(key, snapshot, model);
+        } catch (RejectedExecutionException e) {
+            throw BusinessException.of(ResponseCode.SERVICE_UNAVAILABLE,
+                    "Too many schemas are being indexed for table retrieval, try again shortly");
+        }
+        // A schema indexed before can be searched while its changed tables are embedded again
+        if (!indexed.containsKey(key)) {
+            try {
+                index.get(properties.getIndexWaitMillis(), TimeUnit.MILLISECONDS);
+            } catch (TimeoutException e) {
+                throw BusinessException.of(ResponseCode.SERVICE_UNAVAILABLE, String.format(
+                        "The tables of %s are still being indexed, try again shortly",
+                        StringUtils.defaultIfBlank(schema, catalog)));
+            } catch (ExecutionException e) {
+                throw new IllegalStateException("Failed to index tables: " + e.getCause().getMessage(), e.getCause());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted while indexing tables", e);
+            }
+        }
+        return search(key, model, question, maxResults);
+    }
+
+    @Override
+    public List<String> relevantTablesForPrompt(Long connectionId, String catalog, String schema, String question,
+                                                Long userId) {
+        EmbeddingModel model = embeddingModels.getIfUnique();
+        if (!properties.isEnabled() || model == null || StringUtils.isBlank(question)) {
+            return List.of();
+        }
+        try {
+            Key key = new Key(connectionId, catalog, schema);
+            SchemaSnapshot snapshot = schemaSnapshotService.getSnapshot(connectionId, catalog, schema, userId);
+            if (snapshot.getTables().size() < properties.getPromptMinTables()) {
+                return List.of();
+            }
+            ensureIndexed(key, snapshot, model);
+            if (!indexed.containsKey(key)) {
+                return List.of();
+            }
+            // The question is embedded by a remote model: bounded so a slow one does not hold up the turn
+            CompletableFuture<List<String>> tables = CompletableFuture.supplyAsync(
+                    () -> search(key, model, question, properties.getPromptTables()), searchExecutor);
+            try {
+                return tables.get(properties.getPromptWaitMillis(), TimeUnit.MILLISECONDS);
+            } catch (TimeoutException e) {
+                tables.cancel(true);
+                log.info("Table retrieval not done within {}ms, skipped: connectionId={}, catalog={}, schema={}",
+                        properties.getPromptWaitMillis(), connectionId, catalog, schema);
+                return List.of();
+            }
+        } catch (RejectedExecutionException e) {
+            log.warn("Table retrieval skipped, its executors are busy: connectionId={}", connectionId);
+            return List.of();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return List.of();
+        } catch (Exception e) {
+            log.warn("Table retrieval skipped: connectionId={}, catalog={}, schema={}", connectionId, catalog, schema, e);
+            return List.of();
+        }
+    }
+
+    /**
+     * Indexing of the schema up to the snapshot's generation: the running or finished one when it covers that
+     * generation, else a new one. A failed one is retried after a pause.
+     */
+    private CompletableFuture<IndexState> ensureIndexed(Key key, SchemaSnapshot snapshot, EmbeddingModel model) {
+        Indexing[] started = new Indexing[1];
+        Indexing run = indexing.compute(key, (k, current) -> {
+            long now = System.currentTimeMillis();
+            if (current != null) {
+                boolean failed = current.future().isCompletedExceptionally();
+                if (!current.future().isDone()
+                        || (!failed && current.generation() == snapshot.getGeneration())
+                        || (failed && now - current.startedAtMillis() < properties.getRetryAfterFailureMillis())) {
+                    return current;
+                }
+            }
+            started[0] = new Indexing(new CompletableFuture<>(), snapshot.getGeneration(), now);
+            return started[0];
+        });
+        if (run == started[0]) {
+            // Submitted once registered, so the run finds itself current
+            try {
+                indexExecutor.execute(() -> {
+                    try {
+                        run.future().complete(index(key, snapshot, model, run));
+                    } catch (RuntimeException e) {
+                        log.warn("Failed to index tables: connectionId={}, catalog={}, schema={}, error={}",
+                                key.connectionId(), key.catalog(), key.schema(), e.getMessage());
+                        run.future().completeExceptionally(e);
+                    }
+                });
+            } catch (RejectedExecutionException e) {
+                indexing.remove(key, run);
+                throw e;
+            }
+        }
+        return run.future();
+    }
+
+    @Override
+    public void removeConnection(Long connectionId) {
+        // Runs still going see they were dropped and stop, removing what they added
+        indexing.keySet().removeIf(key -> key.connectionId().equals(connectionId));
+        indexed.keySet().removeIf(key -> key.connectionId().equals(connectionId));
+        try {
+            embeddingStore.removeAll(metadataKey(CONNECTION_ID).isEqualTo(String.valueOf(connectionId)));
+        } catch (RuntimeException e) {
+            log.warn("Failed to remove table embeddings: connectionId={}, error={}", connectionId, e.getMessage());
+        }
+    }
+
+    /**
+     * Whether the run is still the schema's current one, not replaced or dropped with its connection
+     */
+    private boolean isCurrent(Key key, Indexing run) {
+        return indexing.get(key) == run;
+    }
+
+    private IndexState index(Key key, SchemaSnapshot snapshot, EmbeddingModel model, Indexing run) {
+        long start = System.currentTimeMillis();
+        Map<String, Long> versions = new HashMap<>();
+        for (TableSnapshot table : snapshot.getTables()) {
+            versions.put(table.name(), snapshot.versionOf(SchemaFingerprints.TABLE, table.name()));
+        }
+
+        IndexState previous = indexed.get(key);
+        List<TableSnapshot> toEmbed = new ArrayList<>();
+        if (previous == null) {
+            // Entries of an earlier run, when the store is persistent
+            embeddingStore.removeAll(schemaFilter(key));
+            toEmbed.addAll(snapshot.getTables());
+        } else {
+            Set<String> outdated = new HashSet<>();
+            previous.tableVersions().forEach((name, version) -> {
+                if (!Objects.equals(versions.get(name), version)) {
+                    outdated.add(name);
+                }
+            });
+            for (TableSnapshot table : snapshot.getTables()) {
+                if (!previous.tableVersions().containsKey(table.name()) || outdated.contains(table.name())) {
+                    toEmbed.add(table);
+                }
+            }
+            if (!outdated.isEmpty()) {
+                embeddingStore.removeAll(schemaFilter(key).and(metadataKey(TABLE).isIn(outdated)));
+            }
+        }
+
+        for (int from = 0; from < toEmbed.size(); from += properties.getBatchSize()) {
+            List<TextSegment> segments = toEmbed.subList(from, Math.min(from + properties.getBatchSize(), toEmbed.size()))
+                    .stream()
+                    .map(table -> toSegment(key, table))
+                    .toList();
+            List<Embedding> embeddings = model.embedAll(segments).content();
+            List<String> ids = embeddingStore.addAll(embeddings, segments);
+            if (!isCurrent(key, run)) {
+                embeddingStore.removeAll(ids);
+                throw new IllegalStateException("Indexing dropped, the connection was changed or deleted");
+            }
+        }
+
+        IndexState state = new IndexState(snapshot.getGeneration(), Map.copyOf(versions));
+        // Published under the run's entry, so a removal of the connection cannot slip in between
+        boolean current = indexing.computeIfPresent(key, (k, entry) -> {
+            if (entry == run) {
+                indexed.put(key, state);
+            }
+            return entry;
+        }) == run;
+        if (!current) {
+            throw new IllegalStateException("Indexing dropped, the connection was changed or deleted");
+        }
+        log.info("Tables indexed for retrieval: connectionId={}, catalog={}, schema={}, embedded={}, tables={}, elapsedMs={}",
+                key.connectionId(), key.catalog(), key.schema(), toEmbed.size(), versions.size(),
+                System.currentTimeMillis() - start);
+        return state;
+    }
+
+    private List<String> search(Key key, EmbeddingModel model, String question, int maxResults) {
+        Embedding query = model.embed(question).content();
+        List<EmbeddingMatch<TextSegment>> matches = embeddingStore.search(EmbeddingSearchRequest.builder()
+                        .queryEmbedding(query)
+                        .filter(schemaFilter(key))
+                        .maxResults(maxResults)
+                        .minScore(properties.getMinScore())
+                        .build())
+                .matches();
+        return matches.stream()
+                .map(match -> match.embedded().metadata().getString(TABLE))
+                .filter(Objects::nonNull)
+                .distinct()
+                .toList();
+    }
+
+    /**
+     * Text embedded for a table: "table orders (Customer orders); columns: id, customer_id, status (order state)"
+     */
+    private static TextSegment toSegment(Key key, TableSnapshot table) {
+        StringBuilder text = new StringBuilder(table.view() ? "view " : "table ").append(table.name());
+        if (StringUtils.isNotBlank(table.comment())) {
+            text.append(" (").append(table.comment().strip()).append(')');
+        }
+        text.append("; columns: ");
+        int start = text.length();
+        for (ColumnMetadata column : table.columns()) {
+            if (text.length() - start > MAX_SEGMENT_CHARS) {
+                break;
+            }
+            text.append(text.length() > start ? ", " : "").append(column.name());
+            if (StringUtils.isNotBlank(column.remarks())) {
+                text.append(" (").append(column.remarks().strip()).append(')');
+            }
+        }
+        Map<String, Object> metadata = new HashMap<>();
+        metadata.put(CONNECTION_ID, String.valueOf(key.connectionId()));
+        metadata.put(CATALOG, StringUtils.defaultString(key.catalog()));
+        metadata.put(SCHEMA, StringUtils.defaultString(key.schema()));
+        metadata.put(TABLE, table.name());
+        return TextSegment.from(text.toString(), Metadata.from(metadata));
+    }
+
+    private static Filter schemaFilter(Key key) {
+        return metadataKey(CONNECTION_ID).isEqualTo(String.valueOf(key.connectionId()))
+                .and(metadataKey(CATALOG).isEqualTo(StringUtils.defaultString(key.catalog())))
+                .and(metadataKey(SCHEMA).isEqualTo(StringUtils.defaultString(key.schema())));
+    }
+}
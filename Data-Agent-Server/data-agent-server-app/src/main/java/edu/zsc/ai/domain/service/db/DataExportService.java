@@ -0,0 +1,22 @@
+package edu.zsc.ai.domain.service.db;
+
+import edu.zsc.ai.common.enums.db.ExportFormatEnum;
+import edu.zsc.ai.domain.model.dto.request.db.ExportQueryRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+/**
+ * Exports of whole tables, views and query results, written to the response straight from the cursor.
+ * The connection and its ownership are checked when the export is created; the rows are read
+ * only once the returned body is written.
+ */
+public interface DataExportService {
+
+    StreamingResponseBody exportTable(Long connectionId, String catalog, String schema, String tableName, Long userId, ExportFormatEnum format);
+
+    StreamingResponseBody exportView(Long connectionId, String catalog, String schema, String viewName, Long userId, ExportFormatEnum format);
+
+    /**
+     * Export the result of the statement, without the row and byte limits of the SQL execution API.
+     */
+    StreamingResponseBody exportQuery(ExportQueryRequest request, Long userId, ExportFormatEnum format);
+}
@@ -0,0 +1,13 @@
+package edu.zsc.ai.domain.service.db;
+
+import edu.zsc.ai.plugin.model.metadata.SchemaSnapshot;
+
+public interface SchemaSnapshotService {
+
+    /**
+     * Metadata of a whole catalog/schema, loaded with a few bulk queries on first use and cached with the rest
+     * of the schema metadata. While cached, table, column, index and routine lookups of the schema are answered
+     * from it.
+     */
+    SchemaSnapshot getSnapshot(Long connectionId, String catalog, String schema, Long userId);
+}
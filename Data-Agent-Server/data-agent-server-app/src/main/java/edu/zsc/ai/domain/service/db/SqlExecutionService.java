@@ -1,10 +1,17 @@
 package edu.zsc.ai.domain.service.db;
 
 import edu.zsc.ai.domain.model.dto.request.db.ExecuteSqlRequest;
+import edu.zsc.ai.domain.model.dto.request.db.ExecuteSqlScriptRequest;
 import edu.zsc.ai.domain.model.dto.response.db.ExecuteSqlResponse;
+import edu.zsc.ai.domain.model.dto.response.db.ExecuteSqlScriptResponse;
+import edu.zsc.ai.plugin.model.command.RowConsumer;
 
 /**
  * Service for executing SQL on a user-owned connection.
+ *
+ * <p>Each call runs on a pooled connection whose server session is reset when the call returns, so session
+ * state does not carry over between calls: user variables, temporary tables, {@code SET SESSION} and
+ * {@code USE} only last for one statement, or for one script when run through {@link #executeScript}.
  */
 public interface SqlExecutionService {
 
@@ -15,4 +22,30 @@ public interface SqlExecutionService {
      * @return execution result (query result set or DML affected rows, or error info)
      */
     ExecuteSqlResponse executeSql(ExecuteSqlRequest request);
+
+    /**
+     * Execute SQL and stream the result rows to the consumer instead of collecting them in the response.
+     *
+     * @param request  execution context and SQL
+     * @param consumer receives the rows while the cursor is open
+     * @return execution result without rows (headers, timing, affected rows, or error info)
+     */
+    ExecuteSqlResponse executeSqlStreaming(ExecuteSqlRequest request, RowConsumer consumer);
+
+    /**
+     * Split a script into statements and execute them in order on one connection, stopping at the first failure.
+     *
+     * @param request execution context and script
+     * @return one result per statement, plus the overall outcome
+     */
+    ExecuteSqlScriptResponse executeScript(ExecuteSqlScriptRequest request);
+
+    /**
+     * Cancel a running execution of the user.
+     *
+     * @param executionId id the execution was started with
+     * @param userId      user that started it
+     * @return true if a running execution was found and cancelled
+     */
+    boolean cancelExecution(String executionId, Long userId);
 }
@@ -0,0 +1,42 @@
+package edu.zsc.ai.domain.service.db;
+
+import edu.zsc.ai.domain.model.dto.request.db.SubmitSqlJobRequest;
+import edu.zsc.ai.domain.model.dto.response.db.SqlJobResponse;
+
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Runs SQL in the background so that long queries do not hold a request thread.
+ * Results are kept for a limited time and read back page by page.
+ */
+public interface SqlJobService {
+
+    /**
+     * Queue SQL for execution.
+     *
+     * @param request execution context and SQL
+     * @param userId  user submitting the job
+     * @return the queued job
+     */
+    SqlJobResponse submit(SubmitSqlJobRequest request, Long userId);
+
+    /**
+     * Current status of a job of the user, with the given page of rows once finished.
+     *
+     * @param sortColumn index of the column to sort the kept rows by before paging, null for result order
+     * @param descending sort in descending order
+     */
+    SqlJobResponse getJob(String jobId, Long userId, int offset, int limit, Integer sortColumn, boolean descending);
+
+    /**
+     * Completes when the job finishes or the timeout elapses, whichever comes first, without blocking a thread.
+     */
+    CompletableFuture<SqlJobResponse> awaitJob(String jobId, Long userId, long timeoutMillis, int offset, int limit);
+
+    /**
+     * Cancel a queued or running job of the user.
+     *
+     * @return true if the job had not finished yet
+     */
+    boolean cancel(String jobId, Long userId);
+}
@@ -1,6 +1,9 @@
 package edu.zsc.ai.domain.service.db;
 
 import edu.zsc.ai.domain.model.dto.response.db.TableDataResponse;
+import edu.zsc.ai.plugin.model.command.RowConsumer;
+import edu.zsc.ai.plugin.value.LobChunk;
+import edu.zsc.ai.plugin.value.LobHandle;
 
 import java.util.List;
 
@@ -12,5 +15,25 @@ public interface TableService {
 
     void deleteTable(Long connectionId, String catalog, String schema, String tableName, Long userId);
 
-    TableDataResponse getTableData(Long connectionId, String catalog, String schema, String tableName, Long userId, Integer currentPage, Integer pageSize);
+    /**
+     * One page of table rows. Tables with a primary key or a NOT NULL unique index are paged by key:
+     * the first page and every page requested with the cursor of the previous one return the next
+     * cursor; other pages fall back to OFFSET.
+     *
+     * @param cursor nextCursor of the previous page, null to page by currentPage
+     */
+    TableDataResponse getTableData(Long connectionId, String catalog, String schema, String tableName, Long userId, Integer currentPage, Integer pageSize, String cursor);
+
+    /**
+     * Read a byte range of a BLOB/CLOB value, addressed by the locator of its {@link LobHandle}.
+     *
+     * @throws edu.zsc.ai.util.exception.BusinessException not found when the row is gone or the value is NULL
+     */
+    LobChunk readLob(Long connectionId, String catalog, String schema, String tableName, String column,
+                     LobHandle.Kind kind, String locator, long offset, int length, Long userId);
+
+    /**
+     * Stream every row of the table to the consumer on a leased connection, without paging or buffering.
+     */
+    void streamTableData(Long connectionId, String catalog, String schema, String tableName, Long userId, RowConsumer consumer);
 }
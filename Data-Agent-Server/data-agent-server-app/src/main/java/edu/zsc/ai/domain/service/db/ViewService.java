@@ -1,6 +1,7 @@
 package edu.zsc.ai.domain.service.db;
 
 import edu.zsc.ai.domain.model.dto.response.db.TableDataResponse;
+import edu.zsc.ai.plugin.model.command.RowConsumer;
 
 import java.util.List;
 
@@ -13,4 +14,9 @@ public interface ViewService {
     void deleteView(Long connectionId, String catalog, String schema, String viewName, Long userId);
 
     TableDataResponse getViewData(Long connectionId, String catalog, String schema, String viewName, Long userId, Integer currentPage, Integer pageSize);
+
+    /**
+     * Stream every row of the view to the consumer on a leased connection, without paging or buffering.
+     */
+    void streamViewData(Long connectionId, String catalog, String schema, String viewName, Long userId, RowConsumer consumer);
 }
@@ -5,6 +5,7 @@ import edu.zsc.ai.domain.service.db.ConnectionService;
 import edu.zsc.ai.plugin.capability.ColumnProvider;
 import edu.zsc.ai.plugin.manager.DefaultPluginManager;
 import edu.zsc.ai.plugin.model.metadata.ColumnMetadata;
+import edu.zsc.ai.plugin.model.metadata.TableSnapshot;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
@@ -17,6 +18,7 @@ import java.util.List;
 public class ColumnServiceImpl implements ColumnService {
 
     private final ConnectionService connectionService;
+    private final SchemaMetadataCache metadataCache;
 
     @Override
     public List<ColumnMetadata> listColumns(Long connectionId, String catalog, String schema, String tableName, Long userId) {
@@ -25,6 +27,12 @@ public class ColumnServiceImpl implements ColumnService {
         ConnectionManager.ActiveConnection active = ConnectionManager.getOwnedConnection(connectionId, catalog, schema, userId);
 
         ColumnProvider provider = DefaultPluginManager.getInstance().getColumnProviderByPluginId(active.pluginId());
-        return provider.getColumns(active.connection(), catalog, schema, tableName);
+        // A table created after the snapshot was taken is looked up on its own
+        TableSnapshot table = metadataCache.findSnapshotTable(connectionId, catalog, schema, tableName);
+        if (table != null) {
+            return table.columns();
+        }
+        return metadataCache.get(connectionId, catalog, schema, SchemaMetadataCache.Kind.COLUMNS, tableName,
+                () -> active.read(conn -> provider.getColumns(conn, catalog, schema, tableName)));
     }
 }
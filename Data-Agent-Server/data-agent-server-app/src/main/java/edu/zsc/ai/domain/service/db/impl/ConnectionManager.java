@@ -3,34 +3,101 @@ package edu.zsc.ai.domain.service.db.impl;
 import cn.dev33.satoken.stp.StpUtil;
 import edu.zsc.ai.common.constant.ResponseCode;
 import edu.zsc.ai.common.constant.ResponseMessageKey;
-import edu.zsc.ai.plugin.capability.ConnectionProvider;
-import edu.zsc.ai.plugin.manager.DefaultPluginManager;
 import edu.zsc.ai.util.exception.BusinessException;
 import lombok.extern.slf4j.Slf4j;
 
 import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.time.Instant;
 import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
 
 @Slf4j
 public class ConnectionManager {
 
     /**
      * Active connection record.
-     * Stores the physical connection and its metadata.
+     * Stores the connection pool and its metadata.
      */
     public record ActiveConnection(
-            Connection connection,
+            ConnectionPool pool,
             Long userId,
             Long dbConnectionId,
             String dbType,
             String pluginId,
             String databaseName,
             String schemaName,
-            LocalDateTime createdAt,
-            LocalDateTime lastAccessedAt) {
+            LocalDateTime createdAt) {
+
+        /**
+         * Time of the last borrow or return on this connection's pool.
+         */
+        public LocalDateTime lastAccessedAt() {
+            return LocalDateTime.ofInstant(Instant.ofEpochMilli(pool.getLastUsedAt()), ZoneId.systemDefault());
+        }
+
+        /**
+         * Lease a connection from the pool, pointed at this connection's database/schema;
+         * close the lease to return it. The pool may be shared by every database of the
+         * same saved connection, so the session is switched at lease time.
+         * A connection found dead while switching is replaced once. Keys without a database/schema run on
+         * the connection's own catalog, so they do not reuse a connection an earlier lease left displaced.
+         */
+        public PooledConnection borrow() {
+            for (int attempt = 0; ; attempt++) {
+                PooledConnection lease = pool.borrow();
+                while (databaseName == null && schemaName == null && lease.isDisplaced()) {
+                    lease.discard();
+                    lease = pool.borrow();
+                }
+                try {
+                    lease.switchTo(databaseName, schemaName);
+                    return lease;
+                } catch (SQLException e) {
+                    boolean broken = lease.checkBroken();
+                    lease.close();
+                    if (!broken || attempt > 0) {
+                        throw BusinessException.badRequest("Failed to switch to database %s: %s",
+                                generateInnerKey(databaseName, schemaName), e.getMessage());
+                    }
+                }
+            }
+        }
+
+        /**
+         * Run an idempotent read (metadata lookup, DDL, data page) on a leased connection.
+         * If it fails and the connection turns out to be dead (e.g. after {@code wait_timeout} or a
+         * network blip), the connection is discarded and the read is retried once on a fresh one.
+         * Do not use for statements with side effects.
+         */
+        public <T> T read(Function<Connection, T> operation) {
+            RuntimeException failure;
+            try (PooledConnection lease = borrow()) {
+                try {
+                    return operation.apply(lease.connection());
+                } catch (RuntimeException e) {
+                    if (!lease.checkBroken()) {
+                        throw e;
+                    }
+                    failure = e;
+                }
+            }
+            log.warn("Stale connection replaced, retrying read: dbConnectionId={}, key={}, error={}",
+                    dbConnectionId, generateInnerKey(databaseName, schemaName), failure.getMessage());
+            try (PooledConnection lease = borrow()) {
+                return operation.apply(lease.connection());
+            }
+        }
     }
 
     /**
@@ -46,15 +113,47 @@ public class ConnectionManager {
     }
 
     /**
-     * Register a new active connection.
+     * Register a new active connection. If the key is already registered the existing entry is kept
+     * and the given pool is closed unless another entry still uses it.
+     *
+     * @return false if the given pool was already closed (e.g. a shared pool evicted concurrently)
      */
-    public static void registerConnection(Long dbConnectionId, ActiveConnection activeConnection) {
+    public static boolean registerConnection(Long dbConnectionId, ActiveConnection activeConnection) {
         String innerKey = generateInnerKey(activeConnection.databaseName(), activeConnection.schemaName());
-        activeConnections.computeIfAbsent(dbConnectionId, k -> new ConcurrentHashMap<>())
-                .put(innerKey, activeConnection);
-        
-        log.info("Connection registered: dbConnectionId={}, key={}, dbType={}",
-                dbConnectionId, innerKey, activeConnection.dbType());
+        boolean[] registered = new boolean[1];
+        boolean[] rejected = new boolean[1];
+        activeConnections.compute(dbConnectionId, (k, innerMap) -> {
+            Map<String, ActiveConnection> map = innerMap != null ? innerMap : new ConcurrentHashMap<>();
+            if (map.containsKey(innerKey)) {
+                closeIfUnused(map, activeConnection);
+            } else if (activeConnection.pool().isClosed()) {
+                rejected[0] = true;
+            } else {
+                map.put(innerKey, activeConnection);
+                registered[0] = true;
+            }
+            return map;
+        });
+        if (rejected[0]) {
+            return false;
+        }
+
+        if (registered[0]) {
+            log.info("Connection registered: dbConnectionId={}, key={}, dbType={}",
+                    dbConnectionId, innerKey, activeConnection.dbType());
+        }
+        return true;
+    }
+
+    /**
+     * Find an entry already opened for a saved connection by the given user, so that other
+     * databases of the same server can reuse its pool and physical connections.
+     */
+    public static Optional<ActiveConnection> findSharedConnection(Long dbConnectionId, Long userId) {
+        return Optional.ofNullable(activeConnections.get(dbConnectionId))
+                .flatMap(m -> m.values().stream()
+                        .filter(a -> a.userId().equals(userId) && !a.pool().isClosed())
+                        .findFirst());
     }
 
     /**
@@ -125,15 +224,154 @@ public class ConnectionManager {
     public static void closeAllConnections(Long dbConnectionId) {
         Map<String, ActiveConnection> innerMap = activeConnections.remove(dbConnectionId);
         if (innerMap != null) {
-            innerMap.values().forEach(ConnectionManager::doClose);
+            innerMap.values().stream()
+                    .map(ActiveConnection::pool)
+                    .distinct()
+                    .forEach(ConnectionPool::close);
+            log.info("Connections closed: dbConnectionId={}, keys={}", dbConnectionId, innerMap.keySet());
         }
     }
 
-    private static void doClose(ActiveConnection active) {
+    /**
+     * Close connections whose pool has no lease outstanding and has not been used for {@code idleTimeout}.
+     *
+     * @return number of active connections evicted
+     */
+    public static int evictIdleConnections(Duration idleTimeout) {
+        long cutoff = System.currentTimeMillis() - idleTimeout.toMillis();
+        int evicted = 0;
+        for (ActiveConnection active : snapshot()) {
+            if (active.pool().getLeasedCount() == 0 && active.pool().getLastUsedAt() < cutoff && remove(active)) {
+                evicted++;
+            }
+        }
+        if (evicted > 0) {
+            log.info("Evicted {} idle connections, idleTimeout={}", evicted, idleTimeout);
+        }
+        return evicted;
+    }
+
+    /**
+     * Enforce global and per-user caps on physical connections. When a cap is exceeded, the least
+     * recently used pools are closed first: idle pools are removed entirely together with every
+     * database key sharing them, pools with outstanding leases only give up their idle connections.
+     *
+     * @param maxTotal   maximum physical connections across all users
+     * @param maxPerUser maximum physical connections per user
+     * @param keep       connection whose pool must not be evicted (e.g. the one just opened), may be null
+     */
+    public static void enforceConnectionLimits(int maxTotal, int maxPerUser, ActiveConnection keep) {
+        Map<ConnectionPool, List<ActiveConnection>> byPool = new IdentityHashMap<>();
+        for (ActiveConnection active : snapshot()) {
+            byPool.computeIfAbsent(active.pool(), p -> new ArrayList<>()).add(active);
+        }
+        List<ConnectionPool> lru = new ArrayList<>(byPool.keySet());
+        lru.sort(Comparator.comparingLong(ConnectionPool::getLastUsedAt));
+
+        Map<Long, Integer> perUser = new HashMap<>();
+        int total = 0;
+        for (ConnectionPool pool : lru) {
+            int count = pool.getTotalCount();
+            perUser.merge(byPool.get(pool).get(0).userId(), count, Integer::sum);
+            total += count;
+        }
+
+        for (ConnectionPool pool : lru) {
+            ActiveConnection owner = byPool.get(pool).get(0);
+            int userCount = perUser.getOrDefault(owner.userId(), 0);
+            if (total <= maxTotal && userCount <= maxPerUser) {
+                continue;
+            }
+            if (keep != null && pool == keep.pool()) {
+                continue;
+            }
+            int before = pool.getTotalCount();
+            if (pool.getLeasedCount() == 0) {
+                byPool.get(pool).forEach(ConnectionManager::remove);
+            } else {
+                pool.closeIdle(0);
+            }
+            int freed = before - pool.getTotalCount();
+            if (freed > 0) {
+                total -= freed;
+                perUser.put(owner.userId(), userCount - freed);
+                log.info("Connection limit reached, closed {} LRU connections: dbConnectionId={}, userId={}",
+                        freed, owner.dbConnectionId(), owner.userId());
+            }
+        }
+    }
+
+    /**
+     * Top pools that shrank below their min-idle size (closed idle or discarded connections) back up,
+     * as long as the global and per-user caps leave room, so that the next borrow does not pay for a connect.
+     *
+     * @param maxTotal   maximum physical connections across all users
+     * @param maxPerUser maximum physical connections per user
+     * @return number of connections opened
+     */
+    public static int refillPools(int maxTotal, int maxPerUser) {
+        Map<ConnectionPool, ActiveConnection> byPool = new IdentityHashMap<>();
+        for (ActiveConnection active : snapshot()) {
+            byPool.putIfAbsent(active.pool(), active);
+        }
+        Map<Long, Integer> perUser = new HashMap<>();
+        int total = 0;
+        for (Map.Entry<ConnectionPool, ActiveConnection> entry : byPool.entrySet()) {
+            int count = entry.getKey().getTotalCount();
+            perUser.merge(entry.getValue().userId(), count, Integer::sum);
+            total += count;
+        }
+
+        int opened = 0;
+        for (Map.Entry<ConnectionPool, ActiveConnection> entry : byPool.entrySet()) {
+            Long userId = entry.getValue().userId();
+            int room = Math.min(maxTotal - total, maxPerUser - perUser.getOrDefault(userId, 0));
+            if (room <= 0) {
+                continue;
+            }
+            int added = entry.getKey().fillToMinIdle(room);
+            if (added > 0) {
+                total += added;
+                perUser.merge(userId, added, Integer::sum);
+                opened += added;
+            }
+        }
+        if (opened > 0) {
+            log.debug("Refilled {} pooled connections to min-idle", opened);
+        }
+        return opened;
+    }
+
+    private static List<ActiveConnection> snapshot() {
+        List<ActiveConnection> all = new ArrayList<>();
+        activeConnections.values().forEach(m -> all.addAll(m.values()));
+        return all;
+    }
+
+    private static boolean remove(ActiveConnection active) {
+        String innerKey = generateInnerKey(active.databaseName(), active.schemaName());
+        boolean[] removed = new boolean[1];
+        activeConnections.computeIfPresent(active.dbConnectionId(), (k, innerMap) -> {
+            if (innerMap.remove(innerKey, active)) {
+                removed[0] = true;
+                closeIfUnused(innerMap, active);
+            }
+            return innerMap;
+        });
+        return removed[0];
+    }
+
+    /**
+     * Close the pool of {@code active} unless another registered entry still uses it.
+     * Called while holding the registry bin of the dbConnectionId so that registration cannot race with it.
+     */
+    private static void closeIfUnused(Map<String, ActiveConnection> innerMap, ActiveConnection active) {
+        boolean shared = innerMap.values().stream().anyMatch(a -> a.pool() == active.pool());
+        if (shared) {
+            return;
+        }
         try {
-            ConnectionProvider provider = DefaultPluginManager.getInstance()
-                    .getConnectionProviderByPluginId(active.pluginId());
-            provider.closeConnection(active.connection());
+            active.pool().close();
             log.info("Connection closed: dbConnectionId={}, database={}, schema={}",
                     active.dbConnectionId(), active.databaseName(), active.schemaName());
         } catch (Exception e) {
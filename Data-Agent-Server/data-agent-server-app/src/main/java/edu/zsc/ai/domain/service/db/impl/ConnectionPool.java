@@ -0,0 +1,455 @@
+package edu.zsc.ai.domain.service.db.impl;
+
+import edu.zsc.ai.common.constant.ResponseCode;
+import edu.zsc.ai.common.constant.ResponseMessageKey;
+import edu.zsc.ai.util.exception.BusinessException;
+import lombok.extern.slf4j.Slf4j;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * Bounded pool of physical connections for one saved connection (shared by its database::schema keys
+ * when catalog switching is on, otherwise one pool per key).
+ * Connections are handed out as {@link PooledConnection} leases and returned on {@link PooledConnection#close()}.
+ *
+ * <p>Leases that ran arbitrary SQL get their server session reset on return (user variables, temporary tables,
+ * session variables, prepared statements) and their home catalog re-applied, so no session state is carried
+ * over to the next borrower. A connection whose home catalog is unknown (null) but that was left on some
+ * catalog is tracked as displaced; borrowers that rely on the home catalog do not reuse it.
+ */
+@Slf4j
+public class ConnectionPool {
+
+    /**
+     * Pool limits.
+     *
+     * @param minIdle                  connections kept open while the pool is idle
+     * @param maxSize                  upper bound of physical connections (idle + leased)
+     * @param maxWaitMillis            how long a borrower waits when the pool is exhausted
+     * @param validationTimeoutSeconds timeout passed to {@link Connection#isValid(int)} on borrow
+     * @param validationIntervalMillis skip validation on borrow when the connection was checked or returned
+     *                                 more recently than this
+     */
+    public record Settings(int minIdle, int maxSize, long maxWaitMillis, int validationTimeoutSeconds,
+                           long validationIntervalMillis) {
+    }
+
+    private final Supplier<Connection> connectionFactory;
+    private final Consumer<Connection> connectionCloser;
+    private final Consumer<Connection> sessionResetter;
+    private final Settings settings;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition available = lock.newCondition();
+    private final Deque<Connection> idle = new ArrayDeque<>();
+    // Connection -> epoch millis it was last known to be alive (validated, opened or returned)
+    private final Map<Connection, Long> lastCheckedAt = new IdentityHashMap<>();
+    // Connection -> catalog it was opened on, re-applied after a server session reset
+    private final Map<Connection, String> homeCatalogs = new IdentityHashMap<>();
+    // Connections without a home catalog that were left on some catalog
+    private final Set<Connection> displaced = Collections.newSetFromMap(new IdentityHashMap<>());
+    private int total;
+    private boolean closed;
+    private volatile long lastUsedAt = System.currentTimeMillis();
+
+    /**
+     * @param initial           an already opened connection to seed the pool with, may be null
+     * @param connectionFactory opens a new physical connection
+     * @param connectionCloser  closes a physical connection
+     * @param sessionResetter   resets the server session of a connection that ran arbitrary SQL
+     * @param settings          pool limits
+     */
+    public ConnectionPool(Connection initial, Supplier<Connection> connectionFactory,
+                          Consumer<Connection> connectionCloser, Consumer<Connection> sessionResetter,
+                          Settings settings) {
+        this.connectionFactory = connectionFactory;
+        this.connectionCloser = connectionCloser;
+        this.sessionResetter = sessionResetter;
+        this.settings = settings;
+        if (initial != null) {
+            idle.push(initial);
+            lastCheckedAt.put(initial, System.currentTimeMillis());
+            homeCatalogs.put(initial, catalogOf(initial));
+            total = 1;
+        }
+        fillToMinIdle(settings.minIdle());
+    }
+
+    /**
+     * Check out a connection. Idle connections not checked within {@code validationIntervalMillis}
+     * are validated before being handed out and replaced when dead;
+     * a new one is opened when none is idle and the pool is below {@code maxSize},
+     * otherwise the caller waits up to {@code maxWaitMillis}.
+     */
+    public PooledConnection borrow() {
+        lastUsedAt = System.currentTimeMillis();
+        long remainingNanos = TimeUnit.MILLISECONDS.toNanos(settings.maxWaitMillis());
+        while (true) {
+            Connection candidate = null;
+            boolean create = false;
+            boolean recentlyChecked = false;
+            lock.lock();
+            try {
+                while (true) {
+                    BusinessException.throwIf(closed, ResponseCode.SERVICE_UNAVAILABLE,
+                            ResponseMessageKey.CONNECTION_POOL_CLOSED_MESSAGE);
+                    if (!idle.isEmpty()) {
+                        candidate = idle.pop();
+                        recentlyChecked = System.currentTimeMillis() - lastCheckedAt.getOrDefault(candidate, 0L)
+                                < settings.validationIntervalMillis();
+                        break;
+                    }
+                    if (total < settings.maxSize()) {
+                        total++;
+                        create = true;
+                        break;
+                    }
+                    BusinessException.throwIf(remainingNanos <= 0, ResponseCode.SERVICE_UNAVAILABLE,
+                            ResponseMessageKey.CONNECTION_POOL_EXHAUSTED_MESSAGE);
+                    try {
+                        remainingNanos = available.awaitNanos(remainingNanos);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        throw BusinessException.serverError(ResponseMessageKey.CONNECTION_POOL_EXHAUSTED_MESSAGE);
+                    }
+                }
+            } finally {
+                lock.unlock();
+            }
+
+            if (create) {
+                Connection connection = openNew();
+                markChecked(connection);
+                return new PooledConnection(this, connection);
+            }
+            if (recentlyChecked || isValid(candidate)) {
+                markChecked(candidate);
+                return new PooledConnection(this, candidate);
+            }
+            log.info("Discarding invalid pooled connection");
+            destroy(candidate);
+        }
+    }
+
+    /**
+     * Return a leased connection. Open transactions are rolled back and autoCommit is restored;
+     * connections that are closed or cannot be reset are discarded instead of being reused.
+     */
+    void release(Connection connection) {
+        release(connection, false, false);
+    }
+
+    /**
+     * Return a leased connection.
+     *
+     * @param resetServerState whether the lease ran arbitrary SQL, so the server session is reset and the home
+     *                         catalog re-applied before the connection is reused
+     * @param catalogDisplaced whether the lease left the connection on a catalog it could not switch back from
+     */
+    void release(Connection connection, boolean resetServerState, boolean catalogDisplaced) {
+        if (connection == null) {
+            return;
+        }
+        lastUsedAt = System.currentTimeMillis();
+        boolean reset = resetSession(connection) && (!resetServerState || resetServerState(connection));
+        boolean leftDisplaced = catalogDisplaced
+                || resetServerState && reset && homeCatalog(connection) == null && catalogOf(connection) != null;
+        boolean discard;
+        lock.lock();
+        try {
+            discard = closed || !reset || isClosed(connection);
+            if (!discard) {
+                if (leftDisplaced) {
+                    displaced.add(connection);
+                }
+                lastCheckedAt.put(connection, System.currentTimeMillis());
+                idle.push(connection);
+                available.signal();
+            }
+        } finally {
+            lock.unlock();
+        }
+        if (discard) {
+            destroy(connection);
+        }
+    }
+
+    /**
+     * Drop a leased connection that must not be reused.
+     */
+    void discard(Connection connection) {
+        lastUsedAt = System.currentTimeMillis();
+        destroy(connection);
+    }
+
+    /**
+     * Close the pool and every idle connection. Leased connections are closed when returned.
+     */
+    public void close() {
+        Deque<Connection> toClose;
+        lock.lock();
+        try {
+            closed = true;
+            toClose = new ArrayDeque<>(idle);
+            idle.clear();
+            available.signalAll();
+        } finally {
+            lock.unlock();
+        }
+        toClose.forEach(this::destroy);
+    }
+
+    /**
+     * Close idle connections, keeping at most {@code keep} of them open.
+     *
+     * @return number of connections closed
+     */
+    public int closeIdle(int keep) {
+        Deque<Connection> toClose = new ArrayDeque<>();
+        lock.lock();
+        try {
+            while (idle.size() > Math.max(keep, 0)) {
+                toClose.push(idle.pollLast());
+            }
+        } finally {
+            lock.unlock();
+        }
+        toClose.forEach(this::destroy);
+        return toClose.size();
+    }
+
+    /**
+     * Whether the connection was left on a catalog other than its (unknown) home catalog by an earlier lease,
+     * see {@link #release(Connection, boolean, boolean)}.
+     */
+    boolean isDisplaced(Connection connection) {
+        lock.lock();
+        try {
+            return displaced.contains(connection);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Epoch millis of the last borrow or return.
+     */
+    public long getLastUsedAt() {
+        return lastUsedAt;
+    }
+
+    public int getLeasedCount() {
+        lock.lock();
+        try {
+            return total - idle.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public boolean isClosed() {
+        lock.lock();
+        try {
+            return closed;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int getTotalCount() {
+        lock.lock();
+        try {
+            return total;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int getIdleCount() {
+        lock.lock();
+        try {
+            return idle.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private Connection openNew() {
+        try {
+            Connection connection = connectionFactory.get();
+            String home = catalogOf(connection);
+            lock.lock();
+            try {
+                homeCatalogs.put(connection, home);
+            } finally {
+                lock.unlock();
+            }
+            return connection;
+        } catch (RuntimeException e) {
+            lock.lock();
+            try {
+                total--;
+                available.signal();
+            } finally {
+                lock.unlock();
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Open connections until the pool holds {@code minIdle} of them (idle + leased), e.g. after
+     * {@link #closeIdle(int)} or discarded connections shrank it. Stops at the first connection that fails to open.
+     * Does not count as use of the pool ({@link #getLastUsedAt()}).
+     *
+     * @param limit maximum number of connections to open in this call
+     * @return number of connections opened
+     */
+    public int fillToMinIdle(int limit) {
+        int opened = 0;
+        while (opened < limit) {
+            lock.lock();
+            try {
+                if (closed || total >= settings.minIdle()) {
+                    return opened;
+                }
+                total++;
+            } finally {
+                lock.unlock();
+            }
+            Connection connection;
+            try {
+                connection = openNew();
+            } catch (RuntimeException e) {
+                log.warn("Failed to pre-open pooled connection: {}", e.getMessage());
+                return opened;
+            }
+            // Straight onto the idle stack: a fresh connection needs no session reset and is no sign of use
+            boolean discard;
+            lock.lock();
+            try {
+                discard = closed;
+                if (!discard) {
+                    lastCheckedAt.put(connection, System.currentTimeMillis());
+                    idle.push(connection);
+                    available.signal();
+                }
+            } finally {
+                lock.unlock();
+            }
+            if (discard) {
+                destroy(connection);
+                return opened;
+            }
+            opened++;
+        }
+        return opened;
+    }
+
+    private void markChecked(Connection connection) {
+        lock.lock();
+        try {
+            lastCheckedAt.put(connection, System.currentTimeMillis());
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void destroy(Connection connection) {
+        lock.lock();
+        try {
+            lastCheckedAt.remove(connection);
+            homeCatalogs.remove(connection);
+            displaced.remove(connection);
+            total--;
+            available.signal();
+        } finally {
+            lock.unlock();
+        }
+        try {
+            connectionCloser.accept(connection);
+        } catch (Exception e) {
+            log.warn("Failed to close pooled connection: {}", e.getMessage());
+        }
+    }
+
+    private boolean resetSession(Connection connection) {
+        try {
+            if (!connection.getAutoCommit()) {
+                connection.rollback();
+                connection.setAutoCommit(true);
+            }
+            connection.clearWarnings();
+            return true;
+        } catch (SQLException e) {
+            log.warn("Failed to reset pooled connection: {}", e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * Reset the server session through the plugin and point the connection back at its home catalog,
+     * which the reset may not preserve.
+     */
+    private boolean resetServerState(Connection connection) {
+        try {
+            sessionResetter.accept(connection);
+            String home = homeCatalog(connection);
+            if (home != null && !home.equals(connection.getCatalog())) {
+                connection.setCatalog(home);
+            }
+            return true;
+        } catch (SQLException | RuntimeException e) {
+            log.warn("Failed to reset pooled connection session: {}", e.getMessage());
+            return false;
+        }
+    }
+
+    private String homeCatalog(Connection connection) {
+        lock.lock();
+        try {
+            return homeCatalogs.get(connection);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private String catalogOf(Connection connection) {
+        try {
+            return connection.getCatalog();
+        } catch (SQLException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Check a connection with a round trip, regardless of when it was last checked.
+     */
+    boolean isValid(Connection connection) {
+        try {
+            return connection.isValid(settings.validationTimeoutSeconds());
+        } catch (SQLException e) {
+            return false;
+        }
+    }
+
+    private boolean isClosed(Connection connection) {
+        try {
+            return connection.isClosed();
+        } catch (SQLException e) {
+            return true;
+        }
+    }
+}
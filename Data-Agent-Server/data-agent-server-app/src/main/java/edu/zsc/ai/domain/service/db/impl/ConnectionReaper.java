@@ -0,0 +1,33 @@
+package edu.zsc.ai.domain.service.db.impl;
+
+import edu.zsc.ai.config.db.ConnectionReaperProperties;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+/**
+ * Periodically closes idle connections held by {@link ConnectionManager} and trims
+ * the registry back under the configured global and per-user caps, then refills pools that
+ * dropped below their min-idle size while there is room under those caps.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class ConnectionReaper {
+
+    private final ConnectionReaperProperties properties;
+
+    @Scheduled(fixedDelayString = "${db.connection.reaper.sweep-interval-millis:60000}")
+    public void sweep() {
+        try {
+            ConnectionManager.evictIdleConnections(Duration.ofMillis(properties.getIdleTimeoutMillis()));
+            ConnectionManager.enforceConnectionLimits(properties.getMaxTotal(), properties.getMaxPerUser(), null);
+            ConnectionManager.refillPools(properties.getMaxTotal(), properties.getMaxPerUser());
+        } catch (Exception e) {
+            log.error("Connection sweep failed", e);
+        }
+    }
+}
@@ -1,8 +1,11 @@
 package edu.zsc.ai.domain.service.db.impl;
 
+import cn.dev33.satoken.stp.StpUtil;
 import edu.zsc.ai.common.constant.ResponseCode;
 import edu.zsc.ai.common.constant.ResponseMessageKey;
 import edu.zsc.ai.common.converter.db.ConnectionConverter;
+import edu.zsc.ai.config.db.ConnectionPoolProperties;
+import edu.zsc.ai.config.db.ConnectionReaperProperties;
 import edu.zsc.ai.common.enums.db.ConnectionTestStatuEnum;
 import edu.zsc.ai.domain.model.dto.request.db.ConnectRequest;
 import edu.zsc.ai.domain.model.dto.response.db.ConnectionTestResponse;
@@ -30,6 +33,12 @@ public class ConnectionServiceImpl implements ConnectionService {
 
     private final DbConnectionService dbConnectionService;
 
+    private final DbConnectionCache dbConnectionCache;
+
+    private final ConnectionPoolProperties poolProperties;
+
+    private final ConnectionReaperProperties reaperProperties;
+
     @Override
     public ConnectionTestResponse testConnection(ConnectRequest request) {
         long startTime = System.currentTimeMillis();
@@ -40,7 +49,8 @@ public class ConnectionServiceImpl implements ConnectionService {
         ConnectionConfig config = ConnectionConverter.convertToConfig(request);
 
         TryFirstSuccess.AttemptResult<ConnectionProvider, Connection> res =
-                TryFirstSuccess.tryFirstSuccess(providers, p -> p.connect(config));
+                TryFirstSuccess.tryFirstSuccessConcurrently(providers, p -> p.connect(config),
+                        ConnectionProvider::closeConnection);
 
         BusinessException.assertNotNull(res,
                 String.format("Database type %s was trying to run connection test but no plugin succeeded",
@@ -83,13 +93,20 @@ public class ConnectionServiceImpl implements ConnectionService {
 
     @Override
     public Boolean openConnection(Long connectionId, String catalog, String schema, Long userId) {
-        DbConnection dbConnection = dbConnectionService.getOwnedById(connectionId, userId);
+        long ownerId = userId != null ? userId : StpUtil.getLoginIdAsLong();
+        DbConnectionCache.OwnedConnection owned = dbConnectionCache.get(connectionId, ownerId,
+                () -> dbConnectionService.getOwnedById(connectionId, ownerId));
+        DbConnection dbConnection = owned.dbConnection();
 
         if (ConnectionManager.getConnection(connectionId, catalog, schema).isPresent()) {
             return Boolean.TRUE;
         }
 
-        ConnectionConfig config = ConnectionConverter.convertToConfig(dbConnection);
+        if (poolProperties.isCatalogSwitching() && registerOnSharedPool(connectionId, catalog, schema, ownerId)) {
+            return Boolean.TRUE;
+        }
+
+        ConnectionConfig config = owned.config().copy();
         if (catalog != null) {
             config.setDatabase(catalog);
         }
@@ -97,30 +114,86 @@ public class ConnectionServiceImpl implements ConnectionService {
             config.setSchema(schema);
         }
 
-        List<ConnectionProvider> providers = DefaultPluginManager.getInstance()
-                .getConnectionProviderByDbType(dbConnection.getDbType());
-        
-        TryFirstSuccess.AttemptResult<ConnectionProvider, Connection> res =
-                TryFirstSuccess.tryFirstSuccess(providers, p -> p.connect(config));
-        
+        TryFirstSuccess.AttemptResult<ConnectionProvider, Connection> res = connectWithKnownPlugin(connectionId, config);
+        if (res == null) {
+            List<ConnectionProvider> providers = DefaultPluginManager.getInstance()
+                    .getConnectionProviderByDbType(dbConnection.getDbType());
+            res = TryFirstSuccess.tryFirstSuccessConcurrently(providers, p -> p.connect(config),
+                    ConnectionProvider::closeConnection);
+        }
+
         BusinessException.assertNotNull(res, ResponseCode.PARAM_ERROR, ResponseMessageKey.CONNECTION_ACCESS_DENIED_MESSAGE);
 
+        ConnectionProvider provider = res.candidate();
+        dbConnectionCache.rememberPluginId(connectionId, ((Plugin) provider).getPluginId());
+        ConnectionPool pool = new ConnectionPool(res.result(),
+                () -> provider.connect(config),
+                provider::closeConnection,
+                provider::resetSession,
+                new ConnectionPool.Settings(
+                        poolProperties.getMinIdle(),
+                        poolProperties.getMaxSize(),
+                        poolProperties.getMaxWaitMillis(),
+                        poolProperties.getValidationTimeoutSeconds(),
+                        poolProperties.getValidationIntervalMillis()));
+
         ConnectionManager.ActiveConnection active = new ConnectionManager.ActiveConnection(
-                res.result(),
+                pool,
                 dbConnection.getUserId(),
                 connectionId,
                 dbConnection.getDbType(),
-                ((Plugin) res.candidate()).getPluginId(),
+                ((Plugin) provider).getPluginId(),
                 catalog,
                 schema,
-                LocalDateTime.now(),
                 LocalDateTime.now()
         );
         ConnectionManager.registerConnection(connectionId, active);
+        ConnectionManager.enforceConnectionLimits(reaperProperties.getMaxTotal(),
+                reaperProperties.getMaxPerUser(), active);
 
         return Boolean.TRUE;
     }
 
+    /**
+     * Connect with the plugin that won the last open of this saved connection, if any.
+     * Returns null (and forgets the plugin) when it fails, so the caller falls back to all candidates.
+     */
+    private TryFirstSuccess.AttemptResult<ConnectionProvider, Connection> connectWithKnownPlugin(
+            Long connectionId, ConnectionConfig config) {
+        String pluginId = dbConnectionCache.getPluginId(connectionId);
+        if (pluginId == null) {
+            return null;
+        }
+        try {
+            ConnectionProvider provider = DefaultPluginManager.getInstance().getConnectionProviderByPluginId(pluginId);
+            return new TryFirstSuccess.AttemptResult<>(provider, provider.connect(config));
+        } catch (Exception e) {
+            log.warn("Known plugin {} failed to connect, trying all candidates: connectionId={}, error={}",
+                    pluginId, connectionId, e.getMessage());
+            dbConnectionCache.forgetPluginId(connectionId);
+            return null;
+        }
+    }
+
+    /**
+     * Register the catalog/schema key on the pool already opened for this saved connection.
+     * The lease switches catalog/schema, so no new physical connection is needed.
+     */
+    private boolean registerOnSharedPool(Long connectionId, String catalog, String schema, Long userId) {
+        return ConnectionManager.findSharedConnection(connectionId, userId)
+                .map(shared -> ConnectionManager.registerConnection(connectionId,
+                        new ConnectionManager.ActiveConnection(
+                                shared.pool(),
+                                shared.userId(),
+                                connectionId,
+                                shared.dbType(),
+                                shared.pluginId(),
+                                catalog,
+                                schema,
+                                LocalDateTime.now())))
+                .orElse(false);
+    }
+
     @Override
     public void closeConnection(Long connectionId) {
         // Check ownership before closing
@@ -0,0 +1,77 @@
+package edu.zsc.ai.domain.service.db.impl;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import edu.zsc.ai.common.enums.db.ExportFormatEnum;
+import edu.zsc.ai.domain.model.dto.request.db.ExecuteSqlRequest;
+import edu.zsc.ai.domain.model.dto.request.db.ExportQueryRequest;
+import edu.zsc.ai.domain.model.dto.response.db.ExecuteSqlResponse;
+import edu.zsc.ai.domain.service.db.ConnectionService;
+import edu.zsc.ai.domain.service.db.DataExportService;
+import edu.zsc.ai.domain.service.db.SqlExecutionService;
+import edu.zsc.ai.domain.service.db.TableService;
+import edu.zsc.ai.domain.service.db.ViewService;
+import edu.zsc.ai.util.exception.BusinessException;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.function.Consumer;
+
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class DataExportServiceImpl implements DataExportService {
+
+    private final ConnectionService connectionService;
+    private final TableService tableService;
+    private final ViewService viewService;
+    private final SqlExecutionService sqlExecutionService;
+    private final ObjectMapper objectMapper;
+
+    @Override
+    public StreamingResponseBody exportTable(Long connectionId, String catalog, String schema, String tableName, Long userId, ExportFormatEnum format) {
+        connectionService.openConnection(connectionId, catalog, schema, userId);
+        return out -> export(out, format, writer ->
+                tableService.streamTableData(connectionId, catalog, schema, tableName, userId, writer));
+    }
+
+    @Override
+    public StreamingResponseBody exportView(Long connectionId, String catalog, String schema, String viewName, Long userId, ExportFormatEnum format) {
+        connectionService.openConnection(connectionId, catalog, schema, userId);
+        return out -> export(out, format, writer ->
+                viewService.streamViewData(connectionId, catalog, schema, viewName, userId, writer));
+    }
+
+    @Override
+    public StreamingResponseBody exportQuery(ExportQueryRequest request, Long userId, ExportFormatEnum format) {
+        connectionService.openConnection(request.getConnectionId(), request.getDatabaseName(), request.getSchemaName(), userId);
+        ExecuteSqlRequest executeRequest = ExecuteSqlRequest.builder()
+                .connectionId(request.getConnectionId())
+                .databaseName(request.getDatabaseName())
+                .schemaName(request.getSchemaName())
+                .conversationId(request.getConversationId())
+                .sql(request.getSql())
+                .userId(userId)
+                .executionId(request.getExecutionId())
+                .queryTimeoutSeconds(request.getQueryTimeoutSeconds())
+                .build();
+        return out -> export(out, format, writer -> {
+            ExecuteSqlResponse response = sqlExecutionService.executeSqlStreaming(executeRequest, writer);
+            if (!response.isSuccess()) {
+                // Only reaches the client as an error while nothing was written yet; otherwise the download is cut short
+                throw BusinessException.badRequest("Export failed: %s", response.getErrorMessage());
+            }
+        });
+    }
+
+    private void export(OutputStream out, ExportFormatEnum format, Consumer<RowExportWriter> source) throws IOException {
+        long start = System.currentTimeMillis();
+        RowExportWriter writer = RowExportWriter.create(format, out, objectMapper);
+        source.accept(writer);
+        writer.finish();
+        log.info("Export finished: format={}, rows={}, elapsedMs={}", format, writer.getRowCount(), System.currentTimeMillis() - start);
+    }
+}
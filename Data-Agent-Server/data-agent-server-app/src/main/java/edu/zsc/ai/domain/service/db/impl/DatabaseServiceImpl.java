@@ -17,6 +17,7 @@ import java.util.List;
 public class DatabaseServiceImpl implements DatabaseService {
 
     private final ConnectionService connectionService;
+    private final SchemaMetadataCache metadataCache;
 
     @Override
     public List<String> listDatabases(Long connectionId) {
@@ -32,7 +33,8 @@ public class DatabaseServiceImpl implements DatabaseService {
 
         DatabaseProvider provider = DefaultPluginManager.getInstance().getDatabaseProviderByPluginId(active.pluginId());
 
-        return provider.getDatabases(active.connection());
+        return metadataCache.get(connectionId, null, null, SchemaMetadataCache.Kind.DATABASES, null,
+                () -> active.read(conn -> provider.getDatabases(conn)));
     }
 
     @Override
@@ -43,7 +45,10 @@ public class DatabaseServiceImpl implements DatabaseService {
         ConnectionManager.ActiveConnection active = ConnectionManager.getAnyOwnedActiveConnection(connectionId, uid);
 
         DatabaseProvider provider = DefaultPluginManager.getInstance().getDatabaseProviderByPluginId(active.pluginId());
-        provider.deleteDatabase(active.connection(), databaseName);
+        try (PooledConnection lease = active.borrow()) {
+            provider.deleteDatabase(lease.connection(), databaseName);
+        }
+        metadataCache.invalidateConnection(connectionId);
 
         log.info("Database deleted successfully: connectionId={}, databaseName={}", connectionId, databaseName);
     }
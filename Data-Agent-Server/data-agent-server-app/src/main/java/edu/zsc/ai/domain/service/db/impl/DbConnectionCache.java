@@ -0,0 +1,105 @@
+package edu.zsc.ai.domain.service.db.impl;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import edu.zsc.ai.common.converter.db.ConnectionConverter;
+import edu.zsc.ai.domain.model.entity.db.DbConnection;
+import edu.zsc.ai.plugin.connection.ConnectionConfig;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang3.StringUtils;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * In-process cache of saved connections that passed the ownership check, keyed by (connectionId, userId),
+ * and of the plugin that last connected successfully for each connection.
+ * Lets {@link ConnectionServiceImpl#openConnection} skip the metadata-DB lookup for already known connections.
+ * Entries must be invalidated whenever the saved connection changes.
+ */
+@Slf4j
+@Component
+public class DbConnectionCache {
+
+    private static final long MAXIMUM_SIZE = 10_000;
+    private static final Duration EXPIRE_AFTER_WRITE = Duration.ofMinutes(10);
+
+    /**
+     * Saved-connection property holding the default statement timeout in seconds.
+     * It is not a driver property and is removed from the config handed to plugins.
+     */
+    public static final String QUERY_TIMEOUT_PROPERTY = "queryTimeoutSeconds";
+
+    /**
+     * Owned connection and its base config. The config must not be mutated; use {@link ConnectionConfig#copy()}.
+     *
+     * @param queryTimeoutSeconds the connection's default statement timeout, null when not configured
+     */
+    public record OwnedConnection(DbConnection dbConnection, ConnectionConfig config, Integer queryTimeoutSeconds) {
+    }
+
+    private record Key(Long connectionId, Long userId) {
+    }
+
+    private final Cache<Key, OwnedConnection> cache = Caffeine.newBuilder()
+            .maximumSize(MAXIMUM_SIZE)
+            .expireAfterWrite(EXPIRE_AFTER_WRITE)
+            .build();
+
+    /**
+     * dbConnectionId -> pluginId that won the last connect, so later opens skip the other candidates.
+     */
+    private final Map<Long, String> pluginIds = new ConcurrentHashMap<>();
+
+    /**
+     * Get the owned connection from cache, loading it with {@code loader} on a miss.
+     * The loader is expected to throw when the user does not own the connection, so misses are never cached.
+     */
+    public OwnedConnection get(Long connectionId, Long userId, Supplier<DbConnection> loader) {
+        return cache.get(new Key(connectionId, userId), k -> {
+            DbConnection dbConnection = loader.get();
+            ConnectionConfig config = ConnectionConverter.convertToConfig(dbConnection);
+            return new OwnedConnection(dbConnection, config, takeQueryTimeout(config));
+        });
+    }
+
+    private static Integer takeQueryTimeout(ConnectionConfig config) {
+        if (config.getProperties() == null) {
+            return null;
+        }
+        String value = config.getProperties().remove(QUERY_TIMEOUT_PROPERTY);
+        if (StringUtils.isBlank(value)) {
+            return null;
+        }
+        try {
+            return Integer.valueOf(value.trim());
+        } catch (NumberFormatException e) {
+            log.warn("Ignoring invalid {}: {}", QUERY_TIMEOUT_PROPERTY, value);
+            return null;
+        }
+    }
+
+    /**
+     * Plugin that last connected successfully for a saved connection, or null if unknown.
+     */
+    public String getPluginId(Long connectionId) {
+        return pluginIds.get(connectionId);
+    }
+
+    public void rememberPluginId(Long connectionId, String pluginId) {
+        pluginIds.put(connectionId, pluginId);
+    }
+
+    public void forgetPluginId(Long connectionId) {
+        pluginIds.remove(connectionId);
+    }
+
+    public void invalidate(Long connectionId) {
+        cache.asMap().keySet().removeIf(k -> k.connectionId().equals(connectionId));
+        pluginIds.remove(connectionId);
+        log.debug("Connection cache invalidated: connectionId={}", connectionId);
+    }
+}
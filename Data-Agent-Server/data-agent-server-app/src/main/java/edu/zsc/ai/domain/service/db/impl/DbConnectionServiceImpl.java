@@ -11,6 +11,7 @@ import edu.zsc.ai.domain.mapper.db.DbConnectionMapper;
 import edu.zsc.ai.domain.model.dto.request.db.ConnectionCreateRequest;
 import edu.zsc.ai.domain.model.dto.response.db.ConnectionResponse;
 import edu.zsc.ai.domain.model.entity.db.DbConnection;
+import edu.zsc.ai.domain.service.agent.TableRetrievalService;
 import edu.zsc.ai.domain.service.db.DbConnectionService;
 import edu.zsc.ai.util.JsonUtil;
 import edu.zsc.ai.util.exception.BusinessException;
@@ -18,6 +19,7 @@ import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.lang3.StringUtils;
 import org.springframework.beans.BeanUtils;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.stereotype.Service;
 
 import java.util.List;
@@ -28,6 +30,11 @@ import java.util.List;
 public class DbConnectionServiceImpl extends ServiceImpl<DbConnectionMapper, DbConnection>
         implements DbConnectionService {
 
+    private final DbConnectionCache dbConnectionCache;
+    private final SchemaMetadataCache metadataCache;
+    // Looked up on use: table retrieval depends on the connection services through the schema snapshots
+    private final ObjectProvider<TableRetrievalService> tableRetrievalService;
+
     @Override
     public DbConnection getByName(String name) {
         if (!StringUtils.isNotBlank(name)) {
@@ -100,6 +107,10 @@ public class DbConnectionServiceImpl extends ServiceImpl<DbConnectionMapper, DbC
         existingConnection.setProperties(JsonUtil.map2Json(request.getProperties()));
 
         this.updateById(existingConnection);
+        dbConnectionCache.invalidate(connectionId);
+        metadataCache.removeConnection(connectionId);
+        tableRetrievalService.ifAvailable(service -> service.removeConnection(connectionId));
+        ConnectionManager.closeAllConnections(connectionId);
         return ConnectionConverter.convertToResponse(existingConnection);
     }
 
@@ -134,5 +145,9 @@ public class DbConnectionServiceImpl extends ServiceImpl<DbConnectionMapper, DbC
     public void deleteConnection(Long connectionId) {
         this.getOwnedById(connectionId);
         this.removeById(connectionId);
+        dbConnectionCache.invalidate(connectionId);
+        metadataCache.removeConnection(connectionId);
+        tableRetrievalService.ifAvailable(service -> service.removeConnection(connectionId));
+        ConnectionManager.closeAllConnections(connectionId);
     }
 }
\ No newline at end of file
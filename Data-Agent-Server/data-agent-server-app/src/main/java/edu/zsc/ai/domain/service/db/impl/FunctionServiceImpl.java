@@ -5,6 +5,7 @@ import edu.zsc.ai.domain.service.db.FunctionService;
 import edu.zsc.ai.plugin.capability.FunctionProvider;
 import edu.zsc.ai.plugin.manager.DefaultPluginManager;
 import edu.zsc.ai.plugin.model.metadata.FunctionMetadata;
+import edu.zsc.ai.plugin.model.metadata.SchemaSnapshot;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
@@ -17,6 +18,7 @@ import java.util.List;
 public class FunctionServiceImpl implements FunctionService {
 
     private final ConnectionService connectionService;
+    private final SchemaMetadataCache metadataCache;
 
     @Override
     public List<FunctionMetadata> getFunctions(Long connectionId, String catalog, String schema, Long userId) {
@@ -25,7 +27,12 @@ public class FunctionServiceImpl implements FunctionService {
         ConnectionManager.ActiveConnection active = ConnectionManager.getOwnedConnection(connectionId, catalog, schema, userId);
 
         FunctionProvider provider = DefaultPluginManager.getInstance().getFunctionProviderByPluginId(active.pluginId());
-        return provider.getFunctions(active.connection(), catalog, schema);
+        SchemaSnapshot snapshot = metadataCache.getSnapshotIfPresent(connectionId, catalog, schema);
+        if (snapshot != null) {
+            return snapshot.getFunctions();
+        }
+        return metadataCache.get(connectionId, catalog, schema, SchemaMetadataCache.Kind.FUNCTIONS, null,
+                () -> active.read(conn -> provider.getFunctions(conn, catalog, schema)));
     }
 
     @Override
@@ -35,7 +42,8 @@ public class FunctionServiceImpl implements FunctionService {
         ConnectionManager.ActiveConnection active = ConnectionManager.getOwnedConnection(connectionId, catalog, schema, userId);
 
         FunctionProvider provider = DefaultPluginManager.getInstance().getFunctionProviderByPluginId(active.pluginId());
-        return provider.getFunctionDdl(active.connection(), catalog, schema, functionName);
+        return metadataCache.get(connectionId, catalog, schema, SchemaMetadataCache.Kind.FUNCTION_DDL, functionName,
+                () -> active.read(conn -> provider.getFunctionDdl(conn, catalog, schema, functionName)));
     }
 
     @Override
@@ -45,7 +53,10 @@ public class FunctionServiceImpl implements FunctionService {
         ConnectionManager.ActiveConnection active = ConnectionManager.getOwnedConnection(connectionId, catalog, schema, userId);
 
         FunctionProvider provider = DefaultPluginManager.getInstance().getFunctionProviderByPluginId(active.pluginId());
-        provider.deleteFunction(active.connection(), catalog, schema, functionName);
+        try (PooledConnection lease = active.borrow()) {
+            provider.deleteFunction(lease.connection(), catalog, schema, functionName);
+        }
+        metadataCache.invalidateSchema(connectionId, catalog, schema);
 
         log.info("Function deleted successfully: connectionId={}, catalog={}, schema={}, functionName={}",
                 connectionId, catalog, schema, functionName);
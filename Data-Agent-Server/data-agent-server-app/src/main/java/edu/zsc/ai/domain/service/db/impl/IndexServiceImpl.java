@@ -5,6 +5,7 @@ import edu.zsc.ai.domain.service.db.IndexService;
 import edu.zsc.ai.plugin.capability.IndexProvider;
 import edu.zsc.ai.plugin.manager.DefaultPluginManager;
 import edu.zsc.ai.plugin.model.metadata.IndexMetadata;
+import edu.zsc.ai.plugin.model.metadata.TableSnapshot;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
@@ -17,6 +18,7 @@ import java.util.List;
 public class IndexServiceImpl implements IndexService {
 
     private final ConnectionService connectionService;
+    private final SchemaMetadataCache metadataCache;
 
     @Override
     public List<IndexMetadata> getIndexes(Long connectionId, String catalog, String schema, String tableName, Long userId) {
@@ -25,6 +27,11 @@ public class IndexServiceImpl implements IndexService {
         ConnectionManager.ActiveConnection active = ConnectionManager.getOwnedConnection(connectionId, catalog, schema, userId);
 
         IndexProvider provider = DefaultPluginManager.getInstance().getIndexProviderByPluginId(active.pluginId());
-        return provider.getIndexes(active.connection(), catalog, schema, tableName);
+        TableSnapshot table = metadataCache.findSnapshotTable(connectionId, catalog, schema, tableName);
+        if (table != null) {
+            return table.indexes();
+        }
+        return metadataCache.get(connectionId, catalog, schema, SchemaMetadataCache.Kind.INDEXES, tableName,
+                () -> active.read(conn -> provider.getIndexes(conn, catalog, schema, tableName)));
     }
 }
@@ -0,0 +1,138 @@
+package edu.zsc.ai.domain.service.db.impl;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import edu.zsc.ai.util.exception.BusinessException;
+import org.apache.commons.lang3.StringUtils;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+
+/**
+ * Position in a table paged by key: the key columns and the key values of the last row returned.
+ * Handed to clients as an opaque URL-safe token (Base64 of a small JSON document); also used as the
+ * locator of a row's large values.
+ *
+ * <p>JSON has no temporal or single-precision types, so such values are written as text or numbers and
+ * tagged with their type in {@code types}, which restores them as {@link LocalDateTime}, {@link LocalDate},
+ * {@link LocalTime}, {@link Double} or {@link Float} when the token is decoded.
+ *
+ * @param columns key columns, in index order
+ * @param values  key values of the last row of the page
+ * @param types   type tag per value ({@code null} for values JSON restores as they are), null when no value is tagged
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+record KeysetCursor(List<String> columns, List<Object> values, List<String> types) {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper()
+            .enable(DeserializationFeature.USE_BIG_DECIMAL_FOR_FLOATS);
+
+    private static final String TYPE_DATETIME = "datetime";
+    private static final String TYPE_DATE = "date";
+    private static final String TYPE_TIME = "time";
+    private static final String TYPE_DOUBLE = "double";
+    private static final String TYPE_FLOAT = "float";
+
+    /**
+     * Cursor after the given row, or null when a key value cannot be sent back to the database
+     * unchanged (null, binary, NaN or infinite), in which case the table is paged by offset.
+     */
+    static KeysetCursor afterRow(List<String> keyColumns, List<String> headers, List<Object> row) {
+        List<Object> values = new ArrayList<>(keyColumns.size());
+        List<String> types = new ArrayList<>(keyColumns.size());
+        boolean typed = false;
+        for (String column : keyColumns) {
+            int index = indexOfIgnoreCase(headers, column);
+            if (index < 0) {
+                return null;
+            }
+            Object value = row.get(index);
+            String type = null;
+            if (value instanceof java.sql.Timestamp timestamp) {
+                value = timestamp.toLocalDateTime();
+            } else if (value instanceof java.sql.Date date) {
+                value = date.toLocalDate();
+            } else if (value instanceof java.sql.Time time) {
+                value = time.toLocalTime();
+            }
+            if (value instanceof LocalDateTime || value instanceof LocalDate || value instanceof LocalTime) {
+                type = value instanceof LocalDateTime ? TYPE_DATETIME : value instanceof LocalDate ? TYPE_DATE : TYPE_TIME;
+                value = value.toString();
+            } else if (value instanceof Double || value instanceof Float) {
+                double number = ((Number) value).doubleValue();
+                if (Double.isNaN(number) || Double.isInfinite(number)) {
+                    return null;
+                }
+                type = value instanceof Double ? TYPE_DOUBLE : TYPE_FLOAT;
+            } else if (!(value instanceof String || value instanceof Integer || value instanceof Long
+                    || value instanceof BigInteger || value instanceof BigDecimal || value instanceof Boolean)) {
+                return null;
+            }
+            values.add(value);
+            types.add(type);
+            typed |= type != null;
+        }
+        return new KeysetCursor(List.copyOf(keyColumns), values, typed ? types : null);
+    }
+
+    static KeysetCursor decode(String token) {
+        try {
+            KeysetCursor cursor = MAPPER.readValue(Base64.getUrlDecoder().decode(token), KeysetCursor.class);
+            if (cursor.columns() == null || cursor.values() == null || cursor.columns().isEmpty()
+                    || cursor.columns().size() != cursor.values().size()
+                    || cursor.types() != null && cursor.types().size() != cursor.values().size()) {
+                throw BusinessException.badRequest("Invalid page cursor");
+            }
+            return cursor.types() == null ? cursor : new KeysetCursor(cursor.columns(), restoreTypes(cursor), null);
+        } catch (IOException | IllegalArgumentException | DateTimeParseException | ClassCastException e) {
+            throw BusinessException.badRequest("Invalid page cursor");
+        }
+    }
+
+    String encode() {
+        try {
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(MAPPER.writeValueAsBytes(this));
+        } catch (IOException e) {
+            throw new IllegalStateException("Failed to encode page cursor", e);
+        }
+    }
+
+    private static List<Object> restoreTypes(KeysetCursor cursor) {
+        List<Object> values = new ArrayList<>(cursor.values().size());
+        for (int i = 0; i < cursor.values().size(); i++) {
+            Object value = cursor.values().get(i);
+            String type = cursor.types().get(i);
+            if (type == null || value == null) {
+                values.add(value);
+                continue;
+            }
+            values.add(switch (type) {
+                case TYPE_DATETIME -> LocalDateTime.parse((String) value);
+                case TYPE_DATE -> LocalDate.parse((String) value);
+                case TYPE_TIME -> LocalTime.parse((String) value);
+                case TYPE_DOUBLE -> ((Number) value).doubleValue();
+                case TYPE_FLOAT -> ((Number) value).floatValue();
+                default -> throw new IllegalArgumentException("Unknown key type " + type);
+            });
+        }
+        return values;
+    }
+
+    private static int indexOfIgnoreCase(List<String> headers, String column) {
+        for (int i = 0; i < headers.size(); i++) {
+            if (StringUtils.equalsIgnoreCase(headers.get(i), column)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+}
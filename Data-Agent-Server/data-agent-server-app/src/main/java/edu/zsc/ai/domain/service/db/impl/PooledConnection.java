@@ -0,0 +1,129 @@
+package edu.zsc.ai.domain.service.db.impl;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+
+/**
+ * A connection leased from a {@link ConnectionPool}. Use with try-with-resources;
+ * {@link #close()} returns the physical connection to the pool instead of closing it.
+ *
+ * <p>When the lease was switched to another catalog/schema, the previous one is restored on close
+ * so that the next borrower starts from the connection's own session state. A switch away from no catalog
+ * cannot be undone; the pool then tracks the connection as displaced (see {@link #isDisplaced()}).
+ * Leases that ran arbitrary SQL ({@link #markSessionDirty()}) get their server session reset on close.
+ */
+@Slf4j
+public class PooledConnection implements AutoCloseable {
+
+    private final ConnectionPool pool;
+    private Connection connection;
+    private String restoreCatalog;
+    private String restoreSchema;
+    private boolean catalogSwitched;
+    private boolean schemaSwitched;
+    private boolean sessionDirty;
+    private boolean broken;
+
+    PooledConnection(ConnectionPool pool, Connection connection) {
+        this.pool = pool;
+        this.connection = connection;
+    }
+
+    public Connection connection() {
+        if (connection == null) {
+            throw new IllegalStateException("Connection lease already returned");
+        }
+        return connection;
+    }
+
+    /**
+     * Whether the leased connection is dead (closed or failing validation), e.g. after an operation failed.
+     * A dead connection is discarded instead of being returned to the pool.
+     */
+    boolean checkBroken() {
+        Connection conn = connection();
+        broken = broken || !pool.isValid(conn);
+        return broken;
+    }
+
+    /**
+     * Record that arbitrary SQL ran on this lease and may have changed the server session (user variables,
+     * temporary tables, session variables, {@code USE}), so it is reset before the connection is reused.
+     */
+    public void markSessionDirty() {
+        sessionDirty = true;
+    }
+
+    /**
+     * Whether an earlier lease left the connection on a catalog it could not switch back from,
+     * i.e. the session is not on the connection's own catalog.
+     */
+    boolean isDisplaced() {
+        return pool.isDisplaced(connection());
+    }
+
+    /**
+     * Return the connection to the pool for closing instead of reuse.
+     */
+    void discard() {
+        broken = true;
+        close();
+    }
+
+    /**
+     * Point the leased session at the given catalog/schema (null leaves it unchanged).
+     * Only issues a switch when the session is on a different one.
+     */
+    void switchTo(String catalog, String schema) throws SQLException {
+        Connection conn = connection();
+        if (catalog != null) {
+            String current = conn.getCatalog();
+            if (!catalog.equals(current)) {
+                conn.setCatalog(catalog);
+                if (!catalogSwitched) {
+                    restoreCatalog = current;
+                    catalogSwitched = true;
+                }
+            }
+        }
+        if (schema != null) {
+            String current = conn.getSchema();
+            if (!schema.equals(current)) {
+                conn.setSchema(schema);
+                if (!schemaSwitched) {
+                    restoreSchema = current;
+                    schemaSwitched = true;
+                }
+            }
+        }
+    }
+
+    @Override
+    public void close() {
+        Connection leased = connection;
+        connection = null;
+        if (leased == null) {
+            return;
+        }
+        if (broken) {
+            pool.discard(leased);
+            return;
+        }
+        try {
+            if (restoreCatalog != null) {
+                leased.setCatalog(restoreCatalog);
+            }
+            if (restoreSchema != null) {
+                leased.setSchema(restoreSchema);
+            }
+        } catch (SQLException e) {
+            log.warn("Failed to restore session catalog/schema, discarding connection: {}", e.getMessage());
+            pool.discard(leased);
+            return;
+        }
+        boolean displaced = catalogSwitched && restoreCatalog == null || schemaSwitched && restoreSchema == null;
+        pool.release(leased, sessionDirty, displaced);
+    }
+}
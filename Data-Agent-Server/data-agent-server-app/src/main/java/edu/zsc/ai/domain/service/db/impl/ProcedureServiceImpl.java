@@ -5,6 +5,7 @@ import edu.zsc.ai.domain.service.db.ProcedureService;
 import edu.zsc.ai.plugin.capability.ProcedureProvider;
 import edu.zsc.ai.plugin.manager.DefaultPluginManager;
 import edu.zsc.ai.plugin.model.metadata.ProcedureMetadata;
+import edu.zsc.ai.plugin.model.metadata.SchemaSnapshot;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
@@ -17,6 +18,7 @@ import java.util.List;
 public class ProcedureServiceImpl implements ProcedureService {
 
     private final ConnectionService connectionService;
+    private final SchemaMetadataCache metadataCache;
 
     @Override
     public List<ProcedureMetadata> getProcedures(Long connectionId, String catalog, String schema, Long userId) {
@@ -25,7 +27,12 @@ public class ProcedureServiceImpl implements ProcedureService {
         ConnectionManager.ActiveConnection active = ConnectionManager.getOwnedConnection(connectionId, catalog, schema, userId);
 
         ProcedureProvider provider = DefaultPluginManager.getInstance().getProcedureProviderByPluginId(active.pluginId());
-        return provider.getProcedures(active.connection(), catalog, schema);
+        SchemaSnapshot snapshot = metadataCache.getSnapshotIfPresent(connectionId, catalog, schema);
+        if (snapshot != null) {
+            return snapshot.getProcedures();
+        }
+        return metadataCache.get(connectionId, catalog, schema, SchemaMetadataCache.Kind.PROCEDURES, null,
+                () -> active.read(conn -> provider.getProcedures(conn, catalog, schema)));
     }
 
     @Override
@@ -35,7 +42,8 @@ public class ProcedureServiceImpl implements ProcedureService {
         ConnectionManager.ActiveConnection active = ConnectionManager.getOwnedConnection(connectionId, catalog, schema, userId);
 
         ProcedureProvider provider = DefaultPluginManager.getInstance().getProcedureProviderByPluginId(active.pluginId());
-        return provider.getProcedureDdl(active.connection(), catalog, schema, procedureName);
+        return metadataCache.get(connectionId, catalog, schema, SchemaMetadataCache.Kind.PROCEDURE_DDL, procedureName,
+                () -> active.read(conn -> provider.getProcedureDdl(conn, catalog, schema, procedureName)));
     }
 
     @Override
@@ -45,7 +53,10 @@ public class ProcedureServiceImpl implements ProcedureService {
         ConnectionManager.ActiveConnection active = ConnectionManager.getOwnedConnection(connectionId, catalog, schema, userId);
 
         ProcedureProvider provider = DefaultPluginManager.getInstance().getProcedureProviderByPluginId(active.pluginId());
-        provider.deleteProcedure(active.connection(), catalog, schema, procedureName);
+        try (PooledConnection lease = active.borrow()) {
+            provider.deleteProcedure(lease.connection(), catalog, schema, procedureName);
+        }
+        metadataCache.invalidateSchema(connectionId, catalog, schema);
 
         log.info("Procedure deleted successfully: connectionId={}, catalog={}, schema={}, procedureName={}",
                 connectionId, catalog, schema, procedureName);
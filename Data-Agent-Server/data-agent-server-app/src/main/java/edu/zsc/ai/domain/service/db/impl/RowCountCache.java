@@ -0,0 +1,160 @@
+package edu.zsc.ai.domain.service.db.impl;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.LoadingCache;
+import edu.zsc.ai.config.db.RowCountProperties;
+import edu.zsc.ai.domain.service.db.ConnectionService;
+import edu.zsc.ai.plugin.capability.TableProvider;
+import edu.zsc.ai.plugin.capability.ViewProvider;
+import edu.zsc.ai.plugin.manager.DefaultPluginManager;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Row counts of tables and views for data browsing. The exact COUNT(*) of each object is cached and
+ * recounted in the background once older than the refresh interval, so paging does not scan the table
+ * on every page. Until the first count of a large table is done, the database's own estimate is
+ * returned instead and marked as inexact.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class RowCountCache {
+
+    /**
+     * @param exact false when count is the database's estimate
+     */
+    public record RowCount(long count, boolean exact) {
+    }
+
+    private record Key(Long connectionId, String catalog, String schema, String objectName, boolean view, Long userId) {
+    }
+
+    private final ConnectionService connectionService;
+    private final RowCountProperties properties;
+
+    private ThreadPoolExecutor lookupExecutor;
+    private ThreadPoolExecutor refreshExecutor;
+    private LoadingCache<Key, Long> counts;
+
+    @PostConstruct
+    void start() {
+        // No queue: when every lookup thread is busy the caller counts itself, as it did before
+        lookupExecutor = new ThreadPoolExecutor(0, properties.getLookupThreads(), 60, TimeUnit.SECONDS,
+                new SynchronousQueue<>(), threadFactory("row-count-lookup-"), new ThreadPoolExecutor.CallerRunsPolicy());
+        // Unbounded queue: the cache runs at most one refresh per key at a time
+        int refreshThreads = properties.getRefreshThreads();
+        refreshExecutor = new ThreadPoolExecutor(refreshThreads, refreshThreads, 60, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(), threadFactory("row-count-refresh-"));
+        refreshExecutor.allowCoreThreadTimeOut(true);
+        counts = Caffeine.newBuilder()
+                .maximumSize(properties.getMaxEntries())
+                .expireAfterAccess(Duration.ofMillis(properties.getExpireAfterAccessMillis()))
+                .refreshAfterWrite(Duration.ofMillis(properties.getRefreshAfterMillis()))
+                .executor(refreshExecutor)
+                .build(this::countExactly);
+    }
+
+    @PreDestroy
+    void stop() {
+        lookupExecutor.shutdownNow();
+        refreshExecutor.shutdownNow();
+    }
+
+    /**
+     * Look up the row count of a table on another thread, so it runs alongside the data query.
+     * The caller must already have opened the connection.
+     */
+    public CompletableFuture<RowCount> getTableRowCount(Long connectionId, String catalog, String schema, String tableName, Long userId) {
+        Key key = new Key(connectionId, catalog, schema, tableName, false, userId);
+        return CompletableFuture.supplyAsync(() -> lookup(key), lookupExecutor);
+    }
+
+    /**
+     * Same as {@link #getTableRowCount} for a view; views have no estimate, so the first count is always exact.
+     */
+    public CompletableFuture<RowCount> getViewRowCount(Long connectionId, String catalog, String schema, String viewName, Long userId) {
+        Key key = new Key(connectionId, catalog, schema, viewName, true, userId);
+        return CompletableFuture.supplyAsync(() -> lookup(key), lookupExecutor);
+    }
+
+    public void invalidateTable(Long connectionId, String catalog, String schema, String tableName, Long userId) {
+        counts.invalidate(new Key(connectionId, catalog, schema, tableName, false, userId));
+    }
+
+    /**
+     * Wait for a count looked up with {@link #getTableRowCount} or {@link #getViewRowCount},
+     * rethrowing its failure as is.
+     */
+    public static RowCount join(CompletableFuture<RowCount> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    private RowCount lookup(Key key) {
+        // A stale entry is returned as is and recounted in the background
+        Long cached = counts.getIfPresent(key);
+        if (cached != null) {
+            return new RowCount(cached, true);
+        }
+        Long estimate = key.view() ? null : estimate(key);
+        if (estimate == null || estimate < properties.getExactCountMaxRows()) {
+            return new RowCount(counts.get(key), true);
+        }
+        counts.refresh(key);
+        return new RowCount(estimate, false);
+    }
+
+    private Long estimate(Key key) {
+        ConnectionManager.ActiveConnection active = ConnectionManager.getOwnedConnection(
+                key.connectionId(), key.catalog(), key.schema(), key.userId());
+        TableProvider provider = DefaultPluginManager.getInstance().getTableProviderByPluginId(active.pluginId());
+        try {
+            return active.read(conn -> provider.getTableRowEstimate(conn, key.catalog(), key.schema(), key.objectName()));
+        } catch (RuntimeException e) {
+            log.debug("No row estimate for {}: {}", key.objectName(), e.getMessage());
+            return null;
+        }
+    }
+
+    private Long countExactly(Key key) {
+        // Refreshes run after the request that opened the connection, which may have been reaped since
+        connectionService.openConnection(key.connectionId(), key.catalog(), key.schema(), key.userId());
+        ConnectionManager.ActiveConnection active = ConnectionManager.getOwnedConnection(
+                key.connectionId(), key.catalog(), key.schema(), key.userId());
+        if (key.view()) {
+            ViewProvider provider = DefaultPluginManager.getInstance().getViewProviderByPluginId(active.pluginId());
+            return active.read(conn -> provider.getViewDataCount(conn, key.catalog(), key.schema(), key.objectName()));
+        }
+        TableProvider provider = DefaultPluginManager.getInstance().getTableProviderByPluginId(active.pluginId());
+        return active.read(conn -> provider.getTableDataCount(conn, key.catalog(), key.schema(), key.objectName()));
+    }
+
+    private static ThreadFactory threadFactory(String prefix) {
+        AtomicInteger threadIds = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, prefix + threadIds.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+}
@@ -0,0 +1,194 @@
+package edu.zsc.ai.domain.service.db.impl;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import edu.zsc.ai.common.enums.db.ExportFormatEnum;
+import edu.zsc.ai.plugin.model.command.RowConsumer;
+import edu.zsc.ai.plugin.value.LobHandle;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.List;
+
+/**
+ * Writes rows to an output stream as they come off the cursor. Only a fixed-size buffer is held,
+ * so the heap does not grow with the export. A failed write (e.g. the client went away) is thrown
+ * as {@link UncheckedIOException}, which stops reading the cursor.
+ */
+abstract class RowExportWriter implements RowConsumer {
+
+    static final int BUFFER_SIZE = 64 * 1024;
+
+    protected List<String> headers = List.of();
+    private long rowCount;
+
+    static RowExportWriter create(ExportFormatEnum format, OutputStream out, ObjectMapper objectMapper) {
+        return switch (format) {
+            case CSV -> new CsvWriter(out);
+            case NDJSON -> new JsonWriter(out, objectMapper, false);
+            case JSON -> new JsonWriter(out, objectMapper, true);
+        };
+    }
+
+    @Override
+    public void onHeaders(List<String> headers) {
+        this.headers = headers;
+        try {
+            writeHeaders();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public boolean onRow(List<Object> row) {
+        try {
+            writeRow(row);
+            rowCount++;
+            return true;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Large values are exported in full, not as the handle shown in result grids
+     */
+    static Object exportValue(Object value) {
+        return value instanceof LobHandle lob && lob.content() != null ? lob.content() : value;
+    }
+
+    long getRowCount() {
+        return rowCount;
+    }
+
+    /**
+     * Complete the document and flush what is still buffered; the stream itself is left open.
+     */
+    abstract void finish() throws IOException;
+
+    abstract void writeHeaders() throws IOException;
+
+    abstract void writeRow(List<Object> row) throws IOException;
+
+    private static final class CsvWriter extends RowExportWriter {
+
+        private final Writer writer;
+
+        CsvWriter(OutputStream out) {
+            this.writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), BUFFER_SIZE);
+        }
+
+        @Override
+        void writeHeaders() throws IOException {
+            writeLine(headers);
+        }
+
+        @Override
+        void writeRow(List<Object> row) throws IOException {
+            writeLine(row);
+        }
+
+        @Override
+        void finish() throws IOException {
+            writer.flush();
+        }
+
+        private void writeLine(List<?> values) throws IOException {
+            for (int i = 0; i < values.size(); i++) {
+                if (i > 0) {
+                    writer.write(',');
+                }
+                Object value = exportValue(values.get(i));
+                // NULL is an empty field, an empty string a quoted one
+                if (value != null) {
+                    writeField(value instanceof byte[] bytes ? Base64.getEncoder().encodeToString(bytes) : value.toString());
+                }
+            }
+            writer.write("\r\n");
+        }
+
+        private void writeField(String text) throws IOException {
+            boolean quote = text.isEmpty();
+            for (int i = 0; i < text.length() && !quote; i++) {
+                char c = text.charAt(i);
+                quote = c == ',' || c == '"' || c == '\n' || c == '\r';
+            }
+            if (!quote) {
+                writer.write(text);
+                return;
+            }
+            writer.write('"');
+            int start = 0;
+            for (int i = 0; i < text.length(); i++) {
+                if (text.charAt(i) == '"') {
+                    writer.write(text, start, i + 1 - start);
+                    writer.write('"');
+                    start = i + 1;
+                }
+            }
+            writer.write(text, start, text.length() - start);
+            writer.write('"');
+        }
+    }
+
+    private static final class JsonWriter extends RowExportWriter {
+
+        private final JsonGenerator generator;
+        private final boolean array;
+        private boolean started;
+
+        JsonWriter(OutputStream out, ObjectMapper objectMapper, boolean array) {
+            try {
+                this.generator = objectMapper.getFactory().createGenerator(out)
+                        .disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            this.array = array;
+            if (!array) {
+                generator.setRootValueSeparator(null);
+            }
+        }
+
+        @Override
+        void writeHeaders() throws IOException {
+            start();
+        }
+
+        @Override
+        void writeRow(List<Object> row) throws IOException {
+            generator.writeStartObject();
+            for (int i = 0; i < headers.size(); i++) {
+                generator.writeFieldName(headers.get(i));
+                generator.writeObject(exportValue(row.get(i)));
+            }
+            generator.writeEndObject();
+            if (!array) {
+                generator.writeRaw('\n');
+            }
+        }
+
+        @Override
+        void finish() throws IOException {
+            start();
+            if (array) {
+                generator.writeEndArray();
+            }
+            generator.flush();
+        }
+
+        private void start() throws IOException {
+            if (!started && array) {
+                generator.writeStartArray();
+            }
+            started = true;
+        }
+    }
+}
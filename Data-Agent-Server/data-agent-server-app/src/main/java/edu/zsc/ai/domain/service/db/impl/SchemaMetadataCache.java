@@ -0,0 +1,251 @@
+package edu.zsc.ai.domain.service.db.impl;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import edu.zsc.ai.config.db.MetadataCacheProperties;
+import edu.zsc.ai.plugin.model.metadata.SchemaSnapshot;
+import edu.zsc.ai.plugin.model.metadata.TableSnapshot;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+import java.util.function.UnaryOperator;
+
+/**
+ * Schema metadata read from connected databases, so repeated lookups (the explorer tree, agent tools
+ * describing the same tables turn after turn) do not query information_schema each time.
+ *
+ * <p>Entries are dropped when the schema is changed through this server: by the delete operations of
+ * the metadata services and by DDL run in the SQL console or by the agent. Changes made by other
+ * clients are picked up once an entry expires.
+ *
+ * <p>Whole-schema snapshots are kept apart and are not dropped but marked stale: the next read refreshes
+ * them from the previous snapshot, which for plugins that fingerprint schemas costs one query plus the
+ * objects that changed. When a refresh moves the snapshot to a new generation, the schema's other
+ * entries are dropped too.
+ */
+@Component
+@RequiredArgsConstructor
+public class SchemaMetadataCache {
+
+    public enum Kind {
+        DATABASES, SCHEMAS, TABLES, VIEWS, FUNCTIONS, PROCEDURES,
+        COLUMNS, INDEXES, TRIGGERS,
+        TABLE_DDL, VIEW_DDL, FUNCTION_DDL, PROCEDURE_DDL, TRIGGER_DDL
+    }
+
+    /**
+     * @param objectName table or routine the entry describes, null for schema-wide listings
+     */
+    private record Key(Long connectionId, String catalog, String schema, Kind kind, String objectName) {
+    }
+
+    private record SchemaKey(Long connectionId, String catalog, String schema) {
+    }
+
+    /**
+     * @param checkedAtMillis when the snapshot was last loaded or found unchanged
+     * @param stale           the schema was changed through this server since
+     */
+    private record CachedSnapshot(SchemaSnapshot snapshot, long checkedAtMillis, boolean stale) {
+    }
+
+    /**
+     * Leading keywords of statements that change the schema
+     */
+    private static final Set<String> DDL_KEYWORDS = Set.of("CREATE", "ALTER", "DROP", "RENAME", "TRUNCATE");
+
+    private final MetadataCacheProperties properties;
+
+    private Cache<Key, Object> entries;
+
+    private Cache<SchemaKey, CachedSnapshot> snapshots;
+
+    // Snapshot loads in flight; callers of the same schema join them instead of loading again
+    private final Map<SchemaKey, CompletableFuture<SchemaSnapshot>> snapshotLoads = new ConcurrentHashMap<>();
+
+    // Bumped by every invalidation, so a load that overlapped one is cached as stale
+    private final AtomicLong invalidations = new AtomicLong();
+
+    @PostConstruct
+    void start() {
+        entries = Caffeine.newBuilder()
+                .maximumSize(properties.getMaxEntries())
+                .expireAfterWrite(Duration.ofMillis(properties.getExpireAfterWriteMillis()))
+                .build();
+        snapshots = Caffeine.newBuilder()
+                .expireAfterAccess(Duration.ofMillis(properties.getSnapshotExpireAfterAccessMillis()))
+                .build();
+    }
+
+    /**
+     * Cached value of the given metadata, loaded with {@code loader} on a miss. Null results are not cached.
+     * The caller must already have checked that the user owns the connection.
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T get(Long connectionId, String catalog, String schema, Kind kind, String objectName, Supplier<T> loader) {
+        Key key = new Key(connectionId, catalog, schema, kind, objectName);
+        return (T) entries.get(key, k -> {
+            T value = loader.get();
+            // Shared between callers, so no one may change it
+            return value instanceof List<?> list ? Collections.unmodifiableList(list) : value;
+        });
+    }
+
+    /**
+     * Snapshot of a whole schema. A cached one is returned as is until it is stale or was last checked more than
+     * the check interval ago; then {@code refresher} is called with it (or with null when none is cached) and
+     * returns the previous snapshot when nothing changed. Concurrent callers wait for the one refresh.
+     * The caller must already have checked that the user owns the connection.
+     */
+    public SchemaSnapshot getSnapshot(Long connectionId, String catalog, String schema,
+                                      UnaryOperator<SchemaSnapshot> refresher) {
+        SchemaKey key = new SchemaKey(connectionId, catalog, schema);
+        CachedSnapshot current = snapshots.getIfPresent(key);
+        if (isFresh(current)) {
+            return current.snapshot();
+        }
+        CompletableFuture<SchemaSnapshot> load = new CompletableFuture<>();
+        CompletableFuture<SchemaSnapshot> running = snapshotLoads.putIfAbsent(key, load);
+        if (running != null) {
+            return join(running);
+        }
+        // The database is queried outside of any cache lock: only callers of this schema wait for it
+        try {
+            current = snapshots.getIfPresent(key);
+            if (isFresh(current)) {
+                load.complete(current.snapshot());
+                return current.snapshot();
+            }
+            long invalidationsBefore = invalidations.get();
+            long now = System.currentTimeMillis();
+            SchemaSnapshot previous = current != null ? current.snapshot() : null;
+            SchemaSnapshot snapshot = refresher.apply(previous);
+            if (previous != null && snapshot.getGeneration() != previous.getGeneration()) {
+                removeEntries(connectionId, catalog, schema);
+            }
+            snapshots.put(key, new CachedSnapshot(snapshot, now, invalidations.get() != invalidationsBefore));
+            load.complete(snapshot);
+            return snapshot;
+        } catch (RuntimeException e) {
+            load.completeExceptionally(e);
+            throw e;
+        } finally {
+            snapshotLoads.remove(key, load);
+        }
+    }
+
+    /**
+     * The snapshot of a whole schema when one is cached, not stale and checked within the expiry of the other
+     * entries, so single lookups can be answered from it; null otherwise.
+     */
+    public SchemaSnapshot getSnapshotIfPresent(Long connectionId, String catalog, String schema) {
+        CachedSnapshot cached = snapshots.getIfPresent(new SchemaKey(connectionId, catalog, schema));
+        if (cached == null || cached.stale()
+                || System.currentTimeMillis() - cached.checkedAtMillis() >= properties.getExpireAfterWriteMillis()) {
+            return null;
+        }
+        return cached.snapshot();
+    }
+
+    /**
+     * A table or view of the cached snapshot of its schema; null when no snapshot is cached or it does not have
+     * the table (e.g. one created since).
+     */
+    public TableSnapshot findSnapshotTable(Long connectionId, String catalog, String schema, String tableName) {
+        SchemaSnapshot snapshot = getSnapshotIfPresent(connectionId, catalog, schema);
+        return snapshot != null ? snapshot.findTable(tableName) : null;
+    }
+
+    /**
+     * Drop everything cached for one schema, after an object in it was dropped or changed.
+     */
+    public void invalidateSchema(Long connectionId, String catalog, String schema) {
+        invalidations.incrementAndGet();
+        removeEntries(connectionId, catalog, schema);
+        snapshots.asMap().computeIfPresent(new SchemaKey(connectionId, catalog, schema), (key, cached) -> stale(cached));
+    }
+
+    /**
+     * Drop everything cached for a connection, after DDL that may name any database.
+     */
+    public void invalidateConnection(Long connectionId) {
+        invalidations.incrementAndGet();
+        entries.asMap().keySet().removeIf(key -> key.connectionId().equals(connectionId));
+        snapshots.asMap().replaceAll((key, cached) -> key.connectionId().equals(connectionId) ? stale(cached) : cached);
+    }
+
+    /**
+     * Drop everything cached for a connection including its snapshots, when the connection itself was changed
+     * or removed.
+     */
+    public void removeConnection(Long connectionId) {
+        invalidations.incrementAndGet();
+        entries.asMap().keySet().removeIf(key -> key.connectionId().equals(connectionId));
+        snapshots.asMap().keySet().removeIf(key -> key.connectionId().equals(connectionId));
+    }
+
+    private boolean isFresh(CachedSnapshot cached) {
+        return cached != null && !cached.stale()
+                && System.currentTimeMillis() - cached.checkedAtMillis() < properties.getSnapshotCheckIntervalMillis();
+    }
+
+    private static SchemaSnapshot join(CompletableFuture<SchemaSnapshot> load) {
+        try {
+            return load.join();
+        } catch (CompletionException e) {
+            throw e.getCause() instanceof RuntimeException cause ? cause : e;
+        }
+    }
+
+    private void removeEntries(Long connectionId, String catalog, String schema) {
+        entries.asMap().keySet().removeIf(key -> key.connectionId().equals(connectionId)
+                && Objects.equals(key.catalog(), catalog) && Objects.equals(key.schema(), schema));
+    }
+
+    private static CachedSnapshot stale(CachedSnapshot cached) {
+        return new CachedSnapshot(cached.snapshot(), cached.checkedAtMillis(), true);
+    }
+
+    /**
+     * Whether the statement changes the schema, judged by its first keyword after any leading comments.
+     */
+    static boolean isDdl(String sql) {
+        if (sql == null) {
+            return false;
+        }
+        int i = 0;
+        int length = sql.length();
+        while (i < length) {
+            char c = sql.charAt(i);
+            if (Character.isWhitespace(c) || c == '(') {
+                i++;
+            } else if (sql.startsWith("--", i) || c == '#') {
+                int end = sql.indexOf('\n', i);
+                i = end < 0 ? length : end + 1;
+            } else if (sql.startsWith("/*", i)) {
+                int end = sql.indexOf("*/", i + 2);
+                i = end < 0 ? length : end + 2;
+            } else {
+                break;
+            }
+        }
+        int start = i;
+        while (i < length && Character.isLetter(sql.charAt(i))) {
+            i++;
+        }
+        return DDL_KEYWORDS.contains(sql.substring(start, i).toUpperCase(Locale.ROOT));
+    }
+}
@@ -17,6 +17,7 @@ import java.util.List;
 public class SchemaServiceImpl implements SchemaService {
 
     private final ConnectionService connectionService;
+    private final SchemaMetadataCache metadataCache;
 
     @Override
     public List<String> listSchemas(Long connectionId, String catalog) {
@@ -31,6 +32,7 @@ public class SchemaServiceImpl implements SchemaService {
             throw BusinessException.badRequest("Plugin does not support listing schemas: " + e.getMessage());
         }
 
-        return provider.getSchemas(active.connection(), catalog);
+        return metadataCache.get(connectionId, catalog, null, SchemaMetadataCache.Kind.SCHEMAS, null,
+                () -> active.read(conn -> provider.getSchemas(conn, catalog)));
     }
 }
@@ -0,0 +1,47 @@
+package edu.zsc.ai.domain.service.db.impl;
+
+import edu.zsc.ai.domain.service.db.ConnectionService;
+import edu.zsc.ai.domain.service.db.SchemaSnapshotService;
+import edu.zsc.ai.plugin.capability.SchemaSnapshotProvider;
+import edu.zsc.ai.plugin.manager.DefaultPluginManager;
+import edu.zsc.ai.plugin.model.metadata.SchemaSnapshot;
+import edu.zsc.ai.util.exception.BusinessException;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class SchemaSnapshotServiceImpl implements SchemaSnapshotService {
+
+    private final ConnectionService connectionService;
+    private final SchemaMetadataCache metadataCache;
+
+    @Override
+    public SchemaSnapshot getSnapshot(Long connectionId, String catalog, String schema, Long userId) {
+        connectionService.openConnection(connectionId, catalog, schema, userId);
+
+        ConnectionManager.ActiveConnection active = ConnectionManager.getOwnedConnection(connectionId, catalog, schema, userId);
+
+        SchemaSnapshotProvider provider;
+        try {
+            provider = DefaultPluginManager.getInstance().getSchemaSnapshotProviderByPluginId(active.pluginId());
+        } catch (IllegalArgumentException e) {
+            throw BusinessException.badRequest("Plugin does not support schema snapshots: %s", e.getMessage());
+        }
+
+        return metadataCache.getSnapshot(connectionId, catalog, schema, previous -> {
+            long start = System.currentTimeMillis();
+            SchemaSnapshot snapshot = active.read(conn -> previous == null
+                    ? provider.getSchemaSnapshot(conn, catalog, schema)
+                    : provider.refreshSchemaSnapshot(conn, previous));
+            if (snapshot != previous) {
+                log.info("Schema snapshot loaded: connectionId={}, catalog={}, schema={}, tables={}, generation={}, elapsedMs={}",
+                        connectionId, catalog, schema, snapshot.getTables().size(), snapshot.getGeneration(),
+                        System.currentTimeMillis() - start);
+            }
+            return snapshot;
+        });
+    }
+}
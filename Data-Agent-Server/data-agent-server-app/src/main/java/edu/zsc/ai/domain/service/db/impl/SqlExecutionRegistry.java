@@ -0,0 +1,144 @@
+package edu.zsc.ai.domain.service.db.impl;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * In-flight SQL executions keyed by execution id, so that a running statement can be cancelled
+ * from another request (cancel endpoint) or when the chat stream that started it goes away.
+ * An execution is registered before its statement exists; a cancel arriving in between is applied
+ * as soon as the statement is attached.
+ */
+@Slf4j
+@Component
+public class SqlExecutionRegistry {
+
+    private static final class Execution {
+
+        private final Long userId;
+        private final Long conversationId;
+        private Statement statement;
+        private boolean cancelled;
+        private boolean reserved;
+
+        private Execution(Long userId, Long conversationId) {
+            this.userId = userId;
+            this.conversationId = conversationId;
+        }
+
+        /**
+         * @return true if this was a reservation of the same user, which the caller now owns
+         */
+        private synchronized boolean claim(Long userId) {
+            if (!reserved || !Objects.equals(this.userId, userId)) {
+                return false;
+            }
+            reserved = false;
+            return true;
+        }
+
+        private synchronized void attach(Statement statement) {
+            this.statement = statement;
+            if (cancelled) {
+                cancelQuietly(statement);
+            }
+        }
+
+        private synchronized void cancel() {
+            cancelled = true;
+            if (statement != null) {
+                cancelQuietly(statement);
+            }
+        }
+    }
+
+    private final Map<String, Execution> executions = new ConcurrentHashMap<>();
+
+    /**
+     * Register an execution before running it. Must be paired with {@link #finish(String)}.
+     *
+     * @return false if the execution id is already in use
+     */
+    public boolean start(String executionId, Long userId, Long conversationId) {
+        Execution existing = executions.putIfAbsent(executionId, new Execution(userId, conversationId));
+        return existing == null || existing.claim(userId);
+    }
+
+    /**
+     * Register an execution ahead of {@link #start(String, Long, Long)}, e.g. when a queued job is picked up,
+     * so that a cancel arriving before the statement is prepared is not lost. {@code start} with the same id
+     * and user then takes the reservation over. Must be paired with {@link #finish(String)}.
+     *
+     * @return false if the execution id is already in use
+     */
+    public boolean reserve(String executionId, Long userId) {
+        Execution execution = new Execution(userId, null);
+        execution.reserved = true;
+        return executions.putIfAbsent(executionId, execution) == null;
+    }
+
+    /**
+     * Attach the statement of a registered execution; cancels it right away if a cancel already came in.
+     */
+    public void attach(String executionId, Statement statement) {
+        Execution execution = executions.get(executionId);
+        if (execution != null) {
+            execution.attach(statement);
+        }
+    }
+
+    public void finish(String executionId) {
+        executions.remove(executionId);
+    }
+
+    /**
+     * Cancel a running execution of the given user.
+     *
+     * @return true if the execution was found and cancelled
+     */
+    public boolean cancel(String executionId, Long userId) {
+        Execution execution = executions.get(executionId);
+        if (execution == null || !Objects.equals(execution.userId, userId)) {
+            return false;
+        }
+        execution.cancel();
+        log.info("SQL execution cancelled: executionId={}, userId={}", executionId, userId);
+        return true;
+    }
+
+    /**
+     * Cancel every running execution started from the given conversation.
+     *
+     * @return number of executions cancelled
+     */
+    public int cancelConversation(Long conversationId) {
+        if (conversationId == null) {
+            return 0;
+        }
+        int cancelled = 0;
+        for (Execution execution : executions.values()) {
+            if (conversationId.equals(execution.conversationId)) {
+                execution.cancel();
+                cancelled++;
+            }
+        }
+        if (cancelled > 0) {
+            log.info("SQL executions cancelled with chat stream: conversationId={}, count={}", conversationId, cancelled);
+        }
+        return cancelled;
+    }
+
+    private static void cancelQuietly(Statement statement) {
+        try {
+            statement.cancel();
+        } catch (SQLException e) {
+            log.warn("Failed to cancel statement: {}", e.getMessage());
+        }
+    }
+}
@@ -1,27 +1,61 @@
 package edu.zsc.ai.domain.service.db.impl;
 
 import edu.zsc.ai.common.converter.db.SqlExecutionConverter;
+import edu.zsc.ai.config.db.SqlExecutionProperties;
 import edu.zsc.ai.domain.model.dto.request.db.ExecuteSqlRequest;
+import edu.zsc.ai.domain.model.dto.request.db.ExecuteSqlScriptRequest;
 import edu.zsc.ai.domain.model.dto.response.db.ExecuteSqlResponse;
+import edu.zsc.ai.domain.model.dto.response.db.ExecuteSqlScriptResponse;
 import edu.zsc.ai.domain.service.db.ConnectionService;
+import edu.zsc.ai.domain.service.db.DbConnectionService;
 import edu.zsc.ai.domain.service.db.SqlExecutionService;
 import edu.zsc.ai.plugin.capability.CommandExecutor;
 import edu.zsc.ai.plugin.manager.DefaultPluginManager;
+import edu.zsc.ai.plugin.model.command.RowConsumer;
 import edu.zsc.ai.plugin.model.command.sql.SqlCommandRequest;
 import edu.zsc.ai.plugin.model.command.sql.SqlCommandResult;
+import edu.zsc.ai.util.JsonUtil;
+import edu.zsc.ai.util.exception.BusinessException;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang3.StringUtils;
 import org.springframework.stereotype.Service;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
 @Slf4j
 @Service
 @RequiredArgsConstructor
 public class SqlExecutionServiceImpl implements SqlExecutionService {
 
     private final ConnectionService connectionService;
+    private final DbConnectionService dbConnectionService;
+    private final DbConnectionCache dbConnectionCache;
+    private final SchemaMetadataCache metadataCache;
+    private final SqlExecutionRegistry sqlExecutionRegistry;
+    private final SqlExecutionProperties sqlExecutionProperties;
 
     @Override
     public ExecuteSqlResponse executeSql(ExecuteSqlRequest request) {
+        return execute(request, null);
+    }
+
+    @Override
+    public ExecuteSqlResponse executeSqlStreaming(ExecuteSqlRequest request, RowConsumer consumer) {
+        return execute(request, consumer);
+    }
+
+    @Override
+    public boolean cancelExecution(String executionId, Long userId) {
+        return sqlExecutionRegistry.cancel(executionId, userId);
+    }
+
+    /**
+     * @param consumer receives the rows when streaming, null to collect them in the response
+     */
+    private ExecuteSqlResponse execute(ExecuteSqlRequest request, RowConsumer consumer) {
         Long connectionId = request.getConnectionId();
         String databaseName = request.getDatabaseName();
         String schemaName = request.getSchemaName();
@@ -36,16 +70,197 @@ public class SqlExecutionServiceImpl implements SqlExecutionService {
         CommandExecutor<SqlCommandRequest, SqlCommandResult> executor = DefaultPluginManager.getInstance()
                 .getSqlCommandExecutorByPluginId(active.pluginId());
 
+        // Resolved before the execution is registered: a failure here must not leave it registered as running
+        Integer queryTimeoutSeconds = resolveQueryTimeout(request.getQueryTimeoutSeconds(), connectionId, userId);
+        String executionId = startExecution(request.getExecutionId(), userId, request.getConversationId());
+
+        SqlCommandResult result;
+        try {
+            try (PooledConnection lease = active.borrow()) {
+                lease.markSessionDirty();
+                SqlCommandRequest pluginRequest = toPluginRequest(lease, sql, databaseName, schemaName,
+                        request.getMaxRows(), request.getMaxBytes(), queryTimeoutSeconds, executionId);
+
+                try {
+                    result = consumer == null
+                            ? executor.executeCommand(pluginRequest)
+                            : executor.executeCommand(pluginRequest, consumer);
+                } catch (RuntimeException e) {
+                    lease.checkBroken();
+                    throw e;
+                }
+                if (!result.isSuccess()) {
+                    // Not retried (may have side effects), but do not hand a dead connection to the next caller
+                    lease.checkBroken();
+                }
+            }
+        } finally {
+            sqlExecutionRegistry.finish(executionId);
+            // Even a failed statement may have changed part of the schema (MySQL DDL is not transactional)
+            if (SchemaMetadataCache.isDdl(sql)) {
+                metadataCache.invalidateConnection(connectionId);
+            }
+        }
+
+        ExecuteSqlResponse response = SqlExecutionConverter.toResponse(result);
+        response.setExecutionId(executionId);
+        return response;
+    }
+
+    @Override
+    public ExecuteSqlScriptResponse executeScript(ExecuteSqlScriptRequest request) {
+        Long connectionId = request.getConnectionId();
+        String databaseName = request.getDatabaseName();
+        String schemaName = request.getSchemaName();
+        Long userId = request.getUserId();
+
+        connectionService.openConnection(connectionId, databaseName, schemaName, userId);
+
+        ConnectionManager.ActiveConnection active = ConnectionManager.getOwnedConnection(
+                connectionId, databaseName, schemaName, userId);
+
+        CommandExecutor<SqlCommandRequest, SqlCommandResult> executor = DefaultPluginManager.getInstance()
+                .getSqlCommandExecutorByPluginId(active.pluginId());
+
+        List<String> statements = executor.splitScript(request.getScript());
+        if (statements.isEmpty()) {
+            throw BusinessException.badRequest("Script contains no statements");
+        }
+        int maxStatements = sqlExecutionProperties.getMaxScriptStatements();
+        if (statements.size() > maxStatements) {
+            throw BusinessException.badRequest("Script has %d statements, at most %d are allowed",
+                    statements.size(), maxStatements);
+        }
+
+        Integer queryTimeoutSeconds = resolveQueryTimeout(request.getQueryTimeoutSeconds(), connectionId, userId);
+        String executionId = startExecution(request.getExecutionId(), userId, request.getConversationId());
+
+        long start = System.currentTimeMillis();
+        List<SqlCommandResult> results;
+        try {
+            try (PooledConnection lease = active.borrow()) {
+                lease.markSessionDirty();
+                List<SqlCommandRequest> commands = new ArrayList<>(statements.size());
+                for (String sql : statements) {
+                    commands.add(toPluginRequest(lease, sql, databaseName, schemaName,
+                            request.getMaxRows(), request.getMaxBytes(), queryTimeoutSeconds, executionId));
+                }
+                try {
+                    results = executor.executeBatch(commands, request.isTransactional());
+                } catch (RuntimeException e) {
+                    lease.checkBroken();
+                    throw e;
+                }
+                if (results.stream().anyMatch(r -> !r.isSuccess())) {
+                    lease.checkBroken();
+                }
+            }
+        } finally {
+            sqlExecutionRegistry.finish(executionId);
+            if (statements.stream().anyMatch(SchemaMetadataCache::isDdl)) {
+                metadataCache.invalidateConnection(connectionId);
+            }
+        }
+
+        int executedCount = 0;
+        long affectedRows = 0;
+        Integer failedStatement = null;
+        String errorMessage = null;
+        for (int i = 0; i < results.size(); i++) {
+            SqlCommandResult result = results.get(i);
+            if (result.isSuccess()) {
+                executedCount++;
+                affectedRows += Math.max(result.getAffectedRows(), 0);
+            } else if (failedStatement == null) {
+                failedStatement = i + 1;
+                errorMessage = result.getErrorMessage();
+            }
+        }
+        boolean success = failedStatement == null;
+
+        // Query results, and with summarizeDml only those and the failure, within the script's total byte budget
+        List<ExecuteSqlResponse> responses = new ArrayList<>();
+        int omittedResults = 0;
+        long totalBytes = 0;
+        boolean overBudget = false;
+        for (int i = 0; i < results.size(); i++) {
+            SqlCommandResult result = results.get(i);
+            boolean failure = failedStatement != null && failedStatement == i + 1;
+            if (request.isSummarizeDml() && !result.isQuery() && !failure) {
+                continue;
+            }
+            ExecuteSqlResponse response = SqlExecutionConverter.toResponse(result);
+            response.setStatementIndex(i + 1);
+            // The failure carries no rows and is always listed; once over the budget the rest is only counted
+            if (request.getMaxTotalBytes() != null && !failure) {
+                if (!overBudget) {
+                    totalBytes += JsonUtil.object2json(response).length();
+                    overBudget = totalBytes > request.getMaxTotalBytes();
+                }
+                if (overBudget) {
+                    omittedResults++;
+                    continue;
+                }
+            }
+            responses.add(response);
+        }
+        log.info("SQL script executed: executionId={}, statements={}, success={}, omittedResults={}",
+                executionId, statements.size(), success, omittedResults);
+
+        return ExecuteSqlScriptResponse.builder()
+                .executionId(executionId)
+                .success(success)
+                .errorMessage(errorMessage)
+                .executionTimeMs(System.currentTimeMillis() - start)
+                .statementCount(statements.size())
+                .rolledBack(request.isTransactional() && !success)
+                .executedCount(executedCount)
+                .affectedRows(affectedRows)
+                .failedStatement(failedStatement)
+                .omittedResults(omittedResults)
+                .results(responses)
+                .build();
+    }
+
+    /**
+     * Register the execution under the requested id, or a generated one when not set.
+     */
+    private String startExecution(String requestedId, Long userId, Long conversationId) {
+        String executionId = StringUtils.isNotBlank(requestedId) ? requestedId : UUID.randomUUID().toString();
+        if (!sqlExecutionRegistry.start(executionId, userId, conversationId)) {
+            throw BusinessException.badRequest("Execution id already in use: %s", executionId);
+        }
+        return executionId;
+    }
+
+    private SqlCommandRequest toPluginRequest(PooledConnection lease, String sql, String databaseName,
+                                              String schemaName, Integer maxRows, Long maxBytes,
+                                              Integer queryTimeoutSeconds, String executionId) {
         SqlCommandRequest pluginRequest = new SqlCommandRequest();
-        pluginRequest.setConnection(active.connection());
+        pluginRequest.setConnection(lease.connection());
         pluginRequest.setOriginalSql(sql);
         pluginRequest.setExecuteSql(sql);
         pluginRequest.setDatabase(databaseName);
         pluginRequest.setSchema(schemaName);
         pluginRequest.setNeedTransaction(false);
+        // Collected results are only read back to be serialized, so keep them by column
+        pluginRequest.setColumnar(true);
+        pluginRequest.setMaxRows(maxRows);
+        pluginRequest.setMaxBytes(maxBytes);
+        pluginRequest.setQueryTimeoutSeconds(queryTimeoutSeconds);
+        pluginRequest.setStatementListener(statement -> sqlExecutionRegistry.attach(executionId, statement));
+        return pluginRequest;
+    }
 
-        SqlCommandResult result = executor.executeCommand(pluginRequest);
-
-        return SqlExecutionConverter.toResponse(result);
+    /**
+     * Request timeout, else the saved connection's default, else the deployment default.
+     */
+    private Integer resolveQueryTimeout(Integer requested, Long connectionId, Long userId) {
+        if (requested != null) {
+            return requested;
+        }
+        Integer connectionDefault = dbConnectionCache.get(connectionId, userId,
+                () -> dbConnectionService.getOwnedById(connectionId, userId)).queryTimeoutSeconds();
+        return connectionDefault != null ? connectionDefault : sqlExecutionProperties.getQueryTimeoutSeconds();
     }
 }
@@ -0,0 +1,434 @@
+package edu.zsc.ai.domain.service.db.impl;
+
+import edu.zsc.ai.common.constant.ResponseCode;
+import edu.zsc.ai.common.enums.db.SqlJobStatusEnum;
+import edu.zsc.ai.config.db.SqlJobProperties;
+import edu.zsc.ai.domain.model.dto.request.db.ExecuteSqlRequest;
+import edu.zsc.ai.domain.model.dto.request.db.SubmitSqlJobRequest;
+import edu.zsc.ai.domain.model.dto.response.db.ExecuteSqlResponse;
+import edu.zsc.ai.domain.model.dto.response.db.SqlJobResponse;
+import edu.zsc.ai.domain.service.db.SqlExecutionService;
+import edu.zsc.ai.domain.service.db.SqlJobService;
+import edu.zsc.ai.plugin.model.command.sql.SpillableRowStore;
+import edu.zsc.ai.util.exception.BusinessException;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang3.StringUtils;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Jobs run on a dedicated bounded thread pool. Each connection and database has a lane that admits
+ * at most {@code maxConcurrentPerDatabase} running jobs and queues the rest, so one busy database
+ * cannot take every thread. A job's id doubles as its execution id in {@link SqlExecutionRegistry},
+ * which is how running jobs are cancelled.
+ *
+ * <p>Result rows go to a {@link SpillableRowStore}: the first ones stay on the heap, the rest are spilled
+ * to a file under the spill directory that is deleted when the job expires.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class SqlJobServiceImpl implements SqlJobService {
+
+    private final SqlExecutionService sqlExecutionService;
+    private final SqlExecutionRegistry sqlExecutionRegistry;
+    private final SqlJobProperties properties;
+
+    private final Map<String, SqlJob> jobs = new ConcurrentHashMap<>();
+    private final Map<String, DatabaseLane> lanes = new ConcurrentHashMap<>();
+
+    // Jobs submitted and not finished yet, queued or running
+    private final AtomicInteger pendingJobs = new AtomicInteger();
+
+    private ThreadPoolExecutor executor;
+    private Path spillDirectory;
+
+    @PostConstruct
+    void startExecutor() {
+        spillDirectory = StringUtils.isNotBlank(properties.getSpillDirectory())
+                ? Path.of(properties.getSpillDirectory())
+                : Path.of(System.getProperty("java.io.tmpdir"), "data-agent", "sql-results");
+        AtomicInteger threadIds = new AtomicInteger();
+        int threads = properties.getMaxConcurrent();
+        // Unbounded queue: admission is limited by pendingJobs before anything reaches the executor
+        executor = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS, new LinkedBlockingQueue<>(), runnable -> {
+            Thread thread = new Thread(runnable, "sql-job-" + threadIds.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        executor.allowCoreThreadTimeOut(true);
+    }
+
+    @PreDestroy
+    void stopExecutor() {
+        executor.shutdownNow();
+        jobs.values().forEach(SqlJob::release);
+        jobs.clear();
+    }
+
+    @Override
+    public SqlJobResponse submit(SubmitSqlJobRequest request, Long userId) {
+        if (pendingJobs.incrementAndGet() > properties.getMaxConcurrent() + properties.getQueueCapacity()) {
+            pendingJobs.decrementAndGet();
+            throw BusinessException.of(ResponseCode.TOO_MANY_REQUESTS, "Too many SQL jobs queued, try again later");
+        }
+        String jobId = UUID.randomUUID().toString();
+        int maxRows = request.getMaxRows() != null && request.getMaxRows() > 0
+                ? Math.min(request.getMaxRows(), properties.getMaxResultRows())
+                : properties.getMaxResultRows();
+        ExecuteSqlRequest executeRequest = ExecuteSqlRequest.builder()
+                .connectionId(request.getConnectionId())
+                .databaseName(request.getDatabaseName())
+                .schemaName(request.getSchemaName())
+                .sql(request.getSql())
+                .userId(userId)
+                .executionId(jobId)
+                .maxRows(maxRows)
+                .maxBytes(properties.getMaxResultBytes())
+                .queryTimeoutSeconds(request.getQueryTimeoutSeconds())
+                .build();
+
+        SqlJob job = new SqlJob(jobId, userId, executeRequest);
+        jobs.put(jobId, job);
+        String laneKey = request.getConnectionId() + ":" + Objects.toString(request.getDatabaseName(), "");
+        // Submitted under the map entry so that an idle lane cannot be pruned between lookup and submit
+        lanes.compute(laneKey, (key, lane) -> {
+            DatabaseLane target = lane != null ? lane : new DatabaseLane(key);
+            job.lane = target;
+            target.submit(job);
+            return target;
+        });
+        log.info("SQL job submitted: jobId={}, connectionId={}, database={}, userId={}",
+                jobId, request.getConnectionId(), request.getDatabaseName(), userId);
+        return toResponse(job, 0, 0);
+    }
+
+    @Override
+    public SqlJobResponse getJob(String jobId, Long userId, int offset, int limit, Integer sortColumn,
+                                 boolean descending) {
+        return toResponse(getOwnedJob(jobId, userId), offset, limit, sortColumn, descending);
+    }
+
+    @Override
+    public CompletableFuture<SqlJobResponse> awaitJob(String jobId, Long userId, long timeoutMillis,
+                                                      int offset, int limit) {
+        SqlJob job = getOwnedJob(jobId, userId);
+        long timeout = Math.max(0, Math.min(timeoutMillis, properties.getMaxAwaitMillis()));
+        // Copy so that the timeout completes this caller's future only
+        return job.done.copy()
+                .completeOnTimeout(null, timeout, TimeUnit.MILLISECONDS)
+                .thenApply(ignored -> toResponse(job, offset, limit));
+    }
+
+    @Override
+    public boolean cancel(String jobId, Long userId) {
+        SqlJob job = getOwnedJob(jobId, userId);
+        SqlJobStatusEnum previous = job.cancel();
+        if (previous == null) {
+            return false;
+        }
+        if (previous == SqlJobStatusEnum.QUEUED) {
+            if (job.lane.remove(job)) {
+                pendingJobs.decrementAndGet();
+            }
+        } else {
+            sqlExecutionRegistry.cancel(jobId, userId);
+        }
+        log.info("SQL job cancelled: jobId={}, previousStatus={}", jobId, previous);
+        return true;
+    }
+
+    @Scheduled(fixedDelayString = "${db.sql.job.sweep-interval-millis:60000}")
+    public void evictExpiredJobs() {
+        LocalDateTime cutoff = LocalDateTime.now().minus(Duration.ofMillis(properties.getResultTtlMillis()));
+        int evicted = 0;
+        for (SqlJob job : jobs.values()) {
+            if (job.isExpired(cutoff) && jobs.remove(job.id, job)) {
+                job.release();
+                evicted++;
+            }
+        }
+        if (evicted > 0) {
+            log.debug("Evicted {} expired SQL jobs", evicted);
+        }
+    }
+
+    private SqlJob getOwnedJob(String jobId, Long userId) {
+        SqlJob job = jobs.get(jobId);
+        // Jobs of other users are reported as missing rather than forbidden
+        if (job == null || !Objects.equals(job.userId, userId)) {
+            throw BusinessException.notFound("SQL job not found or expired: %s", jobId);
+        }
+        return job;
+    }
+
+    private void run(SqlJob job) {
+        try {
+            if (!job.markRunning(sqlExecutionRegistry)) {
+                return;
+            }
+            SpillableRowStore store = new SpillableRowStore(spillDirectory, properties.getMemoryThresholdBytes());
+            try {
+                ExecuteSqlResponse response = sqlExecutionService.executeSqlStreaming(job.request, store);
+                store.seal();
+                job.complete(response, store, null);
+            } catch (RuntimeException e) {
+                store.close();
+                throw e;
+            }
+        } catch (Exception e) {
+            log.warn("SQL job failed: jobId={}, error={}", job.id, e.getMessage());
+            job.complete(null, null, e.getMessage() != null ? e.getMessage() : e.getClass().getSimpleName());
+        } finally {
+            // No-op when the execution got through to SqlExecutionService, which finishes it itself
+            sqlExecutionRegistry.finish(job.id);
+            pendingJobs.decrementAndGet();
+            job.lane.next();
+            pruneLane(job.lane);
+        }
+    }
+
+    /**
+     * Drop a lane with nothing running or waiting; the next job for its database creates a new one.
+     */
+    private void pruneLane(DatabaseLane lane) {
+        lanes.computeIfPresent(lane.key, (key, current) -> current == lane && lane.isIdle() ? null : current);
+    }
+
+    private SqlJobResponse toResponse(SqlJob job, int offset, int limit) {
+        return toResponse(job, offset, limit, null, false);
+    }
+
+    private SqlJobResponse toResponse(SqlJob job, int offset, int limit, Integer sortColumn, boolean descending) {
+        SqlJobResponse response;
+        ExecuteSqlResponse result;
+        SpillableRowStore store;
+        synchronized (job) {
+            response = SqlJobResponse.builder()
+                    .jobId(job.id)
+                    .status(job.status)
+                    .submittedAt(job.submittedAt)
+                    .startedAt(job.startedAt)
+                    .finishedAt(job.finishedAt)
+                    .expiresAt(job.finishedAt != null
+                            ? job.finishedAt.plus(Duration.ofMillis(properties.getResultTtlMillis()))
+                            : null)
+                    .build();
+            result = job.result;
+            store = job.store;
+        }
+        if (result == null) {
+            return response;
+        }
+        // Rows are read outside the job monitor: a sort over a large spilled result must not block status
+        // polls and cancels; the store itself serializes reads and fails them once the job expires
+        int totalRows = store != null ? store.getRowCount() : 0;
+        int from = Math.min(Math.max(offset, 0), totalRows);
+        int pageSize = Math.min(limit > 0 ? limit : properties.getMaxPageSize(), properties.getMaxPageSize());
+        int to = Math.min(from + pageSize, totalRows);
+        List<List<Object>> rows = null;
+        if (store != null) {
+            if (sortColumn != null && (sortColumn < 0 || sortColumn >= store.getHeaders().size())) {
+                throw BusinessException.badRequest("Sort column out of range: %d", sortColumn);
+            }
+            try {
+                rows = sortColumn == null
+                        ? store.getRows(from, to)
+                        : store.getRows(from, to, sortColumn, descending);
+            } catch (IllegalStateException e) {
+                throw BusinessException.notFound("SQL job not found or expired: %s", job.id);
+            }
+        }
+        ExecuteSqlResponse page = ExecuteSqlResponse.builder()
+                .executionId(result.getExecutionId())
+                .success(result.isSuccess())
+                .errorMessage(result.getErrorMessage())
+                .executionTimeMs(result.getExecutionTimeMs())
+                .query(result.isQuery())
+                .headers(store != null ? store.getHeaders() : null)
+                .rows(rows)
+                .affectedRows(result.getAffectedRows())
+                .truncated(result.isTruncated())
+                .estimatedTotalRows(result.getEstimatedTotalRows())
+                .build();
+        response.setResult(page);
+        response.setOffset(from);
+        response.setTotalRows(totalRows);
+        return response;
+    }
+
+    /**
+     * Admits up to maxConcurrentPerDatabase running jobs for one connection and database, in submission order.
+     */
+    private final class DatabaseLane {
+
+        private final String key;
+        private final Deque<SqlJob> waiting = new ArrayDeque<>();
+        private int running;
+
+        private DatabaseLane(String key) {
+            this.key = key;
+        }
+
+        synchronized void submit(SqlJob job) {
+            if (running < properties.getMaxConcurrentPerDatabase()) {
+                running++;
+                dispatch(job);
+            } else {
+                waiting.add(job);
+            }
+        }
+
+        /**
+         * Hand the slot of a finished job to the next waiting one.
+         */
+        synchronized void next() {
+            SqlJob job = waiting.poll();
+            if (job != null) {
+                dispatch(job);
+            } else {
+                running--;
+            }
+        }
+
+        synchronized boolean remove(SqlJob job) {
+            return waiting.remove(job);
+        }
+
+        synchronized boolean isIdle() {
+            return running == 0 && waiting.isEmpty();
+        }
+
+        private void dispatch(SqlJob job) {
+            try {
+                executor.execute(() -> run(job));
+            } catch (RejectedExecutionException e) {
+                // Only when shutting down
+                job.complete(null, null, "SQL job executor is shut down");
+                pendingJobs.decrementAndGet();
+                running--;
+            }
+        }
+    }
+
+    private static final class SqlJob {
+
+        private final String id;
+        private final Long userId;
+        private final ExecuteSqlRequest request;
+        private final LocalDateTime submittedAt = LocalDateTime.now();
+        private final CompletableFuture<Void> done = new CompletableFuture<>();
+        private DatabaseLane lane;
+
+        private SqlJobStatusEnum status = SqlJobStatusEnum.QUEUED;
+        private boolean cancelRequested;
+        private LocalDateTime startedAt;
+        private LocalDateTime finishedAt;
+        private ExecuteSqlResponse result;
+        private SpillableRowStore store;
+
+        private SqlJob(String id, Long userId, ExecuteSqlRequest request) {
+            this.id = id;
+            this.userId = userId;
+            this.request = request;
+        }
+
+        /**
+         * Reserve the job's execution id while still holding the job, so that a cancel that sees RUNNING
+         * always finds the execution in the registry, even before its statement is prepared.
+         *
+         * @return false if the job was cancelled while queued and must not run
+         */
+        private synchronized boolean markRunning(SqlExecutionRegistry registry) {
+            if (status != SqlJobStatusEnum.QUEUED) {
+                return false;
+            }
+            registry.reserve(id, userId);
+            status = SqlJobStatusEnum.RUNNING;
+            startedAt = LocalDateTime.now();
+            return true;
+        }
+
+        /**
+         * Record the outcome; takes ownership of the store, which is closed right away if the job was cancelled.
+         */
+        private synchronized void complete(ExecuteSqlResponse response, SpillableRowStore rows, String errorMessage) {
+            if (status.isFinished()) {
+                if (rows != null) {
+                    rows.close();
+                }
+                return;
+            }
+            result = response != null ? response : ExecuteSqlResponse.builder()
+                    .executionId(id)
+                    .success(false)
+                    .errorMessage(errorMessage)
+                    .build();
+            if (cancelRequested) {
+                status = SqlJobStatusEnum.CANCELLED;
+                if (rows != null) {
+                    rows.close();
+                }
+            } else {
+                store = rows;
+                status = result.isSuccess() ? SqlJobStatusEnum.SUCCEEDED : SqlJobStatusEnum.FAILED;
+            }
+            finish();
+        }
+
+        /**
+         * @return the status before cancelling, or null if the job had already finished
+         */
+        private synchronized SqlJobStatusEnum cancel() {
+            if (status.isFinished()) {
+                return null;
+            }
+            SqlJobStatusEnum previous = status;
+            cancelRequested = true;
+            if (status == SqlJobStatusEnum.QUEUED) {
+                status = SqlJobStatusEnum.CANCELLED;
+                finish();
+            }
+            return previous;
+        }
+
+        private synchronized boolean isExpired(LocalDateTime cutoff) {
+            return finishedAt != null && finishedAt.isBefore(cutoff);
+        }
+
+        /**
+         * Drop the result rows and delete their spill file.
+         */
+        private synchronized void release() {
+            if (store != null) {
+                store.close();
+                store = null;
+            }
+        }
+
+        private void finish() {
+            finishedAt = LocalDateTime.now();
+            done.complete(null);
+        }
+    }
+}
@@ -1,16 +1,31 @@
 package edu.zsc.ai.domain.service.db.impl;
 
 import edu.zsc.ai.domain.model.dto.response.db.TableDataResponse;
+import edu.zsc.ai.domain.service.db.ColumnService;
 import edu.zsc.ai.domain.service.db.ConnectionService;
+import edu.zsc.ai.domain.service.db.IndexService;
 import edu.zsc.ai.domain.service.db.TableService;
 import edu.zsc.ai.plugin.capability.TableProvider;
 import edu.zsc.ai.plugin.manager.DefaultPluginManager;
+import edu.zsc.ai.plugin.model.command.RowConsumer;
 import edu.zsc.ai.plugin.model.command.sql.SqlCommandResult;
+import edu.zsc.ai.plugin.model.metadata.ColumnMetadata;
+import edu.zsc.ai.plugin.model.metadata.IndexMetadata;
+import edu.zsc.ai.plugin.model.metadata.SchemaSnapshot;
+import edu.zsc.ai.plugin.value.LobChunk;
+import edu.zsc.ai.plugin.value.LobHandle;
+import edu.zsc.ai.util.exception.BusinessException;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang3.StringUtils;
 import org.springframework.stereotype.Service;
 
+import java.util.Comparator;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
 
 @Slf4j
 @Service
@@ -18,6 +33,10 @@ import java.util.List;
 public class TableServiceImpl implements TableService {
 
     private final ConnectionService connectionService;
+    private final SchemaMetadataCache metadataCache;
+    private final RowCountCache rowCountCache;
+    private final IndexService indexService;
+    private final ColumnService columnService;
 
     @Override
     public List<String> getTables(Long connectionId, String catalog, String schema, Long userId) {
@@ -25,8 +44,14 @@ public class TableServiceImpl implements TableService {
 
         ConnectionManager.ActiveConnection active = ConnectionManager.getOwnedConnection(connectionId, catalog, schema, userId);
 
+        SchemaSnapshot snapshot = metadataCache.getSnapshotIfPresent(connectionId, catalog, schema);
+        if (snapshot != null) {
+            return snapshot.tableNames();
+        }
+
         TableProvider provider = DefaultPluginManager.getInstance().getTableProviderByPluginId(active.pluginId());
-        return provider.getTableNames(active.connection(), catalog, schema);
+        return metadataCache.get(connectionId, catalog, schema, SchemaMetadataCache.Kind.TABLES, null,
+                () -> active.read(conn -> provider.getTableNames(conn, catalog, schema)));
     }
 
     @Override
@@ -36,7 +61,8 @@ public class TableServiceImpl implements TableService {
         ConnectionManager.ActiveConnection active = ConnectionManager.getOwnedConnection(connectionId, catalog, schema, userId);
 
         TableProvider provider = DefaultPluginManager.getInstance().getTableProviderByPluginId(active.pluginId());
-        return provider.getTableDdl(active.connection(), catalog, schema, tableName);
+        return metadataCache.get(connectionId, catalog, schema, SchemaMetadataCache.Kind.TABLE_DDL, tableName,
+                () -> active.read(conn -> provider.getTableDdl(conn, catalog, schema, tableName)));
     }
 
     @Override
@@ -46,35 +72,188 @@ public class TableServiceImpl implements TableService {
         ConnectionManager.ActiveConnection active = ConnectionManager.getOwnedConnection(connectionId, catalog, schema, userId);
 
         TableProvider provider = DefaultPluginManager.getInstance().getTableProviderByPluginId(active.pluginId());
-        provider.deleteTable(active.connection(), catalog, schema, tableName);
+        try (PooledConnection lease = active.borrow()) {
+            provider.deleteTable(lease.connection(), catalog, schema, tableName);
+        }
+        metadataCache.invalidateSchema(connectionId, catalog, schema);
+        rowCountCache.invalidateTable(connectionId, catalog, schema, tableName, userId);
 
         log.info("Table deleted successfully: connectionId={}, catalog={}, schema={}, tableName={}",
                 connectionId, catalog, schema, tableName);
     }
 
     @Override
-    public TableDataResponse getTableData(Long connectionId, String catalog, String schema, String tableName, Long userId, Integer currentPage, Integer pageSize) {
+    public TableDataResponse getTableData(Long connectionId, String catalog, String schema, String tableName, Long userId, Integer currentPage, Integer pageSize, String cursor) {
         connectionService.openConnection(connectionId, catalog, schema, userId);
 
         ConnectionManager.ActiveConnection active = ConnectionManager.getOwnedConnection(connectionId, catalog, schema, userId);
 
         TableProvider provider = DefaultPluginManager.getInstance().getTableProviderByPluginId(active.pluginId());
 
-        int offset = (currentPage - 1) * pageSize;
+        CompletableFuture<RowCountCache.RowCount> rowCount =
+                rowCountCache.getTableRowCount(connectionId, catalog, schema, tableName, userId);
+
+        KeysetCursor after = StringUtils.isNotBlank(cursor) ? KeysetCursor.decode(cursor) : null;
+        List<String> keyColumns = findSeekKey(active, catalog, schema, tableName);
+        if (after != null && !after.columns().equals(keyColumns)) {
+            throw BusinessException.badRequest("Page cursor does not match the key of table %s, start from the first page", tableName);
+        }
+
+        if (keyColumns == null) {
+            // No key to order by: storage order, which is only stable while the table does not change
+            int offset = (currentPage - 1) * pageSize;
+            SqlCommandResult result = active.read(conn -> provider.getTableData(conn, catalog, schema, tableName, offset, pageSize));
+            attachLobLocators(active, catalog, schema, tableName, null, result.getHeaders(), result.getRows());
+            return toDataResponse(result.getHeaders(), result.getRows(), RowCountCache.join(rowCount), currentPage, pageSize, null);
+        }
+
+        // One extra row tells whether there is a next page without another round trip.
+        // A page requested by number without a cursor (or after a row whose key cannot be sent back) is read
+        // by offset, still in key order, and hands out a cursor so that the following pages seek again
+        SqlCommandResult result;
+        if (after != null || currentPage == 1) {
+            List<Object> afterKey = after != null ? after.values() : null;
+            result = active.read(conn ->
+                    provider.getTableDataAfter(conn, catalog, schema, tableName, keyColumns, afterKey, pageSize + 1));
+        } else {
+            int offset = (currentPage - 1) * pageSize;
+            result = active.read(conn ->
+                    provider.getTableData(conn, catalog, schema, tableName, keyColumns, offset, pageSize + 1));
+        }
+        List<List<Object>> rows = result.getRows();
+        String nextCursor = null;
+        if (rows.size() > pageSize) {
+            rows = rows.subList(0, pageSize);
+            KeysetCursor next = KeysetCursor.afterRow(keyColumns, result.getHeaders(), rows.get(pageSize - 1));
+            nextCursor = next != null ? next.encode() : null;
+        }
 
-        long totalCount = provider.getTableDataCount(active.connection(), catalog, schema, tableName);
+        attachLobLocators(active, catalog, schema, tableName, keyColumns, result.getHeaders(), rows);
+        return toDataResponse(result.getHeaders(), rows, RowCountCache.join(rowCount), currentPage, pageSize, nextCursor);
+    }
 
-        SqlCommandResult result = provider.getTableData(active.connection(), catalog, schema, tableName, offset, pageSize);
+    @Override
+    public LobChunk readLob(Long connectionId, String catalog, String schema, String tableName, String column,
+                            LobHandle.Kind kind, String locator, long offset, int length, Long userId) {
+        connectionService.openConnection(connectionId, catalog, schema, userId);
 
-        long totalPages = (totalCount + pageSize - 1) / pageSize;
+        ConnectionManager.ActiveConnection active = ConnectionManager.getOwnedConnection(connectionId, catalog, schema, userId);
 
+        KeysetCursor row = KeysetCursor.decode(locator);
+        List<String> keyColumns = findSeekKey(active, catalog, schema, tableName);
+        if (!row.columns().equals(keyColumns)) {
+            throw BusinessException.badRequest("Locator does not match the key of table %s, reload the data", tableName);
+        }
+
+        TableProvider provider = DefaultPluginManager.getInstance().getTableProviderByPluginId(active.pluginId());
+        LobChunk chunk = active.read(conn -> provider.readLob(conn, catalog, schema, tableName, column, kind,
+                keyColumns, row.values(), offset, length));
+        if (chunk == null) {
+            throw BusinessException.notFound("No value of %s in the row, it may have been changed", column);
+        }
+        return chunk;
+    }
+
+    /**
+     * Give every LOB handle on the page the key of its row, so its value can be fetched later.
+     * Handles of tables without a usable key stay without a locator.
+     */
+    private void attachLobLocators(ConnectionManager.ActiveConnection active, String catalog, String schema, String tableName,
+                                   List<String> keyColumns, List<String> headers, List<List<Object>> rows) {
+        if (rows == null || rows.stream().noneMatch(row -> row.stream().anyMatch(LobHandle.class::isInstance))) {
+            return;
+        }
+        List<String> key = keyColumns != null ? keyColumns : findSeekKey(active, catalog, schema, tableName);
+        if (key == null) {
+            return;
+        }
+        for (List<Object> row : rows) {
+            KeysetCursor locator = null;
+            for (Object value : row) {
+                if (value instanceof LobHandle lob) {
+                    if (locator == null) {
+                        locator = KeysetCursor.afterRow(key, headers, row);
+                        if (locator == null) {
+                            break;
+                        }
+                    }
+                    lob.setLocator(locator.encode());
+                }
+            }
+        }
+    }
+
+    private static TableDataResponse toDataResponse(List<String> headers, List<List<Object>> rows, RowCountCache.RowCount rowCount,
+                                                    Integer currentPage, Integer pageSize, String nextCursor) {
         return TableDataResponse.builder()
-                .headers(result.getHeaders())
-                .rows(result.getRows())
-                .totalCount(totalCount)
+                .headers(headers)
+                .rows(rows)
+                .totalCount(rowCount.count())
+                .totalCountExact(rowCount.exact())
                 .currentPage(currentPage)
                 .pageSize(pageSize)
-                .totalPages(totalPages)
+                .totalPages((rowCount.count() + pageSize - 1) / pageSize)
+                .nextCursor(nextCursor)
                 .build();
     }
+
+    /**
+     * Columns to page the table by: the primary key, else the narrowest unique index whose columns are all NOT NULL
+     * (NULLs do not compare, so rows with a NULL key would be skipped). Null when the table has neither.
+     */
+    private List<String> findSeekKey(ConnectionManager.ActiveConnection active, String catalog, String schema, String tableName) {
+        List<IndexMetadata> indexes = indexService.getIndexes(active.dbConnectionId(), catalog, schema, tableName, active.userId());
+
+        for (IndexMetadata index : indexes) {
+            if (index.isPrimaryKey() && isPlainColumnList(index.columns())) {
+                return index.columns();
+            }
+        }
+
+        List<IndexMetadata> unique = indexes.stream()
+                .filter(index -> index.unique() && isPlainColumnList(index.columns()))
+                .sorted(Comparator.comparingInt(index -> index.columns().size()))
+                .toList();
+        if (unique.isEmpty()) {
+            return null;
+        }
+
+        Set<String> notNullColumns = new HashSet<>();
+        for (ColumnMetadata column : columnService.listColumns(active.dbConnectionId(), catalog, schema, tableName, active.userId())) {
+            if (!column.nullable()) {
+                notNullColumns.add(column.name().toLowerCase(Locale.ROOT));
+            }
+        }
+        for (IndexMetadata index : unique) {
+            if (index.columns().stream().allMatch(c -> notNullColumns.contains(c.toLowerCase(Locale.ROOT)))) {
+                return index.columns();
+            }
+        }
+        return null;
+    }
+
+    /**
+     * False for functional index parts, which have no column name
+     */
+    private static boolean isPlainColumnList(List<String> columns) {
+        return !columns.isEmpty() && columns.stream().allMatch(StringUtils::isNotBlank);
+    }
+
+    @Override
+    public void streamTableData(Long connectionId, String catalog, String schema, String tableName, Long userId, RowConsumer consumer) {
+        connectionService.openConnection(connectionId, catalog, schema, userId);
+
+        ConnectionManager.ActiveConnection active = ConnectionManager.getOwnedConnection(connectionId, catalog, schema, userId);
+
+        TableProvider provider = DefaultPluginManager.getInstance().getTableProviderByPluginId(active.pluginId());
+        // Not retried through active.read: rows may already have been handed to the consumer
+        try (PooledConnection lease = active.borrow()) {
+            try {
+                provider.streamTableData(lease.connection(), catalog, schema, tableName, consumer);
+            } catch (RuntimeException e) {
+                lease.checkBroken();
+                throw e;
+            }
+        }
+    }
 }
@@ -4,9 +4,11 @@ import edu.zsc.ai.domain.service.db.ConnectionService;
 import edu.zsc.ai.domain.service.db.TriggerService;
 import edu.zsc.ai.plugin.capability.TriggerProvider;
 import edu.zsc.ai.plugin.manager.DefaultPluginManager;
+import edu.zsc.ai.plugin.model.metadata.SchemaSnapshot;
 import edu.zsc.ai.plugin.model.metadata.TriggerMetadata;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang3.StringUtils;
 import org.springframework.stereotype.Service;
 
 import java.util.List;
@@ -17,6 +19,7 @@ import java.util.List;
 public class TriggerServiceImpl implements TriggerService {
 
     private final ConnectionService connectionService;
+    private final SchemaMetadataCache metadataCache;
 
     @Override
     public List<TriggerMetadata> getTriggers(Long connectionId, String catalog, String schema, String tableName, Long userId) {
@@ -25,7 +28,12 @@ public class TriggerServiceImpl implements TriggerService {
         ConnectionManager.ActiveConnection active = ConnectionManager.getOwnedConnection(connectionId, catalog, schema, userId);
 
         TriggerProvider provider = DefaultPluginManager.getInstance().getTriggerProviderByPluginId(active.pluginId());
-        return provider.getTriggers(active.connection(), catalog, schema, tableName);
+        SchemaSnapshot snapshot = metadataCache.getSnapshotIfPresent(connectionId, catalog, schema);
+        if (snapshot != null) {
+            return snapshot.triggersOn(StringUtils.isNotBlank(tableName) ? tableName : null);
+        }
+        return metadataCache.get(connectionId, catalog, schema, SchemaMetadataCache.Kind.TRIGGERS, tableName,
+                () -> active.read(conn -> provider.getTriggers(conn, catalog, schema, tableName)));
     }
 
     @Override
@@ -35,7 +43,8 @@ public class TriggerServiceImpl implements TriggerService {
         ConnectionManager.ActiveConnection active = ConnectionManager.getOwnedConnection(connectionId, catalog, schema, userId);
 
         TriggerProvider provider = DefaultPluginManager.getInstance().getTriggerProviderByPluginId(active.pluginId());
-        return provider.getTriggerDdl(active.connection(), catalog, schema, triggerName);
+        return metadataCache.get(connectionId, catalog, schema, SchemaMetadataCache.Kind.TRIGGER_DDL, triggerName,
+                () -> active.read(conn -> provider.getTriggerDdl(conn, catalog, schema, triggerName)));
     }
 
     @Override
@@ -45,7 +54,10 @@ public class TriggerServiceImpl implements TriggerService {
         ConnectionManager.ActiveConnection active = ConnectionManager.getOwnedConnection(connectionId, catalog, schema, userId);
 
         TriggerProvider provider = DefaultPluginManager.getInstance().getTriggerProviderByPluginId(active.pluginId());
-        provider.deleteTrigger(active.connection(), catalog, schema, triggerName);
+        try (PooledConnection lease = active.borrow()) {
+            provider.deleteTrigger(lease.connection(), catalog, schema, triggerName);
+        }
+        metadataCache.invalidateSchema(connectionId, catalog, schema);
 
         log.info("Trigger deleted successfully: connectionId={}, catalog={}, schema={}, triggerName={}",
                 connectionId, catalog, schema, triggerName);
@@ -5,12 +5,15 @@ import edu.zsc.ai.domain.service.db.ConnectionService;
 import edu.zsc.ai.domain.service.db.ViewService;
 import edu.zsc.ai.plugin.capability.ViewProvider;
 import edu.zsc.ai.plugin.manager.DefaultPluginManager;
+import edu.zsc.ai.plugin.model.command.RowConsumer;
 import edu.zsc.ai.plugin.model.command.sql.SqlCommandResult;
+import edu.zsc.ai.plugin.model.metadata.SchemaSnapshot;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 @Slf4j
 @Service
@@ -18,6 +21,8 @@ import java.util.List;
 public class ViewServiceImpl implements ViewService {
 
     private final ConnectionService connectionService;
+    private final SchemaMetadataCache metadataCache;
+    private final RowCountCache rowCountCache;
 
     @Override
     public List<String> getViews(Long connectionId, String catalog, String schema, Long userId) {
@@ -26,7 +31,12 @@ public class ViewServiceImpl implements ViewService {
         ConnectionManager.ActiveConnection active = ConnectionManager.getOwnedConnection(connectionId, catalog, schema, userId);
 
         ViewProvider provider = DefaultPluginManager.getInstance().getViewProviderByPluginId(active.pluginId());
-        return provider.getViews(active.connection(), catalog, schema);
+        SchemaSnapshot snapshot = metadataCache.getSnapshotIfPresent(connectionId, catalog, schema);
+        if (snapshot != null) {
+            return snapshot.viewNames();
+        }
+        return metadataCache.get(connectionId, catalog, schema, SchemaMetadataCache.Kind.VIEWS, null,
+                () -> active.read(conn -> provider.getViews(conn, catalog, schema)));
     }
 
     @Override
@@ -36,7 +46,8 @@ public class ViewServiceImpl implements ViewService {
         ConnectionManager.ActiveConnection active = ConnectionManager.getOwnedConnection(connectionId, catalog, schema, userId);
 
         ViewProvider provider = DefaultPluginManager.getInstance().getViewProviderByPluginId(active.pluginId());
-        return provider.getViewDdl(active.connection(), catalog, schema, viewName);
+        return metadataCache.get(connectionId, catalog, schema, SchemaMetadataCache.Kind.VIEW_DDL, viewName,
+                () -> active.read(conn -> provider.getViewDdl(conn, catalog, schema, viewName)));
     }
 
     @Override
@@ -46,7 +57,10 @@ public class ViewServiceImpl implements ViewService {
         ConnectionManager.ActiveConnection active = ConnectionManager.getOwnedConnection(connectionId, catalog, schema, userId);
 
         ViewProvider provider = DefaultPluginManager.getInstance().getViewProviderByPluginId(active.pluginId());
-        provider.deleteView(active.connection(), catalog, schema, viewName);
+        try (PooledConnection lease = active.borrow()) {
+            provider.deleteView(lease.connection(), catalog, schema, viewName);
+        }
+        metadataCache.invalidateSchema(connectionId, catalog, schema);
 
         log.info("View deleted successfully: connectionId={}, catalog={}, schema={}, viewName={}",
                 connectionId, catalog, schema, viewName);
@@ -62,19 +76,40 @@ public class ViewServiceImpl implements ViewService {
 
         int offset = (currentPage - 1) * pageSize;
 
-        long totalCount = provider.getViewDataCount(active.connection(), catalog, schema, viewName);
+        CompletableFuture<RowCountCache.RowCount> rowCount =
+                rowCountCache.getViewRowCount(connectionId, catalog, schema, viewName, userId);
 
-        SqlCommandResult result = provider.getViewData(active.connection(), catalog, schema, viewName, offset, pageSize);
+        SqlCommandResult result = active.read(conn -> provider.getViewData(conn, catalog, schema, viewName, offset, pageSize));
 
+        long totalCount = RowCountCache.join(rowCount).count();
         long totalPages = (totalCount + pageSize - 1) / pageSize;
 
         return TableDataResponse.builder()
                 .headers(result.getHeaders())
                 .rows(result.getRows())
                 .totalCount(totalCount)
+                .totalCountExact(true)
                 .currentPage(currentPage)
                 .pageSize(pageSize)
                 .totalPages(totalPages)
                 .build();
     }
+
+    @Override
+    public void streamViewData(Long connectionId, String catalog, String schema, String viewName, Long userId, RowConsumer consumer) {
+        connectionService.openConnection(connectionId, catalog, schema, userId);
+
+        ConnectionManager.ActiveConnection active = ConnectionManager.getOwnedConnection(connectionId, catalog, schema, userId);
+
+        ViewProvider provider = DefaultPluginManager.getInstance().getViewProviderByPluginId(active.pluginId());
+        // Not retried through active.read: rows may already have been handed to the consumer
+        try (PooledConnection lease = active.borrow()) {
+            try {
+                provider.streamViewData(lease.connection(), catalog, schema, viewName, consumer);
+            } catch (RuntimeException e) {
+                lease.checkBroken();
+                throw e;
+            }
+        }
+    }
 }
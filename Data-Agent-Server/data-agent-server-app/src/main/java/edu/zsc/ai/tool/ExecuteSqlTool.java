@@ -5,8 +5,12 @@ import dev.langchain4j.agent.tool.Tool;
 import dev.langchain4j.invocation.InvocationParameters;
 import edu.zsc.ai.common.constant.RequestContextConstant;
 import edu.zsc.ai.common.constant.ToolMessageConstants;
+import edu.zsc.ai.config.db.AgentSqlResultProperties;
+import edu.zsc.ai.config.db.SqlExecutionProperties;
 import edu.zsc.ai.domain.model.dto.request.db.ExecuteSqlRequest;
+import edu.zsc.ai.domain.model.dto.request.db.ExecuteSqlScriptRequest;
 import edu.zsc.ai.domain.model.dto.response.db.ExecuteSqlResponse;
+import edu.zsc.ai.domain.model.dto.response.db.ExecuteSqlScriptResponse;
 import edu.zsc.ai.domain.service.db.SqlExecutionService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -18,16 +22,20 @@ import org.springframework.stereotype.Component;
 public class ExecuteSqlTool {
 
     private final SqlExecutionService sqlExecutionService;
+    private final AgentSqlResultProperties resultProperties;
+    private final SqlExecutionProperties executionProperties;
 
     @Tool({
         "Execute a single SQL statement (SELECT, INSERT, UPDATE, DELETE, etc.) on the current connection and database.",
-        "Use after generating SQL from natural language. Pass connectionId, databaseName, schemaName from current session context and the SQL to run."
+        "Use after generating SQL from natural language. Pass connectionId, databaseName, schemaName from current session context and the SQL to run.",
+        "Large results are cut off: truncated=true means more rows exist (estimatedTotalRows); aggregate or filter instead of fetching everything."
     })
     public ExecuteSqlResponse executeSql(
             @P("Connection id from current session context") Long connectionId,
             @P("Database (catalog) name from current session context") String databaseName,
             @P(value = "Schema name from current session context; omit if not used", required = false) String schemaName,
             @P("The SQL statement to execute") String sql,
+            @P(value = "Maximum rows to return; omit for the server default, larger values are capped", required = false) Integer maxRows,
             InvocationParameters parameters) {
         log.info("{} executeSql, connectionId={}, database={}, schema={}, sqlLength={}",
                 ToolMessageConstants.TOOL_LOG_PREFIX_BEFORE, connectionId, databaseName, schemaName,
@@ -40,15 +48,23 @@ public class ExecuteSqlTool {
                         .errorMessage(ToolMessageConstants.USER_CONTEXT_MISSING)
                         .build();
             }
+            // Conversation id ties the statement to the chat stream, which cancels it when the stream goes away
+            Long conversationId = parameters.get(RequestContextConstant.CONVERSATION_ID);
             ExecuteSqlRequest request = ExecuteSqlRequest.builder()
+                    .conversationId(conversationId)
                     .connectionId(connectionId)
                     .databaseName(databaseName)
                     .schemaName(schemaName)
                     .sql(sql)
                     .userId(userId)
+                    .maxRows(maxRows != null && maxRows > 0
+                            ? Math.min(maxRows, resultProperties.getMaxRows())
+                            : resultProperties.getMaxRows())
+                    .maxBytes(resultProperties.getMaxBytes())
+                    .queryTimeoutSeconds(executionProperties.getAgentQueryTimeoutSeconds())
                     .build();
             ExecuteSqlResponse response = sqlExecutionService.executeSql(request);
-            log.info("{} executeSql", ToolMessageConstants.TOOL_LOG_PREFIX_DONE);
+            log.info("{} executeSql, truncated={}", ToolMessageConstants.TOOL_LOG_PREFIX_DONE, response.isTruncated());
             return response;
         } catch (Exception e) {
             log.error("{} executeSql", ToolMessageConstants.TOOL_LOG_PREFIX_ERROR, e);
@@ -58,4 +74,58 @@ public class ExecuteSqlTool {
                     .build();
         }
     }
+
+    @Tool({
+        "Execute a script of several SQL statements separated by ';' on the current connection and database, in order.",
+        "Use for multi-statement changes such as bulk INSERTs or DDL followed by data changes; stops at the first failing statement.",
+        "Returns counts (executedCount, affectedRows, failedStatement) plus results of queries and the failed statement only; results over the size budget are left out (omittedResults).",
+        "Set transactional=true to roll back all data changes when any statement fails (DDL may commit implicitly on some databases)."
+    })
+    public ExecuteSqlScriptResponse executeSqlScript(
+            @P("Connection id from current session context") Long connectionId,
+            @P("Database (catalog) name from current session context") String databaseName,
+            @P(value = "Schema name from current session context; omit if not used", required = false) String schemaName,
+            @P("The SQL statements to execute, separated by ';'") String script,
+            @P(value = "Run all statements in one transaction; defaults to false", required = false) Boolean transactional,
+            InvocationParameters parameters) {
+        log.info("{} executeSqlScript, connectionId={}, database={}, schema={}, scriptLength={}",
+                ToolMessageConstants.TOOL_LOG_PREFIX_BEFORE, connectionId, databaseName, schemaName,
+                script != null ? script.length() : 0);
+        try {
+            Long userId = parameters.get(RequestContextConstant.USER_ID);
+            if (userId == null) {
+                return ExecuteSqlScriptResponse.builder()
+                        .success(false)
+                        .errorMessage(ToolMessageConstants.USER_CONTEXT_MISSING)
+                        .build();
+            }
+            Long conversationId = parameters.get(RequestContextConstant.CONVERSATION_ID);
+            ExecuteSqlScriptRequest request = ExecuteSqlScriptRequest.builder()
+                    .conversationId(conversationId)
+                    .connectionId(connectionId)
+                    .databaseName(databaseName)
+                    .schemaName(schemaName)
+                    .script(script)
+                    .userId(userId)
+                    .transactional(Boolean.TRUE.equals(transactional))
+                    .maxRows(resultProperties.getMaxRows())
+                    .maxBytes(resultProperties.getMaxBytes())
+                    // The result budget covers the whole script, not each statement
+                    .summarizeDml(true)
+                    .maxTotalBytes(resultProperties.getMaxBytes())
+                    .queryTimeoutSeconds(executionProperties.getAgentQueryTimeoutSeconds())
+                    .build();
+            ExecuteSqlScriptResponse response = sqlExecutionService.executeScript(request);
+            log.info("{} executeSqlScript, statements={}, success={}, omittedResults={}",
+                    ToolMessageConstants.TOOL_LOG_PREFIX_DONE, response.getStatementCount(), response.isSuccess(),
+                    response.getOmittedResults());
+            return response;
+        } catch (Exception e) {
+            log.error("{} executeSqlScript", ToolMessageConstants.TOOL_LOG_PREFIX_ERROR, e);
+            return ExecuteSqlScriptResponse.builder()
+                    .success(false)
+                    .errorMessage(e.getMessage())
+                    .build();
+        }
+    }
 }
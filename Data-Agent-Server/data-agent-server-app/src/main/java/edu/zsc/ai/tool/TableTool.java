@@ -5,6 +5,9 @@ import dev.langchain4j.agent.tool.Tool;
 import dev.langchain4j.invocation.InvocationParameters;
 import edu.zsc.ai.common.constant.RequestContextConstant;
 import edu.zsc.ai.common.constant.ToolMessageConstants;
+import edu.zsc.ai.config.ai.TableRetrievalProperties;
+import edu.zsc.ai.domain.service.agent.SchemaDigestService;
+import edu.zsc.ai.domain.service.agent.TableRetrievalService;
 import edu.zsc.ai.domain.service.db.TableService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -23,6 +26,9 @@ import java.util.List;
 public class TableTool {
 
     private final TableService tableService;
+    private final SchemaDigestService schemaDigestService;
+    private final TableRetrievalService tableRetrievalService;
+    private final TableRetrievalProperties tableRetrievalProperties;
 
 
     @Tool({
@@ -95,4 +101,82 @@ public class TableTool {
             return e.getMessage();
         }
     }
+
+    @Tool({
+        "Describe several tables at once: columns with types, primary keys, indexes and foreign keys, in a compact text.",
+        "Use instead of calling getTableDdl once per table, e.g. before writing a join. Pass connectionId, databaseName, schemaName from current session context."
+    })
+    public String describeTables(
+            @P("Exact names of the tables (or views) to describe") List<String> tableNames,
+            @P("Connection id from current session context") Long connectionId,
+            @P("Database (catalog) name from current session context") String databaseName,
+            @P(value = "Schema name from current session context; omit if not used", required = false) String schemaName,
+            InvocationParameters parameters) {
+        log.info("{} describeTables, tableNames={}, connectionId={}, database={}, schema={}",
+                ToolMessageConstants.TOOL_LOG_PREFIX_BEFORE, tableNames, connectionId, databaseName, schemaName);
+        try {
+            Long userId = parameters.get(RequestContextConstant.USER_ID);
+            if (Objects.isNull(userId)) {
+                return ToolMessageConstants.USER_CONTEXT_MISSING;
+            }
+            if (CollectionUtils.isEmpty(tableNames)) {
+                return ToolMessageConstants.EMPTY_NO_TABLES;
+            }
+            String description = schemaDigestService.describeTables(
+                    connectionId,
+                    databaseName,
+                    schemaName,
+                    tableNames,
+                    userId
+            );
+
+            log.info("{} describeTables, tables={}, length={}", ToolMessageConstants.TOOL_LOG_PREFIX_DONE,
+                    tableNames.size(), description.length());
+            return description;
+        } catch (Exception e) {
+            log.error("{} describeTables, tableNames={}", ToolMessageConstants.TOOL_LOG_PREFIX_ERROR, tableNames, e);
+            return e.getMessage();
+        }
+    }
+
+    @Tool({
+        "Find the tables most relevant to a question by meaning of their names, columns and comments, best first.",
+        "Use in large schemas when the tables needed are not in the schema digest or their names are unclear. Pass connectionId, databaseName, schemaName from current session context."
+    })
+    public String findRelevantTables(
+            @P("The question or topic to find tables for, in the user's words") String question,
+            @P("Connection id from current session context") Long connectionId,
+            @P("Database (catalog) name from current session context") String databaseName,
+            @P(value = "Schema name from current session context; omit if not used", required = false) String schemaName,
+            @P(value = "How many tables to return; omit for the default", required = false) Integer maxResults,
+            InvocationParameters parameters) {
+        log.info("{} findRelevantTables, question={}, connectionId={}, database={}, schema={}",
+                ToolMessageConstants.TOOL_LOG_PREFIX_BEFORE, question, connectionId, databaseName, schemaName);
+        try {
+            Long userId = parameters.get(RequestContextConstant.USER_ID);
+            if (Objects.isNull(userId)) {
+                return ToolMessageConstants.USER_CONTEXT_MISSING;
+            }
+            List<String> tables = tableRetrievalService.findRelevantTables(
+                    connectionId,
+                    databaseName,
+                    schemaName,
+                    question,
+                    maxResults != null && maxResults > 0 ? maxResults : tableRetrievalProperties.getMaxResults(),
+                    userId
+            );
+
+            if (CollectionUtils.isEmpty(tables)) {
+                log.info("{} findRelevantTables -> {}", ToolMessageConstants.TOOL_LOG_PREFIX_DONE,
+                        ToolMessageConstants.EMPTY_NO_RELEVANT_TABLES);
+                return ToolMessageConstants.EMPTY_NO_RELEVANT_TABLES;
+            }
+
+            log.info("{} findRelevantTables, result size={}", ToolMessageConstants.TOOL_LOG_PREFIX_DONE, tables.size());
+            return tables.toString();
+        } catch (Exception e) {
+            log.error("{} findRelevantTables", ToolMessageConstants.TOOL_LOG_PREFIX_ERROR, e);
+            return e.getMessage();
+        }
+    }
 }
@@ -0,0 +1,200 @@
+package edu.zsc.ai.domain.service.agent.impl;
+
+import dev.langchain4j.data.embedding.Embedding;
+import dev.langchain4j.data.segment.TextSegment;
+import dev.langchain4j.model.embedding.EmbeddingModel;
+import dev.langchain4j.model.output.Response;
+import dev.langchain4j.store.embedding.EmbeddingSearchRequest;
+import dev.langchain4j.store.embedding.inmemory.InMemoryEmbeddingStore;
+import edu.zsc.ai.common.constant.ResponseCode;
+import edu.zsc.ai.config.ai.TableRetrievalProperties;
+import edu.zsc.ai.plugin.model.metadata.ColumnMetadata;
+import edu.zsc.ai.plugin.model.metadata.SchemaFingerprints;
+import edu.zsc.ai.plugin.model.metadata.SchemaSnapshot;
+import edu.zsc.ai.util.exception.BusinessException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+
+import java.sql.Types;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for TableRetrievalServiceImpl, with an in-memory store and a word-hashing embedding model.
+ */
+class TableRetrievalServiceImplTest {
+
+    /**
+     * Embeds a text as the normalized counts of its words hashed into a few buckets, so texts sharing words score
+     * close; counts the segments it embedded.
+     */
+    private static final class WordEmbeddingModel implements EmbeddingModel {
+
+        private static final int DIMENSION = 64;
+
+        private final AtomicInteger embeddedSegments = new AtomicInteger();
+
+        @Override
+        public Response<List<Embedding>> embedAll(List<TextSegment> segments) {
+            embeddedSegments.addAndGet(segments.size());
+            return Response.from(segments.stream().map(segment -> embed(segment.text())).map(Response::content).toList());
+        }
+
+        @Override
+        public Response<Embedding> embed(String text) {
+            float[] vector = new float[DIMENSION];
+            for (String word : text.toLowerCase(Locale.ROOT).split("[^a-z]+")) {
+                if (!word.isEmpty()) {
+                    vector[Math.floorMod(word.hashCode(), DIMENSION)] += 1;
+                }
+            }
+            Embedding embedding = Embedding.from(vector);
+            embedding.normalize();
+            return Response.from(embedding);
+        }
+
+        @Override
+        public int dimension() {
+            return DIMENSION;
+        }
+    }
+
+    private final WordEmbeddingModel model = new WordEmbeddingModel();
+    private final InMemoryEmbeddingStore<TextSegment> store = new InMemoryEmbeddingStore<>();
+    private final AtomicReference<SchemaSnapshot> snapshot = new AtomicReference<>(shop(null, "v1"));
+    private TableRetrievalServiceImpl service;
+
+    private static ColumnMetadata column(String name, int position, String remarks) {
+        return new ColumnMetadata(name, Types.VARCHAR, "varchar", 255, 0, true, position, remarks);
+    }
+
+    private static SchemaSnapshot shop(SchemaSnapshot previous, String ordersVersion) {
+        return SchemaSnapshot.builder("shop", null)
+                .fingerprints(new SchemaFingerprints(Map.of(
+                        SchemaFingerprints.key(SchemaFingerprints.TABLE, "orders"), ordersVersion,
+                        SchemaFingerprints.key(SchemaFingerprints.TABLE, "products"), "v1",
+                        SchemaFingerprints.key(SchemaFingerprints.TABLE, "employees"), "v1"), Map.of()))
+                .previous(previous)
+                .table("orders", false, "Customer orders", 1200L)
+                .column("orders", column("id", 1, null))
+                .column("orders", column("customer_name", 2, "customer who placed the order"))
+                .column("orders", column("status", 3, "order status"))
+                .table("products", false, "Products for sale", 300L)
+                .column("products", column("sku", 1, null))
+                .column("products", column("price", 2, "unit price"))
+                .table("employees", false, "Staff", 40L)
+                .column("employees", column("salary", 1, null))
+                .column("employees", column("department", 2, null))
+                .build();
+    }
+
+    private TableRetrievalServiceImpl start(EmbeddingModel embeddingModel) {
+        TableRetrievalProperties properties = new TableRetrievalProperties();
+        properties.setStore(TableRetrievalProperties.STORE_MEMORY);
+        properties.setMinScore(0.1);
+        properties.setPromptMinTables(2);
+        StaticListableBeanFactory beans = new StaticListableBeanFactory();
+        if (embeddingModel != null) {
+            beans.addBean("embeddingModel", embeddingModel);
+        }
+        service = new TableRetrievalServiceImpl((connectionId, catalog, schema, userId) -> snapshot.get(),
+                beans.getBeanProvider(EmbeddingModel.class), store, properties);
+        service.start();
+        return service;
+    }
+
+    @AfterEach
+    void stop() {
+        if (service != null) {
+            service.stop();
+        }
+    }
+
+    @Test
+    void findsTablesClosestToTheQuestion() {
+        start(model);
+
+        List<String> tables = service.findRelevantTables(1L, "shop", null, "status of customer orders", 2, 7L);
+
+        assertEquals("orders", tables.get(0));
+        assertEquals(3, model.embeddedSegments.get());
+    }
+
+    @Test
+    void searchesOnlyTheAskedConnection() {
+        start(model);
+        service.findRelevantTables(1L, "shop", null, "orders", 3, 7L);
+
+        List<String> tables = service.findRelevantTables(2L, "shop", null, "customer orders", 3, 7L);
+
+        assertEquals("orders", tables.get(0));
+        assertEquals(6, model.embeddedSegments.get());
+        assertEquals(3, tables.size());
+    }
+
+    @Test
+    void embedsOnlyChangedTablesAgain() throws InterruptedException {
+        start(model);
+        service.findRelevantTables(1L, "shop", null, "orders", 3, 7L);
+
+        snapshot.set(shop(snapshot.get(), "v2"));
+        service.findRelevantTables(1L, "shop", null, "orders", 3, 7L);
+
+        // The changed table is embedded in the background while the earlier index answers
+        long deadline = System.currentTimeMillis() + 5000;
+        List<String> tables = List.of();
+        while (!(model.embeddedSegments.get() == 4 && tables.equals(List.of("orders")))
+                && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+            tables = service.findRelevantTables(1L, "shop", null, "customer orders", 1, 7L);
+        }
+        assertEquals(4, model.embeddedSegments.get());
+        assertEquals(List.of("orders"), tables);
+    }
+
+    @Test
+    void removingConnectionDropsItsEmbeddings() {
+        start(model);
+        service.findRelevantTables(1L, "shop", null, "orders", 3, 7L);
+
+        service.removeConnection(1L);
+
+        assertTrue(store.search(EmbeddingSearchRequest.builder()
+                .queryEmbedding(model.embed("customer orders").content())
+                .maxResults(10)
+                .build()).matches().isEmpty());
+        // Asked again, the schema is indexed from scratch
+        assertEquals("orders", service.findRelevantTables(1L, "shop", null, "customer orders", 1, 7L).get(0));
+        assertEquals(6, model.embeddedSegments.get());
+    }
+
+    @Test
+    void isUnavailableWithoutEmbeddingModel() {
+        start(null);
+
+        BusinessException e = assertThrows(BusinessException.class,
+                () -> service.findRelevantTables(1L, "shop", null, "orders", 3, 7L));
+        assertEquals(ResponseCode.SERVICE_UNAVAILABLE, e.getCode());
+        assertEquals(List.of(), service.relevantTablesForPrompt(1L, "shop", null, "orders", 7L));
+    }
+
+    @Test
+    void promptRetrievalAnswersOnceIndexed() throws InterruptedException {
+        start(model);
+
+        // The first turn only starts indexing; a later one gets the retrieved tables
+        long deadline = System.currentTimeMillis() + 5000;
+        List<String> tables = List.of();
+        while (tables.isEmpty() && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+            tables = service.relevantTablesForPrompt(1L, "shop", null, "customer orders", 7L);
+        }
+        assertEquals("orders", tables.get(0));
+    }
+}
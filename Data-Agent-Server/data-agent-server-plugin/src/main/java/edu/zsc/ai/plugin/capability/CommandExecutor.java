@@ -2,6 +2,8 @@ package edu.zsc.ai.plugin.capability;
 
 import edu.zsc.ai.plugin.model.command.*;
 
+import java.util.List;
+
 /**
  * Command executor capability.
  * Execute commands on their respective data sources.
@@ -19,4 +21,40 @@ public interface CommandExecutor<T extends CommandRequest, R extends CommandResu
      * @throws RuntimeException if execution fails
      */
     R executeCommand(T command);
-}
\ No newline at end of file
+
+    /**
+     * Execute a command and stream its rows to the consumer instead of collecting them in the result.
+     * The returned result carries everything but the rows (headers, timing, affected rows, error).
+     *
+     * @param command  the command to execute
+     * @param consumer receives the rows while the cursor is open
+     * @return the execution result, without rows
+     * @throws RuntimeException if execution fails or the consumer throws
+     */
+    default R executeCommand(T command, RowConsumer consumer) {
+        throw new UnsupportedOperationException("Plugin does not support streaming command execution");
+    }
+
+    /**
+     * Split a script into individual commands, e.g. for {@link #executeBatch}.
+     * The default treats the whole script as a single command.
+     *
+     * @param script the script text
+     * @return the commands in script order, empty for a blank script
+     */
+    default List<String> splitScript(String script) {
+        return script == null || script.isBlank() ? List.of() : List.of(script.trim());
+    }
+
+    /**
+     * Execute commands in order on the same connection, stopping at the first failure.
+     * Implementations may send consecutive commands to the data source in one round trip.
+     *
+     * @param commands the commands to execute, all on the same connection
+     * @param atomic   run all commands in one transaction that is rolled back when any of them fails
+     * @return one result per command, in order; commands after a failure are reported as not executed
+     */
+    default List<R> executeBatch(List<T> commands, boolean atomic) {
+        throw new UnsupportedOperationException("Plugin does not support batch command execution");
+    }
+}
@@ -11,6 +11,17 @@ public interface ConnectionProvider {
 
     void closeConnection(Connection connection);
 
+    /**
+     * Reset the server-side session of a pooled connection before it is reused, dropping user variables,
+     * temporary tables, session variables, locks and server-side prepared statements left by arbitrary SQL.
+     * The current catalog is not guaranteed to survive the reset.
+     * The default does nothing; drivers without a session reset leave the state in place.
+     *
+     * @param connection the connection to reset
+     */
+    default void resetSession(Connection connection) {
+    }
+
     default DatabaseMetaData getMetaData(Connection connection) {
         try {
             return connection.getMetaData();
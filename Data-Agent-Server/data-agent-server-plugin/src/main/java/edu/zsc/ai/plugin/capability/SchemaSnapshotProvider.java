@@ -0,0 +1,25 @@
+package edu.zsc.ai.plugin.capability;
+
+import edu.zsc.ai.plugin.model.metadata.SchemaSnapshot;
+
+import java.sql.Connection;
+
+public interface SchemaSnapshotProvider {
+
+    /**
+     * Tables, views, columns, keys, indexes, routines and triggers of a whole catalog/schema, read with a fixed
+     * number of set-based queries instead of a few per table.
+     */
+    default SchemaSnapshot getSchemaSnapshot(Connection connection, String catalog, String schema) {
+        throw new UnsupportedOperationException("Plugin does not support schema snapshots");
+    }
+
+    /**
+     * Bring a snapshot up to date with the database. Plugins that fingerprint schemas read the fingerprints and
+     * reload only the objects whose fingerprint moved, returning {@code previous} itself when nothing did;
+     * the default reloads the whole schema.
+     */
+    default SchemaSnapshot refreshSchemaSnapshot(Connection connection, SchemaSnapshot previous) {
+        return getSchemaSnapshot(connection, previous.getCatalog(), previous.getSchema());
+    }
+}
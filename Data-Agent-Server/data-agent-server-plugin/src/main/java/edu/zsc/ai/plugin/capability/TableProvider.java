@@ -1,7 +1,10 @@
 package edu.zsc.ai.plugin.capability;
 
 import edu.zsc.ai.plugin.constant.JdbcMetaDataConstants;
+import edu.zsc.ai.plugin.model.command.RowConsumer;
 import edu.zsc.ai.plugin.model.command.sql.SqlCommandResult;
+import edu.zsc.ai.plugin.value.LobChunk;
+import edu.zsc.ai.plugin.value.LobHandle;
 import org.apache.commons.lang3.StringUtils;
 import java.sql.Connection;
 import java.sql.ResultSet;
@@ -41,7 +44,68 @@ public interface TableProvider {
         throw new UnsupportedOperationException("Plugin does not support getting table data");
     }
 
+    /**
+     * Page of rows at an offset in the order of the given columns, so that consecutive pages neither skip nor
+     * repeat rows. Used for pages requested by number when the table has a key but no cursor is at hand.
+     * Large values may be returned as {@link LobHandle}s: the caller gives them the row key as locator.
+     *
+     * @param orderColumns columns to order by, e.g. the primary key; null or empty for storage order
+     */
+    default SqlCommandResult getTableData(Connection connection, String catalog, String schema, String tableName,
+                                          List<String> orderColumns, int offset, int pageSize) {
+        if (orderColumns == null || orderColumns.isEmpty()) {
+            return getTableData(connection, catalog, schema, tableName, offset, pageSize);
+        }
+        throw new UnsupportedOperationException("Plugin does not support ordered pages of table data");
+    }
+
+    /**
+     * Page of rows in key order starting right after the given key (seek pagination), so a deep page
+     * costs as much as the first one. The key must be the primary key or a unique index without
+     * nullable columns, otherwise rows can be skipped. Large values may be returned as {@link LobHandle}s:
+     * the caller gives them the row key as locator.
+     *
+     * @param keyColumns columns of the key, in index order
+     * @param afterKey   key values of the last row of the previous page, null for the first page
+     */
+    default SqlCommandResult getTableDataAfter(Connection connection, String catalog, String schema, String tableName,
+                                               List<String> keyColumns, List<Object> afterKey, int pageSize) {
+        throw new UnsupportedOperationException("Plugin does not support keyset pagination of table data");
+    }
+
+    /**
+     * Read a range of a BLOB or CLOB column of the row with the given key, without reading the rest of the row.
+     * CLOB values are read as UTF-8 bytes.
+     *
+     * @param keyColumns columns of the primary key or a unique index
+     * @param keyValues  key values of the row
+     * @param offset     zero-based byte offset into the value
+     * @param length     bytes to read at most
+     * @return null when no row has the key or the value is NULL
+     */
+    default LobChunk readLob(Connection connection, String catalog, String schema, String tableName, String column,
+                             LobHandle.Kind kind, List<String> keyColumns, List<Object> keyValues, long offset, int length) {
+        throw new UnsupportedOperationException("Plugin does not support reading large values");
+    }
+
+    /**
+     * Stream all rows of the table to the consumer instead of loading a page into memory.
+     *
+     * @return the result without rows (headers, execution time)
+     */
+    default SqlCommandResult streamTableData(Connection connection, String catalog, String schema, String tableName, RowConsumer consumer) {
+        throw new UnsupportedOperationException("Plugin does not support streaming table data");
+    }
+
     default long getTableDataCount(Connection connection, String catalog, String schema, String tableName) {
         throw new UnsupportedOperationException("Plugin does not support getting table data count");
     }
+
+    /**
+     * Row count estimate from the database statistics, cheap regardless of the table size;
+     * null when the database keeps no estimate for the table.
+     */
+    default Long getTableRowEstimate(Connection connection, String catalog, String schema, String tableName) {
+        return null;
+    }
 }
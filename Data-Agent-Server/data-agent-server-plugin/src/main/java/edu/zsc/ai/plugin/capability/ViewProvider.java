@@ -1,6 +1,7 @@
 package edu.zsc.ai.plugin.capability;
 
 import edu.zsc.ai.plugin.constant.JdbcMetaDataConstants;
+import edu.zsc.ai.plugin.model.command.RowConsumer;
 import edu.zsc.ai.plugin.model.command.sql.SqlCommandResult;
 import org.apache.commons.lang3.StringUtils;
 
@@ -42,6 +43,15 @@ public interface ViewProvider {
         throw new UnsupportedOperationException("Plugin does not support getting view data");
     }
 
+    /**
+     * Stream all rows of the view to the consumer instead of loading a page into memory.
+     *
+     * @return the result without rows (headers, execution time)
+     */
+    default SqlCommandResult streamViewData(Connection connection, String catalog, String schema, String viewName, RowConsumer consumer) {
+        throw new UnsupportedOperationException("Plugin does not support streaming view data");
+    }
+
     default long getViewDataCount(Connection connection, String catalog, String schema, String viewName) {
         throw new UnsupportedOperationException("Plugin does not support getting view data count");
     }
@@ -36,5 +36,13 @@ public class ConnectionConfig {
         }
         properties.put(key, value);
     }
+
+    /**
+     * Copy this config so that callers can override database/schema without affecting the original.
+     */
+    public ConnectionConfig copy() {
+        return new ConnectionConfig(host, port, database, schema, username, password,
+                properties != null ? new HashMap<>(properties) : null, driverJarPath, timeout);
+    }
 }
 
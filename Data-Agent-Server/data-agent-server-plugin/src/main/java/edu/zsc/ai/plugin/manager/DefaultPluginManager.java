@@ -9,6 +9,7 @@ import edu.zsc.ai.plugin.capability.FunctionProvider;
 import edu.zsc.ai.plugin.capability.IndexProvider;
 import edu.zsc.ai.plugin.capability.ProcedureProvider;
 import edu.zsc.ai.plugin.capability.SchemaProvider;
+import edu.zsc.ai.plugin.capability.SchemaSnapshotProvider;
 import edu.zsc.ai.plugin.capability.TableProvider;
 import edu.zsc.ai.plugin.capability.TriggerProvider;
 import edu.zsc.ai.plugin.capability.ViewProvider;
@@ -243,6 +244,11 @@ public class DefaultPluginManager implements PluginManager {
         return PluginCapabilityResolver.getProviderByPluginId(pluginMap, pluginId, TriggerProvider.class);
     }
 
+    @Override
+    public SchemaSnapshotProvider getSchemaSnapshotProviderByPluginId(@NotBlank String pluginId) {
+        return PluginCapabilityResolver.getProviderByPluginId(pluginMap, pluginId, SchemaSnapshotProvider.class);
+    }
+
     @Override
     public CommandExecutor<SqlCommandRequest, SqlCommandResult> getSqlCommandExecutorByPluginId(@NotBlank String pluginId) {
         return (CommandExecutor<SqlCommandRequest, SqlCommandResult>) PluginCapabilityResolver.getProviderByPluginId(pluginMap, pluginId, CommandExecutor.class);
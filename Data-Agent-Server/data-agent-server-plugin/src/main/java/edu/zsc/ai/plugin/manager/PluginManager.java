@@ -6,6 +6,7 @@ import edu.zsc.ai.plugin.capability.CommandExecutor;
 import edu.zsc.ai.plugin.capability.FunctionProvider;
 import edu.zsc.ai.plugin.capability.IndexProvider;
 import edu.zsc.ai.plugin.capability.ProcedureProvider;
+import edu.zsc.ai.plugin.capability.SchemaSnapshotProvider;
 import edu.zsc.ai.plugin.capability.TriggerProvider;
 import edu.zsc.ai.plugin.capability.ConnectionProvider;
 import edu.zsc.ai.plugin.capability.DatabaseProvider;
@@ -83,5 +84,7 @@ public interface PluginManager {
 
     TriggerProvider getTriggerProviderByPluginId(@NotBlank String pluginId);
 
+    SchemaSnapshotProvider getSchemaSnapshotProviderByPluginId(@NotBlank String pluginId);
+
     CommandExecutor<SqlCommandRequest, SqlCommandResult> getSqlCommandExecutorByPluginId(@NotBlank String pluginId);
 }
@@ -1,10 +1,26 @@
 package edu.zsc.ai.plugin.manager;
 
+import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiConsumer;
 import java.util.function.Function;
 
 public final class TryFirstSuccess {
 
+    private static final AtomicInteger THREAD_COUNTER = new AtomicInteger();
+
+    private static final ExecutorService EXECUTOR = Executors.newCachedThreadPool(r -> {
+        Thread t = new Thread(r, "try-first-success-" + THREAD_COUNTER.incrementAndGet());
+        t.setDaemon(true);
+        return t;
+    });
+
     private TryFirstSuccess() {
     }
 
@@ -23,4 +39,59 @@ public final class TryFirstSuccess {
         }
         return null;
     }
+
+    /**
+     * Run the operation for all candidates concurrently and return the first one that succeeds.
+     * Remaining attempts are cancelled; losers that still succeed afterwards are handed to {@code discard}
+     * (e.g. to close a connection nobody will use).
+     *
+     * @return the first successful attempt, or null if every candidate failed
+     */
+    public static <T, R> AttemptResult<T, R> tryFirstSuccessConcurrently(List<T> candidates, Function<T, R> operation,
+                                                                         BiConsumer<T, R> discard) {
+        if (candidates == null || candidates.isEmpty()) {
+            throw new IllegalArgumentException("Candidates list cannot be null or empty");
+        }
+        if (candidates.size() == 1) {
+            return tryFirstSuccess(candidates, operation);
+        }
+
+        CompletableFuture<AttemptResult<T, R>> winner = new CompletableFuture<>();
+        AtomicInteger pending = new AtomicInteger(candidates.size());
+        List<Future<?>> attempts = new ArrayList<>(candidates.size());
+        for (T c : candidates) {
+            attempts.add(EXECUTOR.submit(() -> {
+                R result;
+                try {
+                    result = operation.apply(c);
+                } catch (Throwable e) {
+                    if (pending.decrementAndGet() == 0) {
+                        winner.complete(null);
+                    }
+                    return;
+                }
+                if (!winner.complete(new AttemptResult<>(c, result))) {
+                    discard.accept(c, result);
+                }
+            }));
+        }
+
+        try {
+            return winner.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            // Make sure a success arriving now is discarded instead of leaking
+            if (!winner.complete(null)) {
+                AttemptResult<T, R> late = winner.getNow(null);
+                if (late != null) {
+                    discard.accept(late.candidate(), late.result());
+                }
+            }
+            return null;
+        } catch (ExecutionException e) {
+            return null;
+        } finally {
+            attempts.forEach(f -> f.cancel(true));
+        }
+    }
 }
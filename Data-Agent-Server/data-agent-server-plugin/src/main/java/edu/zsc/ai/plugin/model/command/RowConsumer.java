@@ -0,0 +1,29 @@
+package edu.zsc.ai.plugin.model.command;
+
+import java.util.List;
+
+/**
+ * Receives query rows one at a time while the underlying cursor is still open.
+ * The next row is only fetched after {@link #onRow(List)} returns, so a slow consumer
+ * slows the fetch down instead of having rows piling up in memory.
+ */
+@FunctionalInterface
+public interface RowConsumer {
+
+    /**
+     * Called once before the first row with the column names of the result.
+     *
+     * @param headers column names, in row order
+     */
+    default void onHeaders(List<String> headers) {
+    }
+
+    /**
+     * Called for each row.
+     *
+     * @param row the row values (must not be retained if the consumer wants to keep memory flat)
+     * @return true to receive the next row, false to stop; the cursor is then closed without
+     * fetching the remaining rows
+     */
+    boolean onRow(List<Object> row);
+}
@@ -1,6 +1,8 @@
 package edu.zsc.ai.plugin.model.command.sql;
 
 import edu.zsc.ai.plugin.capability.CommandExecutor;
+import edu.zsc.ai.plugin.model.command.RowConsumer;
+import edu.zsc.ai.plugin.value.ColumnReader;
 import edu.zsc.ai.plugin.value.JdbcValueContext;
 import edu.zsc.ai.plugin.value.JdbcValueContextFactory;
 import org.slf4j.Logger;
@@ -9,12 +11,26 @@ import org.slf4j.LoggerFactory;
 import java.sql.*;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Set;
 
 /**
  * Abstract SQL executor that provides common SQL execution logic.
  * Uses ValueProcessor for database-specific type conversions.
  *
  *
+ * <p>{@link #executeCommand(SqlCommandRequest)} collects all rows into the result;
+ * {@link #executeCommand(SqlCommandRequest, RowConsumer)} hands them to a consumer one by one
+ * from a forward-only cursor, so only the rows of the current fetch are held in memory.
+ *
+ * <p>With {@link SqlCommandRequest#isColumnar() columnar} set, collected rows are stored per column
+ * in a {@link ColumnarResult} and exposed as a row view, which keeps large results off the heap's object count.
+ *
+ * <p>Requests with {@link SqlCommandRequest#getParams() params} run as prepared statements that are cached
+ * per connection (see {@link #closeCachedStatements(Connection)}).
+ *
+ * <p>{@link #executeBatch(List, boolean)} sends consecutive DML statements as one JDBC batch
+ * and runs everything else one statement at a time.
+ *
  * <p><b>Note:</b> This executor does NOT close the connection. The caller is
  * responsible for managing the connection lifecycle.
  *
@@ -24,8 +40,56 @@ public abstract class AbstractSqlExecutor implements CommandExecutor<SqlCommandR
 
     private static final Logger log = LoggerFactory.getLogger(AbstractSqlExecutor.class);
 
+    /** Rows per round trip when streaming and the request does not set a fetch size */
+    protected static final int DEFAULT_STREAMING_FETCH_SIZE = 1000;
+
+    /** Prepared statements kept open per physical connection (server-side statements count against server limits) */
+    protected static final int PREPARED_STATEMENT_CACHE_SIZE = 32;
+
+    /** Statements sent per JDBC batch */
+    protected static final int BATCH_SIZE = 1000;
+
+    /** Statement kinds that may be grouped into a JDBC batch */
+    private static final Set<String> BATCHABLE_KEYWORDS = Set.of("INSERT", "UPDATE", "DELETE", "REPLACE");
+
+    private static final String NOT_EXECUTED_MESSAGE = "Not executed: an earlier statement failed";
+
+    private static final String RAN_AFTER_FAILURE_MESSAGE =
+            "Executed by the driver although an earlier statement of its batch failed";
+
+    private final PreparedStatementCache statementCache =
+            new PreparedStatementCache(PREPARED_STATEMENT_CACHE_SIZE, this::prepareCachedStatement);
+
     protected abstract Object getJdbcValue(JdbcValueContext context) throws SQLException;
 
+    /**
+     * Create the reader for one column of a query result; called once per result set and column.
+     * Subclasses can override this method to resolve type handling up front, typically through
+     * {@link edu.zsc.ai.plugin.value.ValueProcessor#createColumnReader}; the default reads every cell
+     * through {@link #getJdbcValue}.
+     *
+     * @param context the column's JDBC context
+     * @return the column reader
+     */
+    protected ColumnReader createColumnReader(JdbcValueContext context) {
+        return () -> getJdbcValue(context);
+    }
+
+    /**
+     * Prepare a statement that is kept in the per-connection cache and reused. Subclasses can override this
+     * method to prepare cached statements differently from one-off ones, e.g. on the server, where a prepare
+     * costs a round trip that only pays off for reused statements; the default is
+     * {@link Connection#prepareStatement(String)}.
+     *
+     * @param connection the database connection
+     * @param sql        the statement text
+     * @return the prepared statement
+     * @throws SQLException if the statement cannot be prepared
+     */
+    protected PreparedStatement prepareCachedStatement(Connection connection, String sql) throws SQLException {
+        return connection.prepareStatement(sql);
+    }
+
     protected boolean getOriginalAutoCommit(Connection connection) {
         try {
             return connection.getAutoCommit();
@@ -37,14 +101,46 @@ public abstract class AbstractSqlExecutor implements CommandExecutor<SqlCommandR
 
     @Override
     public SqlCommandResult executeCommand(final SqlCommandRequest command) {
+        if (command.isColumnar()) {
+            ColumnarResult.Builder columns = ColumnarResult.builder();
+            SqlCommandResult result = execute(command, columns, false);
+            if (result.isSuccess() && result.isQuery()) {
+                ColumnarResult columnar = columns.build();
+                result.setColumnar(columnar);
+                result.setRows(columnar.asRows());
+            }
+            return result;
+        }
+        List<List<Object>> rows = new ArrayList<>();
+        SqlCommandResult result = execute(command, row -> rows.add(row), false);
+        if (result.isSuccess() && result.isQuery()) {
+            result.setRows(rows);
+        }
+        return result;
+    }
+
+    @Override
+    public SqlCommandResult executeCommand(final SqlCommandRequest command, final RowConsumer consumer) {
+        return execute(command, consumer, true);
+    }
+
+    private SqlCommandResult execute(SqlCommandRequest command, RowConsumer consumer, boolean streaming) {
         Connection connection = command.getConnection();
         SqlCommandResult result = initResult(command);
         boolean originalAutoCommit = getOriginalAutoCommit(connection);
+        RowBudget budget = new RowBudget(consumer, command.getMaxRows(), command.getMaxBytes());
 
         try {
             disableAutoCommitIfNeeded(connection, command);
-            executeSqlStatement(connection, command, result);
+            // A bounded read always streams, so rows past the budget are never fetched into memory
+            executeSqlStatement(connection, command, result, budget, streaming || budget.isBounded());
             commitTransactionIfNeeded(connection, command);
+            if (budget.isTruncated()) {
+                result.setTruncated(true);
+                Long estimate = estimateRowCount(connection, command);
+                // Reading stopped early, so there is at least one row more than what was kept
+                result.setEstimatedTotalRows(Math.max(estimate != null ? estimate : 0L, budget.getRowCount() + 1L));
+            }
             return result;
 
         } catch (SQLException e) {
@@ -56,6 +152,236 @@ public abstract class AbstractSqlExecutor implements CommandExecutor<SqlCommandR
         }
     }
 
+    @Override
+    public List<String> splitScript(String script) {
+        return getScriptSplitter().split(script);
+    }
+
+    /**
+     * Splitter for {@link #splitScript(String)}. Subclasses can override this method for dialect-specific
+     * comments, escapes or delimiter handling.
+     *
+     * @return the script splitter
+     */
+    protected SqlScriptSplitter getScriptSplitter() {
+        return SqlScriptSplitter.STANDARD;
+    }
+
+    /**
+     * Consecutive INSERT/UPDATE/DELETE/REPLACE statements are sent with {@link Statement#executeBatch()}
+     * (parameterized ones sharing the same SQL through one cached {@link PreparedStatement}); other statements
+     * run one by one like {@link #executeCommand(SqlCommandRequest)}, ignoring their own needTransaction.
+     * Statements of one JDBC batch all report the batch's execution time; an affected row count of -1
+     * means the driver did not report one. Execution stops at the first failing statement: drivers should be
+     * configured not to continue a batch past an error, and entries the driver still ran after it are
+     * reported as failed with their row counts.
+     */
+    @Override
+    public List<SqlCommandResult> executeBatch(List<SqlCommandRequest> commands, boolean atomic) {
+        List<SqlCommandResult> results = new ArrayList<>(commands.size());
+        if (commands.isEmpty()) {
+            return results;
+        }
+        Connection connection = commands.get(0).getConnection();
+        boolean originalAutoCommit = getOriginalAutoCommit(connection);
+        boolean failed = false;
+        try {
+            if (atomic) {
+                connection.setAutoCommit(false);
+            }
+            int from = 0;
+            while (from < commands.size() && !failed) {
+                int to = batchEnd(commands, from);
+                if (to - from > 1) {
+                    failed = !executeJdbcBatch(connection, commands.subList(from, to), results);
+                } else {
+                    SqlCommandRequest single = commands.get(from);
+                    boolean needTransaction = single.isNeedTransaction();
+                    single.setNeedTransaction(false);
+                    SqlCommandResult result = executeCommand(single);
+                    single.setNeedTransaction(needTransaction);
+                    results.add(result);
+                    failed = !result.isSuccess();
+                }
+                from = to;
+            }
+            if (atomic) {
+                if (failed) {
+                    connection.rollback();
+                } else {
+                    connection.commit();
+                }
+            }
+        } catch (SQLException e) {
+            log.warn("Batch transaction handling failed: {}", e.getMessage());
+            if (atomic) {
+                rollbackQuietly(connection);
+            }
+            if (!failed && !results.isEmpty()) {
+                // Everything ran but the commit did not go through
+                SqlCommandResult last = results.get(results.size() - 1);
+                last.setSuccess(false);
+                last.setErrorMessage(formatError(e));
+            }
+        } finally {
+            if (atomic) {
+                try {
+                    if (!connection.isClosed()) {
+                        connection.setAutoCommit(originalAutoCommit);
+                    }
+                } catch (SQLException e) {
+                    log.warn("Failed to restore autoCommit: {}", e.getMessage());
+                }
+            }
+        }
+        for (int i = results.size(); i < commands.size(); i++) {
+            results.add(notExecuted(commands.get(i)));
+        }
+        return results;
+    }
+
+    /**
+     * End (exclusive) of the run of commands starting at {@code from} that can share one JDBC batch.
+     */
+    private int batchEnd(List<SqlCommandRequest> commands, int from) {
+        SqlCommandRequest first = commands.get(from);
+        if (!isBatchable(first)) {
+            return from + 1;
+        }
+        boolean prepared = hasParams(first);
+        int to = from + 1;
+        while (to < commands.size() && to - from < BATCH_SIZE) {
+            SqlCommandRequest next = commands.get(to);
+            if (!isBatchable(next) || hasParams(next) != prepared
+                    || prepared && !next.getExecuteSql().equals(first.getExecuteSql())) {
+                break;
+            }
+            to++;
+        }
+        return to;
+    }
+
+    private boolean isBatchable(SqlCommandRequest command) {
+        return BATCHABLE_KEYWORDS.contains(getScriptSplitter().firstKeyword(command.getExecuteSql()));
+    }
+
+    private static boolean hasParams(SqlCommandRequest command) {
+        return command.getParams() != null && command.getParams().length > 0;
+    }
+
+    /**
+     * Send the group as one JDBC batch and add a result per command.
+     *
+     * @return true if every command succeeded
+     */
+    private boolean executeJdbcBatch(Connection connection, List<SqlCommandRequest> group,
+                                     List<SqlCommandResult> results) {
+        SqlCommandRequest first = group.get(0);
+        long start = System.currentTimeMillis();
+        int[] counts;
+        SQLException failure = null;
+        try {
+            if (hasParams(first)) {
+                counts = executePreparedBatch(connection, group);
+            } else {
+                try (Statement statement = connection.createStatement()) {
+                    applyStatementOptions(statement, first, false);
+                    for (SqlCommandRequest command : group) {
+                        statement.addBatch(command.getExecuteSql());
+                    }
+                    counts = statement.executeBatch();
+                }
+            }
+        } catch (BatchUpdateException e) {
+            counts = e.getUpdateCounts() != null ? e.getUpdateCounts() : new int[0];
+            failure = e;
+        } catch (SQLException e) {
+            counts = new int[0];
+            failure = e;
+        }
+        long elapsed = System.currentTimeMillis() - start;
+
+        // A failed batch in which the driver flags no entry is reported as failed as a whole
+        boolean entriesFlagged = failure == null || counts.length < group.size() || hasFailedEntry(counts);
+        boolean reported = false;
+        for (int i = 0; i < group.size(); i++) {
+            SqlCommandResult result = initResult(group.get(i));
+            result.setExecutionTime(elapsed);
+            boolean ran = entriesFlagged && i < counts.length && counts[i] != Statement.EXECUTE_FAILED;
+            if (ran) {
+                result.setAffectedRows(counts[i] == Statement.SUCCESS_NO_INFO ? -1 : counts[i]);
+            }
+            if (ran && !reported) {
+                results.add(result);
+                continue;
+            }
+            result.setSuccess(false);
+            if (!reported) {
+                result.setErrorMessage(failure != null ? formatError(failure) : NOT_EXECUTED_MESSAGE);
+                reported = true;
+            } else {
+                // Past the first failure: the script stops there, even when the driver went on
+                result.setErrorMessage(ran ? RAN_AFTER_FAILURE_MESSAGE : NOT_EXECUTED_MESSAGE);
+            }
+            results.add(result);
+        }
+        return failure == null;
+    }
+
+    private int[] executePreparedBatch(Connection connection, List<SqlCommandRequest> group) throws SQLException {
+        SqlCommandRequest first = group.get(0);
+        String sql = first.getExecuteSql();
+        PreparedStatement statement = statementCache.prepare(connection, sql);
+        boolean reusable = false;
+        try {
+            statement.setFetchSize(0);
+            applyStatementOptions(statement, first, true);
+            for (SqlCommandRequest command : group) {
+                statement.clearParameters();
+                Object[] params = command.getParams();
+                for (int i = 0; i < params.length; i++) {
+                    statement.setObject(i + 1, params[i]);
+                }
+                statement.addBatch();
+            }
+            int[] counts = statement.executeBatch();
+            reusable = true;
+            return counts;
+        } finally {
+            if (reusable) {
+                statement.clearBatch();
+            } else {
+                statementCache.evict(connection, sql, statement);
+            }
+        }
+    }
+
+    private static boolean hasFailedEntry(int[] counts) {
+        for (int count : counts) {
+            if (count == Statement.EXECUTE_FAILED) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private SqlCommandResult notExecuted(SqlCommandRequest command) {
+        SqlCommandResult result = initResult(command);
+        result.setSuccess(false);
+        result.setErrorMessage(NOT_EXECUTED_MESSAGE);
+        return result;
+    }
+
+    private static void rollbackQuietly(Connection connection) {
+        try {
+            if (!connection.isClosed()) {
+                connection.rollback();
+            }
+        } catch (SQLException e) {
+            log.warn("Failed to roll back batch: {}", e.getMessage());
+        }
+    }
+
     /**
      * Create initial result object with basic information
      */
@@ -83,25 +409,171 @@ public abstract class AbstractSqlExecutor implements CommandExecutor<SqlCommandR
     }
 
     /**
-     * Execute SQL statement and populate result
+     * Execute SQL statement and populate result.
+     * Requests with params run as a cached {@link PreparedStatement}, others as a plain {@link Statement}.
      */
-    private void executeSqlStatement(Connection connection, SqlCommandRequest command, SqlCommandResult result)
-            throws SQLException {
-        try (Statement statement = connection.createStatement()) {
+    private void executeSqlStatement(Connection connection, SqlCommandRequest command, SqlCommandResult result,
+                                     RowConsumer consumer, boolean streaming) throws SQLException {
+        if (command.getParams() != null && command.getParams().length > 0) {
+            executePreparedStatement(connection, command, result, consumer, streaming);
+            return;
+        }
+        try (Statement statement = streaming
+                ? createStreamingStatement(connection, command)
+                : connection.createStatement()) {
+            applyStatementOptions(statement, command, false);
             String sql = command.getExecuteSql();
             long start = System.currentTimeMillis();
             boolean isQuery = statement.execute(sql);
             result.setExecutionTime(System.currentTimeMillis() - start);
 
-            result.setQuery(isQuery);
-            if (isQuery) {
-                processQueryResult(statement, result);
-            } else {
-                processDmlResult(statement, result);
+            processExecution(statement, isQuery, command, result, consumer);
+        }
+    }
+
+    /**
+     * Execute with a prepared statement from the connection's cache. The statement is left open for reuse,
+     * unless execution failed, in which case it is evicted.
+     */
+    private void executePreparedStatement(Connection connection, SqlCommandRequest command, SqlCommandResult result,
+                                          RowConsumer consumer, boolean streaming) throws SQLException {
+        String sql = command.getExecuteSql();
+        PreparedStatement statement = statementCache.prepare(connection, sql);
+        boolean reusable = false;
+        try {
+            statement.clearParameters();
+            Object[] params = command.getParams();
+            for (int i = 0; i < params.length; i++) {
+                statement.setObject(i + 1, params[i]);
             }
+            // Options of the previous use stick to a cached statement, so always set all of them
+            statement.setFetchSize(streaming ? getStreamingFetchSize(command) : 0);
+            applyStatementOptions(statement, command, true);
+            long start = System.currentTimeMillis();
+            boolean isQuery = statement.execute();
+            result.setExecutionTime(System.currentTimeMillis() - start);
+
+            processExecution(statement, isQuery, command, result, consumer);
+            reusable = true;
+        } finally {
+            if (!reusable) {
+                statementCache.evict(connection, sql, statement);
+            }
+        }
+    }
+
+    /**
+     * Apply timeout and row limit of the request and notify the statement listener.
+     *
+     * @param reset also clear options the request does not set (for reused statements)
+     */
+    private void applyStatementOptions(Statement statement, SqlCommandRequest command, boolean reset)
+            throws SQLException {
+        if (command.getQueryTimeoutSeconds() != null && command.getQueryTimeoutSeconds() > 0) {
+            statement.setQueryTimeout(command.getQueryTimeoutSeconds());
+        } else if (reset) {
+            statement.setQueryTimeout(0);
+        }
+        if (command.getMaxRows() != null && command.getMaxRows() < Integer.MAX_VALUE) {
+            // One row past the limit tells a truncated result from one that fits exactly
+            statement.setMaxRows(command.getMaxRows() + 1);
+        } else if (reset) {
+            statement.setMaxRows(0);
+        }
+        if (command.getStatementListener() != null) {
+            command.getStatementListener().accept(statement);
+        }
+    }
+
+    private void processExecution(Statement statement, boolean isQuery, SqlCommandRequest command,
+                                  SqlCommandResult result, RowConsumer consumer) throws SQLException {
+        result.setQuery(isQuery);
+        if (isQuery) {
+            processQueryResult(statement, command.isLobHandles(), result, consumer);
+        } else {
+            processDmlResult(statement, result);
         }
     }
 
+    /**
+     * Close the prepared statements cached for the connection. Must be called before the connection is closed,
+     * e.g. from the plugin's {@code closeConnection}.
+     *
+     * @param connection the connection about to be closed
+     */
+    public void closeCachedStatements(Connection connection) {
+        statementCache.closeAll(connection);
+    }
+
+    /**
+     * Create a forward-only, read-only statement that fetches {@link #getStreamingFetchSize} rows per round trip.
+     * Subclasses can override this method when the driver needs more than a fetch size to stream.
+     *
+     * @param connection the database connection
+     * @param command    the SQL command request
+     * @return the statement to execute the streamed query with
+     * @throws SQLException if the statement cannot be created
+     */
+    protected Statement createStreamingStatement(Connection connection, SqlCommandRequest command) throws SQLException {
+        Statement statement = connection.createStatement(ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+        statement.setFetchSize(getStreamingFetchSize(command));
+        return statement;
+    }
+
+    /**
+     * Fetch size for streamed queries: the request's fetch size, or {@link #DEFAULT_STREAMING_FETCH_SIZE}.
+     * Subclasses can override this method for drivers with special streaming fetch sizes.
+     *
+     * @param command the SQL command request
+     * @return the fetch size to set on the statement
+     */
+    protected int getStreamingFetchSize(SqlCommandRequest command) {
+        return command.getFetchSize() != null ? command.getFetchSize() : DEFAULT_STREAMING_FETCH_SIZE;
+    }
+
+    /**
+     * Called before the result set is closed when reading stopped before the last row
+     * (the consumer returned false or threw). Subclasses can override this method when closing
+     * an unfinished result set would otherwise read the remaining rows, e.g. by cancelling the statement.
+     *
+     * @param statement the statement that produced the result set
+     */
+    protected void abortStreaming(Statement statement) {
+    }
+
+    /**
+     * Estimate how many rows the whole query would return, used when a result was truncated.
+     * Subclasses can override this method, e.g. with the optimizer's estimate; the default has none.
+     *
+     * @param connection the database connection
+     * @param command    the SQL command request
+     * @return estimated row count, or null if unknown
+     */
+    protected Long estimateRowCount(Connection connection, SqlCommandRequest command) {
+        return null;
+    }
+
+    /**
+     * Approximate serialized size of a value in bytes, used for the maxBytes budget.
+     * Subclasses can override this method for driver-specific value types.
+     *
+     * @param value the value as returned by {@link #getJdbcValue}
+     * @return approximate size in bytes
+     */
+    protected long estimateValueSize(Object value) {
+        if (value == null) {
+            return 4;
+        }
+        if (value instanceof byte[] bytes) {
+            // Base64 encoded
+            return (bytes.length + 2L) / 3 * 4;
+        }
+        if (value instanceof CharSequence text) {
+            return text.length() + 2L;
+        }
+        return String.valueOf(value).length();
+    }
+
     /**
      * Process DML operation result
      */
@@ -132,8 +604,11 @@ public abstract class AbstractSqlExecutor implements CommandExecutor<SqlCommandR
                                     SQLException e) {
         rollbackTransactionIfNeeded(connection, command, e);
         result.setSuccess(false);
-        result.setErrorMessage(
-                e.getClass().getSimpleName() + ": " + (e.getMessage() != null ? e.getMessage() : "Unknown error"));
+        result.setErrorMessage(formatError(e));
+    }
+
+    private static String formatError(SQLException e) {
+        return e.getClass().getSimpleName() + ": " + (e.getMessage() != null ? e.getMessage() : "Unknown error");
     }
 
     /**
@@ -179,40 +654,123 @@ public abstract class AbstractSqlExecutor implements CommandExecutor<SqlCommandR
     }
 
     /**
-     * Process query result
+     * Process query result: hand the headers and every row to the consumer.
+     * Stops early when the consumer returns false.
      *
-     * @param statement SQL statement
-     * @param result    result object
+     * @param statement  SQL statement
+     * @param lobHandles whether large values are returned as handles, see {@link SqlCommandRequest#isLobHandles()}
+     * @param result     result object
+     * @param consumer   row consumer
      * @throws SQLException SQL exception
      */
-    private void processQueryResult(Statement statement, SqlCommandResult result) throws SQLException {
+    private void processQueryResult(Statement statement, boolean lobHandles, SqlCommandResult result,
+                                    RowConsumer consumer) throws SQLException {
         List<String> headers = new ArrayList<>();
 
-        try (ResultSet resultSet = statement.getResultSet()) {
+        ResultSet resultSet = statement.getResultSet();
+        boolean exhausted = false;
+        try {
             ResultSetMetaData metaData = resultSet.getMetaData();
             int columnCount = metaData.getColumnCount();
 
-            // Get column names (use 1-based index consistently)
+            // Get column names and resolve one reader per column (use 1-based index consistently)
+            ColumnReader[] readers = new ColumnReader[columnCount];
             for (int i = 1; i <= columnCount; i++) {
                 String header = metaData.getColumnName(i);
                 headers.add(header);
+                JdbcValueContext context = JdbcValueContextFactory.fromMetaData(resultSet, metaData, i);
+                context.setLobHandles(lobHandles);
+                readers[i - 1] = createColumnReader(context);
             }
+            result.setHeaders(headers);
+            consumer.onHeaders(headers);
 
             // Get data rows
-            List<List<Object>> rows = new ArrayList<>();
             while (resultSet.next()) {
-                List<Object> row = new ArrayList<>();
-                for (int i = 1; i <= columnCount; i++) {
-                    // Build context from metadata using factory
-                    JdbcValueContext context = JdbcValueContextFactory.fromMetaData(resultSet, metaData, i);
-                    Object value = getJdbcValue(context);
-                    row.add(value);
+                List<Object> row = new ArrayList<>(columnCount);
+                for (ColumnReader reader : readers) {
+                    row.add(reader.read());
+                }
+                if (!consumer.onRow(row)) {
+                    return;
                 }
-                rows.add(row);
             }
+            exhausted = true;
+        } finally {
+            if (exhausted) {
+                resultSet.close();
+            } else {
+                abortStreaming(statement);
+                closeQuietly(resultSet);
+            }
+        }
+    }
 
-            result.setHeaders(headers);
-            result.setRows(rows);
+    private void closeQuietly(ResultSet resultSet) {
+        try {
+            resultSet.close();
+        } catch (SQLException e) {
+            log.debug("Failed to close aborted result set: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Forwards rows to the delegate until maxRows or maxBytes is reached.
+     */
+    private class RowBudget implements RowConsumer {
+
+        private final RowConsumer delegate;
+        private final Integer maxRows;
+        private final Long maxBytes;
+        private long rowCount;
+        private long byteCount;
+        private boolean truncated;
+
+        RowBudget(RowConsumer delegate, Integer maxRows, Long maxBytes) {
+            this.delegate = delegate;
+            this.maxRows = maxRows;
+            this.maxBytes = maxBytes;
+        }
+
+        boolean isBounded() {
+            return maxRows != null || maxBytes != null;
+        }
+
+        boolean isTruncated() {
+            return truncated;
+        }
+
+        long getRowCount() {
+            return rowCount;
+        }
+
+        @Override
+        public void onHeaders(List<String> headers) {
+            delegate.onHeaders(headers);
+        }
+
+        @Override
+        public boolean onRow(List<Object> row) {
+            if (maxRows != null && rowCount >= maxRows) {
+                // The statement's maxRows lets exactly one extra row through; keep reading so the cursor
+                // ends on its own rather than being cancelled, unless the driver ignored the limit
+                boolean firstOverflow = !truncated;
+                truncated = true;
+                return firstOverflow;
+            }
+            if (maxBytes != null) {
+                long rowBytes = 0;
+                for (Object value : row) {
+                    rowBytes += estimateValueSize(value);
+                }
+                if (byteCount + rowBytes > maxBytes) {
+                    truncated = true;
+                    return false;
+                }
+                byteCount += rowBytes;
+            }
+            rowCount++;
+            return delegate.onRow(row);
         }
     }
 }
@@ -0,0 +1,355 @@
+package edu.zsc.ai.plugin.model.command.sql;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * One column of a {@link ColumnarResult}: values in a typed array plus a null bitmap.
+ * Integer and floating point columns are kept in primitive arrays, string columns are
+ * dictionary encoded while few distinct values repeat; everything else is kept as objects.
+ *
+ * <p>{@link #get(int)} returns the same value type that was appended (e.g. {@link Integer}
+ * for an int column), so a columnar result reads exactly like the row lists it replaces.
+ * Vectors are filled by {@link ColumnarResult.Builder} and read-only afterwards.
+ */
+public abstract sealed class ColumnVector
+        permits ColumnVector.LongVector, ColumnVector.DoubleVector, ColumnVector.DictionaryVector,
+        ColumnVector.ObjectVector {
+
+    public enum Type {
+        LONG, DOUBLE, STRING, OBJECT
+    }
+
+    private static final int INITIAL_CAPACITY = 16;
+
+    protected final BitSet nulls = new BitSet();
+    protected int size;
+
+    public abstract Type getType();
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isNull(int row) {
+        return nulls.get(row);
+    }
+
+    /**
+     * Value at the row, boxed; null for SQL NULL.
+     */
+    public Object get(int row) {
+        if (row < 0 || row >= size) {
+            throw new IndexOutOfBoundsException("Row " + row + " out of " + size);
+        }
+        return nulls.get(row) ? null : value(row);
+    }
+
+    abstract Object value(int row);
+
+    /**
+     * Whether the value can be appended without changing the vector type.
+     */
+    abstract boolean accepts(Object value);
+
+    abstract void appendValue(Object value);
+
+    abstract void appendNull();
+
+    /**
+     * Release the spare capacity and build-only state once the last row was appended.
+     */
+    abstract void freeze();
+
+    static ColumnVector forValue(Object value) {
+        if (value instanceof Integer || value instanceof Long) {
+            return new LongVector(value instanceof Integer);
+        }
+        if (value instanceof Float || value instanceof Double) {
+            return new DoubleVector(value instanceof Float);
+        }
+        if (value instanceof String) {
+            return new DictionaryVector();
+        }
+        return new ObjectVector();
+    }
+
+    static int grow(int capacity, int needed) {
+        return Math.max(needed, capacity < INITIAL_CAPACITY ? INITIAL_CAPACITY : capacity + (capacity >> 1));
+    }
+
+    /**
+     * INT or BIGINT column; {@link #get(int)} returns {@link Integer} or {@link Long} accordingly.
+     */
+    public static final class LongVector extends ColumnVector {
+
+        private final boolean intValued;
+        private long[] values = new long[0];
+
+        LongVector(boolean intValued) {
+            this.intValued = intValued;
+        }
+
+        @Override
+        public Type getType() {
+            return Type.LONG;
+        }
+
+        public long getLong(int row) {
+            return values[row];
+        }
+
+        @Override
+        Object value(int row) {
+            // Not a conditional expression: numeric promotion would turn both branches into Long
+            if (intValued) {
+                return (int) values[row];
+            }
+            return values[row];
+        }
+
+        @Override
+        boolean accepts(Object value) {
+            return intValued ? value instanceof Integer : value instanceof Long;
+        }
+
+        @Override
+        void appendValue(Object value) {
+            ensureCapacity();
+            values[size++] = ((Number) value).longValue();
+        }
+
+        @Override
+        void appendNull() {
+            ensureCapacity();
+            nulls.set(size++);
+        }
+
+        @Override
+        void freeze() {
+            if (values.length > size) {
+                values = Arrays.copyOf(values, size);
+            }
+        }
+
+        private void ensureCapacity() {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, grow(values.length, size + 1));
+            }
+        }
+    }
+
+    /**
+     * FLOAT or DOUBLE column; {@link #get(int)} returns {@link Float} or {@link Double} accordingly.
+     */
+    public static final class DoubleVector extends ColumnVector {
+
+        private final boolean floatValued;
+        private double[] values = new double[0];
+
+        DoubleVector(boolean floatValued) {
+            this.floatValued = floatValued;
+        }
+
+        @Override
+        public Type getType() {
+            return Type.DOUBLE;
+        }
+
+        public double getDouble(int row) {
+            return values[row];
+        }
+
+        @Override
+        Object value(int row) {
+            if (floatValued) {
+                return (float) values[row];
+            }
+            return values[row];
+        }
+
+        @Override
+        boolean accepts(Object value) {
+            return floatValued ? value instanceof Float : value instanceof Double;
+        }
+
+        @Override
+        void appendValue(Object value) {
+            ensureCapacity();
+            values[size++] = ((Number) value).doubleValue();
+        }
+
+        @Override
+        void appendNull() {
+            ensureCapacity();
+            nulls.set(size++);
+        }
+
+        @Override
+        void freeze() {
+            if (values.length > size) {
+                values = Arrays.copyOf(values, size);
+            }
+        }
+
+        private void ensureCapacity() {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, grow(values.length, size + 1));
+            }
+        }
+    }
+
+    /**
+     * String column stored as codes into a dictionary of distinct values. Stops accepting new values
+     * (and is turned into an {@link ObjectVector} by the builder) once the dictionary gets too large
+     * or most values turn out to be distinct.
+     */
+    public static final class DictionaryVector extends ColumnVector {
+
+        static final int MAX_DICTIONARY_SIZE = 1 << 16;
+
+        /** Rows after which a dictionary holding more than half of the values as distinct entries is dropped */
+        static final int CARDINALITY_CHECK_ROWS = 1024;
+
+        private final List<String> dictionary = new ArrayList<>();
+        private Map<String, Integer> codesByValue = new HashMap<>();
+        private int[] codes = new int[0];
+
+        @Override
+        public Type getType() {
+            return Type.STRING;
+        }
+
+        /**
+         * Distinct values, indexed by code.
+         */
+        public List<String> getDictionary() {
+            return Collections.unmodifiableList(dictionary);
+        }
+
+        /**
+         * Dictionary code of the row; undefined for null rows.
+         */
+        public int getCode(int row) {
+            return codes[row];
+        }
+
+        @Override
+        Object value(int row) {
+            return dictionary.get(codes[row]);
+        }
+
+        @Override
+        boolean accepts(Object value) {
+            if (!(value instanceof String text)) {
+                return false;
+            }
+            if (codesByValue.containsKey(text)) {
+                return true;
+            }
+            return dictionary.size() < MAX_DICTIONARY_SIZE
+                    && (size < CARDINALITY_CHECK_ROWS || dictionary.size() <= size / 2);
+        }
+
+        @Override
+        void appendValue(Object value) {
+            ensureCapacity();
+            codes[size++] = codesByValue.computeIfAbsent((String) value, v -> {
+                dictionary.add(v);
+                return dictionary.size() - 1;
+            });
+        }
+
+        @Override
+        void appendNull() {
+            ensureCapacity();
+            nulls.set(size++);
+        }
+
+        @Override
+        void freeze() {
+            codesByValue = null;
+            if (codes.length > size) {
+                codes = Arrays.copyOf(codes, size);
+            }
+        }
+
+        private void ensureCapacity() {
+            if (size == codes.length) {
+                codes = Arrays.copyOf(codes, grow(codes.length, size + 1));
+            }
+        }
+    }
+
+    /**
+     * Column of arbitrary values, e.g. decimals, dates or byte arrays, and the fallback for mixed types.
+     */
+    public static final class ObjectVector extends ColumnVector {
+
+        private Object[] values = new Object[0];
+
+        static ObjectVector copyOf(ColumnVector source) {
+            ObjectVector copy = new ObjectVector();
+            copy.values = new Object[grow(0, source.size)];
+            for (int row = 0; row < source.size; row++) {
+                copy.values[row] = source.get(row);
+            }
+            copy.nulls.or(source.nulls);
+            copy.size = source.size;
+            return copy;
+        }
+
+        static ObjectVector ofNulls(int count) {
+            ObjectVector vector = new ObjectVector();
+            vector.values = new Object[count];
+            vector.nulls.set(0, count);
+            vector.size = count;
+            return vector;
+        }
+
+        @Override
+        public Type getType() {
+            return Type.OBJECT;
+        }
+
+        @Override
+        Object value(int row) {
+            return values[row];
+        }
+
+        @Override
+        boolean accepts(Object value) {
+            return true;
+        }
+
+        @Override
+        void appendValue(Object value) {
+            ensureCapacity();
+            values[size++] = value;
+        }
+
+        @Override
+        void appendNull() {
+            ensureCapacity();
+            nulls.set(size++);
+        }
+
+        @Override
+        void freeze() {
+            if (values.length > size) {
+                values = Arrays.copyOf(values, size);
+            }
+        }
+
+        private void ensureCapacity() {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, grow(values.length, size + 1));
+            }
+        }
+    }
+}
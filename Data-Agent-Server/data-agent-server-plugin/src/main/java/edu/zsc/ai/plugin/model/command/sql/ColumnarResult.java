@@ -0,0 +1,148 @@
+package edu.zsc.ai.plugin.model.command.sql;
+
+import edu.zsc.ai.plugin.model.command.RowConsumer;
+
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.RandomAccess;
+
+/**
+ * Query result held column by column in {@link ColumnVector}s instead of one boxed list per row.
+ *
+ * <p>{@link #asRows()} exposes the result as the usual list of rows without copying: each row is a view
+ * created on access, so serializing it (e.g. with Jackson) never materializes all rows at once.
+ */
+public final class ColumnarResult {
+
+    private final List<String> headers;
+    private final List<ColumnVector> columns;
+    private final int rowCount;
+
+    private ColumnarResult(List<String> headers, List<ColumnVector> columns, int rowCount) {
+        this.headers = headers;
+        this.columns = columns;
+        this.rowCount = rowCount;
+    }
+
+    public List<String> getHeaders() {
+        return headers;
+    }
+
+    public List<ColumnVector> getColumns() {
+        return columns;
+    }
+
+    public int getRowCount() {
+        return rowCount;
+    }
+
+    public Object getValue(int row, int column) {
+        return columns.get(column).get(row);
+    }
+
+    /**
+     * Read-only row view of the result; rows are created on access and not retained.
+     */
+    public List<List<Object>> asRows() {
+        return new RowsView();
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    private final class RowsView extends AbstractList<List<Object>> implements RandomAccess {
+
+        @Override
+        public List<Object> get(int row) {
+            if (row < 0 || row >= rowCount) {
+                throw new IndexOutOfBoundsException("Row " + row + " out of " + rowCount);
+            }
+            return new RowView(row);
+        }
+
+        @Override
+        public int size() {
+            return rowCount;
+        }
+    }
+
+    private final class RowView extends AbstractList<Object> implements RandomAccess {
+
+        private final int row;
+
+        private RowView(int row) {
+            this.row = row;
+        }
+
+        @Override
+        public Object get(int column) {
+            return columns.get(column).get(row);
+        }
+
+        @Override
+        public int size() {
+            return columns.size();
+        }
+    }
+
+    /**
+     * Collects rows into column vectors. A column's type is picked from its first non-null value
+     * and widened to objects when a later value does not fit.
+     */
+    public static final class Builder implements RowConsumer {
+
+        private List<String> headers = List.of();
+        private ColumnVector[] vectors = new ColumnVector[0];
+        private int rowCount;
+
+        private Builder() {
+        }
+
+        @Override
+        public void onHeaders(List<String> headers) {
+            this.headers = Collections.unmodifiableList(new ArrayList<>(headers));
+            this.vectors = new ColumnVector[headers.size()];
+            this.rowCount = 0;
+        }
+
+        @Override
+        public boolean onRow(List<Object> row) {
+            for (int column = 0; column < vectors.length; column++) {
+                Object value = column < row.size() ? row.get(column) : null;
+                ColumnVector vector = vectors[column];
+                if (value == null) {
+                    if (vector != null) {
+                        vector.appendNull();
+                    }
+                    // Until the first value decides the type, leading nulls are only counted by rowCount
+                    continue;
+                }
+                if (vector == null) {
+                    vector = ColumnVector.forValue(value);
+                    for (int i = 0; i < rowCount; i++) {
+                        vector.appendNull();
+                    }
+                } else if (!vector.accepts(value)) {
+                    vector = ColumnVector.ObjectVector.copyOf(vector);
+                }
+                vector.appendValue(value);
+                vectors[column] = vector;
+            }
+            rowCount++;
+            return true;
+        }
+
+        public ColumnarResult build() {
+            List<ColumnVector> columns = new ArrayList<>(vectors.length);
+            for (ColumnVector vector : vectors) {
+                ColumnVector column = vector != null ? vector : ColumnVector.ObjectVector.ofNulls(rowCount);
+                column.freeze();
+                columns.add(column);
+            }
+            return new ColumnarResult(headers, Collections.unmodifiableList(columns), rowCount);
+        }
+    }
+}
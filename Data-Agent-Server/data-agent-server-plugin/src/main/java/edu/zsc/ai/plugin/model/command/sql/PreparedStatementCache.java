@@ -0,0 +1,115 @@
+package edu.zsc.ai.plugin.model.command.sql;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Bounded LRU cache of prepared statements per physical connection, keyed by SQL text.
+ * Statements stay open while cached; the least recently used one is closed when a connection's cache is full.
+ *
+ * <p>Entries reference their connection, so {@link #closeAll(Connection)} must be called
+ * before the connection is closed for good.
+ */
+final class PreparedStatementCache {
+
+    /**
+     * Prepares a statement on a cache miss.
+     */
+    @FunctionalInterface
+    interface Preparer {
+        PreparedStatement prepare(Connection connection, String sql) throws SQLException;
+    }
+
+    private static final Logger log = LoggerFactory.getLogger(PreparedStatementCache.class);
+
+    private final int maxPerConnection;
+    private final Preparer preparer;
+
+    // Guarded by this; each per-connection map is guarded by itself
+    private final Map<Connection, Map<String, PreparedStatement>> caches = new IdentityHashMap<>();
+
+    PreparedStatementCache(int maxPerConnection) {
+        this(maxPerConnection, Connection::prepareStatement);
+    }
+
+    PreparedStatementCache(int maxPerConnection, Preparer preparer) {
+        this.maxPerConnection = maxPerConnection;
+        this.preparer = preparer;
+    }
+
+    /**
+     * Get the cached statement for the SQL, preparing and caching it on a miss or when the cached one was closed.
+     */
+    PreparedStatement prepare(Connection connection, String sql) throws SQLException {
+        Map<String, PreparedStatement> cache = cacheOf(connection);
+        synchronized (cache) {
+            PreparedStatement statement = cache.get(sql);
+            if (statement != null && !statement.isClosed()) {
+                return statement;
+            }
+            statement = preparer.prepare(connection, sql);
+            cache.put(sql, statement);
+            return statement;
+        }
+    }
+
+    /**
+     * Drop and close a statement that failed and may no longer be usable.
+     */
+    void evict(Connection connection, String sql, PreparedStatement statement) {
+        Map<String, PreparedStatement> cache;
+        synchronized (this) {
+            cache = caches.get(connection);
+        }
+        if (cache != null) {
+            synchronized (cache) {
+                cache.remove(sql, statement);
+            }
+        }
+        closeQuietly(statement);
+    }
+
+    /**
+     * Close and forget every cached statement of the connection.
+     */
+    void closeAll(Connection connection) {
+        Map<String, PreparedStatement> cache;
+        synchronized (this) {
+            cache = caches.remove(connection);
+        }
+        if (cache != null) {
+            synchronized (cache) {
+                cache.values().forEach(PreparedStatementCache::closeQuietly);
+                cache.clear();
+            }
+        }
+    }
+
+    private synchronized Map<String, PreparedStatement> cacheOf(Connection connection) {
+        return caches.computeIfAbsent(connection, c -> new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, PreparedStatement> eldest) {
+                if (size() > maxPerConnection) {
+                    closeQuietly(eldest.getValue());
+                    return true;
+                }
+                return false;
+            }
+        });
+    }
+
+    private static void closeQuietly(PreparedStatement statement) {
+        try {
+            statement.close();
+        } catch (SQLException e) {
+            log.debug("Failed to close cached prepared statement: {}", e.getMessage());
+        }
+    }
+}
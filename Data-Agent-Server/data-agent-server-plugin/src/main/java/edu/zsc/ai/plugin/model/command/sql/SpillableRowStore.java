@@ -0,0 +1,596 @@
+package edu.zsc.ai.plugin.model.command.sql;
+
+import edu.zsc.ai.plugin.model.command.RowConsumer;
+import edu.zsc.ai.plugin.value.LobHandle;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.IntBinaryOperator;
+
+/**
+ * Row store that keeps the first rows of a result on the heap and spills the rest to a temporary file,
+ * so a large result is bounded by disk rather than memory.
+ *
+ * <p>Spilled rows are written in a compact binary format (a type tag per value) and indexed by file offset.
+ * Once {@link #seal() sealed}, the file is memory-mapped in segments and any row can be read back directly,
+ * which serves pages, sorted pages ({@link #getRows(int, int, int, boolean)}) and full scans
+ * ({@link #forEachRow(RowConsumer)}) without running the query again.
+ *
+ * <p>Values are restored with their type for null, Byte, Short, Integer, Long, Float, Double, Boolean, String,
+ * byte[], BigInteger, BigDecimal, LocalDate, LocalTime and LocalDateTime, and {@link LobHandle}s without their
+ * content. Other values are kept as their string form, in memory as well as on disk, so a row reads the same
+ * whether or not it was spilled.
+ * Rows are written by one thread; after sealing, reads are safe from any thread, also concurrently with
+ * {@link #close()}, which deletes the file: pages requested after closing fail with {@link IllegalStateException}.
+ */
+public final class SpillableRowStore implements RowConsumer, Closeable {
+
+    /** Upper bound of one mapped segment; rows never span two segments */
+    private static final long SEGMENT_SIZE = 1L << 30;
+
+    private static final byte TAG_NULL = 0;
+    private static final byte TAG_INT = 1;
+    private static final byte TAG_LONG = 2;
+    private static final byte TAG_FLOAT = 3;
+    private static final byte TAG_DOUBLE = 4;
+    private static final byte TAG_TRUE = 5;
+    private static final byte TAG_FALSE = 6;
+    private static final byte TAG_STRING = 7;
+    private static final byte TAG_BYTES = 8;
+    private static final byte TAG_DECIMAL = 9;
+    private static final byte TAG_LOB = 10;
+    private static final byte TAG_SHORT = 11;
+    private static final byte TAG_BYTE = 12;
+    private static final byte TAG_BIG_INTEGER = 13;
+    private static final byte TAG_DATE = 14;
+    private static final byte TAG_TIME = 15;
+    private static final byte TAG_DATE_TIME = 16;
+
+    private final Path directory;
+    private final long memoryThresholdBytes;
+
+    private List<String> headers = List.of();
+    private final List<List<Object>> memoryRows = new ArrayList<>();
+    private long memoryBytes;
+
+    private Path file;
+    private OutputStream output;
+    private final RowEncoder encoder = new RowEncoder();
+    private long fileLength;
+    /** Start offset of every spilled row, plus the file length at index spilledRows */
+    private long[] offsets = new long[16];
+    private int spilledRows;
+    /** First spilled row of each segment */
+    private int[] segmentFirstRows = new int[1];
+    private int segmentCount;
+
+    private volatile boolean sealed;
+    private volatile boolean closed;
+    private MappedByteBuffer[] segments;
+    private long[] segmentStarts;
+
+    private int sortColumn = -1;
+    private boolean sortDescending;
+    private int[] sortOrder;
+
+    /**
+     * @param directory            where the spill file is created; created if missing
+     * @param memoryThresholdBytes approximate heap bytes of rows kept in memory before spilling
+     */
+    public SpillableRowStore(Path directory, long memoryThresholdBytes) {
+        this.directory = directory;
+        this.memoryThresholdBytes = memoryThresholdBytes;
+    }
+
+    @Override
+    public void onHeaders(List<String> headers) {
+        this.headers = Collections.unmodifiableList(new ArrayList<>(headers));
+    }
+
+    @Override
+    public boolean onRow(List<Object> row) {
+        if (sealed) {
+            throw new IllegalStateException("Row store is sealed");
+        }
+        if (file == null && memoryBytes < memoryThresholdBytes) {
+            row = normalized(row);
+            memoryRows.add(row);
+            for (Object value : row) {
+                memoryBytes += estimateHeapSize(value);
+            }
+            return true;
+        }
+        try {
+            spill(row);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to spill result row", e);
+        }
+        return true;
+    }
+
+    /**
+     * Finish writing and map the spill file for reading. Must be called before rows are read.
+     */
+    public synchronized void seal() {
+        if (sealed) {
+            return;
+        }
+        try {
+            if (output != null) {
+                output.close();
+                segmentFirstRows[segmentCount] = spilledRows;
+                offsets[spilledRows] = fileLength;
+                segments = new MappedByteBuffer[segmentCount];
+                segmentStarts = new long[segmentCount];
+                try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+                    for (int s = 0; s < segmentCount; s++) {
+                        long start = offsets[segmentFirstRows[s]];
+                        long end = offsets[segmentFirstRows[s + 1]];
+                        segmentStarts[s] = start;
+                        segments[s] = channel.map(FileChannel.MapMode.READ_ONLY, start, end - start);
+                    }
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to map spilled result", e);
+        } finally {
+            sealed = true;
+        }
+    }
+
+    public List<String> getHeaders() {
+        return headers;
+    }
+
+    public int getRowCount() {
+        return memoryRows.size() + spilledRows;
+    }
+
+    /**
+     * Number of rows written to disk.
+     */
+    public int getSpilledRowCount() {
+        return spilledRows;
+    }
+
+    /**
+     * Rows {@code [from, to)} in result order.
+     */
+    public synchronized List<List<Object>> getRows(int from, int to) {
+        checkRange(from, to);
+        List<List<Object>> rows = new ArrayList<>(to - from);
+        for (int row = from; row < to; row++) {
+            rows.add(getRow(row));
+        }
+        return rows;
+    }
+
+    /**
+     * Rows {@code [from, to)} of the result sorted by one column, nulls first. The sort order is computed
+     * from the stored rows on first use and kept for further pages with the same column and direction;
+     * only the sort column is decoded from spilled rows to compute it.
+     */
+    public synchronized List<List<Object>> getRows(int from, int to, int column, boolean descending) {
+        checkRange(from, to);
+        if (column < 0 || column >= headers.size()) {
+            throw new IllegalArgumentException("No column " + column);
+        }
+        int[] order = sortOrder(column, descending);
+        List<List<Object>> rows = new ArrayList<>(to - from);
+        for (int i = from; i < to; i++) {
+            rows.add(getRow(order[i]));
+        }
+        return rows;
+    }
+
+    /**
+     * Hand every row to the consumer in result order, e.g. for an export; stops when the consumer returns false.
+     */
+    public void forEachRow(RowConsumer consumer) {
+        checkSealed();
+        consumer.onHeaders(headers);
+        for (int row = 0; row < getRowCount(); row++) {
+            if (!consumer.onRow(getRow(row))) {
+                return;
+            }
+        }
+    }
+
+    @Override
+    public synchronized void close() {
+        sealed = true;
+        closed = true;
+        segments = null;
+        memoryRows.clear();
+        sortOrder = null;
+        if (file == null) {
+            return;
+        }
+        try {
+            if (output != null) {
+                output.close();
+            }
+            // Mappings are released by the GC; the file can go now on POSIX file systems
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            file.toFile().deleteOnExit();
+        }
+    }
+
+    private List<Object> getRow(int row) {
+        int memoryCount = memoryRows.size();
+        if (row < memoryCount) {
+            return memoryRows.get(row);
+        }
+        int spilled = row - memoryCount;
+        int segment = segmentOf(spilled);
+        ByteBuffer buffer = segments[segment].duplicate();
+        buffer.position((int) (offsets[spilled] - segmentStarts[segment]));
+        return decode(buffer);
+    }
+
+    /**
+     * One value of a row, skipping over the others without decoding them.
+     */
+    private Object getValue(int row, int column) {
+        int memoryCount = memoryRows.size();
+        if (row < memoryCount) {
+            return memoryRows.get(row).get(column);
+        }
+        int spilled = row - memoryCount;
+        int segment = segmentOf(spilled);
+        ByteBuffer buffer = segments[segment].duplicate();
+        buffer.position((int) (offsets[spilled] - segmentStarts[segment]));
+        int columns = buffer.getInt();
+        if (column >= columns) {
+            return null;
+        }
+        for (int i = 0; i < column; i++) {
+            skipValue(buffer);
+        }
+        return decodeValue(buffer);
+    }
+
+    private int segmentOf(int spilledRow) {
+        int index = Arrays.binarySearch(segmentFirstRows, 0, segmentCount, spilledRow);
+        return index >= 0 ? index : -index - 2;
+    }
+
+    private int[] sortOrder(int column, boolean descending) {
+        if (sortOrder != null && sortColumn == column && sortDescending == descending) {
+            return sortOrder;
+        }
+        int count = getRowCount();
+        Object[] keys = new Object[count];
+        int[] order = new int[count];
+        for (int row = 0; row < count; row++) {
+            keys[row] = getValue(row, column);
+            order[row] = row;
+        }
+        IntBinaryOperator comparator = descending
+                ? (a, b) -> compareValues(keys[b], keys[a])
+                : (a, b) -> compareValues(keys[a], keys[b]);
+        sortIndices(order, comparator);
+        sortColumn = column;
+        sortDescending = descending;
+        sortOrder = order;
+        return order;
+    }
+
+    /**
+     * Stable bottom-up merge sort of row indexes, so equal keys keep result order without boxing the indexes.
+     */
+    private static void sortIndices(int[] order, IntBinaryOperator comparator) {
+        int count = order.length;
+        int[] source = order;
+        int[] target = new int[count];
+        for (int width = 1; width < count; width *= 2) {
+            for (int lo = 0; lo < count; lo += 2 * width) {
+                int mid = Math.min(lo + width, count);
+                int hi = Math.min(lo + 2 * width, count);
+                int i = lo;
+                int j = mid;
+                for (int k = lo; k < hi; k++) {
+                    target[k] = i < mid && (j >= hi || comparator.applyAsInt(source[i], source[j]) <= 0)
+                            ? source[i++]
+                            : source[j++];
+                }
+            }
+            int[] swap = source;
+            source = target;
+            target = swap;
+        }
+        if (source != order) {
+            System.arraycopy(source, 0, order, 0, count);
+        }
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static int compareValues(Object a, Object b) {
+        if (a == b) {
+            return 0;
+        }
+        if (a == null) {
+            return -1;
+        }
+        if (b == null) {
+            return 1;
+        }
+        if (a.getClass() == b.getClass() && a instanceof Comparable comparable) {
+            return comparable.compareTo(b);
+        }
+        if (a instanceof Number x && b instanceof Number y) {
+            return Double.compare(x.doubleValue(), y.doubleValue());
+        }
+        return String.valueOf(a).compareTo(String.valueOf(b));
+    }
+
+    private void checkRange(int from, int to) {
+        checkSealed();
+        if (from < 0 || to > getRowCount() || from > to) {
+            throw new IndexOutOfBoundsException("Rows " + from + ".." + to + " out of " + getRowCount());
+        }
+    }
+
+    private void checkSealed() {
+        if (!sealed || closed || (segments == null && file != null)) {
+            throw new IllegalStateException("Row store is not sealed or already closed");
+        }
+    }
+
+    private void spill(List<Object> row) throws IOException {
+        if (output == null) {
+            Files.createDirectories(directory);
+            file = Files.createTempFile(directory, "sql-result-", ".rows");
+            output = new BufferedOutputStream(Files.newOutputStream(file, StandardOpenOption.WRITE), 1 << 16);
+        }
+        encoder.reset();
+        for (Object value : row) {
+            encoder.writeValue(value);
+        }
+        encoder.writeHeader(row.size());
+        int length = encoder.length();
+
+        ensureIndexCapacity();
+        if (spilledRows == 0 || fileLength + length - offsets[segmentFirstRows[segmentCount - 1]] > SEGMENT_SIZE) {
+            segmentFirstRows[segmentCount++] = spilledRows;
+        }
+        offsets[spilledRows++] = fileLength;
+        encoder.writeTo(output);
+        fileLength += length;
+    }
+
+    private void ensureIndexCapacity() {
+        // One extra slot each for the end markers written by seal()
+        if (spilledRows + 2 > offsets.length) {
+            offsets = Arrays.copyOf(offsets, offsets.length * 2);
+        }
+        if (segmentCount + 2 > segmentFirstRows.length) {
+            segmentFirstRows = Arrays.copyOf(segmentFirstRows, segmentFirstRows.length * 2);
+        }
+    }
+
+    private static List<Object> decode(ByteBuffer buffer) {
+        int columns = buffer.getInt();
+        List<Object> row = new ArrayList<>(columns);
+        for (int i = 0; i < columns; i++) {
+            row.add(decodeValue(buffer));
+        }
+        return row;
+    }
+
+    private static Object decodeValue(ByteBuffer buffer) {
+        byte tag = buffer.get();
+        return switch (tag) {
+            case TAG_NULL -> null;
+            case TAG_INT -> buffer.getInt();
+            case TAG_LONG -> buffer.getLong();
+            case TAG_FLOAT -> buffer.getFloat();
+            case TAG_DOUBLE -> buffer.getDouble();
+            case TAG_TRUE -> Boolean.TRUE;
+            case TAG_FALSE -> Boolean.FALSE;
+            case TAG_STRING -> new String(readBytes(buffer), StandardCharsets.UTF_8);
+            case TAG_BYTES -> readBytes(buffer);
+            case TAG_DECIMAL -> new BigDecimal(new String(readBytes(buffer), StandardCharsets.US_ASCII));
+            case TAG_LOB -> readLob(buffer);
+            case TAG_SHORT -> buffer.getShort();
+            case TAG_BYTE -> buffer.get();
+            case TAG_BIG_INTEGER -> new BigInteger(readBytes(buffer));
+            case TAG_DATE -> LocalDate.ofEpochDay(buffer.getLong());
+            case TAG_TIME -> LocalTime.ofNanoOfDay(buffer.getLong());
+            case TAG_DATE_TIME -> LocalDateTime.of(LocalDate.ofEpochDay(buffer.getLong()), LocalTime.ofNanoOfDay(buffer.getLong()));
+            default -> throw new IllegalStateException("Corrupt spill file: unknown tag " + tag);
+        };
+    }
+
+    private static void skipValue(ByteBuffer buffer) {
+        byte tag = buffer.get();
+        int skip = switch (tag) {
+            case TAG_NULL, TAG_TRUE, TAG_FALSE -> 0;
+            case TAG_BYTE -> Byte.BYTES;
+            case TAG_SHORT -> Short.BYTES;
+            case TAG_INT, TAG_FLOAT -> Integer.BYTES;
+            case TAG_LONG, TAG_DOUBLE, TAG_DATE, TAG_TIME -> Long.BYTES;
+            case TAG_DATE_TIME -> 2 * Long.BYTES;
+            case TAG_STRING, TAG_BYTES, TAG_DECIMAL, TAG_BIG_INTEGER -> buffer.getInt();
+            case TAG_LOB -> {
+                buffer.position(buffer.position() + 1 + Long.BYTES);
+                int contentTypeLength = buffer.getInt();
+                buffer.position(buffer.position() + contentTypeLength);
+                yield buffer.get() == 0 ? 0 : buffer.getInt();
+            }
+            default -> throw new IllegalStateException("Corrupt spill file: unknown tag " + tag);
+        };
+        buffer.position(buffer.position() + skip);
+    }
+
+    private static LobHandle readLob(ByteBuffer buffer) {
+        LobHandle.Kind kind = LobHandle.Kind.values()[buffer.get()];
+        long size = buffer.getLong();
+        String contentType = new String(readBytes(buffer), StandardCharsets.UTF_8);
+        String preview = buffer.get() == 0 ? null : new String(readBytes(buffer), StandardCharsets.UTF_8);
+        return LobHandle.of(kind, size, contentType, preview);
+    }
+
+    /**
+     * The row as it would read back from the spill file: LOB handles without their content, which is not
+     * kept, and values of types the file has no tag for as their string form
+     */
+    private static List<Object> normalized(List<Object> row) {
+        List<Object> copy = null;
+        for (int i = 0; i < row.size(); i++) {
+            Object value = row.get(i);
+            Object stored = value instanceof LobHandle lob ? lob.withoutContent()
+                    : isTagged(value) ? value
+                    : value.toString();
+            if (stored != value) {
+                if (copy == null) {
+                    copy = new ArrayList<>(row);
+                }
+                copy.set(i, stored);
+            }
+        }
+        return copy != null ? copy : row;
+    }
+
+    /**
+     * Whether a value is written with a type tag of its own rather than as a string
+     */
+    private static boolean isTagged(Object value) {
+        return value == null || value instanceof String || value instanceof Integer || value instanceof Long
+                || value instanceof Float || value instanceof Double || value instanceof Boolean
+                || value instanceof byte[] || value instanceof BigDecimal || value instanceof LobHandle
+                || value instanceof Short || value instanceof Byte || value instanceof BigInteger
+                || value instanceof LocalDate || value instanceof LocalTime || value instanceof LocalDateTime;
+    }
+
+    private static byte[] readBytes(ByteBuffer buffer) {
+        byte[] bytes = new byte[buffer.getInt()];
+        buffer.get(bytes);
+        return bytes;
+    }
+
+    /**
+     * Rough heap footprint of a value as returned by the executors, including its reference.
+     */
+    private static long estimateHeapSize(Object value) {
+        if (value == null) {
+            return 8;
+        }
+        if (value instanceof CharSequence text) {
+            return 48L + text.length() * 2L;
+        }
+        if (value instanceof byte[] bytes) {
+            return 24L + bytes.length;
+        }
+        return 24;
+    }
+
+    /**
+     * Encodes one row into a reusable buffer; the row header (column count) is placed in front once
+     * the values are written.
+     */
+    private static final class RowEncoder {
+
+        private static final int HEADER_SIZE = Integer.BYTES;
+
+        private ByteBuffer buffer = ByteBuffer.allocate(1024);
+
+        void reset() {
+            buffer.clear();
+            buffer.position(HEADER_SIZE);
+        }
+
+        void writeHeader(int columns) {
+            buffer.putInt(0, columns);
+        }
+
+        int length() {
+            return buffer.position();
+        }
+
+        void writeTo(OutputStream output) throws IOException {
+            output.write(buffer.array(), 0, buffer.position());
+        }
+
+        void writeValue(Object value) {
+            if (value == null) {
+                ensure(1).put(TAG_NULL);
+            } else if (value instanceof Integer v) {
+                ensure(5).put(TAG_INT).putInt(v);
+            } else if (value instanceof Long v) {
+                ensure(9).put(TAG_LONG).putLong(v);
+            } else if (value instanceof Float v) {
+                ensure(5).put(TAG_FLOAT).putFloat(v);
+            } else if (value instanceof Double v) {
+                ensure(9).put(TAG_DOUBLE).putDouble(v);
+            } else if (value instanceof Boolean v) {
+                ensure(1).put(v ? TAG_TRUE : TAG_FALSE);
+            } else if (value instanceof byte[] v) {
+                writeBytes(TAG_BYTES, v);
+            } else if (value instanceof BigDecimal v) {
+                writeBytes(TAG_DECIMAL, v.toString().getBytes(StandardCharsets.US_ASCII));
+            } else if (value instanceof Short v) {
+                ensure(3).put(TAG_SHORT).putShort(v);
+            } else if (value instanceof Byte v) {
+                ensure(2).put(TAG_BYTE).put(v);
+            } else if (value instanceof BigInteger v) {
+                writeBytes(TAG_BIG_INTEGER, v.toByteArray());
+            } else if (value instanceof LocalDate v) {
+                ensure(9).put(TAG_DATE).putLong(v.toEpochDay());
+            } else if (value instanceof LocalTime v) {
+                ensure(9).put(TAG_TIME).putLong(v.toNanoOfDay());
+            } else if (value instanceof LocalDateTime v) {
+                ensure(17).put(TAG_DATE_TIME).putLong(v.toLocalDate().toEpochDay()).putLong(v.toLocalTime().toNanoOfDay());
+            } else if (value instanceof LobHandle v) {
+                // Only the description: the content is fetched by row when needed
+                ensure(10).put(TAG_LOB).put((byte) v.getKind().ordinal()).putLong(v.getSize());
+                writeText(v.getContentType());
+                ensure(1).put((byte) (v.getPreview() != null ? 1 : 0));
+                if (v.getPreview() != null) {
+                    writeText(v.getPreview());
+                }
+            } else {
+                writeBytes(TAG_STRING, value.toString().getBytes(StandardCharsets.UTF_8));
+            }
+        }
+
+        private void writeText(String text) {
+            byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+            ensure(4 + bytes.length).putInt(bytes.length).put(bytes);
+        }
+
+        private void writeBytes(byte tag, byte[] bytes) {
+            ensure(5 + bytes.length).put(tag).putInt(bytes.length).put(bytes);
+        }
+
+        private ByteBuffer ensure(int bytes) {
+            if (buffer.remaining() < bytes) {
+                ByteBuffer larger = ByteBuffer.allocate(Math.max(buffer.capacity() * 2, buffer.position() + bytes));
+                buffer.flip();
+                larger.put(buffer);
+                buffer = larger;
+            }
+            return buffer;
+        }
+    }
+}
@@ -6,6 +6,8 @@ import lombok.Data;
 import lombok.NoArgsConstructor;
 
 import java.sql.Connection;
+import java.sql.Statement;
+import java.util.function.Consumer;
 
 @Data
 @AllArgsConstructor
@@ -27,6 +29,33 @@ public class SqlCommandRequest implements CommandRequest {
     /** PreparedStatement parameters, null or empty uses Statement */
     private Object[] params;
 
+    /** Rows fetched per round trip when streaming, null uses the executor default */
+    private Integer fetchSize;
+
+    /** Stop reading a query result after this many rows, null for no limit */
+    private Integer maxRows;
+
+    /** Stop reading a query result once the rows read take about this many bytes, null for no limit */
+    private Long maxBytes;
+
+    /**
+     * Collect a query result into column vectors ({@link SqlCommandResult#getColumnar()}) instead of one list
+     * per row; only applies when rows are collected, not when they are streamed to a consumer
+     */
+    private boolean columnar;
+
+    /**
+     * Return large BLOB/TEXT values as {@link edu.zsc.ai.plugin.value.LobHandle}s, for results whose rows the
+     * caller can give a locator to fetch the value by (table data pages); otherwise they are returned inline
+     */
+    private boolean lobHandles;
+
+    /** Statement timeout in seconds, null or 0 for none */
+    private Integer queryTimeoutSeconds;
+
+    /** Called with the statement right before it executes, e.g. to make it cancellable from another thread */
+    private Consumer<Statement> statementListener;
+
     @Override
     public String getCommand() {
         return originalSql;
@@ -43,4 +72,14 @@ public class SqlCommandRequest implements CommandRequest {
         request.setNeedTransaction(false);
         return request;
     }
+
+    /**
+     * Parameterized request without transaction; runs as a prepared statement cached per connection.
+     */
+    public static SqlCommandRequest ofParameterized(Connection connection, String sql, String database, String schema,
+                                                    Object... params) {
+        SqlCommandRequest request = ofWithoutTransaction(connection, sql, sql, database, schema);
+        request.setParams(params);
+        return request;
+    }
 }
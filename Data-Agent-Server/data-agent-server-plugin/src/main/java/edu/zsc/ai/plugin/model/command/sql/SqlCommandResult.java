@@ -24,6 +24,15 @@ public class SqlCommandResult extends BaseCommandResult implements CommandResult
 
     private List<List<Object>> rows;
 
+    /** Query result by column when the request asked for it; {@link #rows} is then a row view over it */
+    private ColumnarResult columnar;
+
+    /** Whether reading stopped at maxRows/maxBytes before the end of the result */
+    private boolean truncated;
+
+    /** Estimated number of rows of the whole result when truncated, null otherwise */
+    private Long estimatedTotalRows;
+
     /**
      * Get value from a row by column name. Use this instead of row.get(index) to avoid
      * magic indices when column order may vary.
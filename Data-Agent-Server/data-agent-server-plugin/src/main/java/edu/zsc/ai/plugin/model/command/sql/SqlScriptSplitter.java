@@ -0,0 +1,165 @@
+package edu.zsc.ai.plugin.model.command.sql;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Splits a SQL script into statements on the delimiter, ignoring delimiters inside quoted strings,
+ * quoted identifiers and comments. Comments are kept in the statement text; statements that contain
+ * nothing but whitespace and comments are dropped.
+ *
+ * <p>Dialect differences are switched on per instance: {@code #} line comments and backslash escapes
+ * inside strings (MySQL), and the client-side {@code DELIMITER} command used around routine bodies.
+ */
+public final class SqlScriptSplitter {
+
+    public static final String DEFAULT_DELIMITER = ";";
+
+    private static final String DELIMITER_COMMAND = "DELIMITER";
+
+    /** Standard SQL: {@code --} and block comments, quotes escaped by doubling */
+    public static final SqlScriptSplitter STANDARD = new SqlScriptSplitter(false, false, false);
+
+    private final boolean hashComments;
+    private final boolean backslashEscapes;
+    private final boolean delimiterCommand;
+
+    /**
+     * @param hashComments     treat {@code #} as the start of a line comment
+     * @param backslashEscapes a backslash escapes the next character inside quotes
+     * @param delimiterCommand honor {@code DELIMITER xx} lines that change the statement delimiter
+     */
+    public SqlScriptSplitter(boolean hashComments, boolean backslashEscapes, boolean delimiterCommand) {
+        this.hashComments = hashComments;
+        this.backslashEscapes = backslashEscapes;
+        this.delimiterCommand = delimiterCommand;
+    }
+
+    public List<String> split(String script) {
+        List<String> statements = new ArrayList<>();
+        if (script == null || script.isBlank()) {
+            return statements;
+        }
+        String delimiter = DEFAULT_DELIMITER;
+        StringBuilder current = new StringBuilder();
+        boolean hasCode = false;
+        boolean lineStart = true;
+        int length = script.length();
+        int i = 0;
+        while (i < length) {
+            char c = script.charAt(i);
+
+            if (lineStart && delimiterCommand && !hasCode && (c == 'D' || c == 'd')) {
+                int lineEnd = lineEnd(script, i);
+                String line = script.substring(i, lineEnd).trim();
+                if (isDelimiterCommand(line)) {
+                    String next = line.substring(DELIMITER_COMMAND.length()).trim();
+                    if (!next.isEmpty()) {
+                        delimiter = next;
+                    }
+                    current.setLength(0);
+                    i = lineEnd;
+                    continue;
+                }
+            }
+
+            if (script.startsWith(delimiter, i)) {
+                addStatement(statements, current, hasCode);
+                current.setLength(0);
+                hasCode = false;
+                i += delimiter.length();
+                lineStart = false;
+                continue;
+            }
+
+            int end;
+            if (c == '\'' || c == '"' || c == '`') {
+                end = quotedEnd(script, i, c);
+                hasCode = true;
+            } else if (c == '-' && i + 1 < length && script.charAt(i + 1) == '-'
+                    || c == '#' && hashComments) {
+                end = lineEnd(script, i);
+            } else if (c == '/' && i + 1 < length && script.charAt(i + 1) == '*') {
+                int close = script.indexOf("*/", i + 2);
+                end = close < 0 ? length : close + 2;
+            } else {
+                end = i + 1;
+                if (!Character.isWhitespace(c)) {
+                    hasCode = true;
+                }
+            }
+            current.append(script, i, end);
+            lineStart = c == '\n' || (lineStart && Character.isWhitespace(c));
+            i = end;
+        }
+        addStatement(statements, current, hasCode);
+        return statements;
+    }
+
+    /**
+     * First keyword of a statement, upper-cased, skipping leading whitespace and comments; empty if none.
+     */
+    public String firstKeyword(String sql) {
+        int length = sql.length();
+        int i = 0;
+        while (i < length) {
+            char c = sql.charAt(i);
+            if (Character.isWhitespace(c)) {
+                i++;
+            } else if (c == '-' && i + 1 < length && sql.charAt(i + 1) == '-' || c == '#' && hashComments) {
+                i = lineEnd(sql, i);
+            } else if (c == '/' && i + 1 < length && sql.charAt(i + 1) == '*') {
+                int close = sql.indexOf("*/", i + 2);
+                i = close < 0 ? length : close + 2;
+            } else {
+                int start = i;
+                while (i < length && Character.isLetter(sql.charAt(i))) {
+                    i++;
+                }
+                return sql.substring(start, i).toUpperCase(Locale.ROOT);
+            }
+        }
+        return "";
+    }
+
+    private static void addStatement(List<String> statements, StringBuilder current, boolean hasCode) {
+        if (hasCode) {
+            statements.add(current.toString().trim());
+        }
+    }
+
+    private static boolean isDelimiterCommand(String line) {
+        return line.length() > DELIMITER_COMMAND.length()
+                && line.regionMatches(true, 0, DELIMITER_COMMAND, 0, DELIMITER_COMMAND.length())
+                && Character.isWhitespace(line.charAt(DELIMITER_COMMAND.length()));
+    }
+
+    private static int lineEnd(String script, int from) {
+        int newline = script.indexOf('\n', from);
+        return newline < 0 ? script.length() : newline;
+    }
+
+    /**
+     * Index just past the closing quote; quotes are escaped by doubling (and by backslash when enabled).
+     */
+    private int quotedEnd(String script, int open, char quote) {
+        int length = script.length();
+        int i = open + 1;
+        while (i < length) {
+            char c = script.charAt(i);
+            if (c == '\\' && backslashEscapes && quote != '`') {
+                i += 2;
+            } else if (c == quote) {
+                if (i + 1 < length && script.charAt(i + 1) == quote) {
+                    i += 2;
+                } else {
+                    return i + 1;
+                }
+            } else {
+                i++;
+            }
+        }
+        return length;
+    }
+}
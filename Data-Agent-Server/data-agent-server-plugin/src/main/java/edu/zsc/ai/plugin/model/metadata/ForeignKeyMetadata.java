@@ -0,0 +1,15 @@
+package edu.zsc.ai.plugin.model.metadata;
+
+import java.util.List;
+
+/**
+ * @param referencedCatalog database of the referenced table, null when it is the same as the referencing table's
+ */
+public record ForeignKeyMetadata(
+        String name,
+        List<String> columns,
+        String referencedCatalog,
+        String referencedTable,
+        List<String> referencedColumns
+) {
+}
@@ -0,0 +1,52 @@
+package edu.zsc.ai.plugin.model.metadata;
+
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * Cheap per-object fingerprints of a schema, compared between polls to find the objects whose definition changed
+ * without reading their metadata.
+ *
+ * @param objects      fingerprint by object key ({@link #key(String, String)})
+ * @param rowEstimates row estimate by table name; these move with the data, not with the definition
+ */
+public record SchemaFingerprints(Map<String, String> objects, Map<String, Long> rowEstimates) {
+
+    public static final String TABLE = "TABLE";
+    public static final String ROUTINE = "ROUTINE";
+    public static final String TRIGGER = "TRIGGER";
+
+    public SchemaFingerprints {
+        objects = Map.copyOf(objects);
+        rowEstimates = Map.copyOf(rowEstimates);
+    }
+
+    public static String key(String kind, String name) {
+        return kind + ":" + name;
+    }
+
+    /**
+     * Names of the objects of a kind that are new or whose fingerprint moved since {@code previous}
+     */
+    public Set<String> changedSince(SchemaFingerprints previous, String kind) {
+        String prefix = kind + ":";
+        Set<String> changed = new HashSet<>();
+        objects.forEach((key, fingerprint) -> {
+            if (key.startsWith(prefix) && !Objects.equals(fingerprint, previous.objects().get(key))) {
+                changed.add(key.substring(prefix.length()));
+            }
+        });
+        return changed;
+    }
+
+    /**
+     * Whether any object of a kind was added, changed or removed since {@code previous}
+     */
+    public boolean movedSince(SchemaFingerprints previous, String kind) {
+        String prefix = kind + ":";
+        return !changedSince(previous, kind).isEmpty()
+                || previous.objects().keySet().stream().anyMatch(key -> key.startsWith(prefix) && !objects.containsKey(key));
+    }
+}
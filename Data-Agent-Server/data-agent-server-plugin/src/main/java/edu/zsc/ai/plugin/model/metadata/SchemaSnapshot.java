@@ -0,0 +1,345 @@
+package edu.zsc.ai.plugin.model.metadata;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeMap;
+
+/**
+ * Immutable metadata of a whole catalog/schema: its tables and views with their columns, indexes and foreign keys,
+ * plus its routines and triggers. Built once from a few bulk queries and then read by any number of callers.
+ *
+ * <p>Names, type names and other repeated strings are interned per snapshot, so the thousands of "id", "varchar"
+ * or "" values of a large schema are each held once.
+ *
+ * <p>When the plugin fingerprints the schema, a snapshot can be refreshed from the previous one, reloading only the
+ * objects whose fingerprint moved. Each refresh that changes something is a new generation, and every object carries
+ * the generation it last changed in as its version.
+ */
+public final class SchemaSnapshot {
+
+    private final String catalog;
+    private final String schema;
+    private final long loadedAtMillis;
+    private final long generation;
+    private final SchemaFingerprints fingerprints;
+    private final Map<String, Long> versions;
+    private final Map<String, TableSnapshot> tables;
+    private final Map<String, TableSnapshot> tablesByLowerName;
+    private final List<FunctionMetadata> functions;
+    private final List<ProcedureMetadata> procedures;
+    private final List<TriggerMetadata> triggers;
+
+    private SchemaSnapshot(Builder builder) {
+        this.catalog = builder.catalog;
+        this.schema = builder.schema;
+        this.loadedAtMillis = System.currentTimeMillis();
+        this.fingerprints = builder.fingerprints;
+        SchemaSnapshot previous = builder.previous;
+        boolean moved = previous == null || fingerprints == null || previous.fingerprints == null
+                || !previous.fingerprints.objects().equals(fingerprints.objects());
+        this.generation = previous == null ? 1 : previous.generation + (moved ? 1 : 0);
+        Map<String, Long> objectVersions = new HashMap<>();
+        if (fingerprints != null) {
+            fingerprints.objects().forEach((key, fingerprint) -> {
+                Long version = previous != null && previous.fingerprints != null
+                        && fingerprint.equals(previous.fingerprints.objects().get(key))
+                        ? previous.versions.get(key)
+                        : null;
+                objectVersions.put(key, version != null ? version : generation);
+            });
+        }
+        this.versions = Collections.unmodifiableMap(objectVersions);
+        Map<String, TableSnapshot> byName = new LinkedHashMap<>();
+        Map<String, TableSnapshot> byLowerName = new HashMap<>();
+        for (TableBuilder table : builder.tables.values()) {
+            TableSnapshot snapshot = table.build();
+            byName.put(snapshot.name(), snapshot);
+            byLowerName.putIfAbsent(snapshot.name().toLowerCase(Locale.ROOT), snapshot);
+        }
+        this.tables = Collections.unmodifiableMap(byName);
+        this.tablesByLowerName = byLowerName;
+        this.functions = List.copyOf(builder.functions);
+        this.procedures = List.copyOf(builder.procedures);
+        this.triggers = List.copyOf(builder.triggers);
+    }
+
+    public static Builder builder(String catalog, String schema) {
+        return new Builder(catalog, schema);
+    }
+
+    public String getCatalog() {
+        return catalog;
+    }
+
+    public String getSchema() {
+        return schema;
+    }
+
+    public long getLoadedAtMillis() {
+        return loadedAtMillis;
+    }
+
+    /**
+     * 1 for a snapshot loaded from scratch, one more for each refresh in which an object changed
+     */
+    public long getGeneration() {
+        return generation;
+    }
+
+    /**
+     * Generation each object last changed in, by {@link SchemaFingerprints#key object key}; empty when the plugin
+     * does not fingerprint schemas
+     */
+    public Map<String, Long> getVersions() {
+        return versions;
+    }
+
+    /**
+     * Version of one object, 0 when unknown
+     */
+    public long versionOf(String kind, String name) {
+        return versions.getOrDefault(SchemaFingerprints.key(kind, name), 0L);
+    }
+
+    /**
+     * Fingerprints the snapshot was loaded with, null when the plugin does not fingerprint schemas
+     */
+    public SchemaFingerprints fingerprints() {
+        return fingerprints;
+    }
+
+    /**
+     * Tables and views, in name order
+     */
+    public Collection<TableSnapshot> getTables() {
+        return tables.values();
+    }
+
+    public List<FunctionMetadata> getFunctions() {
+        return functions;
+    }
+
+    public List<ProcedureMetadata> getProcedures() {
+        return procedures;
+    }
+
+    public List<TriggerMetadata> getTriggers() {
+        return triggers;
+    }
+
+    /**
+     * Table or view by name, matched exactly first and then ignoring case; null when the snapshot has no such object.
+     */
+    public TableSnapshot findTable(String name) {
+        if (name == null) {
+            return null;
+        }
+        TableSnapshot table = tables.get(name);
+        return table != null ? table : tablesByLowerName.get(name.toLowerCase(Locale.ROOT));
+    }
+
+    /**
+     * Names of the base tables, in name order
+     */
+    public List<String> tableNames() {
+        return tables.values().stream().filter(t -> !t.view()).map(TableSnapshot::name).toList();
+    }
+
+    /**
+     * Names of the views, in name order
+     */
+    public List<String> viewNames() {
+        return tables.values().stream().filter(TableSnapshot::view).map(TableSnapshot::name).toList();
+    }
+
+    /**
+     * Triggers on the given table, or all triggers when the table is null
+     */
+    public List<TriggerMetadata> triggersOn(String tableName) {
+        if (tableName == null) {
+            return triggers;
+        }
+        return triggers.stream().filter(t -> tableName.equals(t.tableName())).toList();
+    }
+
+    public static final class Builder {
+
+        private final String catalog;
+        private final String schema;
+        private final Map<String, String> strings = new HashMap<>();
+        private final Map<String, TableBuilder> tables = new TreeMap<>();
+        private final List<FunctionMetadata> functions = new ArrayList<>();
+        private final List<ProcedureMetadata> procedures = new ArrayList<>();
+        private final List<TriggerMetadata> triggers = new ArrayList<>();
+        private SchemaFingerprints fingerprints;
+        private SchemaSnapshot previous;
+
+        private Builder(String catalog, String schema) {
+            this.catalog = catalog;
+            this.schema = schema;
+        }
+
+        /**
+         * The single instance of an equal string in this snapshot
+         */
+        public String intern(String value) {
+            return value == null ? null : strings.computeIfAbsent(value, v -> v);
+        }
+
+        /**
+         * Fingerprints read before the metadata, so a change made while loading shows up at the next comparison
+         */
+        public Builder fingerprints(SchemaFingerprints fingerprints) {
+            this.fingerprints = fingerprints;
+            return this;
+        }
+
+        /**
+         * Snapshot this one refreshes; objects whose fingerprint did not move keep their version
+         */
+        public Builder previous(SchemaSnapshot previous) {
+            this.previous = previous;
+            return this;
+        }
+
+        /**
+         * Add a table unchanged from an earlier snapshot, with a new row estimate. Add these before loading changed
+         * tables, so the strings of the loaded tables are shared with them.
+         */
+        public Builder table(TableSnapshot table, Long rowEstimate) {
+            TableBuilder copy = tableBuilder(table.name());
+            copy.view = table.view();
+            copy.comment = intern(table.comment());
+            copy.rowEstimate = rowEstimate;
+            for (ColumnMetadata column : table.columns()) {
+                intern(column.name());
+                intern(column.typeName());
+                intern(column.remarks());
+            }
+            copy.prebuilt = table;
+            return this;
+        }
+
+        public Builder table(String name, boolean view, String comment, Long rowEstimate) {
+            TableBuilder table = tableBuilder(name);
+            table.view = view;
+            table.comment = intern(comment);
+            table.rowEstimate = rowEstimate;
+            return this;
+        }
+
+        /**
+         * Add a column; a table not added with {@link #table} yet is added as a base table
+         */
+        public Builder column(String tableName, ColumnMetadata column) {
+            tableBuilder(tableName).columns.add(new ColumnMetadata(
+                    intern(column.name()),
+                    column.dataType(),
+                    intern(column.typeName()),
+                    column.columnSize(),
+                    column.decimalDigits(),
+                    column.nullable(),
+                    column.ordinalPosition(),
+                    intern(column.remarks()),
+                    column.isPrimaryKeyPart(),
+                    column.isAutoIncrement(),
+                    column.isUnsigned(),
+                    intern(column.defaultValue())));
+            return this;
+        }
+
+        public Builder index(String tableName, IndexMetadata index) {
+            tableBuilder(tableName).indexes.add(new IndexMetadata(
+                    intern(index.name()), intern(index.type()), internAll(index.columns()), index.unique(), index.isPrimaryKey()));
+            return this;
+        }
+
+        public Builder foreignKey(String tableName, ForeignKeyMetadata foreignKey) {
+            tableBuilder(tableName).foreignKeys.add(new ForeignKeyMetadata(
+                    intern(foreignKey.name()), internAll(foreignKey.columns()), intern(foreignKey.referencedCatalog()),
+                    intern(foreignKey.referencedTable()), internAll(foreignKey.referencedColumns())));
+            return this;
+        }
+
+        public Builder function(FunctionMetadata function) {
+            functions.add(new FunctionMetadata(intern(function.name()), internParameters(function.parameters()),
+                    intern(function.returnType())));
+            return this;
+        }
+
+        public Builder procedure(ProcedureMetadata procedure) {
+            procedures.add(new ProcedureMetadata(intern(procedure.name()), internParameters(procedure.parameters())));
+            return this;
+        }
+
+        public Builder trigger(TriggerMetadata trigger) {
+            triggers.add(new TriggerMetadata(intern(trigger.name()), intern(trigger.tableName()),
+                    intern(trigger.timing()), intern(trigger.event())));
+            return this;
+        }
+
+        public SchemaSnapshot build() {
+            return new SchemaSnapshot(this);
+        }
+
+        private TableBuilder tableBuilder(String name) {
+            return tables.computeIfAbsent(intern(name), TableBuilder::new);
+        }
+
+        private List<String> internAll(List<String> values) {
+            if (values == null) {
+                return null;
+            }
+            // Not List.copyOf: functional index parts have no column name
+            List<String> interned = new ArrayList<>(values.size());
+            for (String value : values) {
+                interned.add(intern(value));
+            }
+            return Collections.unmodifiableList(interned);
+        }
+
+        private List<ParameterInfo> internParameters(List<ParameterInfo> parameters) {
+            if (parameters == null) {
+                return null;
+            }
+            return parameters.stream()
+                    .map(p -> new ParameterInfo(intern(p.name()), intern(p.dataType())))
+                    .toList();
+        }
+    }
+
+    private static final class TableBuilder {
+
+        private final String name;
+        private boolean view;
+        private String comment;
+        private Long rowEstimate;
+        private final List<ColumnMetadata> columns = new ArrayList<>();
+        private final List<IndexMetadata> indexes = new ArrayList<>();
+        private final List<ForeignKeyMetadata> foreignKeys = new ArrayList<>();
+        private TableSnapshot prebuilt;
+
+        private TableBuilder(String name) {
+            this.name = name;
+        }
+
+        private TableSnapshot build() {
+            if (prebuilt != null) {
+                return Objects.equals(prebuilt.rowEstimate(), rowEstimate) ? prebuilt
+                        : new TableSnapshot(name, view, comment, rowEstimate,
+                        prebuilt.columns(), prebuilt.indexes(), prebuilt.foreignKeys());
+            }
+            columns.sort(Comparator.comparingInt(ColumnMetadata::ordinalPosition));
+            return new TableSnapshot(name, view, comment, rowEstimate,
+                    List.copyOf(columns), List.copyOf(indexes), List.copyOf(foreignKeys));
+        }
+    }
+}
@@ -0,0 +1,19 @@
+package edu.zsc.ai.plugin.model.metadata;
+
+import java.util.List;
+
+/**
+ * One table or view of a {@link SchemaSnapshot}.
+ *
+ * @param rowEstimate row count estimated by the database, null when unknown (e.g. views)
+ */
+public record TableSnapshot(
+        String name,
+        boolean view,
+        String comment,
+        Long rowEstimate,
+        List<ColumnMetadata> columns,
+        List<IndexMetadata> indexes,
+        List<ForeignKeyMetadata> foreignKeys
+) {
+}
@@ -0,0 +1,21 @@
+package edu.zsc.ai.plugin.value;
+
+import java.sql.SQLException;
+
+/**
+ * Reads one column from the current row of the result set it was created for.
+ *
+ * <p>Created once per result set and column by {@link ValueProcessor#createColumnReader(JdbcValueContext)},
+ * with the type handling resolved up front, so reading a cell does no metadata lookups or type dispatch.
+ *
+ * @author hhz
+ */
+@FunctionalInterface
+public interface ColumnReader {
+
+    /**
+     * @return the converted value of the column in the current row, may be null
+     * @throws SQLException if the value cannot be read
+     */
+    Object read() throws SQLException;
+}
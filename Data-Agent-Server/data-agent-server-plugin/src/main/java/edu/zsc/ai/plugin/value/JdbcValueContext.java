@@ -65,6 +65,12 @@ public class JdbcValueContext implements ValueContext {
      */
     private Boolean nullable;
 
+    /**
+     * Whether large values should be returned as {@link LobHandle}s rather than inline,
+     * see {@link edu.zsc.ai.plugin.model.command.sql.SqlCommandRequest#isLobHandles()}
+     */
+    private boolean lobHandles;
+
     /**
      * Additional metadata storage
      */
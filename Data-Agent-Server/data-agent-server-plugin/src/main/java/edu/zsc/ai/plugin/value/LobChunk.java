@@ -0,0 +1,11 @@
+package edu.zsc.ai.plugin.value;
+
+/**
+ * Part of a BLOB or CLOB value read by {@link edu.zsc.ai.plugin.capability.TableProvider#readLob}.
+ *
+ * @param totalSize size of the whole value in bytes
+ * @param head      first bytes of the value, enough to sniff its content type
+ * @param data      the requested range, shorter when it runs past the end
+ */
+public record LobChunk(long totalSize, byte[] head, byte[] data) {
+}
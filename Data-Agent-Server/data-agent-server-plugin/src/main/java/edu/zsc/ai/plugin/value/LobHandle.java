@@ -0,0 +1,204 @@
+package edu.zsc.ai.plugin.value;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+
+/**
+ * Stand-in for a large binary or text value in a result row: its size, a content type sniffed from
+ * the first bytes and, for text, a short preview. The value itself is fetched separately, in ranges,
+ * through the {@link #getLocator() locator} of its row.
+ *
+ * <p>The content that was read with the row is kept for consumers that need the full value, such as
+ * exports, but it has no bean getter, so it is never serialized into API responses.
+ */
+public final class LobHandle {
+
+    public enum Kind {
+        BLOB, CLOB
+    }
+
+    /** Characters of a CLOB shown in the preview */
+    public static final int PREVIEW_CHARS = 256;
+
+    private static final String OCTET_STREAM = "application/octet-stream";
+    private static final String TEXT_PLAIN = "text/plain;charset=UTF-8";
+
+    private final Kind kind;
+    private final long size;
+    private final String contentType;
+    private final String preview;
+    private final transient Object content;
+    private String locator;
+
+    private LobHandle(Kind kind, long size, String contentType, String preview, Object content) {
+        this.kind = kind;
+        this.size = size;
+        this.contentType = contentType;
+        this.preview = preview;
+        this.content = content;
+    }
+
+    public static LobHandle ofBytes(byte[] bytes) {
+        return new LobHandle(Kind.BLOB, bytes.length, sniffContentType(bytes), null, bytes);
+    }
+
+    public static LobHandle ofText(String text) {
+        String preview = text.length() > PREVIEW_CHARS ? text.substring(0, PREVIEW_CHARS) : text;
+        return new LobHandle(Kind.CLOB, utf8Length(text), TEXT_PLAIN, preview, text);
+    }
+
+    /**
+     * Handle restored from its description alone, without the content (e.g. read back from a spill file).
+     */
+    public static LobHandle of(Kind kind, long size, String contentType, String preview) {
+        return new LobHandle(kind, size, contentType, preview, null);
+    }
+
+    /**
+     * Copy without the content, for holding on to the handle after the row was consumed.
+     */
+    public LobHandle withoutContent() {
+        LobHandle copy = of(kind, size, contentType, preview);
+        copy.locator = locator;
+        return copy;
+    }
+
+    public Kind getKind() {
+        return kind;
+    }
+
+    /**
+     * Size in bytes; UTF-8 bytes for a CLOB
+     */
+    public long getSize() {
+        return size;
+    }
+
+    public String getContentType() {
+        return contentType;
+    }
+
+    /**
+     * Start of a CLOB, null for a BLOB
+     */
+    public String getPreview() {
+        return preview;
+    }
+
+    /**
+     * Opaque key of the row the value belongs to, null when the row cannot be addressed (e.g. query results)
+     */
+    public String getLocator() {
+        return locator;
+    }
+
+    public void setLocator(String locator) {
+        this.locator = locator;
+    }
+
+    /**
+     * The full value as read with the row: {@code byte[]} for a BLOB, {@link String} for a CLOB;
+     * null once dropped with {@link #withoutContent()}.
+     */
+    public Object content() {
+        return content;
+    }
+
+    /**
+     * Content type from the magic number at the start of the value; text/plain when the start is
+     * valid UTF-8 without control characters, otherwise application/octet-stream.
+     */
+    public static String sniffContentType(byte[] head) {
+        if (startsWith(head, 0x89, 'P', 'N', 'G')) {
+            return "image/png";
+        }
+        if (startsWith(head, 0xFF, 0xD8, 0xFF)) {
+            return "image/jpeg";
+        }
+        if (startsWith(head, 'G', 'I', 'F', '8')) {
+            return "image/gif";
+        }
+        if (startsWith(head, 'R', 'I', 'F', 'F') && head.length >= 12
+                && head[8] == 'W' && head[9] == 'E' && head[10] == 'B' && head[11] == 'P') {
+            return "image/webp";
+        }
+        if (startsWith(head, '%', 'P', 'D', 'F')) {
+            return "application/pdf";
+        }
+        if (startsWith(head, 'P', 'K', 0x03, 0x04)) {
+            return "application/zip";
+        }
+        if (startsWith(head, 0x1F, 0x8B)) {
+            return "application/gzip";
+        }
+        if (startsWith(head, '{') || startsWith(head, '[')) {
+            return isText(head) ? "application/json" : OCTET_STREAM;
+        }
+        return head.length > 0 && isText(head) ? TEXT_PLAIN : OCTET_STREAM;
+    }
+
+    @Override
+    public String toString() {
+        return String.format(Locale.ROOT, "[%s %s %s]", kind, formatSize(size), contentType);
+    }
+
+    private static boolean startsWith(byte[] bytes, int... magic) {
+        if (bytes.length < magic.length) {
+            return false;
+        }
+        for (int i = 0; i < magic.length; i++) {
+            if ((bytes[i] & 0xFF) != magic[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean isText(byte[] head) {
+        int length = Math.min(head.length, 512);
+        for (int i = 0; i < length; i++) {
+            int b = head[i] & 0xFF;
+            if (b < 0x20 && b != '\t' && b != '\n' && b != '\r') {
+                return false;
+            }
+        }
+        // A multi-byte sequence cut at the end of the sample is still text
+        String decoded = new String(head, 0, length, StandardCharsets.UTF_8);
+        int replacements = 0;
+        for (int i = 0; i < decoded.length(); i++) {
+            if (decoded.charAt(i) == '\uFFFD') {
+                replacements++;
+            }
+        }
+        return replacements <= 3;
+    }
+
+    private static long utf8Length(String text) {
+        long bytes = 0;
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c < 0x80) {
+                bytes++;
+            } else if (c < 0x800) {
+                bytes += 2;
+            } else if (Character.isHighSurrogate(c)) {
+                // The pair is one 4-byte code point
+                bytes += 4;
+                i++;
+            } else {
+                bytes += 3;
+            }
+        }
+        return bytes;
+    }
+
+    private static String formatSize(long bytes) {
+        if (bytes >= 1024 * 1024) {
+            return String.format(Locale.ROOT, "%.2f MB", bytes / (1024.0 * 1024.0));
+        }
+        if (bytes >= 1024) {
+            return String.format(Locale.ROOT, "%.2f KB", bytes / 1024.0);
+        }
+        return bytes + " B";
+    }
+}
@@ -24,5 +24,17 @@ public interface ValueProcessor {
      */
     Object getJdbcValue(JdbcValueContext context) throws SQLException;
 
+    /**
+     * Create a reader for one column of a result set, to be called for every row.
+     * Implementations should resolve everything that does not depend on the row here;
+     * the default reads each cell through {@link #getJdbcValue(JdbcValueContext)}.
+     *
+     * @param context the JDBC context of the column, built once per result set
+     * @return the column reader
+     */
+    default ColumnReader createColumnReader(JdbcValueContext context) {
+        return () -> getJdbcValue(context);
+    }
+
 
 }
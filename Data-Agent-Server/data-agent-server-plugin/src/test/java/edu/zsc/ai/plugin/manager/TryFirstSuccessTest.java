@@ -0,0 +1,101 @@
+package edu.zsc.ai.plugin.manager;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for TryFirstSuccess.
+ */
+class TryFirstSuccessTest {
+
+    @Test
+    void testConcurrently_FastCandidateWinsOverHangingOne() {
+        CountDownLatch hang = new CountDownLatch(1);
+
+        long start = System.nanoTime();
+        TryFirstSuccess.AttemptResult<String, String> res = TryFirstSuccess.tryFirstSuccessConcurrently(
+                List.of("slow", "fast"),
+                c -> {
+                    if (c.equals("slow")) {
+                        try {
+                            hang.await(10, TimeUnit.SECONDS);
+                        } catch (InterruptedException e) {
+                            throw new IllegalStateException(e);
+                        }
+                    }
+                    return c + "-conn";
+                },
+                (c, r) -> { });
+        long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+        assertNotNull(res);
+        assertEquals("fast", res.candidate());
+        assertEquals("fast-conn", res.result());
+        assertTrue(elapsedMillis < 5000, "Should not wait for the hanging candidate");
+    }
+
+    @Test
+    void testConcurrently_AllFail() {
+        TryFirstSuccess.AttemptResult<String, String> res = TryFirstSuccess.tryFirstSuccessConcurrently(
+                List.of("a", "b", "c"),
+                c -> {
+                    throw new IllegalStateException("failed " + c);
+                },
+                (c, r) -> { });
+
+        assertNull(res);
+    }
+
+    @Test
+    void testConcurrently_LateWinnerIsDiscarded() throws InterruptedException {
+        CountDownLatch lateStarted = new CountDownLatch(1);
+        CountDownLatch winnerReturned = new CountDownLatch(1);
+        CountDownLatch discarded = new CountDownLatch(1);
+        List<String> discardedResults = new CopyOnWriteArrayList<>();
+
+        TryFirstSuccess.AttemptResult<String, String> res = TryFirstSuccess.tryFirstSuccessConcurrently(
+                List.of("first", "late"),
+                c -> {
+                    if (c.equals("late")) {
+                        lateStarted.countDown();
+                        // Not interruptible on purpose, like a blocking driver handshake
+                        while (winnerReturned.getCount() > 0) {
+                            Thread.onSpinWait();
+                        }
+                    } else {
+                        awaitQuietly(lateStarted);
+                    }
+                    return c + "-conn";
+                },
+                (c, r) -> {
+                    discardedResults.add(r);
+                    discarded.countDown();
+                });
+        winnerReturned.countDown();
+
+        assertNotNull(res);
+        assertEquals("first", res.candidate());
+        assertTrue(discarded.await(5, TimeUnit.SECONDS));
+        assertEquals(List.of("late-conn"), discardedResults);
+    }
+
+    private static void awaitQuietly(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @Test
+    void testConcurrently_EmptyCandidates() {
+        assertThrows(IllegalArgumentException.class,
+                () -> TryFirstSuccess.tryFirstSuccessConcurrently(List.of(), c -> c, (c, r) -> { }));
+    }
+}
@@ -0,0 +1,96 @@
+package edu.zsc.ai.plugin.model.command.sql;
+
+import edu.zsc.ai.plugin.value.JdbcValueContext;
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.Proxy;
+import java.sql.BatchUpdateException;
+import java.sql.Connection;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for AbstractSqlExecutor.executeBatch with a fake connection whose batch fails in the middle.
+ */
+class AbstractSqlExecutorBatchTest {
+
+    private static final AbstractSqlExecutor EXECUTOR = new AbstractSqlExecutor() {
+        @Override
+        protected Object getJdbcValue(JdbcValueContext context) {
+            return null;
+        }
+    };
+
+    /** SQL added to the fake statement's batch, in order */
+    private final List<String> batched = new ArrayList<>();
+
+    /**
+     * Connection whose plain-statement batches fail with the given update counts
+     */
+    private Connection failingConnection(int[] updateCounts) {
+        Statement statement = (Statement) Proxy.newProxyInstance(getClass().getClassLoader(),
+                new Class<?>[] {Statement.class},
+                (proxy, method, args) -> switch (method.getName()) {
+                    case "addBatch" -> {
+                        batched.add((String) args[0]);
+                        yield null;
+                    }
+                    case "executeBatch" -> throw new BatchUpdateException("Duplicate entry '2' for key 'PRIMARY'",
+                            "23000", 1062, updateCounts);
+                    case "hashCode" -> System.identityHashCode(proxy);
+                    case "equals" -> proxy == args[0];
+                    default -> null;
+                });
+        return (Connection) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[] {Connection.class},
+                (proxy, method, args) -> switch (method.getName()) {
+                    case "createStatement" -> statement;
+                    case "getAutoCommit" -> true;
+                    case "isClosed" -> false;
+                    case "hashCode" -> System.identityHashCode(proxy);
+                    case "equals" -> proxy == args[0];
+                    default -> null;
+                });
+    }
+
+    private static List<SqlCommandRequest> inserts(Connection connection) {
+        List<SqlCommandRequest> commands = new ArrayList<>();
+        for (int id = 1; id <= 3; id++) {
+            String sql = "INSERT INTO t (id) VALUES (" + id + ")";
+            commands.add(SqlCommandRequest.ofWithoutTransaction(connection, sql, sql, "db", null));
+        }
+        return commands;
+    }
+
+    @Test
+    void testExecuteBatch_DriverStopsAtFailure() {
+        Connection connection = failingConnection(new int[] {1});
+
+        List<SqlCommandResult> results = EXECUTOR.executeBatch(inserts(connection), false);
+
+        assertEquals(3, batched.size());
+        assertTrue(results.get(0).isSuccess());
+        assertEquals(1, results.get(0).getAffectedRows());
+        assertFalse(results.get(1).isSuccess());
+        assertTrue(results.get(1).getErrorMessage().contains("Duplicate entry"));
+        assertFalse(results.get(2).isSuccess());
+        assertTrue(results.get(2).getErrorMessage().startsWith("Not executed"));
+    }
+
+    @Test
+    void testExecuteBatch_DriverContinuesPastFailure() {
+        Connection connection = failingConnection(new int[] {1, Statement.EXECUTE_FAILED, 1});
+
+        List<SqlCommandResult> results = EXECUTOR.executeBatch(inserts(connection), false);
+
+        assertTrue(results.get(0).isSuccess());
+        assertFalse(results.get(1).isSuccess());
+        assertTrue(results.get(1).getErrorMessage().contains("Duplicate entry"));
+        // Ran although the script stops at the failure: reported as failed, with what it changed
+        assertFalse(results.get(2).isSuccess());
+        assertEquals(1, results.get(2).getAffectedRows());
+        assertTrue(results.get(2).getErrorMessage().contains("earlier statement"));
+    }
+}
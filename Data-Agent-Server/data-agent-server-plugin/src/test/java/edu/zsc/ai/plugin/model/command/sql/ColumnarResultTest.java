@@ -0,0 +1,96 @@
+package edu.zsc.ai.plugin.model.command.sql;
+
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for ColumnarResult and ColumnVector.
+ */
+class ColumnarResultTest {
+
+    private static ColumnarResult build(List<String> headers, List<List<Object>> rows) {
+        ColumnarResult.Builder builder = ColumnarResult.builder();
+        builder.onHeaders(headers);
+        rows.forEach(builder::onRow);
+        return builder.build();
+    }
+
+    @Test
+    void rowViewReadsBackTheSameValues() {
+        List<List<Object>> rows = List.of(
+                Arrays.asList(1, 10L, 1.5f, 2.5d, "a", new BigDecimal("1.10")),
+                Arrays.asList(null, null, null, null, null, null),
+                Arrays.asList(3, 30L, 3.5f, 4.5d, "a", new BigDecimal("3.30")));
+
+        ColumnarResult result = build(List.of("i", "l", "f", "d", "s", "n"), rows);
+
+        assertEquals(3, result.getRowCount());
+        assertEquals(rows, result.asRows());
+        assertEquals(ColumnVector.Type.LONG, result.getColumns().get(0).getType());
+        assertEquals(ColumnVector.Type.LONG, result.getColumns().get(1).getType());
+        assertEquals(ColumnVector.Type.DOUBLE, result.getColumns().get(2).getType());
+        assertEquals(ColumnVector.Type.DOUBLE, result.getColumns().get(3).getType());
+        assertEquals(ColumnVector.Type.STRING, result.getColumns().get(4).getType());
+        assertEquals(ColumnVector.Type.OBJECT, result.getColumns().get(5).getType());
+        assertInstanceOf(Integer.class, result.getValue(0, 0));
+        assertInstanceOf(Float.class, result.getValue(0, 2));
+    }
+
+    @Test
+    void leadingNullsAndAllNullColumns() {
+        List<List<Object>> rows = List.of(
+                Arrays.asList(null, null),
+                Arrays.asList(null, null),
+                Arrays.asList(7L, null));
+
+        ColumnarResult result = build(List.of("a", "b"), rows);
+
+        assertEquals(rows, result.asRows());
+        assertTrue(result.getColumns().get(0).isNull(1));
+        assertEquals(7L, ((ColumnVector.LongVector) result.getColumns().get(0)).getLong(2));
+        assertEquals(3, result.getColumns().get(1).size());
+    }
+
+    @Test
+    void mixedTypesWidenToObjects() {
+        List<List<Object>> rows = List.of(List.of(1), List.of("two"), List.of(3L));
+
+        ColumnarResult result = build(List.of("x"), rows);
+
+        assertEquals(ColumnVector.Type.OBJECT, result.getColumns().get(0).getType());
+        assertEquals(rows, result.asRows());
+    }
+
+    @Test
+    void repeatedStringsShareDictionaryEntries() {
+        List<List<Object>> rows = new ArrayList<>();
+        for (int i = 0; i < 5000; i++) {
+            rows.add(List.of(i % 2 == 0 ? "even" : "odd"));
+        }
+
+        ColumnarResult result = build(List.of("parity"), rows);
+
+        ColumnVector.DictionaryVector column = (ColumnVector.DictionaryVector) result.getColumns().get(0);
+        assertEquals(List.of("even", "odd"), column.getDictionary());
+        assertEquals("odd", result.getValue(4999, 0));
+    }
+
+    @Test
+    void mostlyDistinctStringsDropTheDictionary() {
+        List<List<Object>> rows = new ArrayList<>();
+        for (int i = 0; i < 5000; i++) {
+            rows.add(List.of("value-" + i));
+        }
+
+        ColumnarResult result = build(List.of("id"), rows);
+
+        assertEquals(ColumnVector.Type.OBJECT, result.getColumns().get(0).getType());
+        assertEquals(rows, result.asRows());
+    }
+}
@@ -0,0 +1,132 @@
+package edu.zsc.ai.plugin.model.command.sql;
+
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for PreparedStatementCache.
+ */
+class PreparedStatementCacheTest {
+
+    /** Statements prepared by a fake connection, in order; each tracks whether it was closed. */
+    private final List<FakeStatement> prepared = new ArrayList<>();
+
+    private record FakeStatement(String sql, PreparedStatement proxy, AtomicBoolean closed) {
+    }
+
+    private Connection fakeConnection() {
+        return (Connection) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[] {Connection.class},
+                (proxy, method, args) -> switch (method.getName()) {
+                    case "prepareStatement" -> fakeStatement((String) args[0]);
+                    case "hashCode" -> System.identityHashCode(proxy);
+                    case "equals" -> proxy == args[0];
+                    default -> null;
+                });
+    }
+
+    private PreparedStatement fakeStatement(String sql) {
+        AtomicBoolean closed = new AtomicBoolean();
+        PreparedStatement statement = (PreparedStatement) Proxy.newProxyInstance(getClass().getClassLoader(),
+                new Class<?>[] {PreparedStatement.class},
+                (proxy, method, args) -> switch (method.getName()) {
+                    case "close" -> {
+                        closed.set(true);
+                        yield null;
+                    }
+                    case "isClosed" -> closed.get();
+                    case "hashCode" -> System.identityHashCode(proxy);
+                    case "equals" -> proxy == args[0];
+                    default -> null;
+                });
+        prepared.add(new FakeStatement(sql, statement, closed));
+        return statement;
+    }
+
+    @Test
+    void testPrepare_ReusesStatementForSameSql() throws Exception {
+        PreparedStatementCache cache = new PreparedStatementCache(4);
+        Connection connection = fakeConnection();
+
+        PreparedStatement first = cache.prepare(connection, "SELECT 1");
+        PreparedStatement second = cache.prepare(connection, "SELECT 1");
+
+        assertSame(first, second);
+        assertEquals(1, prepared.size());
+    }
+
+    @Test
+    void testPrepare_SeparateCachePerConnection() throws Exception {
+        PreparedStatementCache cache = new PreparedStatementCache(4);
+
+        PreparedStatement a = cache.prepare(fakeConnection(), "SELECT 1");
+        PreparedStatement b = cache.prepare(fakeConnection(), "SELECT 1");
+
+        assertNotSame(a, b);
+        assertEquals(2, prepared.size());
+    }
+
+    @Test
+    void testPrepare_EvictsAndClosesLeastRecentlyUsed() throws Exception {
+        PreparedStatementCache cache = new PreparedStatementCache(2);
+        Connection connection = fakeConnection();
+
+        cache.prepare(connection, "SELECT 1");
+        cache.prepare(connection, "SELECT 2");
+        cache.prepare(connection, "SELECT 1"); // SELECT 2 is now least recently used
+        cache.prepare(connection, "SELECT 3");
+
+        assertFalse(prepared.get(0).closed().get(), "Recently used statement must stay open");
+        assertTrue(prepared.get(1).closed().get(), "Least recently used statement must be closed");
+        assertFalse(prepared.get(2).closed().get());
+    }
+
+    @Test
+    void testPrepare_ReplacesClosedStatement() throws Exception {
+        PreparedStatementCache cache = new PreparedStatementCache(4);
+        Connection connection = fakeConnection();
+
+        PreparedStatement first = cache.prepare(connection, "SELECT 1");
+        first.close();
+        PreparedStatement second = cache.prepare(connection, "SELECT 1");
+
+        assertNotSame(first, second);
+    }
+
+    @Test
+    void testEvictAndCloseAll_CloseStatements() throws Exception {
+        PreparedStatementCache cache = new PreparedStatementCache(4);
+        Connection connection = fakeConnection();
+
+        PreparedStatement failed = cache.prepare(connection, "SELECT 1");
+        cache.prepare(connection, "SELECT 2");
+        cache.evict(connection, "SELECT 1", failed);
+        assertTrue(prepared.get(0).closed().get());
+        assertNotSame(failed, cache.prepare(connection, "SELECT 1"));
+
+        cache.closeAll(connection);
+        assertTrue(prepared.stream().allMatch(s -> s.closed().get()));
+    }
+
+    @Test
+    void testPrepare_UsesGivenPreparerOnMissOnly() throws Exception {
+        List<String> preparedSql = new ArrayList<>();
+        PreparedStatementCache cache = new PreparedStatementCache(4, (connection, sql) -> {
+            preparedSql.add(sql);
+            return fakeStatement(sql);
+        });
+        Connection connection = fakeConnection();
+
+        cache.prepare(connection, "SELECT 1");
+        cache.prepare(connection, "SELECT 1");
+
+        assertEquals(List.of("SELECT 1"), preparedSql);
+    }
+}
@@ -0,0 +1,63 @@
+package edu.zsc.ai.plugin.model.command.sql;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for SqlScriptSplitter.
+ */
+class SqlScriptSplitterTest {
+
+    private static final SqlScriptSplitter MYSQL = new SqlScriptSplitter(true, true, true);
+
+    @Test
+    void splitsOnDelimiterAndDropsEmptyStatements() {
+        List<String> statements = SqlScriptSplitter.STANDARD.split("SELECT 1;\n  ;\nSELECT 2;\n-- trailing comment\n");
+
+        assertEquals(List.of("SELECT 1", "SELECT 2"), statements);
+    }
+
+    @Test
+    void ignoresDelimiterInQuotesAndComments() {
+        String script = "INSERT INTO t VALUES ('a;b', \"c;d\", `e;f`); /* x; y */ SELECT 1 -- z;\n;";
+
+        List<String> statements = SqlScriptSplitter.STANDARD.split(script);
+
+        assertEquals(2, statements.size());
+        assertEquals("INSERT INTO t VALUES ('a;b', \"c;d\", `e;f`)", statements.get(0));
+        assertEquals("/* x; y */ SELECT 1 -- z;", statements.get(1));
+    }
+
+    @Test
+    void handlesDoubledQuotesAndBackslashEscapes() {
+        assertEquals(List.of("SELECT 'it''s;'", "SELECT 2"), SqlScriptSplitter.STANDARD.split("SELECT 'it''s;'; SELECT 2"));
+        assertEquals(List.of("SELECT 'a\\';'", "SELECT 2"), MYSQL.split("SELECT 'a\\';'; SELECT 2"));
+    }
+
+    @Test
+    void honorsHashCommentsOnlyWhenEnabled() {
+        assertEquals(List.of("SELECT 1 # a;b", "SELECT 2"), MYSQL.split("SELECT 1 # a;b\n; SELECT 2"));
+        assertEquals(3, SqlScriptSplitter.STANDARD.split("SELECT 1 # a;b\n; SELECT 2").size());
+    }
+
+    @Test
+    void delimiterCommandChangesDelimiter() {
+        String script = "DELIMITER $$\n"
+                + "CREATE PROCEDURE p() BEGIN SELECT 1; SELECT 2; END$$\n"
+                + "DELIMITER ;\n"
+                + "CALL p();";
+
+        List<String> statements = MYSQL.split(script);
+
+        assertEquals(List.of("CREATE PROCEDURE p() BEGIN SELECT 1; SELECT 2; END", "CALL p()"), statements);
+    }
+
+    @Test
+    void firstKeywordSkipsCommentsAndWhitespace() {
+        assertEquals("UPDATE", MYSQL.firstKeyword("  -- note\n/* block */ # hash\n update t set a = 1"));
+        assertEquals("", MYSQL.firstKeyword("-- only a comment"));
+    }
+}
@@ -0,0 +1,123 @@
+package edu.zsc.ai.plugin.model.metadata;
+
+import org.junit.jupiter.api.Test;
+
+import java.sql.Types;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for SchemaSnapshot.
+ */
+class SchemaSnapshotTest {
+
+    private static ColumnMetadata column(String name, String typeName, int position) {
+        return new ColumnMetadata(new String(name), Types.VARCHAR, new String(typeName), 255, 0, true, position, new String(""));
+    }
+
+    private static SchemaSnapshot sample() {
+        return SchemaSnapshot.builder("shop", null)
+                .table("orders", false, "Customer orders", 1200L)
+                .table("order_summary", true, "", null)
+                .column("orders", column("status", "varchar", 2))
+                .column("orders", column("id", "bigint", 1))
+                .column("customers", column("id", "bigint", 1))
+                .index("orders", new IndexMetadata("PRIMARY", "OTHER", List.of("id"), true))
+                .foreignKey("orders", new ForeignKeyMetadata("fk_customer", List.of("customer_id"), null, "customers", List.of("id")))
+                .trigger(new TriggerMetadata("orders_audit", "orders", "AFTER", "UPDATE"))
+                .function(new FunctionMetadata("total", List.of(new ParameterInfo("order_id", "bigint")), "decimal(10,2)"))
+                .build();
+    }
+
+    @Test
+    void separatesTablesFromViewsInNameOrder() {
+        SchemaSnapshot snapshot = sample();
+
+        // A table only seen through its columns is a base table
+        assertEquals(List.of("customers", "orders"), snapshot.tableNames());
+        assertEquals(List.of("order_summary"), snapshot.viewNames());
+        assertEquals(1200L, snapshot.findTable("orders").rowEstimate());
+    }
+
+    @Test
+    void sortsColumnsByPosition() {
+        List<ColumnMetadata> columns = sample().findTable("orders").columns();
+
+        assertEquals(List.of("id", "status"), columns.stream().map(ColumnMetadata::name).toList());
+        assertThrows(UnsupportedOperationException.class, () -> columns.add(column("x", "int", 3)));
+    }
+
+    @Test
+    void findsTablesIgnoringCase() {
+        SchemaSnapshot snapshot = sample();
+
+        assertSame(snapshot.findTable("orders"), snapshot.findTable("ORDERS"));
+        assertNull(snapshot.findTable("missing"));
+        assertNull(snapshot.findTable(null));
+    }
+
+    @Test
+    void internsRepeatedStrings() {
+        SchemaSnapshot snapshot = sample();
+
+        ColumnMetadata ordersId = snapshot.findTable("orders").columns().get(0);
+        ColumnMetadata customersId = snapshot.findTable("customers").columns().get(0);
+        assertSame(ordersId.name(), customersId.name());
+        assertSame(ordersId.typeName(), customersId.typeName());
+        assertSame(ordersId.name(), snapshot.findTable("orders").indexes().get(0).columns().get(0));
+    }
+
+    @Test
+    void filtersTriggersByTable() {
+        SchemaSnapshot snapshot = sample();
+
+        assertEquals(1, snapshot.triggersOn("orders").size());
+        assertTrue(snapshot.triggersOn("customers").isEmpty());
+        assertEquals(1, snapshot.triggersOn(null).size());
+    }
+
+    @Test
+    void refreshKeepsVersionsOfUnchangedObjects() {
+        SchemaFingerprints first = new SchemaFingerprints(
+                Map.of("TABLE:orders", "a", "TABLE:customers", "b", "ROUTINE:total", "c"), Map.of("orders", 1200L));
+        SchemaSnapshot loaded = SchemaSnapshot.builder("shop", null).fingerprints(first)
+                .column("orders", column("id", "bigint", 1))
+                .column("customers", column("id", "bigint", 1))
+                .build();
+        assertEquals(1, loaded.getGeneration());
+
+        SchemaFingerprints second = new SchemaFingerprints(
+                Map.of("TABLE:orders", "a", "TABLE:customers", "b2", "ROUTINE:total", "c"), Map.of("orders", 1300L));
+        assertEquals(Set.of("customers"), second.changedSince(first, SchemaFingerprints.TABLE));
+        assertFalse(second.movedSince(first, SchemaFingerprints.ROUTINE));
+
+        TableSnapshot orders = loaded.findTable("orders");
+        SchemaSnapshot refreshed = SchemaSnapshot.builder("shop", null).fingerprints(second).previous(loaded)
+                .table(orders, 1300L)
+                .column("customers", column("id", "bigint", 1))
+                .column("customers", column("name", "varchar", 2))
+                .build();
+
+        assertEquals(2, refreshed.getGeneration());
+        assertEquals(1, refreshed.versionOf(SchemaFingerprints.TABLE, "orders"));
+        assertEquals(2, refreshed.versionOf(SchemaFingerprints.TABLE, "customers"));
+        assertEquals(1, refreshed.versionOf(SchemaFingerprints.ROUTINE, "total"));
+        assertEquals(1300L, refreshed.findTable("orders").rowEstimate());
+        assertSame(orders.columns(), refreshed.findTable("orders").columns());
+        assertEquals(2, refreshed.findTable("customers").columns().size());
+    }
+
+    @Test
+    void droppedObjectMovesTheGeneration() {
+        SchemaFingerprints first = new SchemaFingerprints(Map.of("TABLE:orders", "a", "TABLE:old", "b"), Map.of());
+        SchemaFingerprints second = new SchemaFingerprints(Map.of("TABLE:orders", "a"), Map.of());
+        SchemaSnapshot loaded = SchemaSnapshot.builder("shop", null).fingerprints(first).build();
+
+        assertTrue(second.changedSince(first, SchemaFingerprints.TABLE).isEmpty());
+        assertTrue(second.movedSince(first, SchemaFingerprints.TABLE));
+        assertEquals(2, SchemaSnapshot.builder("shop", null).fingerprints(second).previous(loaded).build().getGeneration());
+    }
+}
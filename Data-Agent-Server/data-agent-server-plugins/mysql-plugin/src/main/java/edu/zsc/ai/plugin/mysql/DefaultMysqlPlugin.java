@@ -5,9 +5,11 @@ import edu.zsc.ai.plugin.capability.*;
 import edu.zsc.ai.plugin.connection.ConnectionConfig;
 import edu.zsc.ai.plugin.connection.JdbcConnectionBuilder;
 import edu.zsc.ai.plugin.constant.DatabaseObjectTypeEnum;
+import edu.zsc.ai.plugin.constant.IndexTypeEnum;
 import edu.zsc.ai.plugin.constant.IsNullableEnum;
 import edu.zsc.ai.plugin.driver.DriverLoader;
 import edu.zsc.ai.plugin.driver.MavenCoordinates;
+import edu.zsc.ai.plugin.model.command.RowConsumer;
 import edu.zsc.ai.plugin.model.command.sql.SqlCommandRequest;
 import edu.zsc.ai.plugin.model.command.sql.SqlCommandResult;
 import edu.zsc.ai.plugin.model.metadata.*;
@@ -16,16 +18,19 @@ import edu.zsc.ai.plugin.mysql.constant.*;
 import edu.zsc.ai.plugin.mysql.executor.MySQLSqlExecutor;
 import edu.zsc.ai.plugin.mysql.util.MysqlIdentifierBuilder;
 import edu.zsc.ai.plugin.mysql.value.MySQLDataTypeEnum;
+import edu.zsc.ai.plugin.value.LobChunk;
+import edu.zsc.ai.plugin.value.LobHandle;
 import org.apache.commons.lang3.StringUtils;
 
 import java.sql.*;
 import java.util.*;
 import java.util.logging.Logger;
+import java.util.stream.Collectors;
 
 public abstract class DefaultMysqlPlugin extends AbstractDatabasePlugin
         implements ConnectionProvider, CommandExecutor<SqlCommandRequest, SqlCommandResult>, DatabaseProvider,
         SchemaProvider, TableProvider, ViewProvider, ColumnProvider, IndexProvider,
-        FunctionProvider, ProcedureProvider, TriggerProvider {
+        FunctionProvider, ProcedureProvider, TriggerProvider, SchemaSnapshotProvider {
 
     private static final Logger logger = Logger.getLogger(DefaultMysqlPlugin.class.getName());
 
@@ -33,6 +38,11 @@ public abstract class DefaultMysqlPlugin extends AbstractDatabasePlugin
 
     private final MySQLSqlExecutor sqlExecutor = new MySQLSqlExecutor();
 
+    /**
+     * Most tables reloaded by name in a snapshot refresh; beyond this the whole schema is read
+     */
+    private static final int MAX_FILTERED_TABLES = 500;
+
     @Override
     public boolean supportSchema() {
         return false;
@@ -103,6 +113,7 @@ public abstract class DefaultMysqlPlugin extends AbstractDatabasePlugin
         if (connection == null) {
             return;
         }
+        sqlExecutor.closeCachedStatements(connection);
         try {
             if (!connection.isClosed()) {
                 connection.close();
@@ -112,11 +123,44 @@ public abstract class DefaultMysqlPlugin extends AbstractDatabasePlugin
         }
     }
 
+    /**
+     * Reset the session with Connector/J's {@code resetServerState()} (COM_RESET_CONNECTION / COM_CHANGE_USER).
+     * The driver is loaded by its own class loader, so the method is looked up reflectively.
+     * Cached prepared statements are closed first: the reset deallocates them on the server.
+     */
+    @Override
+    public void resetSession(Connection connection) {
+        sqlExecutor.closeCachedStatements(connection);
+        try {
+            connection.getClass().getMethod("resetServerState").invoke(connection);
+        } catch (java.lang.reflect.InvocationTargetException e) {
+            Throwable cause = e.getCause() != null ? e.getCause() : e;
+            throw new RuntimeException("Failed to reset MySQL session: " + cause.getMessage(), cause);
+        } catch (ReflectiveOperationException e) {
+            throw new RuntimeException("Failed to reset MySQL session: " + e.getMessage(), e);
+        }
+    }
+
     @Override
     public SqlCommandResult executeCommand(SqlCommandRequest command) {
         return sqlExecutor.executeCommand(command);
     }
 
+    @Override
+    public SqlCommandResult executeCommand(SqlCommandRequest command, RowConsumer consumer) {
+        return sqlExecutor.executeCommand(command, consumer);
+    }
+
+    @Override
+    public List<String> splitScript(String script) {
+        return sqlExecutor.splitScript(script);
+    }
+
+    @Override
+    public List<SqlCommandResult> executeBatch(List<SqlCommandRequest> commands, boolean atomic) {
+        return sqlExecutor.executeBatch(commands, atomic);
+    }
+
     @Override
     public MavenCoordinates getDriverMavenCoordinates(String driverVersion) {
         if (driverVersion == null || driverVersion.isEmpty()
@@ -151,12 +195,8 @@ public abstract class DefaultMysqlPlugin extends AbstractDatabasePlugin
         if (StringUtils.isBlank(db)) {
             return List.of();
         }
-        String escapedDb = MysqlIdentifierEscaper.getInstance().escapeStringLiteral(db);
-        String escapedTable = MysqlIdentifierEscaper.getInstance().escapeStringLiteral(tableOrViewName);
-        String sql = String.format(MysqlSqlConstants.SQL_LIST_COLUMNS, escapedDb, escapedTable);
-
-        SqlCommandResult result = sqlExecutor.executeCommand(
-                SqlCommandRequest.ofWithoutTransaction(connection, sql, sql, db, null));
+        SqlCommandResult result = sqlExecutor.executeCommand(SqlCommandRequest.ofParameterized(
+                connection, MysqlSqlConstants.SQL_LIST_COLUMNS, db, null, db, tableOrViewName));
         if (!result.isSuccess()) {
             logger.severe("Failed to list columns for " + tableOrViewName + ": " + result.getErrorMessage());
             throw new RuntimeException("Failed to list columns: " + result.getErrorMessage());
@@ -165,61 +205,74 @@ public abstract class DefaultMysqlPlugin extends AbstractDatabasePlugin
         List<ColumnMetadata> list = new ArrayList<>();
         if (result.getRows() != null) {
             for (List<Object> row : result.getRows()) {
-                Object nameObj = result.getValueByColumnName(row, MysqlColumnConstants.COLUMN_NAME);
-                Object posObj = result.getValueByColumnName(row, MysqlColumnConstants.ORDINAL_POSITION);
-                Object defObj = result.getValueByColumnName(row, MysqlColumnConstants.COLUMN_DEFAULT);
-                Object nullableObj = result.getValueByColumnName(row, MysqlColumnConstants.IS_NULLABLE);
-                Object dataTypeObj = result.getValueByColumnName(row, MysqlColumnConstants.DATA_TYPE);
-                Object columnTypeObj = result.getValueByColumnName(row, MysqlColumnConstants.COLUMN_TYPE);
-                Object columnKeyObj = result.getValueByColumnName(row, MysqlColumnConstants.COLUMN_KEY);
-                Object extraObj = result.getValueByColumnName(row, MysqlColumnConstants.EXTRA);
-                Object commentObj = result.getValueByColumnName(row, MysqlColumnConstants.COLUMN_COMMENT);
-                Object charLenObj = result.getValueByColumnName(row, MysqlColumnConstants.CHARACTER_MAXIMUM_LENGTH);
-                Object numPrecObj = result.getValueByColumnName(row, MysqlColumnConstants.NUMERIC_PRECISION);
-                Object numScaleObj = result.getValueByColumnName(row, MysqlColumnConstants.NUMERIC_SCALE);
-
-                String name = nameObj != null ? nameObj.toString() : "";
-                if (name.isEmpty()) continue;
-
-                int ordinalPosition = posObj != null ? ((Number) posObj).intValue() : 0;
-                String defaultValue = defObj != null ? defObj.toString() : null;
-                boolean nullable = IsNullableEnum.isNullable(nullableObj != null ? nullableObj.toString() : null);
-                String dataTypeStr = dataTypeObj != null ? dataTypeObj.toString() : "";
-                String columnType = columnTypeObj != null ? columnTypeObj.toString() : "";
-                String columnKey = columnKeyObj != null ? columnKeyObj.toString() : "";
-                String extra = extraObj != null ? extraObj.toString() : "";
-                String remarks = commentObj != null ? commentObj.toString() : "";
-                int columnSize = charLenObj != null ? ((Number) charLenObj).intValue() : 0;
-                if (columnSize == 0 && numPrecObj != null) {
-                    columnSize = ((Number) numPrecObj).intValue();
+                ColumnMetadata column = toColumnMetadata(result, row);
+                if (column != null) {
+                    list.add(column);
                 }
-                int decimalDigits = numScaleObj != null ? ((Number) numScaleObj).intValue() : 0;
-
-                boolean isPrimaryKeyPart = MysqlColumnConstants.COLUMN_KEY_PRI.equals(columnKey);
-                boolean isAutoIncrement = extra.toLowerCase().contains(MysqlColumnConstants.EXTRA_AUTO_INCREMENT);
-                boolean isUnsigned = columnType.toLowerCase().contains("unsigned");
-
-                int javaSqlType = MySQLDataTypeEnum.toSqlType(dataTypeStr);
-                list.add(new ColumnMetadata(
-                        name,
-                        javaSqlType,
-                        dataTypeStr,
-                        columnSize,
-                        decimalDigits,
-                        nullable,
-                        ordinalPosition,
-                        remarks,
-                        isPrimaryKeyPart,
-                        isAutoIncrement,
-                        isUnsigned,
-                        defaultValue
-                ));
             }
         }
         list.sort(Comparator.comparingInt(ColumnMetadata::ordinalPosition));
         return list;
     }
 
+    /**
+     * Column from a row of {@link MysqlSqlConstants#SQL_LIST_COLUMNS} or {@link MysqlSqlConstants#SQL_SNAPSHOT_COLUMNS},
+     * null when the row has no column name
+     */
+    private static ColumnMetadata toColumnMetadata(SqlCommandResult result, List<Object> row) {
+        Object nameObj = result.getValueByColumnName(row, MysqlColumnConstants.COLUMN_NAME);
+        Object posObj = result.getValueByColumnName(row, MysqlColumnConstants.ORDINAL_POSITION);
+        Object defObj = result.getValueByColumnName(row, MysqlColumnConstants.COLUMN_DEFAULT);
+        Object nullableObj = result.getValueByColumnName(row, MysqlColumnConstants.IS_NULLABLE);
+        Object dataTypeObj = result.getValueByColumnName(row, MysqlColumnConstants.DATA_TYPE);
+        Object columnTypeObj = result.getValueByColumnName(row, MysqlColumnConstants.COLUMN_TYPE);
+        Object columnKeyObj = result.getValueByColumnName(row, MysqlColumnConstants.COLUMN_KEY);
+        Object extraObj = result.getValueByColumnName(row, MysqlColumnConstants.EXTRA);
+        Object commentObj = result.getValueByColumnName(row, MysqlColumnConstants.COLUMN_COMMENT);
+        Object charLenObj = result.getValueByColumnName(row, MysqlColumnConstants.CHARACTER_MAXIMUM_LENGTH);
+        Object numPrecObj = result.getValueByColumnName(row, MysqlColumnConstants.NUMERIC_PRECISION);
+        Object numScaleObj = result.getValueByColumnName(row, MysqlColumnConstants.NUMERIC_SCALE);
+
+        String name = nameObj != null ? nameObj.toString() : "";
+        if (name.isEmpty()) {
+            return null;
+        }
+
+        int ordinalPosition = posObj != null ? ((Number) posObj).intValue() : 0;
+        String defaultValue = defObj != null ? defObj.toString() : null;
+        boolean nullable = IsNullableEnum.isNullable(nullableObj != null ? nullableObj.toString() : null);
+        String dataTypeStr = dataTypeObj != null ? dataTypeObj.toString() : "";
+        String columnType = columnTypeObj != null ? columnTypeObj.toString() : "";
+        String columnKey = columnKeyObj != null ? columnKeyObj.toString() : "";
+        String extra = extraObj != null ? extraObj.toString() : "";
+        String remarks = commentObj != null ? commentObj.toString() : "";
+        int columnSize = charLenObj != null ? ((Number) charLenObj).intValue() : 0;
+        if (columnSize == 0 && numPrecObj != null) {
+            columnSize = ((Number) numPrecObj).intValue();
+        }
+        int decimalDigits = numScaleObj != null ? ((Number) numScaleObj).intValue() : 0;
+
+        boolean isPrimaryKeyPart = MysqlColumnConstants.COLUMN_KEY_PRI.equals(columnKey);
+        boolean isAutoIncrement = extra.toLowerCase().contains(MysqlColumnConstants.EXTRA_AUTO_INCREMENT);
+        boolean isUnsigned = columnType.toLowerCase().contains("unsigned");
+
+        int javaSqlType = MySQLDataTypeEnum.toSqlType(dataTypeStr);
+        return new ColumnMetadata(
+                name,
+                javaSqlType,
+                dataTypeStr,
+                columnSize,
+                decimalDigits,
+                nullable,
+                ordinalPosition,
+                remarks,
+                isPrimaryKeyPart,
+                isAutoIncrement,
+                isUnsigned,
+                defaultValue
+        );
+    }
+
     @Override
     public String getTableDdl(Connection connection, String catalog, String schema, String tableName) {
         return getObjectDdl(connection, catalog, tableName,
@@ -267,10 +320,11 @@ public abstract class DefaultMysqlPlugin extends AbstractDatabasePlugin
         }
 
         String fullTableName = MysqlIdentifierBuilder.buildFullIdentifier(catalog, tableName);
-        String sql = String.format(MysqlSqlConstants.SQL_SELECT_TABLE_DATA, fullTableName, pageSize, offset);
+        String sql = String.format(MysqlSqlConstants.SQL_SELECT_TABLE_DATA, fullTableName);
 
-        SqlCommandResult result = sqlExecutor.executeCommand(
-                SqlCommandRequest.ofWithoutTransaction(connection, sql, sql, catalog, null));
+        SqlCommandRequest request = SqlCommandRequest.ofParameterized(connection, sql, catalog, null, pageSize, offset);
+        request.setColumnar(true);
+        SqlCommandResult result = sqlExecutor.executeCommand(request);
 
         if (!result.isSuccess()) {
             logger.severe(String.format("Failed to get table data for %s: %s",
@@ -281,6 +335,141 @@ public abstract class DefaultMysqlPlugin extends AbstractDatabasePlugin
         return result;
     }
 
+    @Override
+    public SqlCommandResult getTableData(Connection connection, String catalog, String schema, String tableName,
+                                         List<String> orderColumns, int offset, int pageSize) {
+        if (orderColumns == null || orderColumns.isEmpty()) {
+            return getTableData(connection, catalog, schema, tableName, offset, pageSize);
+        }
+        if (connection == null || StringUtils.isBlank(tableName)) {
+            throw new IllegalArgumentException("Connection and table name must not be null or empty");
+        }
+
+        String fullTableName = MysqlIdentifierBuilder.buildFullIdentifier(catalog, tableName);
+        String orderList = orderColumns.stream()
+                .map(MysqlIdentifierEscaper.getInstance()::quoteIdentifier)
+                .collect(Collectors.joining(", "));
+        String sql = String.format(MysqlSqlConstants.SQL_SELECT_TABLE_DATA_ORDERED, fullTableName, orderList);
+
+        SqlCommandRequest request = SqlCommandRequest.ofParameterized(connection, sql, catalog, null, pageSize, offset);
+        request.setColumnar(true);
+        // Pages in key order: the caller gives every LOB handle its row key as locator
+        request.setLobHandles(true);
+        SqlCommandResult result = sqlExecutor.executeCommand(request);
+
+        if (!result.isSuccess()) {
+            logger.severe(String.format("Failed to get ordered table data for %s: %s",
+                    fullTableName, result.getErrorMessage()));
+            throw new RuntimeException("Failed to get table data: " + result.getErrorMessage());
+        }
+
+        return result;
+    }
+
+    @Override
+    public SqlCommandResult getTableDataAfter(Connection connection, String catalog, String schema, String tableName,
+                                              List<String> keyColumns, List<Object> afterKey, int pageSize) {
+        if (connection == null || StringUtils.isBlank(tableName) || keyColumns == null || keyColumns.isEmpty()) {
+            throw new IllegalArgumentException("Connection, table name and key columns must not be null or empty");
+        }
+        if (afterKey != null && afterKey.size() != keyColumns.size()) {
+            throw new IllegalArgumentException("Expected " + keyColumns.size() + " key values, got " + afterKey.size());
+        }
+
+        String fullTableName = MysqlIdentifierBuilder.buildFullIdentifier(catalog, tableName);
+        String keyList = keyColumns.stream()
+                .map(MysqlIdentifierEscaper.getInstance()::quoteIdentifier)
+                .collect(Collectors.joining(", "));
+
+        // The row constructor comparison is resolved as a range scan on the index, so no earlier rows are read
+        String sql;
+        Object[] params;
+        if (afterKey == null) {
+            sql = String.format(MysqlSqlConstants.SQL_SELECT_TABLE_DATA_BY_KEY, fullTableName, keyList);
+            params = new Object[] {pageSize};
+        } else {
+            String placeholders = String.join(", ", Collections.nCopies(keyColumns.size(), "?"));
+            sql = String.format(MysqlSqlConstants.SQL_SELECT_TABLE_DATA_AFTER_KEY, fullTableName, keyList, placeholders);
+            params = afterKey.toArray(new Object[keyColumns.size() + 1]);
+            params[keyColumns.size()] = pageSize;
+        }
+
+        SqlCommandRequest request = SqlCommandRequest.ofParameterized(connection, sql, catalog, null, params);
+        request.setColumnar(true);
+        // Pages in key order: the caller gives every LOB handle its row key as locator
+        request.setLobHandles(true);
+        SqlCommandResult result = sqlExecutor.executeCommand(request);
+
+        if (!result.isSuccess()) {
+            logger.severe(String.format("Failed to get table data by key for %s: %s",
+                    fullTableName, result.getErrorMessage()));
+            throw new RuntimeException("Failed to get table data: " + result.getErrorMessage());
+        }
+
+        return result;
+    }
+
+    @Override
+    public LobChunk readLob(Connection connection, String catalog, String schema, String tableName, String column,
+                            LobHandle.Kind kind, List<String> keyColumns, List<Object> keyValues, long offset, int length) {
+        if (connection == null || StringUtils.isBlank(tableName) || StringUtils.isBlank(column)
+                || keyColumns == null || keyColumns.isEmpty() || keyValues == null || keyValues.size() != keyColumns.size()) {
+            throw new IllegalArgumentException("Connection, table, column and a complete key must be given");
+        }
+
+        MysqlIdentifierEscaper escaper = MysqlIdentifierEscaper.getInstance();
+        String quotedColumn = escaper.quoteIdentifier(column);
+        String value = kind == LobHandle.Kind.CLOB
+                ? String.format(MysqlSqlConstants.SQL_CLOB_AS_UTF8_BYTES, quotedColumn)
+                : quotedColumn;
+        String keyList = keyColumns.stream().map(escaper::quoteIdentifier).collect(Collectors.joining(", "));
+        String placeholders = String.join(", ", Collections.nCopies(keyColumns.size(), "?"));
+        String sql = String.format(MysqlSqlConstants.SQL_SELECT_LOB_RANGE, value,
+                MysqlIdentifierBuilder.buildFullIdentifier(catalog, tableName), keyList, placeholders);
+
+        try (PreparedStatement stmt = connection.prepareStatement(sql)) {
+            stmt.setLong(1, offset + 1);
+            stmt.setInt(2, length);
+            for (int i = 0; i < keyValues.size(); i++) {
+                stmt.setObject(i + 3, keyValues.get(i));
+            }
+            try (ResultSet rs = stmt.executeQuery()) {
+                if (!rs.next()) {
+                    return null;
+                }
+                long total = rs.getLong("total");
+                if (rs.wasNull()) {
+                    return null;
+                }
+                byte[] chunk = rs.getBytes("chunk");
+                return new LobChunk(total, rs.getBytes("head"), chunk != null ? chunk : new byte[0]);
+            }
+        } catch (SQLException e) {
+            throw new RuntimeException("Failed to read " + column + " of " + tableName + ": " + e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public SqlCommandResult streamTableData(Connection connection, String catalog, String schema, String tableName, RowConsumer consumer) {
+        if (connection == null || StringUtils.isBlank(tableName)) {
+            throw new IllegalArgumentException("Connection and table name must not be null or empty");
+        }
+
+        String fullTableName = MysqlIdentifierBuilder.buildFullIdentifier(catalog, tableName);
+        String sql = String.format(MysqlSqlConstants.SQL_SELECT_ALL_TABLE_DATA, fullTableName);
+
+        SqlCommandResult result = sqlExecutor.executeCommand(
+                SqlCommandRequest.ofWithoutTransaction(connection, sql, sql, catalog, null), consumer);
+
+        if (!result.isSuccess()) {
+            logger.severe(String.format("Failed to stream table data for %s: %s",
+                    fullTableName, result.getErrorMessage()));
+            throw new RuntimeException("Failed to stream table data: " + result.getErrorMessage());
+        }
+
+        return result;
+    }
+
     @Override
     public long getTableDataCount(Connection connection, String catalog, String schema, String tableName) {
         if (connection == null || StringUtils.isBlank(tableName)) {
@@ -301,11 +490,38 @@ public abstract class DefaultMysqlPlugin extends AbstractDatabasePlugin
         }
     }
 
+    @Override
+    public Long getTableRowEstimate(Connection connection, String catalog, String schema, String tableName) {
+        String db = StringUtils.isNotBlank(catalog) ? catalog : schema;
+        if (connection == null || StringUtils.isBlank(db) || StringUtils.isBlank(tableName)) {
+            return null;
+        }
+
+        try (PreparedStatement stmt = connection.prepareStatement(MysqlSqlConstants.SQL_TABLE_ROW_ESTIMATE)) {
+            stmt.setString(1, db);
+            stmt.setString(2, tableName);
+            try (ResultSet rs = stmt.executeQuery()) {
+                if (rs.next()) {
+                    long rows = rs.getLong(MysqlColumnConstants.TABLE_ROWS);
+                    return rs.wasNull() ? null : rows;
+                }
+                return null;
+            }
+        } catch (SQLException e) {
+            throw new RuntimeException("Failed to get table row estimate: " + e.getMessage(), e);
+        }
+    }
+
     @Override
     public SqlCommandResult getViewData(Connection connection, String catalog, String schema, String viewName, int offset, int pageSize) {
         return getTableData(connection, catalog, schema, viewName, offset, pageSize);
     }
 
+    @Override
+    public SqlCommandResult streamViewData(Connection connection, String catalog, String schema, String viewName, RowConsumer consumer) {
+        return streamTableData(connection, catalog, schema, viewName, consumer);
+    }
+
     @Override
     public long getViewDataCount(Connection connection, String catalog, String schema, String viewName) {
         return getTableDataCount(connection, catalog, schema, viewName);
@@ -320,15 +536,12 @@ public abstract class DefaultMysqlPlugin extends AbstractDatabasePlugin
         if (StringUtils.isBlank(db)) {
             return List.of();
         }
-        String escapedDb = MysqlIdentifierEscaper.getInstance().escapeStringLiteral(db);
-        String sql = String.format(MysqlSqlConstants.SQL_LIST_TRIGGERS, escapedDb);
-        if (StringUtils.isNotBlank(tableName)) {
-            String escapedTable = MysqlIdentifierEscaper.getInstance().escapeStringLiteral(tableName);
-            sql += MysqlSqlConstants.SQL_TRIGGER_FILTER_BY_TABLE + escapedTable + "'";
-        }
+        SqlCommandRequest request = StringUtils.isNotBlank(tableName)
+                ? SqlCommandRequest.ofParameterized(connection,
+                MysqlSqlConstants.SQL_LIST_TRIGGERS + MysqlSqlConstants.SQL_TRIGGER_FILTER_BY_TABLE, db, null, db, tableName)
+                : SqlCommandRequest.ofParameterized(connection, MysqlSqlConstants.SQL_LIST_TRIGGERS, db, null, db);
 
-        SqlCommandResult result = sqlExecutor.executeCommand(
-                SqlCommandRequest.ofWithoutTransaction(connection, sql, sql, db, null));
+        SqlCommandResult result = sqlExecutor.executeCommand(request);
         if (!result.isSuccess()) {
             logger.severe("Failed to list triggers: " + result.getErrorMessage());
             throw new RuntimeException("Failed to list triggers: " + result.getErrorMessage());
@@ -337,22 +550,30 @@ public abstract class DefaultMysqlPlugin extends AbstractDatabasePlugin
         List<TriggerMetadata> list = new ArrayList<>();
         if (result.getRows() != null) {
             for (List<Object> row : result.getRows()) {
-                Object nameObj = result.getValueByColumnName(row, MysqlTriggerConstants.TRIGGER_NAME);
-                Object tableObj = result.getValueByColumnName(row, MysqlTriggerConstants.EVENT_OBJECT_TABLE);
-                Object timingObj = result.getValueByColumnName(row, MysqlTriggerConstants.ACTION_TIMING);
-                Object eventObj = result.getValueByColumnName(row, MysqlTriggerConstants.EVENT_MANIPULATION);
-                String name = nameObj != null ? nameObj.toString() : "";
-                String tbl = tableObj != null ? tableObj.toString() : "";
-                String timing = timingObj != null ? timingObj.toString() : "";
-                String event = eventObj != null ? eventObj.toString() : "";
-                if (StringUtils.isNotBlank(name)) {
-                    list.add(new TriggerMetadata(name, tbl, timing, event));
+                TriggerMetadata trigger = toTriggerMetadata(result, row);
+                if (trigger != null) {
+                    list.add(trigger);
                 }
             }
         }
         return list;
     }
 
+    /**
+     * Trigger from a row of {@link MysqlSqlConstants#SQL_LIST_TRIGGERS}, null when the row has no trigger name
+     */
+    private static TriggerMetadata toTriggerMetadata(SqlCommandResult result, List<Object> row) {
+        Object nameObj = result.getValueByColumnName(row, MysqlTriggerConstants.TRIGGER_NAME);
+        Object tableObj = result.getValueByColumnName(row, MysqlTriggerConstants.EVENT_OBJECT_TABLE);
+        Object timingObj = result.getValueByColumnName(row, MysqlTriggerConstants.ACTION_TIMING);
+        Object eventObj = result.getValueByColumnName(row, MysqlTriggerConstants.EVENT_MANIPULATION);
+        String name = nameObj != null ? nameObj.toString() : "";
+        String tbl = tableObj != null ? tableObj.toString() : "";
+        String timing = timingObj != null ? timingObj.toString() : "";
+        String event = eventObj != null ? eventObj.toString() : "";
+        return StringUtils.isNotBlank(name) ? new TriggerMetadata(name, tbl, timing, event) : null;
+    }
+
     @Override
     public List<FunctionMetadata> getFunctions(Connection connection, String catalog, String schema) {
         if (connection == null) {
@@ -362,11 +583,8 @@ public abstract class DefaultMysqlPlugin extends AbstractDatabasePlugin
         if (StringUtils.isBlank(db)) {
             return List.of();
         }
-        String escapedDb = MysqlIdentifierEscaper.getInstance().escapeStringLiteral(db);
-        String sql = String.format(MysqlSqlConstants.SQL_LIST_FUNCTIONS, escapedDb);
-
         SqlCommandResult result = sqlExecutor.executeCommand(
-                SqlCommandRequest.ofWithoutTransaction(connection, sql, sql, db, null));
+                SqlCommandRequest.ofParameterized(connection, MysqlSqlConstants.SQL_LIST_FUNCTIONS, db, null, db));
 
         if (!result.isSuccess()) {
             logger.severe("Failed to list functions: " + result.getErrorMessage());
@@ -409,11 +627,8 @@ public abstract class DefaultMysqlPlugin extends AbstractDatabasePlugin
         if (StringUtils.isBlank(db)) {
             return List.of();
         }
-        String escapedDb = MysqlIdentifierEscaper.getInstance().escapeStringLiteral(db);
-        String sql = String.format(MysqlSqlConstants.SQL_LIST_PROCEDURES, escapedDb);
-
         SqlCommandResult result = sqlExecutor.executeCommand(
-                SqlCommandRequest.ofWithoutTransaction(connection, sql, sql, db, null));
+                SqlCommandRequest.ofParameterized(connection, MysqlSqlConstants.SQL_LIST_PROCEDURES, db, null, db));
 
         if (!result.isSuccess()) {
             logger.severe("Failed to list procedures: " + result.getErrorMessage());
@@ -445,43 +660,276 @@ public abstract class DefaultMysqlPlugin extends AbstractDatabasePlugin
         return list;
     }
 
+    @Override
+    public SchemaSnapshot getSchemaSnapshot(Connection connection, String catalog, String schema) {
+        String db = snapshotDatabase(connection, catalog, schema);
+        SchemaSnapshot.Builder snapshot = SchemaSnapshot.builder(catalog, schema)
+                .fingerprints(readFingerprints(connection, db));
+        loadTables(connection, db, null, snapshot);
+        loadRoutines(connection, db, snapshot);
+        loadTriggers(connection, db, snapshot);
+        return snapshot.build();
+    }
+
+    @Override
+    public SchemaSnapshot refreshSchemaSnapshot(Connection connection, SchemaSnapshot previous) {
+        String db = snapshotDatabase(connection, previous.getCatalog(), previous.getSchema());
+        SchemaFingerprints before = previous.fingerprints();
+        if (before == null) {
+            return getSchemaSnapshot(connection, previous.getCatalog(), previous.getSchema());
+        }
+
+        SchemaFingerprints now = readFingerprints(connection, db);
+        boolean tablesMoved = now.movedSince(before, SchemaFingerprints.TABLE);
+        boolean routinesMoved = now.movedSince(before, SchemaFingerprints.ROUTINE);
+        boolean triggersMoved = now.movedSince(before, SchemaFingerprints.TRIGGER);
+        if (!tablesMoved && !routinesMoved && !triggersMoved && now.rowEstimates().equals(before.rowEstimates())) {
+            return previous;
+        }
+
+        Set<String> changedTables = now.changedSince(before, SchemaFingerprints.TABLE);
+        SchemaSnapshot.Builder snapshot = SchemaSnapshot.builder(previous.getCatalog(), previous.getSchema())
+                .fingerprints(now)
+                .previous(previous);
+        // Unchanged tables first, so the reloaded ones share their strings
+        for (TableSnapshot table : previous.getTables()) {
+            String key = SchemaFingerprints.key(SchemaFingerprints.TABLE, table.name());
+            if (now.objects().containsKey(key) && !changedTables.contains(table.name())) {
+                snapshot.table(table, table.view() ? null : now.rowEstimates().get(table.name()));
+            }
+        }
+        if (!changedTables.isEmpty()) {
+            loadTables(connection, db, changedTables, snapshot);
+        }
+        if (routinesMoved) {
+            loadRoutines(connection, db, snapshot);
+        } else {
+            previous.getFunctions().forEach(snapshot::function);
+            previous.getProcedures().forEach(snapshot::procedure);
+        }
+        if (triggersMoved) {
+            loadTriggers(connection, db, snapshot);
+        } else {
+            previous.getTriggers().forEach(snapshot::trigger);
+        }
+        return snapshot.build();
+    }
+
+    private static String snapshotDatabase(Connection connection, String catalog, String schema) {
+        String db = StringUtils.isNotBlank(catalog) ? catalog : schema;
+        if (connection == null || StringUtils.isBlank(db)) {
+            throw new IllegalArgumentException("A database is required for a schema snapshot");
+        }
+        return db;
+    }
+
+    private SchemaFingerprints readFingerprints(Connection connection, String db) {
+        SqlCommandResult result = querySchema(connection, MysqlSqlConstants.SQL_SCHEMA_FINGERPRINTS, "fingerprints",
+                db, db, db, db, db, db);
+        Map<String, String> objects = new HashMap<>();
+        Map<String, Long> rowEstimates = new HashMap<>();
+        for (List<Object> row : rowsOf(result)) {
+            String kind = text(result, row, MysqlFingerprintConstants.OBJECT_KIND);
+            String name = text(result, row, MysqlFingerprintConstants.OBJECT_NAME);
+            if (StringUtils.isBlank(kind) || StringUtils.isBlank(name)) {
+                continue;
+            }
+            objects.put(SchemaFingerprints.key(kind, name),
+                    StringUtils.defaultString(text(result, row, MysqlFingerprintConstants.FINGERPRINT)));
+            Object estimate = result.getValueByColumnName(row, MysqlFingerprintConstants.ROW_ESTIMATE);
+            if (estimate != null) {
+                rowEstimates.put(name, ((Number) estimate).longValue());
+            }
+        }
+        return new SchemaFingerprints(objects, rowEstimates);
+    }
+
+    /**
+     * Tables and views with their columns, indexes and foreign keys
+     *
+     * @param only names of the tables to load, null for all
+     */
+    private void loadTables(Connection connection, String db, Set<String> only, SchemaSnapshot.Builder snapshot) {
+        String filter = "";
+        List<Object> params = new ArrayList<>();
+        params.add(db);
+        // Above this many names the whole schema is read and the other tables skipped
+        if (only != null && only.size() <= MAX_FILTERED_TABLES) {
+            filter = String.format(MysqlSqlConstants.SQL_SNAPSHOT_TABLE_FILTER, String.join(",", Collections.nCopies(only.size(), "?")));
+            params.addAll(only);
+        }
+        Object[] args = params.toArray();
+
+        SqlCommandResult tables = querySchema(connection,
+                String.format(MysqlSqlConstants.SQL_SNAPSHOT_TABLES, filter), "tables", args);
+        for (List<Object> row : rowsOf(tables)) {
+            String name = text(tables, row, MysqlColumnConstants.TABLE_NAME);
+            if (StringUtils.isBlank(name) || only != null && !only.contains(name)) {
+                continue;
+            }
+            boolean view = MysqlColumnConstants.TABLE_TYPE_VIEW.equals(text(tables, row, MysqlColumnConstants.TABLE_TYPE));
+            // Views have the comment "VIEW" and no row estimate
+            String comment = view ? "" : StringUtils.defaultString(text(tables, row, MysqlColumnConstants.TABLE_COMMENT));
+            Object estimate = tables.getValueByColumnName(row, MysqlColumnConstants.TABLE_ROWS);
+            snapshot.table(name, view, comment, !view && estimate != null ? ((Number) estimate).longValue() : null);
+        }
+
+        SqlCommandResult columns = querySchema(connection,
+                String.format(MysqlSqlConstants.SQL_SNAPSHOT_COLUMNS, filter), "columns", args);
+        for (List<Object> row : rowsOf(columns)) {
+            String table = text(columns, row, MysqlColumnConstants.TABLE_NAME);
+            ColumnMetadata column = toColumnMetadata(columns, row);
+            if (StringUtils.isNotBlank(table) && column != null && (only == null || only.contains(table))) {
+                snapshot.column(table, column);
+            }
+        }
+
+        SqlCommandResult statistics = querySchema(connection,
+                String.format(MysqlSqlConstants.SQL_SNAPSHOT_INDEXES, filter), "indexes", args);
+        Map<List<String>, IndexBuilder> indexes = new LinkedHashMap<>();
+        for (List<Object> row : rowsOf(statistics)) {
+            String table = text(statistics, row, MysqlKeyConstants.TABLE_NAME);
+            String indexName = text(statistics, row, MysqlKeyConstants.INDEX_NAME);
+            if (StringUtils.isBlank(table) || StringUtils.isBlank(indexName) || only != null && !only.contains(table)) {
+                continue;
+            }
+            boolean unique = ((Number) statistics.getValueByColumnName(row, MysqlKeyConstants.NON_UNIQUE)).intValue() == 0;
+            String type = MysqlKeyConstants.INDEX_TYPE_HASH.equals(text(statistics, row, MysqlKeyConstants.INDEX_TYPE))
+                    ? IndexTypeEnum.HASHED.name()
+                    : IndexTypeEnum.OTHER.name();
+            int position = ((Number) statistics.getValueByColumnName(row, MysqlKeyConstants.SEQ_IN_INDEX)).intValue();
+            // Functional index parts have no column name
+            indexes.computeIfAbsent(List.of(table, indexName), k -> new IndexBuilder(indexName, type, unique))
+                    .addColumn(position, StringUtils.defaultString(text(statistics, row, MysqlKeyConstants.COLUMN_NAME)));
+        }
+        indexes.forEach((key, index) -> snapshot.index(key.get(0), index.build()));
+
+        SqlCommandResult keyUsage = querySchema(connection,
+                String.format(MysqlSqlConstants.SQL_SNAPSHOT_FOREIGN_KEYS, filter), "foreign keys", args);
+        Map<List<String>, ForeignKeyMetadata> foreignKeys = new LinkedHashMap<>();
+        for (List<Object> row : rowsOf(keyUsage)) {
+            String table = text(keyUsage, row, MysqlKeyConstants.TABLE_NAME);
+            String constraint = text(keyUsage, row, MysqlKeyConstants.CONSTRAINT_NAME);
+            if (StringUtils.isBlank(table) || StringUtils.isBlank(constraint) || only != null && !only.contains(table)) {
+                continue;
+            }
+            ForeignKeyMetadata foreignKey = foreignKeys.computeIfAbsent(List.of(table, constraint), k -> {
+                String referencedDb = text(keyUsage, row, MysqlKeyConstants.REFERENCED_TABLE_SCHEMA);
+                return new ForeignKeyMetadata(constraint, new ArrayList<>(), db.equals(referencedDb) ? null : referencedDb,
+                        text(keyUsage, row, MysqlKeyConstants.REFERENCED_TABLE_NAME), new ArrayList<>());
+            });
+            foreignKey.columns().add(text(keyUsage, row, MysqlKeyConstants.COLUMN_NAME));
+            foreignKey.referencedColumns().add(text(keyUsage, row, MysqlKeyConstants.REFERENCED_COLUMN_NAME));
+        }
+        foreignKeys.forEach((key, foreignKey) -> snapshot.foreignKey(key.get(0), foreignKey));
+    }
+
+    /**
+     * Functions and procedures with their parameters
+     */
+    private void loadRoutines(Connection connection, String db, SchemaSnapshot.Builder snapshot) {
+        SqlCommandResult routines = querySchema(connection, MysqlSqlConstants.SQL_SNAPSHOT_ROUTINES, "routines", db);
+        SqlCommandResult parameters = querySchema(connection, MysqlSqlConstants.SQL_SNAPSHOT_PARAMETERS, "routine parameters", db);
+        // A function and a procedure may share a name, so parameters are grouped per routine type
+        Map<String, List<ParamRow>> paramRowsByType = new HashMap<>();
+        for (List<Object> row : rowsOf(parameters)) {
+            paramRowsByType.computeIfAbsent(text(parameters, row, MysqlRoutineConstants.ROUTINE_TYPE), k -> new ArrayList<>())
+                    .add(toParamRow(parameters, row));
+        }
+        Map<String, Map<String, List<ParameterInfo>>> paramsByType = new HashMap<>();
+        paramRowsByType.forEach((type, rows) -> paramsByType.put(type, groupParametersByRoutine(rows)));
+        Set<String> seenRoutines = new HashSet<>();
+        for (List<Object> row : rowsOf(routines)) {
+            String type = text(routines, row, MysqlRoutineConstants.ROUTINE_TYPE);
+            String specName = StringUtils.defaultString(text(routines, row, MysqlRoutineConstants.SPECIFIC_NAME));
+            String name = text(routines, row, MysqlRoutineConstants.ROUTINE_NAME);
+            if (StringUtils.isBlank(name) || !seenRoutines.add(type + " " + specName)) {
+                continue;
+            }
+            List<ParameterInfo> params = paramsByType.getOrDefault(type, Map.of()).get(specName);
+            if (MysqlRoutineConstants.ROUTINE_TYPE_FUNCTION.equals(type)) {
+                String returnType = text(routines, row, MysqlRoutineConstants.DTD_IDENTIFIER);
+                snapshot.function(new FunctionMetadata(name, params, returnType != null ? returnType.trim() : null));
+            } else {
+                snapshot.procedure(new ProcedureMetadata(name, params));
+            }
+        }
+    }
+
+    private void loadTriggers(Connection connection, String db, SchemaSnapshot.Builder snapshot) {
+        SqlCommandResult triggers = querySchema(connection, MysqlSqlConstants.SQL_LIST_TRIGGERS, "triggers", db);
+        for (List<Object> row : rowsOf(triggers)) {
+            TriggerMetadata trigger = toTriggerMetadata(triggers, row);
+            if (trigger != null) {
+                snapshot.trigger(trigger);
+            }
+        }
+    }
+
+    /**
+     * Run a whole-schema information_schema query; the first parameter is the database
+     */
+    private SqlCommandResult querySchema(Connection connection, String sql, String what, Object... params) {
+        String db = (String) params[0];
+        SqlCommandResult result = sqlExecutor.executeCommand(SqlCommandRequest.ofParameterized(connection, sql, db, null, params));
+        if (!result.isSuccess()) {
+            logger.severe("Failed to read " + what + " of " + db + ": " + result.getErrorMessage());
+            throw new RuntimeException("Failed to read " + what + ": " + result.getErrorMessage());
+        }
+        return result;
+    }
+
+    private static List<List<Object>> rowsOf(SqlCommandResult result) {
+        return result.getRows() != null ? result.getRows() : List.of();
+    }
+
+    private static String text(SqlCommandResult result, List<Object> row, String column) {
+        Object value = result.getValueByColumnName(row, column);
+        return value != null ? value.toString() : null;
+    }
+
     private List<ParamRow> fetchParameters(Connection connection, String db, java.util.Set<String> specificNames) {
         if (specificNames == null || specificNames.isEmpty()) {
             return List.of();
         }
-        StringBuilder inClause = new StringBuilder();
-        for (String sn : specificNames) {
-            if (inClause.length() > 0) inClause.append(',');
-            String escapedSn = MysqlIdentifierEscaper.getInstance().escapeStringLiteral(sn);
-            inClause.append("'").append(escapedSn).append("'");
-        }
-        String escapedDb = MysqlIdentifierEscaper.getInstance().escapeStringLiteral(db);
-        String sql = String.format(MysqlSqlConstants.SQL_FETCH_PARAMETERS, escapedDb, inClause);
+        List<Object> params = new ArrayList<>(specificNames.size() + 1);
+        params.add(db);
+        params.addAll(specificNames);
+        String placeholders = String.join(",", Collections.nCopies(specificNames.size(), "?"));
+        String sql = String.format(MysqlSqlConstants.SQL_FETCH_PARAMETERS, placeholders);
 
         SqlCommandResult result = sqlExecutor.executeCommand(
-                SqlCommandRequest.ofWithoutTransaction(connection, sql, sql, db, null));
+                SqlCommandRequest.ofParameterized(connection, sql, db, null, params.toArray()));
 
         if (!result.isSuccess()) {
             return List.of();
         }
 
+        return toParamRows(result);
+    }
+
+    private static List<ParamRow> toParamRows(SqlCommandResult result) {
         List<ParamRow> list = new ArrayList<>();
         if (result.getRows() != null) {
             for (List<Object> row : result.getRows()) {
-                Object specObj = result.getValueByColumnName(row, MysqlRoutineConstants.SPECIFIC_NAME);
-                Object nameObj = result.getValueByColumnName(row, MysqlRoutineConstants.PARAMETER_NAME);
-                Object dtdObj = result.getValueByColumnName(row, MysqlRoutineConstants.DTD_IDENTIFIER);
-                Object posObj = result.getValueByColumnName(row, MysqlRoutineConstants.ORDINAL_POSITION);
-                String specName = specObj != null ? specObj.toString() : "";
-                String paramName = nameObj != null ? nameObj.toString() : "";
-                String dataType = dtdObj != null ? dtdObj.toString().trim() : "";
-                int pos = posObj != null ? ((Number) posObj).intValue() : 0;
-                list.add(new ParamRow(specName, paramName, dataType, pos));
+                list.add(toParamRow(result, row));
             }
         }
         return list;
     }
 
+    private static ParamRow toParamRow(SqlCommandResult result, List<Object> row) {
+        Object specObj = result.getValueByColumnName(row, MysqlRoutineConstants.SPECIFIC_NAME);
+        Object nameObj = result.getValueByColumnName(row, MysqlRoutineConstants.PARAMETER_NAME);
+        Object dtdObj = result.getValueByColumnName(row, MysqlRoutineConstants.DTD_IDENTIFIER);
+        Object posObj = result.getValueByColumnName(row, MysqlRoutineConstants.ORDINAL_POSITION);
+        String specName = specObj != null ? specObj.toString() : "";
+        String paramName = nameObj != null ? nameObj.toString() : "";
+        String dataType = dtdObj != null ? dtdObj.toString().trim() : "";
+        int pos = posObj != null ? ((Number) posObj).intValue() : 0;
+        return new ParamRow(specName, paramName, dataType, pos);
+    }
+
     private record ParamRow(String specName, String paramName, String dataType, int ordinalPosition) {
     }
 
@@ -9,6 +9,9 @@ import java.util.Properties;
 
 public class MysqlJdbcConnectionBuilder implements JdbcConnectionBuilder {
 
+    private static final String PROP_REWRITE_BATCHED_STATEMENTS = "rewriteBatchedStatements";
+    private static final String PROP_CONTINUE_BATCH_ON_ERROR = "continueBatchOnError";
+
     @Override
     public String buildUrl(ConnectionConfig config, String urlTemplate, int defaultPort) {
         String host = config.getHost();
@@ -36,11 +39,17 @@ public class MysqlJdbcConnectionBuilder implements JdbcConnectionBuilder {
             props.setProperty(PROP_CONNECT_TIMEOUT, String.valueOf(config.getTimeout() * 1000));
         }
 
+        // Send JDBC batches as multi-row INSERTs / multi-statement packets instead of one round trip per entry
+        props.setProperty(PROP_REWRITE_BATCHED_STATEMENTS, "true");
+
         // Add additional properties
         if (MapUtils.isNotEmpty(config.getProperties())) {
             props.putAll(config.getProperties());
         }
 
+        // Batches stop at the first failing statement, as the executor reports them; not left to connection properties
+        props.setProperty(PROP_CONTINUE_BATCH_ON_ERROR, "false");
+
         // Set database name if present
         if (StringUtils.isNotBlank(config.getDatabase())) {
             props.setProperty(PROP_DATABASE, config.getDatabase());
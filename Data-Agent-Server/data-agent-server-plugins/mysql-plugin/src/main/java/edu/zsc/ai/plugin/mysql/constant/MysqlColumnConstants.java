@@ -8,6 +8,12 @@ public final class MysqlColumnConstants {
 
     public static final String TABLE_SCHEMA = "TABLE_SCHEMA";
     public static final String TABLE_NAME = "TABLE_NAME";
+    /** information_schema.TABLES */
+    public static final String TABLE_ROWS = "TABLE_ROWS";
+    /** information_schema.TABLES */
+    public static final String TABLE_TYPE = "TABLE_TYPE";
+    /** information_schema.TABLES */
+    public static final String TABLE_COMMENT = "TABLE_COMMENT";
     public static final String COLUMN_NAME = "COLUMN_NAME";
     public static final String ORDINAL_POSITION = "ORDINAL_POSITION";
     public static final String COLUMN_DEFAULT = "COLUMN_DEFAULT";
@@ -23,6 +29,9 @@ public final class MysqlColumnConstants {
 
     /** COLUMN_KEY value for primary key. */
     public static final String COLUMN_KEY_PRI = "PRI";
+    /** TABLE_TYPE value for views; base tables are "BASE TABLE". */
+    public static final String TABLE_TYPE_VIEW = "VIEW";
+
     /** EXTRA value substring for auto_increment. */
     public static final String EXTRA_AUTO_INCREMENT = "auto_increment";
 
@@ -0,0 +1,18 @@
+package edu.zsc.ai.plugin.mysql.constant;
+
+/**
+ * Column names of the schema fingerprint query ({@link MysqlSqlConstants#SQL_SCHEMA_FINGERPRINTS}).
+ */
+public final class MysqlFingerprintConstants {
+
+    /** TABLE, ROUTINE or TRIGGER */
+    public static final String OBJECT_KIND = "OBJECT_KIND";
+    /** Table name, routine type and name (e.g. "FUNCTION f") or trigger name */
+    public static final String OBJECT_NAME = "OBJECT_NAME";
+    public static final String FINGERPRINT = "FINGERPRINT";
+    /** Row estimate of a table, NULL for other objects and views */
+    public static final String ROW_ESTIMATE = "ROW_ESTIMATE";
+
+    private MysqlFingerprintConstants() {
+    }
+}
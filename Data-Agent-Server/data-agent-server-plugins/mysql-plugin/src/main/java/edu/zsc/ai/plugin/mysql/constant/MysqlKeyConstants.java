@@ -0,0 +1,29 @@
+package edu.zsc.ai.plugin.mysql.constant;
+
+/**
+ * Column names for MySQL information_schema.STATISTICS and KEY_COLUMN_USAGE result sets.
+ */
+public final class MysqlKeyConstants {
+
+    public static final String TABLE_SCHEMA = "TABLE_SCHEMA";
+    public static final String TABLE_NAME = "TABLE_NAME";
+    public static final String COLUMN_NAME = "COLUMN_NAME";
+
+    // --- STATISTICS ---
+    public static final String INDEX_NAME = "INDEX_NAME";
+    public static final String NON_UNIQUE = "NON_UNIQUE";
+    public static final String SEQ_IN_INDEX = "SEQ_IN_INDEX";
+    public static final String INDEX_TYPE = "INDEX_TYPE";
+    /** INDEX_TYPE value of hash indexes (MEMORY tables) */
+    public static final String INDEX_TYPE_HASH = "HASH";
+
+    // --- KEY_COLUMN_USAGE ---
+    public static final String CONSTRAINT_NAME = "CONSTRAINT_NAME";
+    public static final String ORDINAL_POSITION = "ORDINAL_POSITION";
+    public static final String REFERENCED_TABLE_SCHEMA = "REFERENCED_TABLE_SCHEMA";
+    public static final String REFERENCED_TABLE_NAME = "REFERENCED_TABLE_NAME";
+    public static final String REFERENCED_COLUMN_NAME = "REFERENCED_COLUMN_NAME";
+
+    private MysqlKeyConstants() {
+    }
+}
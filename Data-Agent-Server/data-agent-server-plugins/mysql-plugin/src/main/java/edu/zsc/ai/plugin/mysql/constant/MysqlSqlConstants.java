@@ -1,5 +1,7 @@
 package edu.zsc.ai.plugin.mysql.constant;
 
+import edu.zsc.ai.plugin.model.metadata.SchemaFingerprints;
+
 import static edu.zsc.ai.plugin.mysql.constant.MysqlRoutineConstants.*;
 import static edu.zsc.ai.plugin.mysql.constant.MysqlTriggerConstants.*;
 
@@ -35,61 +37,201 @@ public final class MysqlSqlConstants {
     public static final String SQL_DROP_TRIGGER = "DROP TRIGGER %s";
 
     // --- information_schema.TRIGGERS ---
-    /** %s = escaped schema. Append SQL_TRIGGER_FILTER_BY_TABLE + escapedTable + "'" for table filter. */
+    /** ? = schema. Append SQL_TRIGGER_FILTER_BY_TABLE for a table filter (? = table). */
     public static final String SQL_LIST_TRIGGERS =
             "SELECT " + TRIGGER_NAME + ", " + EVENT_OBJECT_TABLE + ", " + ACTION_TIMING + ", " + EVENT_MANIPULATION
                     + " FROM information_schema.TRIGGERS"
-                    + " WHERE " + TRIGGER_SCHEMA + " = '%s'";
-    public static final String SQL_TRIGGER_FILTER_BY_TABLE = " AND " + EVENT_OBJECT_TABLE + " = '";
+                    + " WHERE " + TRIGGER_SCHEMA + " = ?";
+    public static final String SQL_TRIGGER_FILTER_BY_TABLE = " AND " + EVENT_OBJECT_TABLE + " = ?";
 
     // --- information_schema.ROUTINES ---
-    /** %s = escaped schema */
+    /** ? = schema */
     public static final String SQL_LIST_FUNCTIONS =
             "SELECT " + SPECIFIC_NAME + ", " + ROUTINE_NAME + ", " + DTD_IDENTIFIER
                     + " FROM information_schema.ROUTINES"
-                    + " WHERE " + ROUTINE_SCHEMA + " = '%s'"
+                    + " WHERE " + ROUTINE_SCHEMA + " = ?"
                     + " AND " + ROUTINE_TYPE + " = '" + ROUTINE_TYPE_FUNCTION + "'";
-    /** %s = escaped schema */
+    /** ? = schema */
     public static final String SQL_LIST_PROCEDURES =
             "SELECT " + SPECIFIC_NAME + ", " + ROUTINE_NAME
                     + " FROM information_schema.ROUTINES"
-                    + " WHERE " + ROUTINE_SCHEMA + " = '%s'"
+                    + " WHERE " + ROUTINE_SCHEMA + " = ?"
                     + " AND " + ROUTINE_TYPE + " = '" + ROUTINE_TYPE_PROCEDURE + "'";
 
     // --- information_schema.COLUMNS ---
-    /** %s = TABLE_SCHEMA, %s = TABLE_NAME. For tables and views. */
-    public static final String SQL_LIST_COLUMNS =
-            "SELECT " + MysqlColumnConstants.COLUMN_NAME + ", " + MysqlColumnConstants.ORDINAL_POSITION
+    private static final String COLUMN_FIELDS =
+            MysqlColumnConstants.COLUMN_NAME + ", " + MysqlColumnConstants.ORDINAL_POSITION
                     + ", " + MysqlColumnConstants.COLUMN_DEFAULT + ", " + MysqlColumnConstants.IS_NULLABLE
                     + ", " + MysqlColumnConstants.DATA_TYPE + ", " + MysqlColumnConstants.COLUMN_TYPE
                     + ", " + MysqlColumnConstants.COLUMN_KEY + ", " + MysqlColumnConstants.EXTRA
                     + ", " + MysqlColumnConstants.COLUMN_COMMENT
                     + ", " + MysqlColumnConstants.CHARACTER_MAXIMUM_LENGTH
-                    + ", " + MysqlColumnConstants.NUMERIC_PRECISION + ", " + MysqlColumnConstants.NUMERIC_SCALE
+                    + ", " + MysqlColumnConstants.NUMERIC_PRECISION + ", " + MysqlColumnConstants.NUMERIC_SCALE;
+
+    /** ? = TABLE_SCHEMA, ? = TABLE_NAME. For tables and views. */
+    public static final String SQL_LIST_COLUMNS =
+            "SELECT " + COLUMN_FIELDS
                     + " FROM information_schema.COLUMNS"
-                    + " WHERE " + MysqlColumnConstants.TABLE_SCHEMA + " = '%s'"
-                    + " AND " + MysqlColumnConstants.TABLE_NAME + " = '%s'"
+                    + " WHERE " + MysqlColumnConstants.TABLE_SCHEMA + " = ?"
+                    + " AND " + MysqlColumnConstants.TABLE_NAME + " = ?"
                     + " ORDER BY " + MysqlColumnConstants.ORDINAL_POSITION;
 
+    // --- Whole-schema snapshot: one query per information_schema table ---
+    /** %s = one placeholder per table name (e.g. ?,?); appended to the table queries to reload only those tables */
+    public static final String SQL_SNAPSHOT_TABLE_FILTER = " AND TABLE_NAME IN (%s)";
+
+    /** ? = TABLE_SCHEMA, %s = optional SQL_SNAPSHOT_TABLE_FILTER */
+    public static final String SQL_SNAPSHOT_TABLES =
+            "SELECT " + MysqlColumnConstants.TABLE_NAME + ", " + MysqlColumnConstants.TABLE_TYPE
+                    + ", " + MysqlColumnConstants.TABLE_COMMENT + ", " + MysqlColumnConstants.TABLE_ROWS
+                    + " FROM information_schema.TABLES"
+                    + " WHERE " + MysqlColumnConstants.TABLE_SCHEMA + " = ?%s";
+
+    /** ? = TABLE_SCHEMA, %s = optional SQL_SNAPSHOT_TABLE_FILTER */
+    public static final String SQL_SNAPSHOT_COLUMNS =
+            "SELECT " + MysqlColumnConstants.TABLE_NAME + ", " + COLUMN_FIELDS
+                    + " FROM information_schema.COLUMNS"
+                    + " WHERE " + MysqlColumnConstants.TABLE_SCHEMA + " = ?%s";
+
+    /** ? = TABLE_SCHEMA, %s = optional SQL_SNAPSHOT_TABLE_FILTER. Same order as DatabaseMetaData.getIndexInfo. */
+    public static final String SQL_SNAPSHOT_INDEXES =
+            "SELECT " + MysqlKeyConstants.TABLE_NAME + ", " + MysqlKeyConstants.INDEX_NAME
+                    + ", " + MysqlKeyConstants.NON_UNIQUE + ", " + MysqlKeyConstants.SEQ_IN_INDEX
+                    + ", " + MysqlKeyConstants.COLUMN_NAME + ", " + MysqlKeyConstants.INDEX_TYPE
+                    + " FROM information_schema.STATISTICS"
+                    + " WHERE " + MysqlKeyConstants.TABLE_SCHEMA + " = ?%s"
+                    + " ORDER BY " + MysqlKeyConstants.TABLE_NAME + ", " + MysqlKeyConstants.NON_UNIQUE
+                    + ", " + MysqlKeyConstants.INDEX_NAME + ", " + MysqlKeyConstants.SEQ_IN_INDEX;
+
+    /** ? = TABLE_SCHEMA, %s = optional SQL_SNAPSHOT_TABLE_FILTER */
+    public static final String SQL_SNAPSHOT_FOREIGN_KEYS =
+            "SELECT " + MysqlKeyConstants.TABLE_NAME + ", " + MysqlKeyConstants.CONSTRAINT_NAME
+                    + ", " + MysqlKeyConstants.COLUMN_NAME + ", " + MysqlKeyConstants.REFERENCED_TABLE_SCHEMA
+                    + ", " + MysqlKeyConstants.REFERENCED_TABLE_NAME + ", " + MysqlKeyConstants.REFERENCED_COLUMN_NAME
+                    + " FROM information_schema.KEY_COLUMN_USAGE"
+                    + " WHERE " + MysqlKeyConstants.TABLE_SCHEMA + " = ?%s"
+                    + " AND " + MysqlKeyConstants.REFERENCED_TABLE_NAME + " IS NOT NULL"
+                    + " ORDER BY " + MysqlKeyConstants.TABLE_NAME + ", " + MysqlKeyConstants.CONSTRAINT_NAME
+                    + ", " + MysqlKeyConstants.ORDINAL_POSITION;
+
+    /** ? = schema. Functions and procedures. */
+    public static final String SQL_SNAPSHOT_ROUTINES =
+            "SELECT " + SPECIFIC_NAME + ", " + ROUTINE_NAME + ", " + ROUTINE_TYPE + ", " + DTD_IDENTIFIER
+                    + " FROM information_schema.ROUTINES"
+                    + " WHERE " + ROUTINE_SCHEMA + " = ?";
+
+    /** ? = schema. Parameters of every routine in the schema. */
+    public static final String SQL_SNAPSHOT_PARAMETERS =
+            "SELECT " + ROUTINE_TYPE + ", " + SPECIFIC_NAME + ", " + PARAMETER_NAME + ", " + DTD_IDENTIFIER + ", " + ORDINAL_POSITION
+                    + " FROM information_schema.PARAMETERS"
+                    + " WHERE " + SPECIFIC_SCHEMA + " = ?"
+                    + " AND " + ORDINAL_POSITION + " > 0"
+                    + " AND " + PARAMETER_NAME + " IS NOT NULL";
+
+    /**
+     * ? = schema (six times). One row per table, routine and trigger with a fingerprint of its definition:
+     * for tables the type, creation time, comment and checksums of the columns, indexes and foreign key columns;
+     * for routines and triggers their creation and last change times. Routines are named "TYPE name", as a
+     * function and a procedure may share a name. Row estimates are returned apart, as they move with the data.
+     */
+    public static final String SQL_SCHEMA_FINGERPRINTS =
+            "SELECT '" + SchemaFingerprints.TABLE + "' AS " + MysqlFingerprintConstants.OBJECT_KIND + ","
+                    + " t.TABLE_NAME AS " + MysqlFingerprintConstants.OBJECT_NAME + ","
+                    + " CONCAT_WS('|', t.TABLE_TYPE, t.CREATE_TIME, t.TABLE_COMMENT, c.COLUMN_COUNT, c.COLUMN_CHECKSUM,"
+                    + " s.INDEX_CHECKSUM, f.FOREIGN_KEY_CHECKSUM) AS " + MysqlFingerprintConstants.FINGERPRINT + ","
+                    + " t.TABLE_ROWS AS " + MysqlFingerprintConstants.ROW_ESTIMATE
+                    + " FROM information_schema.TABLES t"
+                    + " LEFT JOIN (SELECT TABLE_NAME, COUNT(*) AS COLUMN_COUNT,"
+                    + " SUM(CRC32(CONCAT_WS('|', ORDINAL_POSITION, COLUMN_NAME, COLUMN_TYPE, IS_NULLABLE, COLUMN_DEFAULT,"
+                    + " COLUMN_KEY, EXTRA, COLUMN_COMMENT))) AS COLUMN_CHECKSUM"
+                    + " FROM information_schema.COLUMNS WHERE TABLE_SCHEMA = ? GROUP BY TABLE_NAME) c"
+                    + " ON c.TABLE_NAME = t.TABLE_NAME"
+                    + " LEFT JOIN (SELECT TABLE_NAME,"
+                    + " SUM(CRC32(CONCAT_WS('|', INDEX_NAME, SEQ_IN_INDEX, COLUMN_NAME, NON_UNIQUE))) AS INDEX_CHECKSUM"
+                    + " FROM information_schema.STATISTICS WHERE TABLE_SCHEMA = ? GROUP BY TABLE_NAME) s"
+                    + " ON s.TABLE_NAME = t.TABLE_NAME"
+                    + " LEFT JOIN (SELECT rc.TABLE_NAME,"
+                    + " SUM(CRC32(CONCAT_WS('|', rc.CONSTRAINT_NAME, rc.UPDATE_RULE, rc.DELETE_RULE, k.ORDINAL_POSITION,"
+                    + " k.COLUMN_NAME, k.REFERENCED_TABLE_SCHEMA, k.REFERENCED_TABLE_NAME, k.REFERENCED_COLUMN_NAME)))"
+                    + " AS FOREIGN_KEY_CHECKSUM"
+                    + " FROM information_schema.REFERENTIAL_CONSTRAINTS rc"
+                    + " JOIN information_schema.KEY_COLUMN_USAGE k ON k.CONSTRAINT_SCHEMA = rc.CONSTRAINT_SCHEMA"
+                    + " AND k.CONSTRAINT_NAME = rc.CONSTRAINT_NAME AND k.TABLE_NAME = rc.TABLE_NAME"
+                    + " WHERE rc.CONSTRAINT_SCHEMA = ? GROUP BY rc.TABLE_NAME) f"
+                    + " ON f.TABLE_NAME = t.TABLE_NAME"
+                    + " WHERE t.TABLE_SCHEMA = ?"
+                    + " UNION ALL"
+                    + " SELECT '" + SchemaFingerprints.ROUTINE + "', CONCAT(" + ROUTINE_TYPE + ", ' ', " + ROUTINE_NAME + "),"
+                    + " CONCAT_WS('|', " + ROUTINE_TYPE + ", CREATED, LAST_ALTERED), NULL"
+                    + " FROM information_schema.ROUTINES WHERE " + ROUTINE_SCHEMA + " = ?"
+                    + " UNION ALL"
+                    + " SELECT '" + SchemaFingerprints.TRIGGER + "', " + TRIGGER_NAME + ","
+                    + " CONCAT_WS('|', " + EVENT_OBJECT_TABLE + ", " + ACTION_TIMING + ", " + EVENT_MANIPULATION
+                    + ", CREATED), NULL"
+                    + " FROM information_schema.TRIGGERS WHERE " + TRIGGER_SCHEMA + " = ?";
+
     // --- information_schema.PARAMETERS ---
-    /** %s = escaped schema, %s = IN clause (e.g. 'fn1','fn2') */
+    /** ? = schema, %s = one placeholder per specific name (e.g. ?,?) */
     public static final String SQL_FETCH_PARAMETERS =
             "SELECT " + SPECIFIC_NAME + ", " + PARAMETER_NAME + ", " + DTD_IDENTIFIER + ", " + ORDINAL_POSITION
                     + " FROM information_schema.PARAMETERS"
-                    + " WHERE " + SPECIFIC_SCHEMA + " = '%s'"
+                    + " WHERE " + SPECIFIC_SCHEMA + " = ?"
                     + " AND " + SPECIFIC_NAME + " IN (%s)"
                     + " AND " + ORDINAL_POSITION + " > 0"
                     + " AND " + PARAMETER_NAME + " IS NOT NULL";
 
     // --- Table/View Data Query (with pagination) ---
-    /** %1$s = table/view name, %2$s = offset, %3$s = page size */
+    /** %s = table/view name, ? = page size, ? = offset */
     public static final String SQL_SELECT_TABLE_DATA =
-            "SELECT * FROM %s LIMIT %d OFFSET %d";
+            "SELECT * FROM %s LIMIT ? OFFSET ?";
+
+    /** %1$s = table name, %2$s = order columns; ? = page size, ? = offset */
+    public static final String SQL_SELECT_TABLE_DATA_ORDERED =
+            "SELECT * FROM %s ORDER BY %s LIMIT ? OFFSET ?";
+
+    /** %1$s = table name, %2$s = key columns; ? = page size */
+    public static final String SQL_SELECT_TABLE_DATA_BY_KEY =
+            "SELECT * FROM %s ORDER BY %s LIMIT ?";
+
+    /** %1$s = table name, %2$s = key columns, %3$s = one placeholder per key column; ? = key values..., page size */
+    public static final String SQL_SELECT_TABLE_DATA_AFTER_KEY =
+            "SELECT * FROM %1$s WHERE (%2$s) > (%3$s) ORDER BY %2$s LIMIT ?";
+
+    /**
+     * %1$s = value expression (binary), %2$s = table name, %3$s = key columns, %4$s = one placeholder per key column;
+     * ? = 1-based start, length, key values...
+     */
+    public static final String SQL_SELECT_LOB_RANGE =
+            "SELECT OCTET_LENGTH(%1$s) AS total, SUBSTRING(%1$s, 1, 16) AS head, SUBSTRING(%1$s, ?, ?) AS chunk"
+                    + " FROM %2$s WHERE (%3$s) = (%4$s)";
+
+    /** %s = quoted column; text as UTF-8 bytes so offsets and sizes are in bytes */
+    public static final String SQL_CLOB_AS_UTF8_BYTES = "CAST(CONVERT(%s USING utf8mb4) AS BINARY)";
+
+    /** %s = table/view name. Unbounded, only for streamed reads. */
+    public static final String SQL_SELECT_ALL_TABLE_DATA =
+            "SELECT * FROM %s";
 
     /** %1$s = table/view name */
     public static final String SQL_COUNT_TABLE_DATA =
             "SELECT COUNT(*) AS total FROM %s";
 
+    /** ? = TABLE_SCHEMA, ? = TABLE_NAME. InnoDB estimate, NULL for views. */
+    public static final String SQL_TABLE_ROW_ESTIMATE =
+            "SELECT " + MysqlColumnConstants.TABLE_ROWS + " FROM information_schema.TABLES"
+                    + " WHERE " + MysqlColumnConstants.TABLE_SCHEMA + " = ?"
+                    + " AND " + MysqlColumnConstants.TABLE_NAME + " = ?";
+
+    // --- Optimizer estimates ---
+    /** %s = the statement to explain */
+    public static final String SQL_EXPLAIN = "EXPLAIN %s";
+    /** Query block of a plan row of EXPLAIN; 1 for the outermost one */
+    public static final String EXPLAIN_ID = "id";
+    /** Estimated rows examined, one per plan row of EXPLAIN */
+    public static final String EXPLAIN_ROWS = "rows";
+    /** Estimated percentage of the examined rows left after the table's conditions */
+    public static final String EXPLAIN_FILTERED = "filtered";
+
     private MysqlSqlConstants() {
     }
 }
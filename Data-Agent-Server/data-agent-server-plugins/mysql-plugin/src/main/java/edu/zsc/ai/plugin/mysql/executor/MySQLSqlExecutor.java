@@ -1,11 +1,24 @@
 package edu.zsc.ai.plugin.mysql.executor;
 
 import edu.zsc.ai.plugin.model.command.sql.AbstractSqlExecutor;
+import edu.zsc.ai.plugin.model.command.sql.SqlCommandRequest;
+import edu.zsc.ai.plugin.model.command.sql.SqlScriptSplitter;
+import edu.zsc.ai.plugin.mysql.constant.MysqlSqlConstants;
 import edu.zsc.ai.plugin.mysql.value.MySQLValueProcessor;
+import edu.zsc.ai.plugin.value.ColumnReader;
 import edu.zsc.ai.plugin.value.JdbcValueContext;
 import edu.zsc.ai.plugin.value.ValueProcessor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
+import java.lang.reflect.InvocationTargetException;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 
 /**
  * MySQL-specific SQL executor that handles MySQL data type conversions properly.
@@ -14,14 +27,147 @@ import java.sql.SQLException;
  * <p>Handles special types like BLOB, CLOB, DATE, TIME, TIMESTAMP, JSON, etc.
  * through the factory-based value processor system.
  *
+ * <p>Connector/J buffers the whole result set unless the fetch size is {@link Integer#MIN_VALUE}
+ * (row-by-row streaming) or the connection has {@code useCursorFetch=true} and a positive fetch size
+ * (server-side cursor). Streamed queries use the former unless the request sets its own fetch size.
+ *
  * @author hhz
  */
 public class MySQLSqlExecutor extends AbstractSqlExecutor {
 
+    private static final Logger log = LoggerFactory.getLogger(MySQLSqlExecutor.class);
+
     private static final ValueProcessor VALUE_PROCESSOR = MySQLValueProcessor.INSTANCE;
 
+    /** Seconds the EXPLAIN behind a row estimate may take */
+    private static final int EXPLAIN_TIMEOUT_SECONDS = 2;
+
+    /** Queries returning fewer rows than their plan examines: grouped, aggregated, DISTINCT or UNION */
+    private static final Pattern REDUCING_QUERY = Pattern.compile(
+            "\\b(GROUP\\s+BY|DISTINCT|UNION)\\b|\\b(COUNT|SUM|AVG|MIN|MAX|GROUP_CONCAT|JSON_ARRAYAGG|JSON_OBJECTAGG)\\s*\\(",
+            Pattern.CASE_INSENSITIVE);
+
+    /** {@code LIMIT n}, {@code LIMIT offset, n} or {@code LIMIT n OFFSET m} at the end of a statement */
+    private static final Pattern TRAILING_LIMIT = Pattern.compile(
+            "\\bLIMIT\\s+(\\d+)(?:\\s*,\\s*(\\d+)|\\s+OFFSET\\s+\\d+)?\\s*;?\\s*$", Pattern.CASE_INSENSITIVE);
+
+    /** {@code #} comments, backslash escapes and the mysql client's DELIMITER command */
+    private static final SqlScriptSplitter SCRIPT_SPLITTER = new SqlScriptSplitter(true, true, true);
+
     @Override
     protected Object getJdbcValue(JdbcValueContext context) throws SQLException {
         return VALUE_PROCESSOR.getJdbcValue(context);
     }
+
+    @Override
+    protected ColumnReader createColumnReader(JdbcValueContext context) {
+        return VALUE_PROCESSOR.createColumnReader(context);
+    }
+
+    /**
+     * Cached statements are prepared on the server with Connector/J's {@code serverPrepareStatement}, so they
+     * are parsed once per connection; one-off {@code prepareStatement} calls stay client-side and cost no extra
+     * round trip. The driver is loaded by its own class loader, so the method is looked up reflectively.
+     * Statements the server cannot prepare fall back to client-side preparation.
+     */
+    @Override
+    protected PreparedStatement prepareCachedStatement(Connection connection, String sql) throws SQLException {
+        try {
+            return (PreparedStatement) connection.getClass().getMethod("serverPrepareStatement", String.class)
+                    .invoke(connection, sql);
+        } catch (InvocationTargetException e) {
+            if (!(e.getCause() instanceof SQLException cause)) {
+                throw new SQLException("Failed to prepare statement on the server", e.getCause());
+            }
+            log.debug("Server-side prepare failed, preparing on the client: {}", cause.getMessage());
+        } catch (ReflectiveOperationException e) {
+            log.debug("No server-side prepare on {}, preparing on the client", connection.getClass().getName());
+        }
+        return connection.prepareStatement(sql);
+    }
+
+    @Override
+    protected SqlScriptSplitter getScriptSplitter() {
+        return SCRIPT_SPLITTER;
+    }
+
+    @Override
+    protected int getStreamingFetchSize(SqlCommandRequest command) {
+        return command.getFetchSize() != null ? command.getFetchSize() : Integer.MIN_VALUE;
+    }
+
+    /**
+     * Closing an unfinished streaming result set reads the remaining rows off the wire,
+     * so kill the running query first.
+     */
+    @Override
+    protected void abortStreaming(Statement statement) {
+        try {
+            statement.cancel();
+        } catch (SQLException e) {
+            log.debug("Failed to cancel streaming query: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Rows the optimizer expects the query to return: the product of rows x filtered over the outermost query
+     * block's tables (its nested-loop join), capped by a trailing LIMIT. Grouped, aggregated, DISTINCT and UNION
+     * queries return far fewer rows than they examine and get no estimate, as do statements that cannot be
+     * explained within {@link #EXPLAIN_TIMEOUT_SECONDS}; callers then report only that more rows exist.
+     */
+    @Override
+    protected Long estimateRowCount(Connection connection, SqlCommandRequest command) {
+        String query = command.getExecuteSql();
+        if (REDUCING_QUERY.matcher(query).find()) {
+            return null;
+        }
+        String sql = String.format(MysqlSqlConstants.SQL_EXPLAIN, query);
+        try (Statement statement = connection.createStatement()) {
+            // Runs right after the streamed query was cancelled; never wait long for an estimate
+            statement.setQueryTimeout(EXPLAIN_TIMEOUT_SECONDS);
+            double estimate = 1;
+            boolean any = false;
+            try (ResultSet rs = statement.executeQuery(sql)) {
+                while (rs.next()) {
+                    long id = rs.getLong(MysqlSqlConstants.EXPLAIN_ID);
+                    if (rs.wasNull() || id != 1) {
+                        continue;
+                    }
+                    long rows = rs.getLong(MysqlSqlConstants.EXPLAIN_ROWS);
+                    if (rs.wasNull()) {
+                        // e.g. "Select tables optimized away": nothing to go by
+                        return null;
+                    }
+                    double filtered = rs.getDouble(MysqlSqlConstants.EXPLAIN_FILTERED);
+                    estimate *= rows * (rs.wasNull() ? 100.0 : filtered) / 100.0;
+                    any = true;
+                }
+            }
+            if (!any) {
+                return null;
+            }
+            long rows = estimate >= Long.MAX_VALUE ? Long.MAX_VALUE : Math.round(estimate);
+            Long limit = trailingLimit(query);
+            return limit != null ? Math.min(rows, limit) : rows;
+        } catch (SQLException e) {
+            log.debug("No row estimate for truncated query: {}", e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Row count of the statement's trailing {@code LIMIT n}, {@code LIMIT offset, n} or {@code LIMIT n OFFSET m};
+     * null without one
+     */
+    static Long trailingLimit(String sql) {
+        Matcher matcher = TRAILING_LIMIT.matcher(sql);
+        if (!matcher.find()) {
+            return null;
+        }
+        try {
+            return Long.parseLong(matcher.group(2) != null ? matcher.group(2) : matcher.group(1));
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
 }
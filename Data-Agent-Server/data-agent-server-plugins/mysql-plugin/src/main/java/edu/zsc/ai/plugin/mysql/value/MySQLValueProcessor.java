@@ -1,6 +1,7 @@
 package edu.zsc.ai.plugin.mysql.value;
 
 import edu.zsc.ai.plugin.mysql.value.template.MySQLValueProcessorFactory;
+import edu.zsc.ai.plugin.value.ColumnReader;
 import edu.zsc.ai.plugin.value.DefaultValueProcessor;
 import edu.zsc.ai.plugin.value.JdbcValueContext;
 import org.slf4j.Logger;
@@ -8,7 +9,9 @@ import org.slf4j.LoggerFactory;
 
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.util.EnumSet;
 import java.util.Objects;
+import java.util.Set;
 
 /**
  * MySQL-specific value processor that handles MySQL data type conversions.
@@ -25,6 +28,10 @@ public class MySQLValueProcessor extends DefaultValueProcessor {
 
     private static final Logger log = LoggerFactory.getLogger(MySQLValueProcessor.class);
 
+    /** Types whose invalid values (zero dates) read as NULL but still have a string form */
+    private static final Set<MySQLDataTypeEnum> TEMPORAL_TYPES = EnumSet.of(
+            MySQLDataTypeEnum.DATE, MySQLDataTypeEnum.TIME, MySQLDataTypeEnum.DATETIME, MySQLDataTypeEnum.TIMESTAMP);
+
     @Override
     public Object getJdbcValue(JdbcValueContext context) throws SQLException {
         ResultSet resultSet = context.getResultSet();
@@ -52,6 +59,31 @@ public class MySQLValueProcessor extends DefaultValueProcessor {
         return convertJdbcValueByType(context);
     }
 
+    /**
+     * Resolves the type processor once for the column. Each cell is then read with a single typed getter;
+     * only a NULL date or time is read again as a string, to keep invalid dates like "0000-00-00".
+     */
+    @Override
+    public ColumnReader createColumnReader(JdbcValueContext context) {
+        ResultSet resultSet = context.getResultSet();
+        int columnIndex = context.getColumnIndex();
+        MySQLDataTypeEnum dataType = MySQLValueProcessorFactory.getDataType(context.getColumnTypeName());
+        DefaultValueProcessor typeProcessor = MySQLValueProcessorFactory.getValueProcessor(context.getColumnTypeName());
+        if (Objects.isNull(typeProcessor)) {
+            return () -> resultSet.getString(columnIndex);
+        }
+        boolean temporal = dataType != null && TEMPORAL_TYPES.contains(dataType);
+        return () -> {
+            try {
+                Object value = typeProcessor.convertJdbcValueByType(context);
+                return value == null && temporal ? resultSet.getString(columnIndex) : value;
+            } catch (Exception e) {
+                log.warn("Error using type-specific processor for type: {}", context.getColumnTypeName(), e);
+                return resultSet.getString(columnIndex);
+            }
+        };
+    }
+
     @Override
     public Object convertJdbcValueByType(JdbcValueContext context) throws SQLException {
         try {
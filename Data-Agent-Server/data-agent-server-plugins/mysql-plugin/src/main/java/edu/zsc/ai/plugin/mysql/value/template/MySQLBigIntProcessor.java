@@ -26,7 +26,7 @@ public class MySQLBigIntProcessor extends DefaultValueProcessor {
         }
         
         // Handle UNSIGNED BIGINT
-        if (MySQLValueProcessorFactory.isUnsigned(columnTypeName) && value < 0) {
+        if (value < 0 && MySQLValueProcessorFactory.isUnsigned(columnTypeName)) {
             // For unsigned bigint, we need to use BigInteger
             return Long.toUnsignedString(value);
         }
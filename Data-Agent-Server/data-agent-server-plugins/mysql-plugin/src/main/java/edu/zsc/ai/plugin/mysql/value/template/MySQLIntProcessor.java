@@ -28,7 +28,7 @@ public class MySQLIntProcessor extends DefaultValueProcessor {
         
         // Handle UNSIGNED: MySQL INT UNSIGNED range is 0 to 4294967295
         // JDBC getInt() returns signed int, so large unsigned values may be negative
-        if (MySQLValueProcessorFactory.isUnsigned(columnTypeName) && value < 0) {
+        if (value < 0 && MySQLValueProcessorFactory.isUnsigned(columnTypeName)) {
             // Convert to long for unsigned representation
             return Integer.toUnsignedLong(value);
         }
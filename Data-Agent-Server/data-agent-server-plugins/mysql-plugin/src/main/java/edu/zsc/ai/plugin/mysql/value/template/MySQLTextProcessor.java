@@ -4,16 +4,27 @@ import java.sql.SQLException;
 
 import edu.zsc.ai.plugin.value.DefaultValueProcessor;
 import edu.zsc.ai.plugin.value.JdbcValueContext;
+import edu.zsc.ai.plugin.value.LobHandle;
 
 /**
  * Processor for MySQL TEXT types (TEXT, TINYTEXT, MEDIUMTEXT, LONGTEXT).
+ * On table data pages, values longer than {@link #INLINE_MAX_CHARS} are returned as a {@link LobHandle} with
+ * a preview; other results have no row locator to fetch the rest by, so text is always returned inline there.
  *
  * @author hhz
  * @date 2025-11-15
  */
 public class MySQLTextProcessor extends DefaultValueProcessor {
+
+    /** Longest text returned inline in the row */
+    public static final int INLINE_MAX_CHARS = 16 * 1024;
+
     @Override
     public Object convertJdbcValueByType(JdbcValueContext context) throws SQLException {
-        return context.getResultSet().getString(context.getColumnIndex());
+        String text = context.getResultSet().getString(context.getColumnIndex());
+        if (text == null || text.length() <= INLINE_MAX_CHARS || !context.isLobHandles()) {
+            return text;
+        }
+        return LobHandle.ofText(text);
     }
 }
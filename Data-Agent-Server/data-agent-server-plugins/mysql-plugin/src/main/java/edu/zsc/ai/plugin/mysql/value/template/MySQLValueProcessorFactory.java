@@ -88,14 +88,21 @@ public class MySQLValueProcessorFactory {
      * @return the processor, or null if no specific processor is registered
      */
     public static DefaultValueProcessor getValueProcessor(String columnTypeName) {
+        MySQLDataTypeEnum dataType = getDataType(columnTypeName);
+        return dataType != null ? PROCESSOR_MAP.get(dataType) : null;
+    }
+
+    /**
+     * Resolve the MySQL type of a column type name, ignoring attributes such as UNSIGNED.
+     *
+     * @param columnTypeName the MySQL column type name (e.g., "INT UNSIGNED")
+     * @return the data type, or null if unknown
+     */
+    public static MySQLDataTypeEnum getDataType(String columnTypeName) {
         if (columnTypeName == null || columnTypeName.isEmpty()) {
             return null;
         }
-
-        String baseTypeName = extractBaseTypeName(columnTypeName);
-        
-        MySQLDataTypeEnum dataType = MySQLDataTypeEnum.fromTypeName(baseTypeName);
-        return dataType != null ? PROCESSOR_MAP.get(dataType) : null;
+        return MySQLDataTypeEnum.fromTypeName(extractBaseTypeName(columnTypeName));
     }
 
     /**
@@ -0,0 +1,25 @@
+package edu.zsc.ai.plugin.mysql.connection;
+
+import edu.zsc.ai.plugin.connection.ConnectionConfig;
+import org.junit.jupiter.api.Test;
+
+import java.util.Properties;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for MysqlJdbcConnectionBuilder.
+ */
+class MysqlJdbcConnectionBuilderTest {
+
+    @Test
+    void testBuildProperties_BatchesStopAtFirstError() {
+        ConnectionConfig config = new ConnectionConfig();
+        config.setHost("localhost");
+        config.addProperty("continueBatchOnError", "true");
+
+        Properties props = new MysqlJdbcConnectionBuilder().buildProperties(config);
+
+        assertEquals("false", props.getProperty("continueBatchOnError"));
+    }
+}
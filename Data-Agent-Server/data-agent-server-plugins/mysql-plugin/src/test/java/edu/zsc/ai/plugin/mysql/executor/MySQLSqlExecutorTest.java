@@ -0,0 +1,25 @@
+package edu.zsc.ai.plugin.mysql.executor;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for MySQLSqlExecutor.
+ */
+class MySQLSqlExecutorTest {
+
+    @Test
+    void testTrailingLimit_ReadsRowCountOfEachForm() {
+        assertEquals(1000L, MySQLSqlExecutor.trailingLimit("SELECT * FROM orders LIMIT 1000"));
+        assertEquals(50L, MySQLSqlExecutor.trailingLimit("SELECT * FROM orders LIMIT 200, 50;"));
+        assertEquals(50L, MySQLSqlExecutor.trailingLimit("select * from orders limit 50 offset 200"));
+    }
+
+    @Test
+    void testTrailingLimit_IgnoresLimitOfSubquery() {
+        assertNull(MySQLSqlExecutor.trailingLimit("SELECT * FROM orders"));
+        assertNull(MySQLSqlExecutor.trailingLimit(
+                "SELECT * FROM (SELECT id FROM orders LIMIT 10) o JOIN items i ON i.order_id = o.id"));
+    }
+}